@@ -0,0 +1,108 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.storage.datastructures.RankedBitVector;
+import org.wikidata.wdtk.storage.datastructures.RankedBitVectorImpl;
+
+/**
+ * Measures rank ({@link RankedBitVector#countBits(boolean, long)}) and select
+ * ({@link RankedBitVector#findPosition(boolean, long)}) on a bit vector with
+ * as many bits as there are item ids on Wikidata, at random positions.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitVectorBenchmark {
+
+	static final int SIZE = 1 << 27;
+
+	static final int QUERIES = 1 << 12;
+
+	/**
+	 * Percentage of bits that are set.
+	 */
+	@Param({ "5", "50" })
+	public int density;
+
+	RankedBitVectorImpl bitVector;
+	long[] positions;
+	long[] occurrences;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		this.bitVector = new RankedBitVectorImpl(SIZE);
+		for (long i = 0; i < SIZE; i++) {
+			if (random.nextInt(100) < this.density) {
+				this.bitVector.setBit(i, true);
+			}
+		}
+
+		long count = this.bitVector.countBits(true, SIZE - 1);
+		this.positions = new long[QUERIES];
+		this.occurrences = new long[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			this.positions[i] = (long) (random.nextDouble() * SIZE);
+			this.occurrences[i] = 1 + (long) (random.nextDouble() * count);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public long rank() {
+		long result = 0;
+		for (long position : this.positions) {
+			result += this.bitVector.countBits(true, position);
+		}
+		return result;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public long select() {
+		long result = 0;
+		for (long nOccurrence : this.occurrences) {
+			result += this.bitVector.findPosition(true, nOccurrence);
+		}
+		return result;
+	}
+
+}
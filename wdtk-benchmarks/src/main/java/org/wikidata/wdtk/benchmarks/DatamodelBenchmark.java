@@ -0,0 +1,94 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelFilter;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+
+/**
+ * Measures copying and filtering entities with {@link DatamodelConverter} and
+ * {@link DatamodelFilter}, as done for the filters of the dump processing
+ * controller.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatamodelBenchmark {
+
+	@Param({ Fixtures.SMALL_ITEM, Fixtures.LARGE_ITEM })
+	public String fixture;
+
+	ItemDocument item;
+	DatamodelConverter converter;
+	DatamodelFilter filter;
+
+	@Setup
+	public void setUp() {
+		this.item = Fixtures.getItem(this.fixture);
+		this.converter = new DatamodelConverter(new DataObjectFactoryImpl());
+
+		DocumentDataFilter documentDataFilter = new DocumentDataFilter();
+		documentDataFilter.setLanguageFilter(new HashSet<>(Arrays.asList(
+				"en", "de", "fr")));
+		documentDataFilter.setSiteLinkFilter(new HashSet<>(Arrays.asList(
+				"enwiki", "dewiki")));
+		documentDataFilter.setPropertyFilter(new HashSet<>(Arrays.asList(
+				Datamodel.makeWikidataPropertyIdValue("P31"),
+				Datamodel.makeWikidataPropertyIdValue("P569"),
+				Datamodel.makeWikidataPropertyIdValue("P625"))));
+		this.filter = new DatamodelFilter(new DataObjectFactoryImpl(),
+				documentDataFilter);
+	}
+
+	@Benchmark
+	public ItemDocument copy() {
+		return this.converter.copy(this.item);
+	}
+
+	@Benchmark
+	public ItemDocument filter() {
+		return this.filter.filter(this.item);
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.JsonDeserializer;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+
+/**
+ * Access to the synthetic data that the benchmarks work on. The data is
+ * stored as resources of this module, so that benchmarks do not need network
+ * access and always measure the same input.
+ *
+ */
+public class Fixtures {
+
+	/**
+	 * Item with a few terms and statements, similar to most items on
+	 * Wikidata.
+	 */
+	public static final String SMALL_ITEM = "small-item.json";
+
+	/**
+	 * Item with terms in 120 languages and several hundred statements with
+	 * qualifiers and references, similar to the largest items on Wikidata.
+	 */
+	public static final String LARGE_ITEM = "large-item.json";
+
+	static final JsonDeserializer deserializer = new JsonDeserializer(
+			Datamodel.SITE_WIKIDATA);
+
+	/**
+	 * Returns the JSON of the given fixture.
+	 *
+	 * @param fixture
+	 *            the name of the fixture, e.g., {@link #SMALL_ITEM}
+	 * @return the JSON serialization of the entity
+	 */
+	public static String getJson(String fixture) {
+		try (InputStream in = Fixtures.class.getResourceAsStream("/"
+				+ fixture)) {
+			if (in == null) {
+				throw new IllegalArgumentException("Unknown fixture \""
+						+ fixture + "\".");
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int length;
+			while ((length = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, length);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Returns the item of the given fixture.
+	 *
+	 * @param fixture
+	 *            the name of the fixture, e.g., {@link #SMALL_ITEM}
+	 * @return the deserialized item
+	 */
+	public static ItemDocument getItem(String fixture) {
+		try {
+			return deserializer.deserializeItemDocument(getJson(fixture));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,126 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.implementation.SitesImpl;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.rdf.PropertyRegister;
+import org.wikidata.wdtk.rdf.RdfConverter;
+import org.wikidata.wdtk.rdf.RdfSerializer;
+import org.wikidata.wdtk.rdf.RdfWriter;
+import org.wikidata.wdtk.wikibaseapi.BasicApiConnection;
+
+/**
+ * Measures the conversion of one entity to RDF with {@link RdfConverter}, as
+ * done for every entity when exporting a dump to RDF. The triples are written
+ * in N-Triples to an output that discards them.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RdfConverterBenchmark {
+
+	/**
+	 * Property register that never asks the web API for property data. The
+	 * converter then takes the datatypes of properties from their values.
+	 */
+	static class OfflinePropertyRegister extends PropertyRegister {
+
+		OfflinePropertyRegister() {
+			super("P1921", BasicApiConnection.getWikidataApiConnection(),
+					Datamodel.SITE_WIKIDATA);
+		}
+
+		@Override
+		protected void fetchPropertyInformation(PropertyIdValue property) {
+			// stay offline
+		}
+	}
+
+	/**
+	 * Output stream that discards all data.
+	 */
+	static class NullOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			// discard
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			// discard
+		}
+	}
+
+	@Param({ Fixtures.SMALL_ITEM, Fixtures.LARGE_ITEM })
+	public String fixture;
+
+	ItemDocument item;
+	RdfWriter rdfWriter;
+	RdfConverter rdfConverter;
+
+	@Setup
+	public void setUp() {
+		this.item = Fixtures.getItem(this.fixture);
+		this.rdfWriter = new RdfWriter(RDFFormat.NTRIPLES,
+				new NullOutputStream());
+		this.rdfConverter = new RdfConverter(this.rdfWriter, new SitesImpl(),
+				new OfflinePropertyRegister());
+		this.rdfConverter.setTasks(RdfSerializer.TASK_ALL_ENTITIES
+				| RdfSerializer.TASK_ALL_EXACT_DATA);
+		this.rdfWriter.start();
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.rdfWriter.finish();
+	}
+
+	@Benchmark
+	public long convertItem() {
+		this.rdfConverter.writeItemDocument(this.item);
+		return this.rdfWriter.getTripleCount();
+	}
+
+}
@@ -0,0 +1,97 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelConverter;
+import org.wikidata.wdtk.datamodel.helpers.Equality;
+import org.wikidata.wdtk.datamodel.helpers.Hash;
+import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+
+/**
+ * Measures {@link Equality} and {@link Hash} on all statements of the large
+ * fixture. Statements are compared with copies of themselves, so every
+ * comparison has to look at the whole statement.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementEqualityBenchmark {
+
+	List<Statement> statements;
+	List<Statement> copies;
+
+	@Setup
+	public void setUp() {
+		DatamodelConverter converter = new DatamodelConverter(
+				new DataObjectFactoryImpl());
+		this.statements = new ArrayList<>();
+		this.copies = new ArrayList<>();
+		Iterator<Statement> iterator = Fixtures.getItem(Fixtures.LARGE_ITEM)
+				.getAllStatements();
+		while (iterator.hasNext()) {
+			Statement statement = iterator.next();
+			this.statements.add(statement);
+			this.copies.add(converter.copy(statement));
+		}
+	}
+
+	@Benchmark
+	public int hashStatements() {
+		int result = 0;
+		for (Statement statement : this.statements) {
+			result += Hash.hashCode(statement);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public int compareStatements() {
+		int result = 0;
+		for (int i = 0; i < this.statements.size(); i++) {
+			if (Equality.equalsStatement(this.statements.get(i),
+					this.copies.get(i))) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+}
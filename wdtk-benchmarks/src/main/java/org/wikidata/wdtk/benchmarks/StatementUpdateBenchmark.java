@@ -0,0 +1,127 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.ReferenceBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.wikibaseapi.StatementUpdate;
+
+/**
+ * Measures planning a {@link StatementUpdate} on a synthetic item with many
+ * statements for one property, as found on items with many parts or
+ * external identifiers. A tenth of the statements is deleted, another tenth
+ * is added again with a new reference so that it is merged, and some new
+ * statements are added.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementUpdateBenchmark {
+
+	static final int NEW_STATEMENTS = 100;
+
+	/**
+	 * Number of statements of the item.
+	 */
+	@Param({ "100", "1000", "10000" })
+	public int size;
+
+	ItemDocument item;
+	List<Statement> addStatements;
+	List<Statement> deleteStatements;
+
+	@Setup
+	public void setUp() {
+		ItemIdValue subject = Datamodel.makeWikidataItemIdValue("Q42");
+		PropertyIdValue property = Datamodel.makeWikidataPropertyIdValue("P527");
+		Reference reference = ReferenceBuilder.newInstance()
+				.withPropertyValue(
+						Datamodel.makeWikidataPropertyIdValue("P143"),
+						Datamodel.makeWikidataItemIdValue("Q328")).build();
+
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(subject);
+		this.addStatements = new ArrayList<>();
+		this.deleteStatements = new ArrayList<>();
+		for (int i = 0; i < this.size; i++) {
+			ItemIdValue value = Datamodel.makeWikidataItemIdValue("Q"
+					+ (1000 + i));
+			Statement statement = StatementBuilder
+					.forSubjectAndProperty(subject, property).withValue(value)
+					.withId("Q42$" + i).build();
+			builder.withStatement(statement);
+			if (i % 10 == 0) {
+				this.deleteStatements.add(statement);
+			} else if (i % 10 == 1) {
+				this.addStatements.add(StatementBuilder
+						.forSubjectAndProperty(subject, property)
+						.withValue(value).withReference(reference).build());
+			}
+		}
+		for (int i = 0; i < NEW_STATEMENTS; i++) {
+			this.addStatements.add(StatementBuilder
+					.forSubjectAndProperty(subject, property)
+					.withValue(Datamodel.makeWikidataItemIdValue("Q"
+							+ (1000 + this.size + i))).build());
+		}
+		this.item = builder.build();
+	}
+
+	@Benchmark
+	public int addAndDelete() {
+		return new StatementUpdate(this.item, this.addStatements,
+				this.deleteStatements).getUpdatedStatements().size();
+	}
+
+	@Benchmark
+	public int nullEdit() {
+		return new StatementUpdate(this.item, this.addStatements
+				.subList(0, this.addStatements.size() - NEW_STATEMENTS),
+				Collections.emptyList()).getUpdatedStatements().size();
+	}
+
+}
@@ -0,0 +1,141 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.GlobeCoordinatesValue;
+import org.wikidata.wdtk.datamodel.interfaces.QuantityValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.TimeValue;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+import org.wikidata.wdtk.rdf.Vocabulary;
+
+/**
+ * Measures the computation of the hash-based IRIs of {@link Vocabulary} for
+ * the statements, references and complex values of the large fixture. The
+ * references are copied without their hashes, so their IRIs have to be
+ * computed from their content as for data that did not come from a dump.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VocabularyBenchmark {
+
+	List<Statement> statements;
+	List<Reference> references;
+	List<TimeValue> timeValues;
+	List<QuantityValue> quantityValues;
+	List<GlobeCoordinatesValue> globeCoordinatesValues;
+
+	@Setup
+	public void setUp() {
+		this.statements = new ArrayList<>();
+		this.references = new ArrayList<>();
+		this.timeValues = new ArrayList<>();
+		this.quantityValues = new ArrayList<>();
+		this.globeCoordinatesValues = new ArrayList<>();
+
+		Iterator<Statement> iterator = Fixtures.getItem(Fixtures.LARGE_ITEM)
+				.getAllStatements();
+		while (iterator.hasNext()) {
+			Statement statement = iterator.next();
+			this.statements.add(statement);
+			addValue(statement.getValue());
+			for (Reference reference : statement.getReferences()) {
+				this.references.add(Datamodel.makeReference(reference
+						.getSnakGroups()));
+				Iterator<Snak> snaks = reference.getAllSnaks();
+				while (snaks.hasNext()) {
+					Snak snak = snaks.next();
+					if (snak instanceof ValueSnak) {
+						addValue(((ValueSnak) snak).getValue());
+					}
+				}
+			}
+		}
+	}
+
+	void addValue(Value value) {
+		if (value instanceof TimeValue) {
+			this.timeValues.add((TimeValue) value);
+		} else if (value instanceof QuantityValue) {
+			this.quantityValues.add((QuantityValue) value);
+		} else if (value instanceof GlobeCoordinatesValue) {
+			this.globeCoordinatesValues.add((GlobeCoordinatesValue) value);
+		}
+	}
+
+	@Benchmark
+	public int statementUris() {
+		int result = 0;
+		for (Statement statement : this.statements) {
+			result += Vocabulary.getStatementUri(statement).length();
+		}
+		return result;
+	}
+
+	@Benchmark
+	public int referenceUris() {
+		int result = 0;
+		for (Reference reference : this.references) {
+			result += Vocabulary.getReferenceUri(reference).length();
+		}
+		return result;
+	}
+
+	@Benchmark
+	public int valueUris() {
+		int result = 0;
+		for (TimeValue value : this.timeValues) {
+			result += Vocabulary.getTimeValueUri(value).length();
+		}
+		for (QuantityValue value : this.quantityValues) {
+			result += Vocabulary.getQuantityValueUri(value).length();
+		}
+		for (GlobeCoordinatesValue value : this.globeCoordinatesValues) {
+			result += Vocabulary.getGlobeCoordinatesValueUri(value).length();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.wikidata.wdtk.benchmarks;
+
+/*
+ * #%L
+ * Wikidata Toolkit Benchmarks
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.testing.MockWikibaseApiServer;
+import org.wikidata.wdtk.testing.SyntheticDumpGenerator;
+import org.wikidata.wdtk.wikibaseapi.BasicApiConnection;
+import org.wikidata.wdtk.wikibaseapi.WikibaseDataEditor;
+import org.wikidata.wdtk.wikibaseapi.WikibaseDataFetcher;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+
+/**
+ * Measures the throughput of {@link WikibaseDataFetcher} and
+ * {@link WikibaseDataEditor} against a {@link MockWikibaseApiServer} with
+ * synthetic items, so that the HTTP and JSON handling of the API code can
+ * be measured without a real wiki. The latency of the server simulates the
+ * time that a wiki needs to answer.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WikibaseApiBenchmark {
+
+	static final int ITEM_COUNT = 1000;
+
+	static final int BATCH_SIZE = 50;
+
+	/**
+	 * Time in milliseconds that the server waits before answering.
+	 */
+	@Param({ "0", "20" })
+	public int latency;
+
+	MockWikibaseApiServer server;
+	WikibaseDataFetcher fetcher;
+	WikibaseDataEditor editor;
+	final AtomicLong editCount = new AtomicLong();
+
+	@Setup
+	public void setUp() throws IOException {
+		SyntheticDumpGenerator generator = new SyntheticDumpGenerator(42);
+		generator.setItemCount(ITEM_COUNT);
+		generator.setPropertyCount(50);
+		generator.setLexemeCount(0);
+		generator.setMediaInfoCount(0);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.writeJsonDump(out);
+
+		this.server = new MockWikibaseApiServer(16);
+		this.server.loadJsonDump(new ByteArrayInputStream(out.toByteArray()));
+		this.server.setLatency(this.latency);
+		this.server.start();
+
+		BasicApiConnection connection = new BasicApiConnection(
+				this.server.getApiUrl());
+		this.fetcher = new WikibaseDataFetcher(connection,
+				Datamodel.SITE_WIKIDATA);
+		this.editor = new WikibaseDataEditor(connection,
+				Datamodel.SITE_WIKIDATA);
+		this.editor.setEditAsBot(false);
+		this.editor.setAverageTimePerEdit(0);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.server.close();
+	}
+
+	@Benchmark
+	@Threads(4)
+	public int fetchEntities() throws MediaWikiApiErrorException, IOException {
+		int first = ThreadLocalRandom.current().nextInt(ITEM_COUNT - BATCH_SIZE) + 1;
+		List<String> ids = new ArrayList<>(BATCH_SIZE);
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			ids.add("Q" + (first + i));
+		}
+		return this.fetcher.getEntityDocuments(ids).size();
+	}
+
+	/**
+	 * Changes a label of a random item. Edits run on one thread, since
+	 * concurrent edits of the same item would cause edit conflicts.
+	 */
+	@Benchmark
+	public ItemDocument editLabel() throws MediaWikiApiErrorException,
+			IOException {
+		return this.editor.updateTermsStatements(
+				Datamodel.makeWikidataItemIdValue("Q"
+						+ (ThreadLocalRandom.current().nextInt(ITEM_COUNT) + 1)),
+				Collections.singletonList(Datamodel.makeMonolingualTextValue(
+						"Benchmark label " + this.editCount.incrementAndGet(), "en")),
+				Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), Collections.emptyList(),
+				Collections.emptyList(), "Benchmark edit",
+				Collections.emptyList());
+	}
+
+}
@@ -1,6 +1,7 @@
 package org.wikidata.wdtk.datamodel.helpers;
 
 import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
+import org.wikidata.wdtk.datamodel.implementation.ImmutableArrayList;
 
 /*
  * #%L
@@ -22,10 +23,24 @@ import org.wikidata.wdtk.datamodel.implementation.DataObjectFactoryImpl;
  * #L%
  */
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.wikidata.wdtk.datamodel.interfaces.DataObjectFactory;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 
 /**
  * Abstract base class for all builder objects that create data model objects.
+ * <p>
+ * Each builder builds one object, unless it is reset after building. A builder
+ * that is reset keeps its internal lists and maps, so code that builds large
+ * numbers of similar objects, e.g., to compare candidate statements with
+ * existing data, can use the same builder over and over without allocating
+ * new collections every time. Built objects never share collections with the
+ * builder: the collections are copied into compact immutable lists when the
+ * object is built.
  *
  * @author Markus Kroetzsch
  *
@@ -40,6 +55,12 @@ public abstract class AbstractDataObjectBuilder<T extends AbstractDataObjectBuil
 
 	private boolean isBuilt = false;
 
+	/**
+	 * Lists of groups that were emptied when the builder was reset, and that
+	 * can be used again for other groups.
+	 */
+	private final ArrayDeque<ArrayList<?>> spareLists = new ArrayDeque<>();
+
 	/**
 	 * Returns the object that has been built.
 	 *
@@ -63,6 +84,65 @@ public abstract class AbstractDataObjectBuilder<T extends AbstractDataObjectBuil
 		this.isBuilt = true;
 	}
 
+	/**
+	 * Records that the builder can build another object. Subclasses call this
+	 * when they are reset.
+	 */
+	protected void prepareReset() {
+		this.isBuilt = false;
+	}
+
+	/**
+	 * Returns the list for the given property in the given map of groups,
+	 * adding an empty list if there is none yet. Lists that were emptied by
+	 * {@link #clearGroups(Map)} are used again.
+	 *
+	 * @param groups
+	 *            the map of groups
+	 * @param property
+	 *            the property of the group
+	 * @return the list of the group
+	 */
+	@SuppressWarnings("unchecked")
+	protected <E> ArrayList<E> getGroupList(
+			Map<PropertyIdValue, ArrayList<E>> groups, PropertyIdValue property) {
+		ArrayList<E> list = groups.get(property);
+		if (list == null) {
+			list = this.spareLists.isEmpty() ? new ArrayList<>()
+					: (ArrayList<E>) this.spareLists.poll();
+			groups.put(property, list);
+		}
+		return list;
+	}
+
+	/**
+	 * Removes all groups from the given map, keeping their lists for later
+	 * use by {@link #getGroupList(Map, PropertyIdValue)}.
+	 *
+	 * @param groups
+	 *            the map of groups
+	 */
+	protected <E> void clearGroups(Map<PropertyIdValue, ArrayList<E>> groups) {
+		for (ArrayList<E> list : groups.values()) {
+			list.clear();
+			this.spareLists.push(list);
+		}
+		groups.clear();
+	}
+
+	/**
+	 * Returns an immutable copy of the given list that is backed by an array
+	 * of exactly the right size. Empty lists are replaced by the shared empty
+	 * list.
+	 *
+	 * @param list
+	 *            the list to copy
+	 * @return the immutable copy
+	 */
+	protected static <E> List<E> freeze(List<? extends E> list) {
+		return ImmutableArrayList.copyOf(list);
+	}
+
 	/**
 	 * Returns the current object with the correct builder type.
 	 *
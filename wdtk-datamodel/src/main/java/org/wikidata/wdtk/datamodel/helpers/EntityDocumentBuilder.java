@@ -198,12 +198,8 @@ public abstract class EntityDocumentBuilder<T extends EntityDocumentBuilder<T, O
 	 * @return builder object to continue construction
 	 */
 	public T withStatement(Statement statement) {
-		PropertyIdValue pid = statement.getMainSnak().getPropertyId();
-		if(!statements.containsKey(pid)) {
-			statements.put(pid, new ArrayList<>());
-		}
-		ArrayList<Statement> pidStatements = statements.get(pid);
-		pidStatements.add(statement);
+		getGroupList(this.statements,
+				statement.getMainSnak().getPropertyId()).add(statement);
 		return getThis();
 	}
 
@@ -217,9 +213,27 @@ public abstract class EntityDocumentBuilder<T extends EntityDocumentBuilder<T, O
 		ArrayList<StatementGroup> result = new ArrayList<>(
 				this.statements.size());
 		for (ArrayList<Statement> statementList : this.statements.values()) {
-			result.add(factory.getStatementGroup(statementList));
+			result.add(factory.getStatementGroup(freeze(statementList)));
 		}
 		return result;
 	}
 
+	/**
+	 * Removes all data from the builder, so that it can be used to build a
+	 * new document with the given id. The collections of the builder are kept
+	 * for the new document.
+	 *
+	 * @param entityIdValue
+	 *            the id of the next document
+	 */
+	protected void clear(EntityIdValue entityIdValue) {
+		prepareReset();
+		this.entityIdValue = entityIdValue;
+		this.labels.clear();
+		this.descriptions.clear();
+		this.aliases.clear();
+		clearGroups(this.statements);
+		this.revisionId = 0;
+	}
+
 }
@@ -0,0 +1,488 @@
+package org.wikidata.wdtk.datamodel.helpers;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+
+import org.wikidata.wdtk.datamodel.implementation.StatementImpl;
+import org.wikidata.wdtk.datamodel.interfaces.*;
+
+/**
+ * Stable 128-bit digest of the content of a statement, claim, reference or
+ * snak. Two objects that are equal have the same fingerprint, so objects with
+ * different fingerprints can be told apart without comparing them. This makes
+ * it possible to match large numbers of statements with hash tables keyed by
+ * fingerprint instead of comparing them pairwise.
+ * <p>
+ * Fingerprints are computed from the interfaces only, so they are the same
+ * for all implementations, and they do not depend on the JVM or on
+ * {@link Object#hashCode()}. They are not affected by the order of qualifiers,
+ * of the snaks of a reference, or of the references of a statement. The
+ * fingerprint of a statement covers its claim and references, but not its
+ * rank and statement id. Statements that are merged by a statement update
+ * because they have the same claim therefore have the same claim fingerprint.
+ * <p>
+ * Fingerprints of {@link StatementImpl} objects are computed once and then
+ * kept with the statement.
+ *
+ */
+public final class Fingerprint {
+
+	static final long TAG_STATEMENT = 1;
+	static final long TAG_CLAIM = 2;
+	static final long TAG_REFERENCE = 3;
+	static final long TAG_VALUE_SNAK = 4;
+	static final long TAG_SOME_VALUE_SNAK = 5;
+	static final long TAG_NO_VALUE_SNAK = 6;
+	static final long TAG_ENTITY_ID = 7;
+	static final long TAG_GLOBE_COORDINATES = 8;
+	static final long TAG_MONOLINGUAL_TEXT = 9;
+	static final long TAG_QUANTITY = 10;
+	static final long TAG_STRING = 11;
+	static final long TAG_TIME = 12;
+	static final long TAG_UNSUPPORTED = 13;
+	static final long TAG_NULL = 14;
+
+	final long high;
+	final long low;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param high
+	 *            the most significant 64 bits of the fingerprint
+	 * @param low
+	 *            the least significant 64 bits of the fingerprint
+	 */
+	public Fingerprint(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	/**
+	 * Returns the fingerprint of the claim and references of the given
+	 * statement. The fingerprint is taken from the statement if it has been
+	 * computed before.
+	 *
+	 * @param statement
+	 *            the statement
+	 * @return the fingerprint
+	 */
+	public static Fingerprint of(Statement statement) {
+		if (statement instanceof StatementImpl) {
+			return ((StatementImpl) statement).getFingerprint();
+		}
+		return compute(statement);
+	}
+
+	/**
+	 * Computes the fingerprint of the claim and references of the given
+	 * statement, without using or storing any cached fingerprint.
+	 *
+	 * @param statement
+	 *            the statement
+	 * @return the fingerprint
+	 */
+	public static Fingerprint compute(Statement statement) {
+		Digester digester = new Digester();
+		Digest digest = digester.levels[0];
+		digest.add(TAG_STATEMENT);
+		digester.addClaim(digest, statement.getSubject(),
+				statement.getMainSnak(), statement.getAllQualifiers());
+		digester.addReferences(digest, statement.getReferences());
+		return digest.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of the given claim.
+	 *
+	 * @param claim
+	 *            the claim
+	 * @return the fingerprint
+	 */
+	public static Fingerprint of(Claim claim) {
+		Digester digester = new Digester();
+		Digest digest = digester.levels[0];
+		digester.addClaim(digest, claim.getSubject(), claim.getMainSnak(),
+				claim.getAllQualifiers());
+		return digest.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of the main snak and the qualifiers of the
+	 * given claim, without its subject. Claims with the same main snak and the
+	 * same qualifiers in any order have the same fingerprint, so it can be
+	 * used to find statements that a statement update would merge.
+	 *
+	 * @param claim
+	 *            the claim
+	 * @return the fingerprint
+	 */
+	public static Fingerprint ofSnaks(Claim claim) {
+		Digester digester = new Digester();
+		Digest digest = digester.levels[0];
+		digest.addSnak(claim.getMainSnak());
+		Digester.addSnakSet(digest, digester.levels[1],
+				claim.getAllQualifiers());
+		return digest.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of the given reference. It does not depend on
+	 * the order of the snaks in the reference.
+	 *
+	 * @param reference
+	 *            the reference
+	 * @return the fingerprint
+	 */
+	public static Fingerprint of(Reference reference) {
+		Digester digester = new Digester();
+		Digest digest = digester.levels[0];
+		digester.addReference(digest, reference);
+		return digest.finish();
+	}
+
+	/**
+	 * Computes the fingerprint of the given snak.
+	 *
+	 * @param snak
+	 *            the snak
+	 * @return the fingerprint
+	 */
+	public static Fingerprint of(Snak snak) {
+		Digest digest = new Digest();
+		digest.addSnak(snak);
+		return digest.finish();
+	}
+
+	/**
+	 * Returns the most significant 64 bits of this fingerprint.
+	 *
+	 * @return the high bits
+	 */
+	public long getHigh() {
+		return this.high;
+	}
+
+	/**
+	 * Returns the least significant 64 bits of this fingerprint.
+	 *
+	 * @return the low bits
+	 */
+	public long getLow() {
+		return this.low;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (this.low ^ (this.low >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Fingerprint)) {
+			return false;
+		}
+		Fingerprint other = (Fingerprint) obj;
+		return this.high == other.high && this.low == other.low;
+	}
+
+	/**
+	 * Returns the fingerprint as 32 hexadecimal digits.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", this.high, this.low);
+	}
+
+	/**
+	 * Spreads the bits of a 64 bit value, using the finalization step
+	 * (fmix64) of MurmurHash3. This is the mixing function used to compute
+	 * fingerprints. It is a bijection, so distinct values remain distinct.
+	 *
+	 * @param k
+	 *            the value to mix
+	 * @return the mixed value
+	 */
+	public static long mix(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+
+	/**
+	 * Combines digests of nested parts. Unordered parts, such as the
+	 * qualifiers of a claim, are digested one by one at the next level, and
+	 * the sum of their digests is added to the enclosing digest.
+	 */
+	static class Digester {
+
+		final Digest[] levels = { new Digest(), new Digest(), new Digest() };
+
+		void addClaim(Digest digest, EntityIdValue subject, Snak mainSnak,
+				Iterator<Snak> qualifiers) {
+			digest.add(TAG_CLAIM);
+			digest.addValue(subject);
+			digest.addSnak(mainSnak);
+			addSnakSet(digest, this.levels[1], qualifiers);
+		}
+
+		void addReferences(Digest digest, Iterable<? extends Reference> references) {
+			Digest referenceDigest = this.levels[1];
+			long count = 0;
+			long sumHigh = 0;
+			long sumLow = 0;
+			for (Reference reference : references) {
+				referenceDigest.reset();
+				addReference(referenceDigest, reference);
+				referenceDigest.finishInPlace();
+				sumHigh += referenceDigest.resultHigh;
+				sumLow += referenceDigest.resultLow;
+				count++;
+			}
+			digest.add(count);
+			digest.add(sumHigh);
+			digest.add(sumLow);
+		}
+
+		void addReference(Digest digest, Reference reference) {
+			digest.add(TAG_REFERENCE);
+			Digest snakDigest = digest == this.levels[0] ? this.levels[1]
+					: this.levels[2];
+			addSnakSet(digest, snakDigest, reference.getAllSnaks());
+		}
+
+		static void addSnakSet(Digest digest, Digest snakDigest,
+				Iterator<Snak> snaks) {
+			long count = 0;
+			long sumHigh = 0;
+			long sumLow = 0;
+			while (snaks.hasNext()) {
+				snakDigest.reset();
+				snakDigest.addSnak(snaks.next());
+				snakDigest.finishInPlace();
+				sumHigh += snakDigest.resultHigh;
+				sumLow += snakDigest.resultLow;
+				count++;
+			}
+			digest.add(count);
+			digest.add(sumHigh);
+			digest.add(sumLow);
+		}
+	}
+
+	/**
+	 * Streaming 128-bit hash of a sequence of longs, with a mixing function
+	 * similar to the one of MurmurHash3. Strings and other data are broken
+	 * down into longs.
+	 */
+	static class Digest implements SnakVisitor<Void>, ValueVisitor<Void> {
+
+		static final long C1 = 0x87c37b91114253d5L;
+		static final long C2 = 0x4cf5ad432745937fL;
+
+		long h1;
+		long h2;
+		long length;
+
+		long resultHigh;
+		long resultLow;
+
+		void reset() {
+			this.h1 = 0;
+			this.h2 = 0;
+			this.length = 0;
+		}
+
+		void add(long k) {
+			long k1 = Long.rotateLeft(k * C1, 31) * C2;
+			this.h1 ^= k1;
+			this.h1 = Long.rotateLeft(this.h1, 27) + this.h2;
+			this.h1 = this.h1 * 5 + 0x52dce729;
+
+			long k2 = Long.rotateLeft(k * C2, 33) * C1;
+			this.h2 ^= k2;
+			this.h2 = Long.rotateLeft(this.h2, 31) + this.h1;
+			this.h2 = this.h2 * 5 + 0x38495ab5;
+
+			this.length++;
+		}
+
+		void add(String string) {
+			if (string == null) {
+				add(TAG_NULL);
+				return;
+			}
+			int length = string.length();
+			add(length);
+			long word = 0;
+			for (int i = 0; i < length; i++) {
+				word = (word << 16) | string.charAt(i);
+				if ((i & 3) == 3) {
+					add(word);
+					word = 0;
+				}
+			}
+			if ((length & 3) != 0) {
+				add(word);
+			}
+		}
+
+		void add(double value) {
+			// 0.0 and -0.0 are equal, but have different bits
+			add(value == 0 ? 0L : Double.doubleToLongBits(value));
+		}
+
+		void add(BigDecimal value) {
+			// BigDecimal.equals takes the scale into account, and so does
+			// its string representation
+			add(value == null ? null : value.toString());
+		}
+
+		void addSnak(Snak snak) {
+			snak.accept(this);
+		}
+
+		void addValue(Value value) {
+			if (value == null) {
+				add(TAG_NULL);
+			} else {
+				value.accept(this);
+			}
+		}
+
+		void finishInPlace() {
+			long a = this.h1 ^ this.length;
+			long b = this.h2 ^ this.length;
+			a += b;
+			b += a;
+			a = mix(a);
+			b = mix(b);
+			a += b;
+			b += a;
+			this.resultHigh = a;
+			this.resultLow = b;
+		}
+
+		Fingerprint finish() {
+			finishInPlace();
+			return new Fingerprint(this.resultHigh, this.resultLow);
+		}
+
+		@Override
+		public Void visit(ValueSnak snak) {
+			add(TAG_VALUE_SNAK);
+			add(snak.getPropertyId().getId());
+			addValue(snak.getValue());
+			return null;
+		}
+
+		@Override
+		public Void visit(SomeValueSnak snak) {
+			add(TAG_SOME_VALUE_SNAK);
+			add(snak.getPropertyId().getId());
+			return null;
+		}
+
+		@Override
+		public Void visit(NoValueSnak snak) {
+			add(TAG_NO_VALUE_SNAK);
+			add(snak.getPropertyId().getId());
+			return null;
+		}
+
+		@Override
+		public Void visit(EntityIdValue value) {
+			add(TAG_ENTITY_ID);
+			add(value.getId());
+			add(value.getSiteIri());
+			add(value.getEntityType());
+			return null;
+		}
+
+		@Override
+		public Void visit(GlobeCoordinatesValue value) {
+			add(TAG_GLOBE_COORDINATES);
+			add(value.getLatitude());
+			add(value.getLongitude());
+			add(value.getPrecision());
+			add(value.getGlobe());
+			return null;
+		}
+
+		@Override
+		public Void visit(MonolingualTextValue value) {
+			add(TAG_MONOLINGUAL_TEXT);
+			add(value.getText());
+			add(value.getLanguageCode());
+			return null;
+		}
+
+		@Override
+		public Void visit(QuantityValue value) {
+			add(TAG_QUANTITY);
+			add(value.getNumericValue());
+			add(value.getLowerBound());
+			add(value.getUpperBound());
+			add(value.getUnit());
+			return null;
+		}
+
+		@Override
+		public Void visit(StringValue value) {
+			add(TAG_STRING);
+			add(value.getString());
+			return null;
+		}
+
+		@Override
+		public Void visit(TimeValue value) {
+			add(TAG_TIME);
+			add(value.getYear());
+			add(((value.getMonth() & 0xffL) << 32)
+					| ((value.getDay() & 0xffL) << 24)
+					| ((value.getHour() & 0xffL) << 16)
+					| ((value.getMinute() & 0xffL) << 8)
+					| (value.getSecond() & 0xffL));
+			add(value.getPrecision());
+			add(((long) value.getBeforeTolerance() << 32)
+					| (value.getAfterTolerance() & 0xffffffffL));
+			add(value.getTimezoneOffset());
+			add(value.getPreferredCalendarModel());
+			return null;
+		}
+
+		@Override
+		public Void visit(UnsupportedValue value) {
+			add(TAG_UNSUPPORTED);
+			add(value.getTypeJsonString());
+			return null;
+		}
+	}
+
+}
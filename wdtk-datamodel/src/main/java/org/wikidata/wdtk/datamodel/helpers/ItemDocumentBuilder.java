@@ -99,6 +99,21 @@ public class ItemDocumentBuilder extends
 				getStatementGroups(), this.siteLinks, this.revisionId);
 	}
 
+	/**
+	 * Removes all data from the builder, so that it can be used to build
+	 * another item document. The internal collections of the builder are kept,
+	 * which avoids allocating new ones for each document.
+	 *
+	 * @param itemIdValue
+	 *            id of the next item document
+	 * @return builder object to continue construction
+	 */
+	public ItemDocumentBuilder reset(ItemIdValue itemIdValue) {
+		clear(itemIdValue);
+		this.siteLinks.clear();
+		return this;
+	}
+
 	/**
 	 * Adds an additional site link to the constructed document.
 	 *
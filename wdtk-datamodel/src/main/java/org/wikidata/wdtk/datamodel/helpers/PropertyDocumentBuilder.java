@@ -36,7 +36,7 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 public class PropertyDocumentBuilder extends
 		EntityDocumentBuilder<PropertyDocumentBuilder, PropertyDocument> {
 
-	private final DatatypeIdValue datatype;
+	private DatatypeIdValue datatype;
 
 	/**
 	 * Constructor when building the property document from scratch.
@@ -106,6 +106,24 @@ public class PropertyDocumentBuilder extends
 				factory.getDatatypeIdValue(datatypeId));
 	}
 	
+	/**
+	 * Removes all data from the builder, so that it can be used to build
+	 * another property document. The internal collections of the builder are
+	 * kept, which avoids allocating new ones for each document.
+	 *
+	 * @param propertyIdValue
+	 *            id of the next property document
+	 * @param datatype
+	 *            the datatype of the next property document
+	 * @return builder object to continue construction
+	 */
+	public PropertyDocumentBuilder reset(PropertyIdValue propertyIdValue,
+			DatatypeIdValue datatype) {
+		clear(propertyIdValue);
+		this.datatype = datatype;
+		return this;
+	}
+
 	/**
 	 * Changes the entity value id for the constructed document.
 	 * See {@link EntityDocument#getEntityId()}.
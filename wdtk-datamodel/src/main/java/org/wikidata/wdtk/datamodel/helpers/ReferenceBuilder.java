@@ -58,6 +58,19 @@ public class ReferenceBuilder extends
 		return factory.getReference(getSnakGroups());
 	}
 
+	/**
+	 * Removes all snaks from the builder, so that it can be used to build
+	 * another reference. The internal collections of the builder are kept,
+	 * which avoids allocating new ones for each reference.
+	 *
+	 * @return builder object to continue construction
+	 */
+	public ReferenceBuilder reset() {
+		prepareReset();
+		clearGroups(this.snaks);
+		return getThis();
+	}
+
 	/**
 	 * Adds the given property and value to the constructed reference.
 	 *
@@ -124,7 +137,7 @@ public class ReferenceBuilder extends
 	protected List<SnakGroup> getSnakGroups() {
 		ArrayList<SnakGroup> result = new ArrayList<>(this.snaks.size());
 		for (ArrayList<Snak> statementList : this.snaks.values()) {
-			result.add(factory.getSnakGroup(statementList));
+			result.add(factory.getSnakGroup(freeze(statementList)));
 		}
 		return result;
 	}
@@ -136,10 +149,7 @@ public class ReferenceBuilder extends
 	 * @return
 	 */
 	protected ArrayList<Snak> getSnakList(PropertyIdValue propertyIdValue) {
-		if(!snaks.containsKey(propertyIdValue)) {
-			snaks.put(propertyIdValue, new ArrayList<>());
-		}
-		return this.snaks.get(propertyIdValue);
+		return getGroupList(this.snaks, propertyIdValue);
 	}
 
 }
@@ -38,8 +38,8 @@ import org.wikidata.wdtk.datamodel.interfaces.Value;
 public class StatementBuilder extends
 		AbstractDataObjectBuilder<StatementBuilder, Statement> {
 
-	private final EntityIdValue subject;
-	private final PropertyIdValue mainProperty;
+	private EntityIdValue subject;
+	private PropertyIdValue mainProperty;
 	private Value mainValue = null;
 	private boolean noMainValue = false;
 
@@ -79,7 +79,32 @@ public class StatementBuilder extends
 	public Statement build() {
 		prepareBuild();
 		return factory.getStatement(subject, getMainSnak(), getQualifierGroups(),
-				references, rank, statementId);
+				freeze(references), rank, statementId);
+	}
+
+	/**
+	 * Removes all data from the builder, so that it can be used to build
+	 * another statement. The internal collections of the builder are kept,
+	 * which avoids allocating new ones for each statement.
+	 *
+	 * @param subject
+	 *            id of the entity that the next statement refers to
+	 * @param property
+	 *            the id of the main property of the next statement
+	 * @return builder object to continue construction
+	 */
+	public StatementBuilder reset(EntityIdValue subject,
+			PropertyIdValue property) {
+		prepareReset();
+		this.subject = subject;
+		this.mainProperty = property;
+		this.mainValue = null;
+		this.noMainValue = false;
+		clearGroups(this.qualifiers);
+		this.statementId = "";
+		this.rank = StatementRank.NORMAL;
+		this.references.clear();
+		return getThis();
 	}
 
 	/**
@@ -267,7 +292,7 @@ public class StatementBuilder extends
 	protected List<SnakGroup> getQualifierGroups() {
 		ArrayList<SnakGroup> result = new ArrayList<>(this.qualifiers.size());
 		for (ArrayList<Snak> statementList : this.qualifiers.values()) {
-			result.add(factory.getSnakGroup(statementList));
+			result.add(factory.getSnakGroup(freeze(statementList)));
 		}
 		return result;
 	}
@@ -279,10 +304,7 @@ public class StatementBuilder extends
 	 * @return
 	 */
 	protected ArrayList<Snak> getQualifierList(PropertyIdValue propertyIdValue) {
-		if(!qualifiers.containsKey(propertyIdValue)) {
-			qualifiers.put(propertyIdValue, new ArrayList<>());
-		}
-		return qualifiers.get(propertyIdValue);
+		return getGroupList(this.qualifiers, propertyIdValue);
 	}
 
 	/**
@@ -0,0 +1,82 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list that stores its elements in an array of exactly the right
+ * size. Unlike an {@link java.util.ArrayList} wrapped with
+ * {@link Collections#unmodifiableList(List)}, it needs only one object besides
+ * the array, and no spare capacity.
+ *
+ * @param <E>
+ *            the type of the elements
+ */
+public final class ImmutableArrayList<E> extends AbstractList<E> implements RandomAccess {
+
+	final Object[] elements;
+
+	ImmutableArrayList(Object[] elements) {
+		this.elements = elements;
+	}
+
+	/**
+	 * Returns an immutable list with the elements of the given collection.
+	 *
+	 * @param elements
+	 *            the elements of the list
+	 * @return the given list if it is already an {@link ImmutableArrayList},
+	 *         an empty list if there are no elements, or a new
+	 *         {@link ImmutableArrayList}
+	 */
+	@SuppressWarnings("unchecked")
+	public static <E> List<E> copyOf(Collection<? extends E> elements) {
+		if (elements instanceof ImmutableArrayList) {
+			return (List<E>) elements;
+		}
+		if (elements.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return new ImmutableArrayList<>(elements.toArray());
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		return (E) this.elements[index];
+	}
+
+	@Override
+	public int size() {
+		return this.elements.length;
+	}
+
+	@Override
+	public Object[] toArray() {
+		return this.elements.clone();
+	}
+
+}
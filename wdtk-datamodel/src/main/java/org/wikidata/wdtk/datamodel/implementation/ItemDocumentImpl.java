@@ -21,7 +21,6 @@ package org.wikidata.wdtk.datamodel.implementation;
  */
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -91,14 +90,8 @@ public class ItemDocumentImpl extends TermedStatementDocumentImpl
 			List<SiteLink> siteLinks,
 			long revisionId) {
 		super(id, labels, descriptions, aliases, statements, revisionId);
-		this.sitelinks = new HashMap<>();
-		for(SiteLink sitelink : siteLinks) {
-			if(this.sitelinks.containsKey(sitelink.getSiteKey())) {
-				throw new IllegalArgumentException("Multiple site links provided for the same site.");
-			} else {
-				this.sitelinks.put(sitelink.getSiteKey(), sitelink);
-			}
-		}
+		this.sitelinks = SortedArrayMap.fromValues(siteLinks, SiteLink::getSiteKey,
+				"Multiple site links provided for the same site.");
 	}
 
 	/**
@@ -117,7 +110,7 @@ public class ItemDocumentImpl extends TermedStatementDocumentImpl
 			@JacksonInject("siteIri") String siteIri) {
 		super(jsonId, labels, descriptions, aliases, claims, revisionId, siteIri);
 		if (sitelinks != null) {
-			this.sitelinks = sitelinks;
+			this.sitelinks = SortedArrayMap.copyOf(sitelinks);
 		} else {
 			this.sitelinks = Collections.emptyMap();
 		}
@@ -24,6 +24,7 @@ import com.fasterxml.jackson.annotation.JacksonInject;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.wikidata.wdtk.datamodel.interfaces.*;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -74,7 +75,7 @@ abstract class LabeledStatementDocumentImpl extends StatementDocumentImpl implem
 			@JsonProperty("lastrevid") long revisionId,
 			@JacksonInject("siteIri") String siteIri) {
 		super(jsonId, claims, revisionId, siteIri);
-		this.labels = (labels == null) ? Collections.emptyMap() : labels;
+		this.labels = (labels == null) ? Collections.emptyMap() : SortedArrayMap.copyOf(labels);
 	}
 
 	/**
@@ -104,22 +105,19 @@ abstract class LabeledStatementDocumentImpl extends StatementDocumentImpl implem
 	}
 
 	protected static Map<String, MonolingualTextValue> constructTermMap(List<MonolingualTextValue> terms) {
-		Map<String, MonolingualTextValue> map = new HashMap<>();
+		List<MonolingualTextValue> convertedTerms = new ArrayList<>(terms.size());
 		for(MonolingualTextValue term : terms) {
-			String language = term.getLanguageCode();
-			if(map.containsKey(language)) {
-				throw new IllegalArgumentException("Multiple terms provided for the same language.");
-			}
-			map.put(language, toTerm(term));
+			convertedTerms.add(toTerm(term));
 		}
-		return map;
+		return SortedArrayMap.fromValues(convertedTerms, MonolingualTextValue::getLanguageCode,
+				"Multiple terms provided for the same language.");
 	}
 
 	protected static Map<String, MonolingualTextValue> withTerm(
 			Map<String, MonolingualTextValue> values, MonolingualTextValue value) {
 		Map<String, MonolingualTextValue> newValues = new HashMap<>(values);
 		newValues.put(value.getLanguageCode(), toTerm(value));
-		return newValues;
+		return SortedArrayMap.copyOf(newValues);
 	}
 
 	/**
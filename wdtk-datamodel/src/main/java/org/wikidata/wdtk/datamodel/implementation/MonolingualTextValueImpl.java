@@ -139,7 +139,7 @@ public class MonolingualTextValueImpl extends ValueImpl implements
 				@JsonProperty("language") String language,
 				@JsonProperty("text") String text) {
 			Validate.notNull(language, "A language has to be provided to create a MonolingualTextValue");
-			this.language = language;
+			this.language = StringInterner.intern(language);
 			Validate.notNull(text, "A text has to be provided to create a MonolingualTextValue");
 			this.text = text;
 		}
@@ -59,6 +59,11 @@ public class ReferenceImpl implements Reference {
 	 * The wikidata hash of this reference. null if we don't have knowledge about the hash.
 	 */
 	private final String hash;
+
+	/**
+	 * Hash code of this reference, or 0 if it has not been computed yet.
+	 */
+	private int hashCode;
 	
 	/**
 	 * Constructor.
@@ -141,9 +146,18 @@ public class ReferenceImpl implements Reference {
 		return new NestedIterator<>(getSnakGroups());
 	}
 
+	/**
+	 * The hash code is computed on the first call only, since references
+	 * cannot be modified.
+	 */
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
@@ -66,7 +66,7 @@ public class SiteLinkImpl implements SiteLink {
 		Validate.notNull(title);
 		this.title = title;
 		Validate.notNull(site);
-		this.site = site;
+		this.site = StringInterner.intern(site);
 		this.badges = (badges == null) ? Collections.emptyList() : badges;
 		this.badges.sort(Comparator.comparing(EntityIdValue::getId));
 	}
@@ -92,7 +92,7 @@ public class SiteLinkImpl implements SiteLink {
 		Validate.notNull(title);
 		this.title = title;
 		Validate.notNull(site);
-		this.site = site;
+		this.site = StringInterner.intern(site);
 		this.badges = (badges == null || badges.isEmpty())
 			? Collections.emptyList()
 			: constructBadges(badges, siteIri);
@@ -41,6 +41,11 @@ public class SnakGroupImpl extends AbstractList<Snak> implements SnakGroup {
 
 	private final List<Snak> snaks;
 
+	/**
+	 * Hash code of this snak group, or 0 if it has not been computed yet.
+	 */
+	private int hashCode;
+
 	/**
 	 * Constructor.
 	 *
@@ -112,9 +117,18 @@ public class SnakGroupImpl extends AbstractList<Snak> implements SnakGroup {
 		return result;
 	}
 
+	/**
+	 * The hash code is computed on the first call only, since snak groups
+	 * cannot be modified.
+	 */
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
 	@Override
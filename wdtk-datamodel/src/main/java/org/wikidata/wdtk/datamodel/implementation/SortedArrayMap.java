@@ -0,0 +1,255 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable map with {@link String} keys that stores its keys and values in
+ * two arrays, sorted by key. Lookups use a binary search. This takes a small
+ * fraction of the memory of a {@link java.util.HashMap}, and is fast enough
+ * for the small maps of terms and site links of entity documents, which
+ * rarely have more than a few hundred entries. Keys are interned with
+ * {@link StringInterner}, since they are language codes, site keys or property
+ * ids.
+ * <p>
+ * Keys are sorted in their natural order, or in {@link #ENTITY_ID_ORDER} for
+ * maps that are keyed by property ids, so that "P2" comes before "P10".
+ *
+ * @param <V>
+ *            the type of the values
+ */
+final class SortedArrayMap<V> extends AbstractMap<String, V> {
+
+	/**
+	 * Order of entity ids such as "P31" by their numeric part. Ids with longer
+	 * numbers come later, and ids of the same length are compared as strings,
+	 * which is the numeric order for ids that share their prefix and have no
+	 * leading zeros.
+	 */
+	static final Comparator<String> ENTITY_ID_ORDER = Comparator
+			.comparingInt(String::length).thenComparing(Comparator.naturalOrder());
+
+	final String[] keys;
+	final Object[] values;
+
+	/**
+	 * Order of the keys, or null for their natural order.
+	 */
+	final Comparator<String> order;
+
+	/**
+	 * Constructor. The arrays are used without copying.
+	 *
+	 * @param keys
+	 *            the keys, sorted and without duplicates
+	 * @param values
+	 *            the values, in the order of their keys
+	 * @param order
+	 *            the order of the keys, or null for their natural order
+	 */
+	SortedArrayMap(String[] keys, Object[] values, Comparator<String> order) {
+		this.keys = keys;
+		this.values = values;
+		this.order = order;
+	}
+
+	/**
+	 * Returns an immutable map of the given values, with the keys computed by
+	 * the given function.
+	 *
+	 * @param values
+	 *            the values of the map
+	 * @param keyFunction
+	 *            the function that returns the key of a value
+	 * @param duplicateMessage
+	 *            the message of the exception that is thrown if two values
+	 *            have the same key
+	 * @return a {@link SortedArrayMap}, or an empty map if there are no
+	 *         values
+	 * @throws IllegalArgumentException
+	 *             if two values have the same key
+	 */
+	static <V> Map<String, V> fromValues(Collection<? extends V> values,
+			Function<? super V, String> keyFunction, String duplicateMessage) {
+		if (values.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		@SuppressWarnings("unchecked")
+		V[] sortedValues = (V[]) values.toArray();
+		Arrays.sort(sortedValues, Comparator.comparing(keyFunction));
+		String[] keys = new String[sortedValues.length];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = StringInterner.intern(keyFunction.apply(sortedValues[i]));
+			if (i > 0 && keys[i].equals(keys[i - 1])) {
+				throw new IllegalArgumentException(duplicateMessage);
+			}
+		}
+		return new SortedArrayMap<>(keys, sortedValues, null);
+	}
+
+	/**
+	 * Returns an immutable copy of the given map.
+	 *
+	 * @param map
+	 *            the map to copy
+	 * @return the given map if it is already a {@link SortedArrayMap}, an
+	 *         empty map if the given map is empty, or a new
+	 *         {@link SortedArrayMap}
+	 */
+	@SuppressWarnings("unchecked")
+	static <V> Map<String, V> copyOf(Map<String, ? extends V> map) {
+		if (map instanceof SortedArrayMap) {
+			return (Map<String, V>) map;
+		}
+		return copyOf(map, Function.identity());
+	}
+
+	/**
+	 * Returns an immutable map with the keys of the given map, where each
+	 * value is converted with the given function.
+	 *
+	 * @param map
+	 *            the map to copy
+	 * @param valueFunction
+	 *            the function that converts the values of the map
+	 * @return a {@link SortedArrayMap}, or an empty map if the given map is
+	 *         empty
+	 */
+	static <V, W> Map<String, W> copyOf(Map<String, V> map,
+			Function<? super V, ? extends W> valueFunction) {
+		return copyOf(map, valueFunction, null);
+	}
+
+	/**
+	 * Returns an immutable map with the keys of the given map in the given
+	 * order, where each value is converted with the given function.
+	 *
+	 * @param map
+	 *            the map to copy
+	 * @param valueFunction
+	 *            the function that converts the values of the map
+	 * @param order
+	 *            the order of the keys, such as {@link #ENTITY_ID_ORDER}, or
+	 *            null for their natural order
+	 * @return a {@link SortedArrayMap}, or an empty map if the given map is
+	 *         empty
+	 */
+	static <V, W> Map<String, W> copyOf(Map<String, V> map,
+			Function<? super V, ? extends W> valueFunction,
+			Comparator<String> order) {
+		if (map.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		String[] keys = map.keySet().toArray(new String[map.size()]);
+		Arrays.sort(keys, order);
+		Object[] values = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			values[i] = valueFunction.apply(map.get(keys[i]));
+			keys[i] = StringInterner.intern(keys[i]);
+		}
+		return new SortedArrayMap<>(keys, values, order);
+	}
+
+	@Override
+	public V get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : getValue(index);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	@Override
+	public int size() {
+		return this.keys.length;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.keys.length == 0;
+	}
+
+	@Override
+	public Collection<V> values() {
+		return new ImmutableArrayList<>(this.values);
+	}
+
+	@Override
+	public Set<Map.Entry<String, V>> entrySet() {
+		return new AbstractSet<Map.Entry<String, V>>() {
+
+			@Override
+			public Iterator<Map.Entry<String, V>> iterator() {
+				return new Iterator<Map.Entry<String, V>>() {
+
+					int index = 0;
+
+					@Override
+					public boolean hasNext() {
+						return this.index < keys.length;
+					}
+
+					@Override
+					public Map.Entry<String, V> next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+						Map.Entry<String, V> entry = new SimpleImmutableEntry<>(
+								keys[this.index], getValue(this.index));
+						this.index++;
+						return entry;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return keys.length;
+			}
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	V getValue(int index) {
+		return (V) this.values[index];
+	}
+
+	int indexOf(Object key) {
+		if (!(key instanceof String)) {
+			return -1;
+		}
+		return Arrays.binarySearch(this.keys, (String) key, this.order);
+	}
+
+}
@@ -71,15 +71,16 @@ abstract class StatementDocumentImpl extends EntityDocumentImpl implements State
 			List<StatementGroup> claims,
 			long revisionId) {
 		super(id, revisionId);
-		this.claims = new HashMap<>();
+		Map<String, List<Statement>> groups = new HashMap<>();
 		if(claims != null) {
 			for(StatementGroup group : claims) {
 				EntityIdValue otherId = group.getSubject();
 				otherId.getIri();
 				Validate.isTrue(group.getSubject().equals(id), "Subject for the statement group and the document are different: "+otherId.toString()+" vs "+id.toString());
-				this.claims.put(group.getProperty().getId(), group.getStatements());
+				groups.put(group.getProperty().getId(), group.getStatements());
 			}
 		}
+		this.claims = freezeClaims(groups);
 	}
 	
 	/**
@@ -107,16 +108,15 @@ abstract class StatementDocumentImpl extends EntityDocumentImpl implements State
 			@JacksonInject("siteIri") String siteIri) {
 		super(jsonId, revisionId, siteIri);
 		if (claims != null) {
-			this.claims = new HashMap<>();
 			EntityIdValue subject = this.getEntityId();
-			for (Entry<String, List<StatementImpl.PreStatement>> entry : claims
-					.entrySet()) {
-				List<Statement> statements = new ArrayList<>(entry.getValue().size());
-				for (StatementImpl.PreStatement statement : entry.getValue()) {
-					statements.add(statement.withSubject(subject));
+			this.claims = SortedArrayMap.copyOf(claims, preStatements -> {
+				Object[] statements = new Object[preStatements.size()];
+				int i = 0;
+				for (StatementImpl.PreStatement statement : preStatements) {
+					statements[i++] = statement.withSubject(subject);
 				}
-				this.claims.put(entry.getKey(), statements);
-			}
+				return new ImmutableArrayList<Statement>(statements);
+			}, SortedArrayMap.ENTITY_ID_ORDER);
 		} else {
 			this.claims = Collections.emptyMap();
 		}
@@ -198,7 +198,7 @@ abstract class StatementDocumentImpl extends EntityDocumentImpl implements State
 		} else {
 			newGroups.put(pid, Collections.singletonList(statement));
 		}
-		return newGroups;
+		return freezeClaims(newGroups);
 	}
 	
 	/**
@@ -221,6 +221,20 @@ abstract class StatementDocumentImpl extends EntityDocumentImpl implements State
 					filteredStatements);
 			}
 		}
-		return newClaims;
+		return freezeClaims(newClaims);
+	}
+
+	/**
+	 * Returns an immutable copy of the given statement groups, using
+	 * compact array-based collections for the map and for each group. The
+	 * groups are ordered by the numeric part of their property ids.
+	 *
+	 * @param claims
+	 * 		map from property ids to the statements with this property
+	 * @return the immutable copy
+	 */
+	static Map<String, List<Statement>> freezeClaims(Map<String, List<Statement>> claims) {
+		return SortedArrayMap.copyOf(claims, ImmutableArrayList::copyOf,
+				SortedArrayMap.ENTITY_ID_ORDER);
 	}
 }
@@ -31,6 +31,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import org.apache.commons.lang3.Validate;
 import org.wikidata.wdtk.datamodel.helpers.Equality;
+import org.wikidata.wdtk.datamodel.helpers.Fingerprint;
 import org.wikidata.wdtk.datamodel.helpers.Hash;
 import org.wikidata.wdtk.datamodel.helpers.ToString;
 import org.wikidata.wdtk.datamodel.interfaces.*;
@@ -74,6 +75,16 @@ public class StatementImpl implements Statement {
 
 	private List<SnakGroup> qualifiersGroups;
 
+	/**
+	 * Hash code of this statement, or 0 if it has not been computed yet.
+	 */
+	private int hashCode;
+
+	/**
+	 * Fingerprint of this statement, or null if it has not been computed yet.
+	 */
+	private Fingerprint fingerprint;
+
 	/**
 	 * Constructor.
 	 * <p>
@@ -252,13 +263,55 @@ public class StatementImpl implements Statement {
 				getSubject());
 	}
 	
+	/**
+	 * Returns the fingerprint of the claim and references of this statement.
+	 * It is computed on the first call only.
+	 *
+	 * @return the fingerprint
+	 * @see Fingerprint#of(Statement)
+	 */
+	@JsonIgnore
+	public Fingerprint getFingerprint() {
+		Fingerprint result = this.fingerprint;
+		if (result == null) {
+			result = Fingerprint.compute(this);
+			this.fingerprint = result;
+		}
+		return result;
+	}
+
+	/**
+	 * The hash code is computed on the first call only, since statements
+	 * cannot be modified.
+	 */
 	@Override
 	public int hashCode() {
-		return Hash.hashCode(this);
+		int result = this.hashCode;
+		if (result == 0) {
+			result = Hash.hashCode(this);
+			this.hashCode = result;
+		}
+		return result;
 	}
 
+	/**
+	 * Compares the hash codes and fingerprints of both statements first if
+	 * they are available, so that most unequal statements are told apart
+	 * without comparing their content.
+	 */
 	@Override
 	public boolean equals(Object obj) {
+		if (obj instanceof StatementImpl && obj != this) {
+			StatementImpl other = (StatementImpl) obj;
+			if (hashCode() != other.hashCode()) {
+				return false;
+			}
+			Fingerprint otherFingerprint = other.fingerprint;
+			if (this.fingerprint != null && otherFingerprint != null
+					&& !this.fingerprint.equals(otherFingerprint)) {
+				return false;
+			}
+		}
 		return Equality.equalsStatement(this, obj);
 	}
 
@@ -0,0 +1,58 @@
+package org.wikidata.wdtk.datamodel.implementation;
+
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pool of canonical instances for strings that come from small vocabularies,
+ * such as language codes, site keys and property ids. Every loaded entity
+ * document repeats these strings many times; interning them lets all
+ * documents share one instance of each.
+ * <p>
+ * The pool is never emptied, so it must not be used for strings that are not
+ * from such a vocabulary, like the texts of labels.
+ */
+final class StringInterner {
+
+	static final ConcurrentMap<String, String> POOL = new ConcurrentHashMap<>();
+
+	private StringInterner() {
+	}
+
+	/**
+	 * Returns the canonical instance of the given string.
+	 *
+	 * @param string
+	 *            the string to intern, or null
+	 * @return a string equal to the given one, or null if the given string is
+	 *         null
+	 */
+	static String intern(String string) {
+		if (string == null) {
+			return null;
+		}
+		String canonical = POOL.putIfAbsent(string, string);
+		return canonical == null ? string : canonical;
+	}
+
+}
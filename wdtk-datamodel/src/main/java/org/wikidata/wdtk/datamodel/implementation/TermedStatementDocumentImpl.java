@@ -103,12 +103,12 @@ public abstract class TermedStatementDocumentImpl extends LabeledStatementDocume
 			@JacksonInject("siteIri") String siteIri) {
 		super(jsonId, labels, claims, revisionId, siteIri);
 		if (descriptions != null) {
-			this.descriptions = descriptions;
+			this.descriptions = SortedArrayMap.copyOf(descriptions);
 		} else {
 			this.descriptions = Collections.emptyMap();
 		}
 		if (aliases != null) {
-			this.aliases = aliases;
+			this.aliases = SortedArrayMap.copyOf(aliases, ImmutableArrayList::copyOf);
 		} else {
 			this.aliases = Collections.emptyMap();
 		}
@@ -147,17 +147,8 @@ public abstract class TermedStatementDocumentImpl extends LabeledStatementDocume
 	@JsonProperty("aliases")
 	@Override
 	public Map<String, List<MonolingualTextValue>> getAliases() {
-		// because of the typing provided by the interface one has to
-		// re-create the map anew, simple casting is not possible
-		Map<String, List<MonolingualTextValue>> returnMap = new HashMap<>();
-
-		for (Entry<String, List<MonolingualTextValue>> entry : this.aliases
-				.entrySet()) {
-			returnMap.put(entry.getKey(), Collections
-					. unmodifiableList(entry.getValue()));
-		}
-
-		return Collections.unmodifiableMap(returnMap);
+		// the lists of aliases are immutable already
+		return Collections.unmodifiableMap(this.aliases);
 	}
 
 	@JsonProperty("descriptions")
@@ -182,24 +173,21 @@ public abstract class TermedStatementDocumentImpl extends LabeledStatementDocume
 			}
 			map.get(language).add(toTerm(term));
 		}
-		return map;
+		return SortedArrayMap.copyOf(map, ImmutableArrayList::copyOf);
 	}
 
 	protected static Map<String, List<MonolingualTextValue>> withAliases(
 			Map<String, List<MonolingualTextValue>> values, String language, List<MonolingualTextValue> aliases) {
 		Map<String, List<MonolingualTextValue>> newValues = new HashMap<>(values);
-		if(!newValues.containsKey(language)) {
-			newValues.put(language, new ArrayList<>());
-		}
-		List<MonolingualTextValue> l = newValues.get(language);
-		l.clear();
+		List<MonolingualTextValue> l = new ArrayList<>(aliases.size());
 		for(MonolingualTextValue term : aliases) {
 			if(!term.getLanguageCode().equals(language)) {
 				throw new IllegalArgumentException("The alias " + term + " does not have the same language as its group " + language);
 			}
 			l.add(toTerm(term));
 		}
-		return newValues;
+		newValues.put(language, l);
+		return SortedArrayMap.copyOf(newValues, ImmutableArrayList::copyOf);
 	}
 
 	/**
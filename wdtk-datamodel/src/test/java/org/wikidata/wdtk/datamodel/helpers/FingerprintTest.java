@@ -0,0 +1,189 @@
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.datamodel.helpers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.datamodel.implementation.StatementImpl;
+import org.wikidata.wdtk.datamodel.interfaces.Claim;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Reference;
+import org.wikidata.wdtk.datamodel.interfaces.Snak;
+import org.wikidata.wdtk.datamodel.interfaces.SnakGroup;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+
+public class FingerprintTest {
+
+	private final ItemIdValue q42 = Datamodel.makeWikidataItemIdValue("Q42");
+	private final ItemIdValue q5 = Datamodel.makeWikidataItemIdValue("Q5");
+	private final PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+	private final PropertyIdValue p580 = Datamodel.makeWikidataPropertyIdValue("P580");
+	private final PropertyIdValue p854 = Datamodel.makeWikidataPropertyIdValue("P854");
+
+	private final Snak qualifier1 = Datamodel.makeValueSnak(p580,
+			Datamodel.makeQuantityValue(new BigDecimal("1.5")));
+	private final Snak qualifier2 = Datamodel.makeSomeValueSnak(p854);
+	private final Snak qualifier3 = Datamodel.makeValueSnak(p31, q5);
+
+	private final Reference reference1 = makeReference("http://example.org/a");
+	private final Reference reference2 = makeReference("http://example.org/b");
+
+	private Reference makeReference(String url) {
+		return Datamodel.makeReference(Collections.singletonList(
+				Datamodel.makeSnakGroup(Collections.singletonList(
+						Datamodel.makeValueSnak(p854,
+								Datamodel.makeStringValue(url))))));
+	}
+
+	private Statement makeStatement(Value value, StatementRank rank,
+			String id, Snak... qualifiers) {
+		StatementBuilder builder = StatementBuilder.forSubjectAndProperty(q42, p31)
+				.withValue(value).withRank(rank).withId(id)
+				.withReference(reference1).withReference(reference2);
+		for (Snak qualifier : qualifiers) {
+			builder.withQualifier(qualifier);
+		}
+		return builder.build();
+	}
+
+	@Test
+	public void testEqualStatements() {
+		Statement s1 = makeStatement(q5, StatementRank.NORMAL, "id",
+				qualifier1, qualifier2);
+		Statement s2 = makeStatement(q5, StatementRank.NORMAL, "id",
+				qualifier1, qualifier2);
+		assertEquals(s1, s2);
+		assertEquals(Fingerprint.of(s1), Fingerprint.of(s2));
+		assertEquals(Fingerprint.of(s1).hashCode(), Fingerprint.of(s2).hashCode());
+	}
+
+	@Test
+	public void testQualifierOrderIgnored() {
+		Statement s1 = makeStatement(q5, StatementRank.NORMAL, "id",
+				qualifier1, qualifier2, qualifier3);
+		Statement s2 = makeStatement(q5, StatementRank.NORMAL, "id",
+				qualifier3, qualifier2, qualifier1);
+		assertEquals(Fingerprint.of(s1), Fingerprint.of(s2));
+	}
+
+	@Test
+	public void testReferenceOrderIgnored() {
+		Snak mainSnak = Datamodel.makeValueSnak(p31, q5);
+		Statement s1 = Datamodel.makeStatement(q42, mainSnak,
+				Collections.emptyList(), Arrays.asList(reference1, reference2),
+				StatementRank.NORMAL, "");
+		Statement s2 = Datamodel.makeStatement(q42, mainSnak,
+				Collections.emptyList(), Arrays.asList(reference2, reference1),
+				StatementRank.NORMAL, "");
+		assertEquals(Fingerprint.of(s1), Fingerprint.of(s2));
+		assertNotEquals(Fingerprint.of(s1), Fingerprint.of(
+				Datamodel.makeStatement(q42, mainSnak, Collections.emptyList(),
+						Collections.singletonList(reference1),
+						StatementRank.NORMAL, "")));
+	}
+
+	@Test
+	public void testSnakOrderInReferenceIgnored() {
+		Snak snak1 = Datamodel.makeValueSnak(p854,
+				Datamodel.makeStringValue("a"));
+		Snak snak2 = Datamodel.makeValueSnak(p580,
+				Datamodel.makeStringValue("b"));
+		SnakGroup group1 = Datamodel.makeSnakGroup(Collections.singletonList(snak1));
+		SnakGroup group2 = Datamodel.makeSnakGroup(Collections.singletonList(snak2));
+		assertEquals(
+				Fingerprint.of(Datamodel.makeReference(Arrays.asList(group1, group2))),
+				Fingerprint.of(Datamodel.makeReference(Arrays.asList(group2, group1))));
+	}
+
+	@Test
+	public void testRankAndIdIgnored() {
+		Statement s1 = makeStatement(q5, StatementRank.NORMAL, "id1");
+		Statement s2 = makeStatement(q5, StatementRank.PREFERRED, "id2");
+		assertNotEquals(s1, s2);
+		assertEquals(Fingerprint.of(s1), Fingerprint.of(s2));
+		assertEquals(Fingerprint.of(s1.getClaim()), Fingerprint.of(s2.getClaim()));
+	}
+
+	@Test
+	public void testSnaksIgnoreSubject() {
+		Snak mainSnak = Datamodel.makeValueSnak(p31, q5);
+		SnakGroup qualifiers1 = Datamodel.makeSnakGroup(Collections.singletonList(qualifier1));
+		SnakGroup qualifiers3 = Datamodel.makeSnakGroup(Collections.singletonList(qualifier3));
+		Claim claim1 = Datamodel.makeClaim(q42, mainSnak,
+				Arrays.asList(qualifiers1, qualifiers3));
+		Claim claim2 = Datamodel.makeClaim(q5, mainSnak,
+				Arrays.asList(qualifiers3, qualifiers1));
+		assertNotEquals(Fingerprint.of(claim1), Fingerprint.of(claim2));
+		assertEquals(Fingerprint.ofSnaks(claim1), Fingerprint.ofSnaks(claim2));
+		assertNotEquals(Fingerprint.ofSnaks(claim1), Fingerprint.ofSnaks(
+				Datamodel.makeClaim(q42, mainSnak, Collections.singletonList(qualifiers1))));
+	}
+
+	@Test
+	public void testDifferentContent() {
+		Statement s1 = makeStatement(q5,
+				StatementRank.NORMAL, "");
+		Statement s2 = makeStatement(q42,
+				StatementRank.NORMAL, "");
+		Statement s3 = makeStatement(q5,
+				StatementRank.NORMAL, "", qualifier1);
+		Statement s4 = makeStatement(q5,
+				StatementRank.NORMAL, "", Datamodel.makeValueSnak(p580,
+						Datamodel.makeQuantityValue(new BigDecimal("1.50"))));
+		assertNotEquals(Fingerprint.of(s1), Fingerprint.of(s2));
+		assertNotEquals(Fingerprint.of(s1), Fingerprint.of(s3));
+		assertNotEquals(Fingerprint.of(s3), Fingerprint.of(s4));
+		assertNotEquals(Fingerprint.of(Datamodel.makeSomeValueSnak(p31)),
+				Fingerprint.of(Datamodel.makeNoValueSnak(p31)));
+		assertNotEquals(
+				Fingerprint.of(Datamodel.makeValueSnak(p31, Datamodel.makeStringValue("ab"))),
+				Fingerprint.of(Datamodel.makeValueSnak(p31, Datamodel.makeStringValue("ab\0"))));
+	}
+
+	@Test
+	public void testFingerprintIsCached() {
+		StatementImpl statement = (StatementImpl) makeStatement(q5,
+				StatementRank.NORMAL, "", qualifier1);
+		assertSame(statement.getFingerprint(), Fingerprint.of(statement));
+		assertEquals(Fingerprint.compute(statement), Fingerprint.of(statement));
+	}
+
+	@Test
+	public void testToString() {
+		Fingerprint fingerprint = new Fingerprint(0x1234L, -1L);
+		assertEquals("0000000000001234ffffffffffffffff", fingerprint.toString());
+		assertEquals(0x1234L, fingerprint.getHigh());
+		assertEquals(-1L, fingerprint.getLow());
+		assertEquals(new Fingerprint(0x1234L, -1L), fingerprint);
+		assertNotEquals(new Fingerprint(0x1234L, 0L), fingerprint);
+	}
+
+}
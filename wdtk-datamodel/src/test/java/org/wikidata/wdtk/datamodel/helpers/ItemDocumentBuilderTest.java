@@ -148,4 +148,35 @@ public class ItemDocumentBuilderTest {
 		b.build();
 		assertThrows(IllegalStateException.class, () -> b.build());
 	}
+
+	@Test
+	public void testReset() {
+		ItemIdValue q42 = Datamodel.makeWikidataItemIdValue("Q42");
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(i);
+		ItemDocument first = builder.withLabel("Test", "de")
+				.withSiteLink("Test", "dewiki").withStatement(s1)
+				.withStatement(s2).withRevisionId(1234).build();
+
+		Statement s3 = StatementBuilder.forSubjectAndProperty(q42,
+				Datamodel.makeWikidataPropertyIdValue("P2")).build();
+		ItemDocument second = builder.reset(q42).withLabel("Other", "en")
+				.withStatement(s3).build();
+
+		assertEquals(ItemDocumentBuilder.forItemId(i).withLabel("Test", "de")
+				.withSiteLink("Test", "dewiki").withStatement(s1)
+				.withStatement(s2).withRevisionId(1234).build(), first);
+		assertEquals(ItemDocumentBuilder.forItemId(q42)
+				.withLabel("Other", "en").withStatement(s3).build(), second);
+		assertEquals(0, second.getRevisionId());
+		assertThrows(IllegalStateException.class, () -> builder.build());
+	}
+
+	@Test
+	public void testBuiltDocumentIsImmutable() {
+		ItemDocument document = ItemDocumentBuilder.forItemId(i)
+				.withStatement(s1).build();
+		assertThrows(UnsupportedOperationException.class,
+				() -> document.getStatementGroups().get(0).getStatements()
+						.add(s2));
+	}
 }
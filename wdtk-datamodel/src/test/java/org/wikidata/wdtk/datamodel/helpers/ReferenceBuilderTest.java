@@ -60,4 +60,19 @@ public class ReferenceBuilderTest {
 		assertEquals(r1, r2);
 	}
 
+	@Test
+	public void testReset() {
+		ItemIdValue i = ItemIdValue.NULL;
+		PropertyIdValue p = PropertyIdValue.NULL;
+
+		ReferenceBuilder builder = ReferenceBuilder.newInstance();
+		Reference r1 = builder.withSomeValue(p).withPropertyValue(p, i)
+				.build();
+		Reference r2 = builder.reset().withNoValue(p).build();
+
+		assertEquals(ReferenceBuilder.newInstance().withSomeValue(p)
+				.withPropertyValue(p, i).build(), r1);
+		assertEquals(ReferenceBuilder.newInstance().withNoValue(p).build(), r2);
+	}
+
 }
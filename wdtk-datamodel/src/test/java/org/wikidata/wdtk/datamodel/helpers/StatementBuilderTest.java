@@ -21,6 +21,7 @@
 package org.wikidata.wdtk.datamodel.helpers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -152,4 +153,40 @@ public class StatementBuilderTest {
 		assertEquals(stmt1, stmt2);
 	}
 
+	@Test
+	public void testReset() {
+		ItemIdValue i = ItemIdValue.NULL;
+		PropertyIdValue p = PropertyIdValue.NULL;
+		PropertyIdValue p2 = Datamodel.makeWikidataPropertyIdValue("P2");
+		Reference r = Datamodel.makeReference(Collections
+				.singletonList(Datamodel.makeSnakGroup(Collections
+						.singletonList(Datamodel.makeNoValueSnak(p)))));
+
+		StatementBuilder builder = StatementBuilder.forSubjectAndProperty(i, p);
+		Statement stmt1 = builder.withRank(StatementRank.PREFERRED)
+				.withValue(i).withQualifierNoValue(p).withReference(r)
+				.withId("id").build();
+		Statement stmt2 = builder.reset(i, p2).withQualifierSomeValue(p2)
+				.build();
+
+		assertEquals(StatementBuilder.forSubjectAndProperty(i, p)
+				.withRank(StatementRank.PREFERRED).withValue(i)
+				.withQualifierNoValue(p).withReference(r).withId("id").build(),
+				stmt1);
+		assertEquals(StatementBuilder.forSubjectAndProperty(i, p2)
+				.withQualifierSomeValue(p2).build(), stmt2);
+	}
+
+	@Test
+	public void testBuiltStatementIsImmutable() {
+		ItemIdValue i = ItemIdValue.NULL;
+		PropertyIdValue p = PropertyIdValue.NULL;
+		Statement stmt = StatementBuilder.forSubjectAndProperty(i, p)
+				.withQualifierNoValue(p).build();
+
+		assertThrows(UnsupportedOperationException.class,
+				() -> stmt.getReferences().add(null));
+		assertThrows(UnsupportedOperationException.class,
+				() -> stmt.getQualifiers().get(0).getSnaks().clear());
+	}
 }
@@ -24,6 +24,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -289,6 +290,16 @@ public class ItemDocumentImplTest {
 		ItemDocument withAlias = ir1.withAliases("en", Collections.singletonList(newAlias));
 		assertEquals(Collections.singletonList(newAlias), withAlias.getAliases().get("en"));
 	}
+
+	@Test
+	public void testWithAliasesKeepsOriginal() {
+		MonolingualTextValue newAlias = new MonolingualTextValueImpl(
+				"Another alias", "de");
+
+		ItemDocument withAlias = ir1.withAliases("de", Collections.singletonList(newAlias));
+		assertEquals(Collections.singletonList(newAlias), withAlias.getAliases().get("de"));
+		assertEquals(aliasList, ir1.getAliases().get("de"));
+	}
 	
 	@Test
 	public void testAddStatement() {
@@ -407,4 +418,23 @@ public class ItemDocumentImplTest {
 		);
 	}
 
+	@Test
+	public void testDeserializedDocumentIsImmutable() throws IOException {
+		ItemDocumentImpl document = mapper.readValue(JSON_ITEM_STATEMENTS, ItemDocumentImpl.class);
+
+		assertThrows(UnsupportedOperationException.class,
+				() -> document.getJsonClaims().get("P42").add(s));
+		assertThrows(UnsupportedOperationException.class,
+				() -> document.getJsonClaims().remove("P42"));
+	}
+
+	@Test
+	public void testLanguageCodesAreShared() throws IOException {
+		ItemDocument document1 = mapper.readValue(JSON_ITEM_LABEL, ItemDocumentImpl.class);
+		ItemDocument document2 = mapper.readValue(JSON_ITEM_LABEL, ItemDocumentImpl.class);
+
+		assertSame(document1.getLabels().get("en").getLanguageCode(),
+				document2.getLabels().get("en").getLanguageCode());
+	}
+
 }
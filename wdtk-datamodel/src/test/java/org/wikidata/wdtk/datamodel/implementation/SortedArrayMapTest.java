@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * Wikidata Toolkit Data Model
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.datamodel.implementation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+
+public class SortedArrayMapTest {
+
+	private final MonolingualTextValue de = new TermImpl("de", "Katze");
+	private final MonolingualTextValue en = new TermImpl("en", "cat");
+	private final MonolingualTextValue fr = new TermImpl("fr", "chat");
+
+	private Map<String, MonolingualTextValue> makeMap() {
+		return SortedArrayMap.fromValues(Arrays.asList(fr, de, en),
+				MonolingualTextValue::getLanguageCode, "duplicate");
+	}
+
+	@Test
+	public void testGet() {
+		Map<String, MonolingualTextValue> map = makeMap();
+		assertEquals(3, map.size());
+		assertEquals(de, map.get("de"));
+		assertEquals(fr, map.get("fr"));
+		assertTrue(map.containsKey("en"));
+		assertFalse(map.containsKey("es"));
+		assertNull(map.get("es"));
+		assertNull(map.get(42));
+	}
+
+	@Test
+	public void testEqualsHashMap() {
+		Map<String, MonolingualTextValue> expected = new HashMap<>();
+		expected.put("de", de);
+		expected.put("en", en);
+		expected.put("fr", fr);
+		Map<String, MonolingualTextValue> map = makeMap();
+		assertEquals(expected, map);
+		assertEquals(map, expected);
+		assertEquals(expected.hashCode(), map.hashCode());
+		assertEquals(Arrays.asList(de, en, fr),
+				Arrays.asList(map.values().toArray()));
+	}
+
+	@Test
+	public void testImmutable() {
+		Map<String, MonolingualTextValue> map = makeMap();
+		assertThrows(UnsupportedOperationException.class,
+				() -> map.put("es", new TermImpl("es", "gato")));
+		assertThrows(UnsupportedOperationException.class,
+				() -> map.remove("de"));
+		assertThrows(UnsupportedOperationException.class,
+				() -> map.entrySet().iterator().next().setValue(en));
+	}
+
+	@Test
+	public void testCopyOf() {
+		Map<String, MonolingualTextValue> expected = new HashMap<>();
+		expected.put("fr", fr);
+		expected.put(new String("de"), de);
+		Map<String, MonolingualTextValue> copy = SortedArrayMap.copyOf(expected);
+		assertEquals(expected, copy);
+		assertSame(copy, SortedArrayMap.copyOf(copy));
+		assertSame(StringInterner.intern("de"), copy.keySet().iterator().next());
+		assertSame(Collections.emptyMap(), SortedArrayMap.copyOf(new HashMap<>()));
+	}
+
+	@Test
+	public void testEntityIdOrder() {
+		Map<String, Integer> ids = new HashMap<>();
+		ids.put("P10", 10);
+		ids.put("P2", 2);
+		ids.put("P100", 100);
+		ids.put("P31", 31);
+		Map<String, Integer> copy = SortedArrayMap.copyOf(ids,
+				Function.identity(), SortedArrayMap.ENTITY_ID_ORDER);
+		assertEquals(Arrays.asList("P2", "P10", "P31", "P100"),
+				new ArrayList<>(copy.keySet()));
+		assertEquals(Integer.valueOf(31), copy.get("P31"));
+		assertTrue(copy.containsKey("P100"));
+		assertNull(copy.get("P3"));
+		assertEquals(ids, copy);
+	}
+
+	@Test
+	public void testDuplicateKeys() {
+		assertThrows(IllegalArgumentException.class,
+				() -> SortedArrayMap.fromValues(
+						Arrays.asList(de, new TermImpl("de", "Kater")),
+						MonolingualTextValue::getLanguageCode, "duplicate"));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertSame(Collections.emptyMap(), SortedArrayMap.fromValues(
+				Collections.<MonolingualTextValue> emptyList(),
+				MonolingualTextValue::getLanguageCode, "duplicate"));
+	}
+
+}
@@ -77,12 +77,22 @@ import org.wikidata.wdtk.util.WebResourceFetcherImpl;
  * {@link #processMostRecentMainDump()}, and
  * {@link #processMostRecentMainDump()}.
  * <p>
+ * To maintain a local copy of the current data without reprocessing all dumps
+ * on every run, {@link #updateEntityStore(EntityStore)} can be used to apply
+ * new dumps to an {@link EntityStore} incrementally.
+ * <p>
  * To extract the most recent sitelinks information, the method
  * {@link #getSitesInformation()} can be used. To get information about the
  * revision dump files that the main methods will process, one can use
  * {@link #getWmfDumpFileManager()} to get access to the underlying dump file
  * manager, which can be used to get access to dump file data.
  * <p>
+ * The progress of processing is reported by a {@link DumpProcessingMonitor},
+ * which logs throughput, the time spent in each stage and processor, and an
+ * estimate of the remaining time every few seconds. It is available from
+ * {@link #getMonitor()}, and can be switched off with
+ * {@link #setMonitoring(boolean)}.
+ * <p>
  * The controller will also catch exceptions that may occur when trying to
  * download and read dump files. They will be turned into logged errors.
  *
@@ -182,6 +192,16 @@ public class DumpProcessingController {
 
 	final DocumentDataFilter filter = new DocumentDataFilter();
 
+	/**
+	 * Should online dumps be processed while they are being downloaded?
+	 */
+	boolean streamWhileDownloading = false;
+
+	/**
+	 * Monitor that keeps track of the progress of processing.
+	 */
+	final DumpProcessingMonitor monitor = new DumpProcessingMonitor();
+
 	/**
 	 * Creates a new DumpFileProcessingController for the project of the given
 	 * name. By default, the dump file directory will be assumed to be in the
@@ -238,6 +258,23 @@ public class DumpProcessingController {
 		}
 	}
 
+	/**
+	 * Enables or disables processing of online dumps while they are being
+	 * downloaded. If enabled, the data of a dump that is not available locally
+	 * yet is passed on to the processors as it arrives, while the file is still
+	 * stored in the download directory for later reuse. Download and
+	 * processing then overlap instead of taking place one after the other.
+	 * Dumps fetched this way are not verified against their published
+	 * checksums, and they are downloaded as a single stream rather than in
+	 * parallel segments. Disabled by default.
+	 *
+	 * @param streamWhileDownloading
+	 *            if true, online dumps are processed while being downloaded
+	 */
+	public void setStreamWhileDownloading(boolean streamWhileDownloading) {
+		this.streamWhileDownloading = streamWhileDownloading;
+	}
+
 	/**
 	 * Sets a property filter. If given, all data will be preprocessed to
 	 * contain only statements for the given (main) properties.
@@ -274,6 +311,30 @@ public class DumpProcessingController {
 		this.filter.setLanguageFilter(languageFilter);
 	}
 
+	/**
+	 * Sets whether the progress of processing dump files is monitored. This
+	 * is the default. Monitoring measures the time of each read and of each
+	 * call of a processor, which can be switched off to save this overhead.
+	 *
+	 * @see DumpProcessingMonitor#setEnabled(boolean)
+	 * @param monitoring
+	 *            true if processing should be monitored
+	 */
+	public void setMonitoring(boolean monitoring) {
+		this.monitor.setEnabled(monitoring);
+	}
+
+	/**
+	 * Returns the monitor that keeps track of the progress of processing dump
+	 * files. It can be used to configure how often progress is logged, and to
+	 * query the current progress from another thread.
+	 *
+	 * @return the monitor of this controller
+	 */
+	public DumpProcessingMonitor getMonitor() {
+		return this.monitor;
+	}
+
 	/**
 	 * Registers an MwRevisionProcessor, which will henceforth be notified of
 	 * all revisions that are encountered in the dump.
@@ -459,6 +520,77 @@ public class DumpProcessingController {
 		processDumpFile(dumpFile, dumpFileProcessor);
 	}
 
+	/**
+	 * Brings the given {@link EntityStore} up to date. If the store is still
+	 * empty, it is first seeded from the most recent JSON dump. Afterwards, all
+	 * daily dumps that are more recent than the dump that the store was seeded
+	 * from and that have not been applied yet are processed in chronological
+	 * order. Only the most current revision of each page in a daily dump is
+	 * stored, and documents are only replaced by more recent revisions, so that
+	 * it is safe to call this method repeatedly.
+	 * <p>
+	 * The configured property, site link and language filters are applied to
+	 * the data before it is stored. The store is flushed after each dump file,
+	 * so that an interrupted run can be resumed later on.
+	 *
+	 * @param entityStore
+	 *            the store to update
+	 * @throws IOException
+	 *             if the store could not be written
+	 */
+	public void updateEntityStore(EntityStore entityStore) throws IOException {
+		WmfDumpFileManager wmfDumpFileManager = getWmfDumpFileManager();
+		if (wmfDumpFileManager == null) {
+			return;
+		}
+
+		EntityDocumentProcessor storeProcessor = filterEntityDocumentProcessor(this.monitor
+				.monitorProcessor(entityStore));
+
+		if (entityStore.getBaseDumpDateStamp() == null) {
+			MwDumpFile jsonDump = wmfDumpFileManager
+					.findMostRecentDump(DumpContentType.JSON);
+			if (jsonDump == null) {
+				logger.error("Could not find any JSON dump to seed entity store "
+						+ entityStore + " from.");
+				return;
+			}
+			if (!processDumpFile(jsonDump, new JsonDumpFileProcessor(
+					this.monitor.countDocuments(storeProcessor),
+					Datamodel.SITE_WIKIDATA))) {
+				return;
+			}
+			entityStore.setBaseDumpDateStamp(jsonDump.getDateStamp());
+			entityStore.flush();
+		}
+
+		List<MwDumpFile> dailyDumps = new ArrayList<>(
+				wmfDumpFileManager.findAllDumps(DumpContentType.DAILY));
+		dailyDumps.sort(new MwDumpFile.DateComparator());
+		for (MwDumpFile dumpFile : dailyDumps) {
+			if (dumpFile.getDateStamp().compareTo(
+					entityStore.getBaseDumpDateStamp()) <= 0
+					|| entityStore.getAppliedDumpDateStamps().contains(
+							dumpFile.getDateStamp())
+					|| !dumpFile.isAvailable()) {
+				continue;
+			}
+
+			MwRevisionProcessorBroker broker = new MwRevisionProcessorBroker();
+			broker.registerMwRevisionProcessor(
+					new EntityStoreRevisionProcessor(entityStore,
+							storeProcessor, Datamodel.SITE_WIKIDATA), null,
+					true);
+			if (!processDumpFile(dumpFile, new MwRevisionDumpFileProcessor(
+					this.monitor.countRevisions(broker)))) {
+				// Later dumps must not be marked as applied before this one
+				return;
+			}
+			entityStore.markDumpApplied(dumpFile.getDateStamp());
+			entityStore.flush();
+		}
+	}
+
 	/**
 	 * Returns a handler for the most recent dump file of the given type that is
 	 * available (under the current settings), or null if no dump file of this
@@ -485,17 +617,22 @@ public class DumpProcessingController {
 
 	/**
 	 * Processes one dump file with the given dump file processor, handling
-	 * exceptions appropriately.
+	 * exceptions appropriately. The progress is tracked by the
+	 * {@link #monitor}.
 	 *
 	 * @param dumpFile
 	 *            the dump file to process
 	 * @param dumpFileProcessor
 	 *            the dump file processor to use
+	 * @return true if the dump file was processed without errors
 	 */
-	void processDumpFile(MwDumpFile dumpFile,
+	boolean processDumpFile(MwDumpFile dumpFile,
 			MwDumpFileProcessor dumpFileProcessor) {
-		try (InputStream inputStream = dumpFile.getDumpFileStream()) {
+		this.monitor.start(dumpFile);
+		try (InputStream inputStream = this.monitor
+				.monitorInputStream(dumpFile.getDumpFileStream())) {
 			dumpFileProcessor.processDumpFileContents(inputStream, dumpFile);
+			return true;
 		} catch (FileAlreadyExistsException e) {
 			logger.error("Dump file "
 					+ dumpFile.toString()
@@ -505,7 +642,10 @@ public class DumpProcessingController {
 		} catch (IOException e) {
 			logger.error("Dump file " + dumpFile.toString()
 					+ " could not be processed: " + e.toString());
+		} finally {
+			this.monitor.finish();
 		}
+		return false;
 	}
 
 	/**
@@ -523,8 +663,12 @@ public class DumpProcessingController {
 	 */
 	public WmfDumpFileManager getWmfDumpFileManager() {
 		try {
-			return new WmfDumpFileManager(this.projectName,
-					this.downloadDirectoryManager, this.webResourceFetcher);
+			WmfDumpFileManager wmfDumpFileManager = new WmfDumpFileManager(
+					this.projectName, this.downloadDirectoryManager,
+					this.webResourceFetcher);
+			wmfDumpFileManager
+					.setStreamWhileDownloading(this.streamWhileDownloading);
+			return wmfDumpFileManager;
 		} catch (IOException e) {
 			logger.error("Could not create dump file manager: " + e.toString());
 			return null;
@@ -538,7 +682,8 @@ public class DumpProcessingController {
 	 * @return the main MwDumpFileProcessor for revisions
 	 */
 	MwDumpFileProcessor getRevisionDumpFileProcessor() {
-		return new MwRevisionDumpFileProcessor(getMasterMwRevisionProcessor());
+		return new MwRevisionDumpFileProcessor(
+				this.monitor.countRevisions(getMasterMwRevisionProcessor()));
 	}
 
 	/**
@@ -548,7 +693,8 @@ public class DumpProcessingController {
 	 * @return the main MwDumpFileProcessor for JSON
 	 */
 	MwDumpFileProcessor getJsonDumpFileProcessor() {
-		return new JsonDumpFileProcessor(getMasterEntityDocumentProcessor(),
+		return new JsonDumpFileProcessor(
+				this.monitor.countDocuments(getMasterEntityDocumentProcessor()),
 				Datamodel.SITE_WIKIDATA);
 	}
 
@@ -596,7 +742,9 @@ public class DumpProcessingController {
 
 		for (Map.Entry<ListenerRegistration, List<EntityDocumentProcessor>> entry : this.entityDocumentProcessors
 				.entrySet()) {
-			for (EntityDocumentProcessor edp : entry.getValue()) {
+			for (EntityDocumentProcessor registeredEdp : entry.getValue()) {
+				EntityDocumentProcessor edp = this.monitor
+						.monitorProcessor(registeredEdp);
 				if (result == null) {
 					result = edp;
 				} else {
@@ -628,8 +776,8 @@ public class DumpProcessingController {
 				&& this.filter.getLanguageFilter() == null) {
 			return processor;
 		} else {
-			return new EntityDocumentProcessorFilter(
-					processor, this.filter);
+			return this.monitor.monitorFilter(new EntityDocumentProcessorFilter(
+					processor, this.filter));
 		}
 	}
 
@@ -645,7 +793,8 @@ public class DumpProcessingController {
 		for (Entry<ListenerRegistration, List<MwRevisionProcessor>> entry : this.mwRevisionProcessors
 				.entrySet()) {
 			for (MwRevisionProcessor mrp : entry.getValue()) {
-				result.registerMwRevisionProcessor(mrp, entry.getKey().model,
+				result.registerMwRevisionProcessor(
+						this.monitor.monitorProcessor(mrp), entry.getKey().model,
 						entry.getKey().onlyCurrentRevisions);
 			}
 		}
@@ -654,11 +803,13 @@ public class DumpProcessingController {
 				.entrySet()) {
 			EntityDocumentProcessor resultEdp;
 			if (edpEntry.getValue().size() == 1) {
-				resultEdp = edpEntry.getValue().get(0);
+				resultEdp = this.monitor.monitorProcessor(edpEntry.getValue()
+						.get(0));
 			} else {
 				EntityDocumentProcessorBroker edpb = new EntityDocumentProcessorBroker();
 				for (EntityDocumentProcessor edp : edpEntry.getValue()) {
-					edpb.registerEntityDocumentProcessor(edp);
+					edpb.registerEntityDocumentProcessor(this.monitor
+							.monitorProcessor(edp));
 				}
 				resultEdp = edpb;
 			}
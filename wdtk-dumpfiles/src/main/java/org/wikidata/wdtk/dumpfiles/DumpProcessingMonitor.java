@@ -0,0 +1,766 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.compress.utils.InputStreamStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+/**
+ * Keeps track of the progress of the {@link DumpProcessingController} while it
+ * processes a dump file. The monitor counts the bytes that are read from the
+ * dump, both as stored (compressed) and after decompression, and the
+ * documents or revisions that are passed on to the registered processors. It
+ * also measures where the processing time goes:
+ * <ul>
+ * <li>{@link #STAGE_INPUT}: reading and decompressing the dump file,</li>
+ * <li>{@link #STAGE_PARSING}: parsing JSON or XML and passing on the data,</li>
+ * <li>{@link #STAGE_FILTER}: applying the configured data filters,</li>
+ * <li>and the time spent in each registered processor, see
+ * {@link #getProcessorTimes()}.</li>
+ * </ul>
+ * The time of each stage excludes the time of the stages it calls, so the
+ * times add up to the elapsed time. When the size of the dump file is known,
+ * the monitor estimates how long processing will still take.
+ * <p>
+ * A short status report is logged every few seconds (see
+ * {@link #setReportInterval(int)}) and when a dump file has been processed.
+ * The current values can also be read at any time through the getters of this
+ * class, also from other threads. The monitor itself does not use a thread of
+ * its own; the measurements are taken by the thread that processes the dump.
+ * <p>
+ * Taking the measurements costs some time for every document and every read
+ * from the dump. Monitoring can be switched off with
+ * {@link #setEnabled(boolean)}; dumps are then processed without any
+ * measurements.
+ *
+ */
+public class DumpProcessingMonitor {
+
+	static final Logger logger = LoggerFactory
+			.getLogger(DumpProcessingMonitor.class);
+
+	/**
+	 * Name of the stage of reading and decompressing the dump file.
+	 */
+	public static final String STAGE_INPUT = "input";
+
+	/**
+	 * Name of the stage of parsing the dump file and passing on the data. This
+	 * is all time that is not measured for any other stage.
+	 */
+	public static final String STAGE_PARSING = "parsing";
+
+	/**
+	 * Name of the stage of filtering the data before it is given to the
+	 * processors.
+	 */
+	public static final String STAGE_FILTER = "filter";
+
+	/**
+	 * Part of the processing whose time is measured.
+	 */
+	static class Component {
+		final String name;
+		volatile long time = 0;
+
+		Component(String name) {
+			this.name = name;
+		}
+	}
+
+	final Component input = new Component(STAGE_INPUT);
+	final Component filter = new Component(STAGE_FILTER);
+
+	/**
+	 * Components for the registered processors, by processor object.
+	 */
+	final Map<Object, Component> processorComponents = new IdentityHashMap<>();
+	final List<Component> processors = new ArrayList<>();
+
+	/**
+	 * Sum of the times of all components. Only used by the processing
+	 * thread, to exclude the times of nested components.
+	 */
+	long measuredTime = 0;
+
+	/**
+	 * Number of seconds after which a status report is logged, or 0 if no
+	 * reports should be logged while processing.
+	 */
+	int reportInterval = 10;
+	long nextReportTime = 0;
+
+	/**
+	 * True if dump processing is monitored.
+	 */
+	volatile boolean enabled = true;
+
+	volatile MwDumpFile dumpFile = null;
+	volatile String unit = "documents";
+	volatile boolean running = false;
+	volatile long startTime = 0;
+	volatile long endTime = 0;
+	volatile long count = 0;
+	volatile long decompressedBytes = 0;
+	volatile long compressedBytes = 0;
+	volatile long totalBytes = -1;
+
+	/**
+	 * Sets the interval after which the progress is logged. By default, this
+	 * is ten seconds. Like in {@link EntityTimerProcessor}, reports are only
+	 * logged between reading data and processing documents, so they may be
+	 * delayed if a single document takes very long.
+	 *
+	 * @param seconds
+	 *            time after which progress should be reported, or 0 if
+	 *            progress should only be reported when a dump is finished
+	 */
+	public void setReportInterval(int seconds) {
+		if (seconds < 0) {
+			throw new IllegalArgumentException(
+					"The report interval must not be negative.");
+		}
+		this.reportInterval = seconds;
+	}
+
+	/**
+	 * Sets whether dump processing is monitored. This is the default. If
+	 * monitoring is disabled, no counts or times are measured and no progress
+	 * is logged for the dump files that are processed afterwards.
+	 *
+	 * @param enabled
+	 *            true if processing should be monitored
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns true if dump processing is monitored. See
+	 * {@link #setEnabled(boolean)}.
+	 *
+	 * @return true if monitoring is enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Returns the dump file that is processed at the moment, or that has been
+	 * processed last.
+	 *
+	 * @return the dump file, or null if no dump has been processed yet
+	 */
+	public MwDumpFile getDumpFile() {
+		return this.dumpFile;
+	}
+
+	/**
+	 * Returns true while a dump file is being processed.
+	 *
+	 * @return true if processing is in progress
+	 */
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/**
+	 * Returns the time that has been spent on the current or last dump file.
+	 *
+	 * @return elapsed time in nanoseconds
+	 */
+	public long getElapsedTime() {
+		if (this.startTime == 0) {
+			return 0;
+		}
+		return (this.running ? System.nanoTime() : this.endTime)
+				- this.startTime;
+	}
+
+	/**
+	 * Returns the number of documents (for JSON dumps) or revisions (for
+	 * revision dumps) that have been passed on to the processors.
+	 *
+	 * @return number of documents or revisions
+	 */
+	public long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Returns the number of bytes that have been read from the dump file after
+	 * decompression.
+	 *
+	 * @return number of decompressed bytes
+	 */
+	public long getDecompressedBytes() {
+		return this.decompressedBytes;
+	}
+
+	/**
+	 * Returns the number of bytes that have been read from the dump file as it
+	 * is stored. For uncompressed files, this is the same as
+	 * {@link #getDecompressedBytes()}.
+	 *
+	 * @return number of compressed bytes
+	 */
+	public long getCompressedBytes() {
+		return this.compressedBytes;
+	}
+
+	/**
+	 * Returns the size of the dump file as it is stored.
+	 *
+	 * @return size in bytes, or -1 if it is not known
+	 */
+	public long getTotalBytes() {
+		return this.totalBytes;
+	}
+
+	/**
+	 * Returns the part of the dump file that has been read.
+	 *
+	 * @return number between 0 and 1, or -1 if the size of the file is not
+	 *         known
+	 */
+	public double getProgress() {
+		if (this.totalBytes <= 0) {
+			return -1;
+		}
+		return Math.min(1.0, (double) this.compressedBytes / this.totalBytes);
+	}
+
+	/**
+	 * Estimates how long it will take to process the rest of the dump file,
+	 * assuming that the rest is processed as fast as the part so far.
+	 *
+	 * @return remaining time in nanoseconds, or -1 if it cannot be estimated
+	 */
+	public long getEstimatedRemainingTime() {
+		double progress = getProgress();
+		if (progress <= 0) {
+			return -1;
+		}
+		return (long) (getElapsedTime() * (1 - progress) / progress);
+	}
+
+	/**
+	 * Returns the time spent in the stages {@link #STAGE_INPUT},
+	 * {@link #STAGE_PARSING} and {@link #STAGE_FILTER}.
+	 *
+	 * @return map from stage names to times in nanoseconds
+	 */
+	public Map<String, Long> getStageTimes() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		result.put(STAGE_INPUT, this.input.time);
+		long parsingTime = getElapsedTime() - this.input.time
+				- this.filter.time;
+		for (Component component : getProcessorComponents()) {
+			parsingTime -= component.time;
+		}
+		result.put(STAGE_PARSING, Math.max(0, parsingTime));
+		result.put(STAGE_FILTER, this.filter.time);
+		return result;
+	}
+
+	/**
+	 * Returns the time spent in each registered processor. Processors are
+	 * named after their class.
+	 *
+	 * @return map from processor names to times in nanoseconds
+	 */
+	public Map<String, Long> getProcessorTimes() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (Component component : getProcessorComponents()) {
+			result.put(component.name, component.time);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a one-line summary of the current progress, as it is written to
+	 * the log.
+	 *
+	 * @return status report
+	 */
+	public String getStatusReport() {
+		long elapsed = getElapsedTime();
+		double seconds = elapsed / 1e9;
+		StringBuilder report = new StringBuilder();
+		report.append("Processed ").append(this.count).append(' ')
+				.append(this.unit);
+		if (this.dumpFile != null) {
+			report.append(" of ").append(this.dumpFile);
+		}
+		report.append(String.format(Locale.ROOT, " in %.0f sec", seconds));
+		if (seconds >= 1) {
+			report.append(String.format(Locale.ROOT, " (%.0f per second)",
+					this.count / seconds));
+		}
+		report.append("; read ").append(formatBytes(this.compressedBytes));
+		if (this.compressedBytes != this.decompressedBytes) {
+			report.append(" compressed, ")
+					.append(formatBytes(this.decompressedBytes))
+					.append(" decompressed");
+		}
+		if (seconds >= 1) {
+			report.append(" (")
+					.append(formatBytes((long) (this.compressedBytes / seconds)))
+					.append("/s)");
+		}
+		double progress = getProgress();
+		if (progress >= 0) {
+			report.append(String.format(Locale.ROOT, "; %.1f%% done",
+					progress * 100));
+			long remaining = getEstimatedRemainingTime();
+			if (this.running && remaining >= 0) {
+				report.append(String.format(Locale.ROOT,
+						", about %.0f sec remaining", remaining / 1e9));
+			}
+		}
+		if (elapsed > 0) {
+			report.append(". Time spent:");
+			Map<String, Long> times = getStageTimes();
+			times.putAll(getProcessorTimes());
+			boolean first = true;
+			for (Map.Entry<String, Long> entry : times.entrySet()) {
+				report.append(first ? " " : ", ").append(entry.getKey())
+						.append(String.format(Locale.ROOT, " %.1f%%",
+								entry.getValue() * 100.0 / elapsed));
+				first = false;
+			}
+		}
+		return report.append('.').toString();
+	}
+
+	/**
+	 * Starts monitoring the given dump file. All counts and times are reset.
+	 *
+	 * @param dumpFile
+	 *            the dump file that is going to be processed
+	 */
+	void start(MwDumpFile dumpFile) {
+		if (!this.enabled) {
+			return;
+		}
+		this.dumpFile = dumpFile;
+		this.unit = dumpFile.getDumpContentType() == DumpContentType.JSON ? "documents"
+				: "revisions";
+		this.count = 0;
+		this.decompressedBytes = 0;
+		this.compressedBytes = 0;
+		this.totalBytes = -1;
+		this.measuredTime = 0;
+		this.input.time = 0;
+		this.filter.time = 0;
+		for (Component component : getProcessorComponents()) {
+			component.time = 0;
+		}
+		this.endTime = 0;
+		this.startTime = System.nanoTime();
+		this.nextReportTime = this.startTime + this.reportInterval
+				* 1000000000L;
+		this.running = true;
+	}
+
+	/**
+	 * Stops monitoring the current dump file and logs the final report.
+	 */
+	void finish() {
+		if (!this.running) {
+			return;
+		}
+		this.endTime = System.nanoTime();
+		this.running = false;
+		logger.info(getStatusReport());
+	}
+
+	/**
+	 * Returns a stream that reads from the given dump file stream and counts
+	 * the bytes that are read. The size of the dump file is determined at
+	 * this point, since online dump files might have been downloaded when
+	 * their stream was opened.
+	 *
+	 * @param inputStream
+	 *            the stream returned by {@link MwDumpFile#getDumpFileStream()}
+	 * @return the monitored stream
+	 */
+	InputStream monitorInputStream(InputStream inputStream) {
+		if (!this.running) {
+			return inputStream;
+		}
+		try {
+			this.totalBytes = this.dumpFile.getDumpFileSize();
+		} catch (IOException e) {
+			logger.warn("Could not determine size of dump file "
+					+ this.dumpFile + ": " + e.toString());
+		}
+		return new MonitoredInputStream(inputStream);
+	}
+
+	/**
+	 * Returns a processor that measures the time spent in the given processor
+	 * before passing on the documents.
+	 *
+	 * @param processor
+	 *            a registered processor
+	 * @return the monitored processor, or the given processor if monitoring
+	 *         is disabled
+	 */
+	EntityDocumentProcessor monitorProcessor(EntityDocumentProcessor processor) {
+		if (!this.enabled) {
+			return processor;
+		}
+		return new MonitoredEntityDocumentProcessor(processor,
+				getProcessorComponent(processor), false);
+	}
+
+	/**
+	 * Returns a processor that measures the time spent in the given filter.
+	 *
+	 * @param filter
+	 *            the processor that applies the filters
+	 * @return the monitored processor
+	 */
+	EntityDocumentProcessor monitorFilter(EntityDocumentProcessor filter) {
+		if (!this.enabled) {
+			return filter;
+		}
+		return new MonitoredEntityDocumentProcessor(filter, this.filter, false);
+	}
+
+	/**
+	 * Returns a processor that counts the documents that are passed on to the
+	 * given processor, which should be the processor that receives all
+	 * documents of a dump.
+	 *
+	 * @param processor
+	 *            the main processor
+	 * @return the counting processor, or null if the given processor is null
+	 */
+	EntityDocumentProcessor countDocuments(EntityDocumentProcessor processor) {
+		if (processor == null || !this.enabled) {
+			return processor;
+		}
+		return new MonitoredEntityDocumentProcessor(processor, null, true);
+	}
+
+	/**
+	 * Returns a processor that measures the time spent in the given processor
+	 * before passing on the revisions.
+	 *
+	 * @param processor
+	 *            a registered processor
+	 * @return the monitored processor
+	 */
+	MwRevisionProcessor monitorProcessor(MwRevisionProcessor processor) {
+		if (!this.enabled) {
+			return processor;
+		}
+		return new MonitoredMwRevisionProcessor(processor,
+				getProcessorComponent(processor), false);
+	}
+
+	/**
+	 * Returns a processor that counts the revisions that are passed on to the
+	 * given processor, which should be the processor that receives all
+	 * revisions of a dump.
+	 *
+	 * @param processor
+	 *            the main processor
+	 * @return the counting processor
+	 */
+	MwRevisionProcessor countRevisions(MwRevisionProcessor processor) {
+		if (!this.enabled) {
+			return processor;
+		}
+		return new MonitoredMwRevisionProcessor(processor, null, true);
+	}
+
+	/**
+	 * Adds the time since the given start time to the given component, minus
+	 * the time that was measured for other components in the meantime.
+	 *
+	 * @param component
+	 *            the component to add the time to
+	 * @param start
+	 *            the value of {@link System#nanoTime()} when the component
+	 *            was called
+	 * @param measuredBefore
+	 *            the value of {@link #measuredTime} when the component was
+	 *            called
+	 * @return the current time as given by {@link System#nanoTime()}
+	 */
+	long addTime(Component component, long start, long measuredBefore) {
+		long now = System.nanoTime();
+		long elapsed = now - start;
+		component.time += elapsed - (this.measuredTime - measuredBefore);
+		this.measuredTime = measuredBefore + elapsed;
+		return now;
+	}
+
+	/**
+	 * Counts one document or revision and logs a report if it is time to do
+	 * so.
+	 */
+	void countOne() {
+		this.count++;
+		if ((this.count & 0xFF) == 0 && this.reportInterval > 0) {
+			reportIfDue(System.nanoTime());
+		}
+	}
+
+	void reportIfDue(long now) {
+		if (this.reportInterval > 0 && now - this.nextReportTime >= 0) {
+			this.nextReportTime = now + this.reportInterval * 1000000000L;
+			logger.info(getStatusReport());
+		}
+	}
+
+	synchronized Component getProcessorComponent(Object processor) {
+		Component component = this.processorComponents.get(processor);
+		if (component == null) {
+			String name = processor.getClass().getSimpleName();
+			int number = 1;
+			for (Component other : this.processors) {
+				if (other.name.equals(name)
+						|| other.name.startsWith(name + " #")) {
+					number++;
+				}
+			}
+			component = new Component(number == 1 ? name : name + " #"
+					+ number);
+			this.processorComponents.put(processor, component);
+			this.processors.add(component);
+		}
+		return component;
+	}
+
+	synchronized List<Component> getProcessorComponents() {
+		return new ArrayList<>(this.processors);
+	}
+
+	static String formatBytes(long bytes) {
+		if (bytes < 1024) {
+			return bytes + " B";
+		}
+		int exponent = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+		return String.format(Locale.ROOT, "%.1f %sB",
+				bytes / Math.pow(1024, exponent), "KMGTPE".charAt(exponent - 1));
+	}
+
+	/**
+	 * Stream that counts the bytes read and measures the time spent reading.
+	 */
+	class MonitoredInputStream extends FilterInputStream {
+
+		/**
+		 * The decompressing stream, or null if the data is not compressed.
+		 */
+		final InputStreamStatistics statistics;
+
+		MonitoredInputStream(InputStream in) {
+			super(in);
+			this.statistics = in instanceof InputStreamStatistics ? (InputStreamStatistics) in
+					: null;
+		}
+
+		@Override
+		public int read() throws IOException {
+			long start = System.nanoTime();
+			long measuredBefore = measuredTime;
+			int result = super.read();
+			update(result < 0 ? 0 : 1, start, measuredBefore);
+			return result;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			long measuredBefore = measuredTime;
+			int result = super.read(b, off, len);
+			update(result, start, measuredBefore);
+			return result;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long start = System.nanoTime();
+			long measuredBefore = measuredTime;
+			long result = super.skip(n);
+			update(result, start, measuredBefore);
+			return result;
+		}
+
+		void update(long bytes, long start, long measuredBefore) {
+			long now = addTime(input, start, measuredBefore);
+			if (bytes > 0) {
+				decompressedBytes += bytes;
+				compressedBytes = this.statistics == null ? decompressedBytes
+						: this.statistics.getCompressedCount();
+			}
+			reportIfDue(now);
+		}
+	}
+
+	/**
+	 * Processor that counts documents or measures the time of another
+	 * processor.
+	 */
+	class MonitoredEntityDocumentProcessor implements EntityDocumentProcessor {
+
+		final EntityDocumentProcessor processor;
+		final Component component;
+		final boolean count;
+
+		MonitoredEntityDocumentProcessor(EntityDocumentProcessor processor,
+				Component component, boolean count) {
+			this.processor = processor;
+			this.component = component;
+			this.count = count;
+		}
+
+		@Override
+		public void processItemDocument(ItemDocument itemDocument) {
+			long start = begin();
+			long measuredBefore = measuredTime;
+			this.processor.processItemDocument(itemDocument);
+			end(start, measuredBefore);
+		}
+
+		@Override
+		public void processPropertyDocument(PropertyDocument propertyDocument) {
+			long start = begin();
+			long measuredBefore = measuredTime;
+			this.processor.processPropertyDocument(propertyDocument);
+			end(start, measuredBefore);
+		}
+
+		@Override
+		public void processLexemeDocument(LexemeDocument lexemeDocument) {
+			long start = begin();
+			long measuredBefore = measuredTime;
+			this.processor.processLexemeDocument(lexemeDocument);
+			end(start, measuredBefore);
+		}
+
+		@Override
+		public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+			long start = begin();
+			long measuredBefore = measuredTime;
+			this.processor.processMediaInfoDocument(mediaInfoDocument);
+			end(start, measuredBefore);
+		}
+
+		@Override
+		public void processEntityRedirectDocument(
+				EntityRedirectDocument entityRedirectDocument) {
+			long start = begin();
+			long measuredBefore = measuredTime;
+			this.processor.processEntityRedirectDocument(entityRedirectDocument);
+			end(start, measuredBefore);
+		}
+
+		long begin() {
+			if (this.count) {
+				countOne();
+			}
+			return this.component == null ? 0 : System.nanoTime();
+		}
+
+		void end(long start, long measuredBefore) {
+			if (this.component != null) {
+				addTime(this.component, start, measuredBefore);
+			}
+		}
+	}
+
+	/**
+	 * Revision processor that counts revisions or measures the time of another
+	 * processor.
+	 */
+	class MonitoredMwRevisionProcessor implements MwRevisionProcessor {
+
+		final MwRevisionProcessor processor;
+		final Component component;
+		final boolean count;
+
+		MonitoredMwRevisionProcessor(MwRevisionProcessor processor,
+				Component component, boolean count) {
+			this.processor = processor;
+			this.component = component;
+			this.count = count;
+		}
+
+		@Override
+		public void startRevisionProcessing(String siteName, String baseUrl,
+				Map<Integer, String> namespaces) {
+			long start = System.nanoTime();
+			long measuredBefore = measuredTime;
+			this.processor.startRevisionProcessing(siteName, baseUrl,
+					namespaces);
+			end(start, measuredBefore);
+		}
+
+		@Override
+		public void processRevision(MwRevision mwRevision) {
+			if (this.count) {
+				countOne();
+			}
+			long start = System.nanoTime();
+			long measuredBefore = measuredTime;
+			this.processor.processRevision(mwRevision);
+			end(start, measuredBefore);
+		}
+
+		@Override
+		public void finishRevisionProcessing() {
+			long start = System.nanoTime();
+			long measuredBefore = measuredTime;
+			this.processor.finishRevisionProcessing();
+			end(start, measuredBefore);
+		}
+
+		void end(long start, long measuredBefore) {
+			if (this.component != null) {
+				addTime(this.component, start, measuredBefore);
+			}
+		}
+	}
+
+}
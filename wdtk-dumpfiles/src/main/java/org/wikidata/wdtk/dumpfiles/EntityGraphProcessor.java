@@ -0,0 +1,130 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
+import org.wikidata.wdtk.storage.datastructures.EntityGraph;
+
+/**
+ * {@link EntityDocumentProcessor} that builds an {@link EntityGraph} from the
+ * item-valued statements of the items it processes. By default, the graph
+ * holds the edges of <i>instance of</i> (P31), <i>subclass of</i> (P279) and
+ * <i>part of</i> (P361). Deprecated statements are ignored.
+ * <p>
+ * Once all documents have been processed, the graph can be obtained with
+ * {@link #getEntityGraph()}. For example, all instances of a class and its
+ * subclasses are found with:
+ *
+ * <pre>
+ * EntityGraph graph = processor.getEntityGraph();
+ * BitSet classes = graph.getDescendants(graph.getNode("Q5"), 279);
+ * classes.set(graph.getNode("Q5"));
+ * BitSet instances = graph.getNeighbours(classes, true, 31);
+ * </pre>
+ *
+ */
+public class EntityGraphProcessor implements EntityDocumentProcessor {
+
+	final String[] propertyIds;
+	final int[] numericPropertyIds;
+
+	EntityGraph.Builder builder = new EntityGraph.Builder();
+	EntityGraph entityGraph;
+
+	/**
+	 * Constructs a processor for the edges of <i>instance of</i> (P31),
+	 * <i>subclass of</i> (P279) and <i>part of</i> (P361).
+	 */
+	public EntityGraphProcessor() {
+		this("P31", "P279", "P361");
+	}
+
+	/**
+	 * Constructs a processor for the edges of the given properties.
+	 *
+	 * @param propertyIds
+	 *            the ids of the properties, such as "P279"
+	 * @throws IllegalArgumentException
+	 *             if one of the ids is not a property id
+	 */
+	public EntityGraphProcessor(String... propertyIds) {
+		this.propertyIds = propertyIds.clone();
+		this.numericPropertyIds = new int[propertyIds.length];
+		for (int i = 0; i < propertyIds.length; i++) {
+			if (!propertyIds[i].matches("P[1-9][0-9]{0,8}")) {
+				throw new IllegalArgumentException("\"" + propertyIds[i]
+						+ "\" is not a property id.");
+			}
+			this.numericPropertyIds[i] = Integer.parseInt(propertyIds[i]
+					.substring(1));
+		}
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		if (this.builder == null) {
+			throw new IllegalStateException(
+					"The entity graph has already been built.");
+		}
+		long source = getNumericId(itemDocument.getEntityId());
+		this.builder.addNode(source);
+		for (int i = 0; i < this.propertyIds.length; i++) {
+			StatementGroup statementGroup = itemDocument
+					.findStatementGroup(this.propertyIds[i]);
+			if (statementGroup == null) {
+				continue;
+			}
+			for (Statement statement : statementGroup) {
+				Value value = statement.getValue();
+				if (value instanceof ItemIdValue
+						&& statement.getRank() != StatementRank.DEPRECATED) {
+					this.builder.addEdge(this.numericPropertyIds[i], source,
+							getNumericId((ItemIdValue) value));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the graph of all items processed so far. The graph is built on
+	 * the first call; no further documents can be processed afterwards.
+	 *
+	 * @return the graph
+	 */
+	public EntityGraph getEntityGraph() {
+		if (this.entityGraph == null) {
+			this.entityGraph = this.builder.build();
+			this.builder = null;
+		}
+		return this.entityGraph;
+	}
+
+	static long getNumericId(ItemIdValue itemIdValue) {
+		return Long.parseLong(itemIdValue.getId().substring(1));
+	}
+
+}
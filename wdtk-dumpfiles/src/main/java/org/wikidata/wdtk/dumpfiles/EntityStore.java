@@ -0,0 +1,768 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.EntityIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.EntityRedirectDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Persistent local store for the current state of entities, keyed by entity
+ * id. The store is meant to be seeded once from a JSON dump and then kept up to
+ * date by applying daily dumps incrementally, see
+ * {@link DumpProcessingController#updateEntityStore(EntityStore)}.
+ * <p>
+ * Every entity is stored together with the revision id that it was taken from.
+ * A document is only accepted if its revision is newer than the one that is
+ * stored already, so that applying the same dump twice, or applying dumps in
+ * any order, leads to the same result.
+ * <p>
+ * Data is kept in a directory with three files: an append-only log of entity
+ * records (one line per record, holding the entity id, revision id and JSON
+ * serialization), an index that maps entity ids to positions in the log, and
+ * a small properties file that records which dumps have been applied. The
+ * index is kept in memory and written back by {@link #flush()}; if it is
+ * missing or out of date when the store is opened, it is rebuilt from the log.
+ * Superseded records remain in the log until {@link #compact()} is called.
+ * <p>
+ * The class implements {@link EntityDocumentDumpProcessor}, so it can be
+ * registered like any other processor. Documents received this way are stored
+ * under their own revision id, as found in JSON dumps. Revision dumps do not
+ * include the revision id in the entity JSON, so they should be fed through
+ * {@link EntityStoreRevisionProcessor} instead.
+ * <p>
+ * The class is not thread-safe.
+ *
+ */
+public class EntityStore implements EntityDocumentDumpProcessor {
+
+	static final Logger logger = LoggerFactory.getLogger(EntityStore.class);
+
+	/**
+	 * Name of the file that holds the entity records.
+	 */
+	public static final String LOG_FILE_NAME = "entities.log";
+	/**
+	 * Name of the file that holds the serialized index.
+	 */
+	public static final String INDEX_FILE_NAME = "entities.idx";
+	/**
+	 * Name of the file that holds meta data about applied dumps.
+	 */
+	public static final String METADATA_FILE_NAME = "store.properties";
+
+	static final int INDEX_FORMAT_VERSION = 1;
+
+	static final String PROPERTY_BASE_DUMP = "baseDump";
+	static final String PROPERTY_APPLIED_DUMPS = "appliedDumps";
+
+	/**
+	 * Position and revision of the most recent record of one entity. An offset
+	 * of -1 marks entities that have been turned into redirects.
+	 */
+	static class IndexEntry {
+		final long revisionId;
+		final long offset;
+		final int length;
+
+		IndexEntry(long revisionId, long offset, int length) {
+			this.revisionId = revisionId;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		boolean isRedirect() {
+			return this.offset < 0;
+		}
+	}
+
+	final Path directory;
+	final Path logFile;
+	final Path indexFile;
+	final Path metadataFile;
+
+	final ObjectMapper mapper;
+	final ObjectReader documentReader;
+
+	final Map<String, IndexEntry> index = new HashMap<>();
+
+	String baseDumpDateStamp;
+	final Set<String> appliedDumpDateStamps = new TreeSet<>();
+
+	long maxRevisionId = 0;
+	long logLength;
+
+	OutputStream logOutputStream;
+	RandomAccessFile logReader;
+
+	/**
+	 * Revision id that documents received through the
+	 * {@link EntityDocumentProcessor} interface are stored with, or 0 if the
+	 * revision id of the document itself should be used.
+	 */
+	long pendingRevisionId = 0;
+
+	/**
+	 * Opens the store in the given directory, creating it if needed.
+	 *
+	 * @param directory
+	 *            the directory to keep the store files in
+	 * @param siteIri
+	 *            the IRI of the site that the data comes from, as used in
+	 *            {@link EntityIdValue#getSiteIri()}
+	 * @throws IOException
+	 *             if the store could not be read or created
+	 */
+	public EntityStore(Path directory, String siteIri) throws IOException {
+		this.directory = directory;
+		this.logFile = directory.resolve(LOG_FILE_NAME);
+		this.indexFile = directory.resolve(INDEX_FILE_NAME);
+		this.metadataFile = directory.resolve(METADATA_FILE_NAME);
+		this.mapper = new DatamodelMapper(siteIri);
+		this.documentReader = this.mapper.readerFor(EntityDocumentImpl.class);
+
+		Files.createDirectories(directory);
+		if (!Files.exists(this.logFile)) {
+			Files.createFile(this.logFile);
+		}
+		this.logLength = Files.size(this.logFile);
+
+		readMetadata();
+		if (!readIndex()) {
+			rebuildIndex();
+		}
+
+		logger.info("Opened entity store " + directory + " with "
+				+ this.index.size() + " entities (maximal revision "
+				+ this.maxRevisionId + ").");
+	}
+
+	/**
+	 * Stores the given document under its own revision id. Nothing happens if
+	 * the store already holds the same or a more recent revision of the
+	 * entity.
+	 *
+	 * @param document
+	 *            the document to store
+	 * @return true if the document was stored
+	 * @throws IOException
+	 *             if the document could not be written
+	 */
+	public boolean putEntityDocument(EntityDocument document)
+			throws IOException {
+		return putEntityDocument(document, document.getRevisionId());
+	}
+
+	/**
+	 * Stores the given document under the given revision id. Nothing happens
+	 * if the store already holds the same or a more recent revision of the
+	 * entity.
+	 *
+	 * @param document
+	 *            the document to store
+	 * @param revisionId
+	 *            the revision that the document represents
+	 * @return true if the document was stored
+	 * @throws IOException
+	 *             if the document could not be written
+	 */
+	public boolean putEntityDocument(EntityDocument document, long revisionId)
+			throws IOException {
+		String entityId = document.getEntityId().getId();
+		if (!isNewer(entityId, revisionId)) {
+			return false;
+		}
+		if (document.getRevisionId() != revisionId) {
+			document = document.withRevisionId(revisionId);
+		}
+		appendRecord(entityId, revisionId, this.mapper.writeValueAsBytes(document));
+		return true;
+	}
+
+	/**
+	 * Records that the entity of the given id has become a redirect in the
+	 * given revision. The entity document will no longer be returned, but the
+	 * revision is still tracked.
+	 *
+	 * @param entityIdValue
+	 *            the id of the redirected entity
+	 * @param revisionId
+	 *            the revision that created the redirect
+	 * @return true if the redirect was recorded
+	 * @throws IOException
+	 *             if the record could not be written
+	 */
+	public boolean putEntityRedirect(EntityIdValue entityIdValue,
+			long revisionId) throws IOException {
+		String entityId = entityIdValue.getId();
+		if (!isNewer(entityId, revisionId)) {
+			return false;
+		}
+		appendRecord(entityId, revisionId, null);
+		return true;
+	}
+
+	/**
+	 * Returns the current document of the entity with the given id.
+	 *
+	 * @param entityId
+	 *            the string id of the entity, e.g., "Q42"
+	 * @return the document, or null if the entity is not known or has become
+	 *         a redirect
+	 * @throws IOException
+	 *             if the document could not be read
+	 */
+	public EntityDocument getEntityDocument(String entityId)
+			throws IOException {
+		IndexEntry entry = this.index.get(entityId);
+		if (entry == null || entry.isRedirect()) {
+			return null;
+		}
+		return readDocument(entry);
+	}
+
+	/**
+	 * Returns the revision id under which the entity of the given id is
+	 * stored.
+	 *
+	 * @param entityId
+	 *            the string id of the entity, e.g., "Q42"
+	 * @return the revision id, or -1 if the entity is not known
+	 */
+	public long getRevisionId(String entityId) {
+		IndexEntry entry = this.index.get(entityId);
+		return entry == null ? -1 : entry.revisionId;
+	}
+
+	/**
+	 * Returns the number of entities that the store knows about, including
+	 * entities that have become redirects.
+	 *
+	 * @return number of entities
+	 */
+	public int size() {
+		return this.index.size();
+	}
+
+	/**
+	 * Returns the largest revision id that has been stored so far. This can be
+	 * passed to {@link #getEntityIdsChangedSince(long)} later on to find out
+	 * which entities changed in between.
+	 *
+	 * @return the maximal revision id, or 0 if the store is empty
+	 */
+	public long getMaxRevisionId() {
+		return this.maxRevisionId;
+	}
+
+	/**
+	 * Returns the ids of all entities that are stored with a revision id
+	 * greater than the given one, ordered by revision.
+	 *
+	 * @param revisionId
+	 *            the revision id after which changes should be reported
+	 * @return list of entity ids
+	 */
+	public List<String> getEntityIdsChangedSince(long revisionId) {
+		List<Map.Entry<String, IndexEntry>> changed = new ArrayList<>();
+		for (Map.Entry<String, IndexEntry> entry : this.index.entrySet()) {
+			if (entry.getValue().revisionId > revisionId) {
+				changed.add(entry);
+			}
+		}
+		changed.sort((a, b) -> Long.compare(a.getValue().revisionId,
+				b.getValue().revisionId));
+
+		List<String> result = new ArrayList<>(changed.size());
+		for (Map.Entry<String, IndexEntry> entry : changed) {
+			result.add(entry.getKey());
+		}
+		return result;
+	}
+
+	/**
+	 * Passes the current documents of all entities that are stored with a
+	 * revision id greater than the given one to the given processor, ordered
+	 * by revision. Entities that have become redirects are skipped.
+	 *
+	 * @param revisionId
+	 *            the revision id after which changes should be reported
+	 * @param entityDocumentProcessor
+	 *            the processor to notify
+	 * @throws IOException
+	 *             if a document could not be read
+	 */
+	public void processEntityDocumentsChangedSince(long revisionId,
+			EntityDocumentProcessor entityDocumentProcessor)
+			throws IOException {
+		for (String entityId : getEntityIdsChangedSince(revisionId)) {
+			EntityDocument document = getEntityDocument(entityId);
+			if (document instanceof ItemDocument) {
+				entityDocumentProcessor
+						.processItemDocument((ItemDocument) document);
+			} else if (document instanceof PropertyDocument) {
+				entityDocumentProcessor
+						.processPropertyDocument((PropertyDocument) document);
+			} else if (document instanceof LexemeDocument) {
+				entityDocumentProcessor
+						.processLexemeDocument((LexemeDocument) document);
+			} else if (document instanceof MediaInfoDocument) {
+				entityDocumentProcessor
+						.processMediaInfoDocument((MediaInfoDocument) document);
+			}
+		}
+	}
+
+	/**
+	 * Returns the date stamp of the full dump that the store was seeded from.
+	 *
+	 * @return date stamp in format YYYYMMDD, or null if the store has not been
+	 *         seeded yet
+	 */
+	public String getBaseDumpDateStamp() {
+		return this.baseDumpDateStamp;
+	}
+
+	/**
+	 * Sets the date stamp of the full dump that the store was seeded from.
+	 *
+	 * @param dateStamp
+	 *            date stamp in format YYYYMMDD
+	 */
+	public void setBaseDumpDateStamp(String dateStamp) {
+		this.baseDumpDateStamp = dateStamp;
+	}
+
+	/**
+	 * Returns the date stamps of all incremental dumps that have been applied
+	 * to the store so far.
+	 *
+	 * @return sorted set of date stamps in format YYYYMMDD
+	 */
+	public Set<String> getAppliedDumpDateStamps() {
+		return Collections.unmodifiableSet(this.appliedDumpDateStamps);
+	}
+
+	/**
+	 * Records that the incremental dump of the given date has been applied.
+	 *
+	 * @param dateStamp
+	 *            date stamp in format YYYYMMDD
+	 */
+	public void markDumpApplied(String dateStamp) {
+		this.appliedDumpDateStamps.add(dateStamp);
+	}
+
+	/**
+	 * Writes all pending records, the index and the meta data to disk. After
+	 * this, the store can be reopened without rebuilding the index.
+	 *
+	 * @throws IOException
+	 *             if the files could not be written
+	 */
+	public void flush() throws IOException {
+		if (this.logOutputStream != null) {
+			this.logOutputStream.flush();
+		}
+		writeIndex();
+		writeMetadata();
+	}
+
+	/**
+	 * Rewrites the log so that it only contains the current record of each
+	 * entity. This frees the space taken by superseded revisions.
+	 *
+	 * @throws IOException
+	 *             if the log could not be rewritten
+	 */
+	public void compact() throws IOException {
+		closeStreams();
+
+		Path compactedFile = this.directory.resolve(LOG_FILE_NAME + ".tmp");
+		List<Map.Entry<String, IndexEntry>> entries = new ArrayList<>(
+				this.index.entrySet());
+		entries.sort((a, b) -> Long.compare(a.getValue().offset,
+				b.getValue().offset));
+
+		Map<String, IndexEntry> compactedIndex = new HashMap<>();
+		long position = 0;
+		try (RandomAccessFile reader = new RandomAccessFile(
+				this.logFile.toFile(), "r");
+				OutputStream out = new BufferedOutputStream(
+						Files.newOutputStream(compactedFile))) {
+			for (Map.Entry<String, IndexEntry> entry : entries) {
+				IndexEntry old = entry.getValue();
+				byte[] json = null;
+				if (!old.isRedirect()) {
+					json = new byte[old.length];
+					reader.seek(old.offset);
+					reader.readFully(json);
+				}
+				byte[] header = getRecordHeader(entry.getKey(), old.revisionId);
+				out.write(header);
+				if (json != null) {
+					out.write(json);
+				}
+				out.write('\n');
+				compactedIndex.put(entry.getKey(), json == null
+						? new IndexEntry(old.revisionId, -1, 0)
+						: new IndexEntry(old.revisionId, position
+								+ header.length, old.length));
+				position += header.length + (json == null ? 0 : json.length)
+						+ 1;
+			}
+		}
+
+		Files.move(compactedFile, this.logFile,
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		this.index.clear();
+		this.index.putAll(compactedIndex);
+		this.logLength = position;
+		flush();
+	}
+
+	@Override
+	public void open() {
+		// nothing to do; the store is opened on construction
+	}
+
+	/**
+	 * Flushes all data to disk and releases open files. The store can still be
+	 * used afterwards; files are reopened on demand.
+	 */
+	@Override
+	public void close() {
+		try {
+			flush();
+			closeStreams();
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	@Override
+	public void processItemDocument(ItemDocument itemDocument) {
+		storeProcessedDocument(itemDocument);
+	}
+
+	@Override
+	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		storeProcessedDocument(propertyDocument);
+	}
+
+	@Override
+	public void processLexemeDocument(LexemeDocument lexemeDocument) {
+		storeProcessedDocument(lexemeDocument);
+	}
+
+	@Override
+	public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+		storeProcessedDocument(mediaInfoDocument);
+	}
+
+	@Override
+	public void processEntityRedirectDocument(
+			EntityRedirectDocument entityRedirectDocument) {
+		long revisionId = this.pendingRevisionId > 0 ? this.pendingRevisionId
+				: entityRedirectDocument.getRevisionId();
+		try {
+			putEntityRedirect(entityRedirectDocument.getEntityId(), revisionId);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EntityStore " + this.directory;
+	}
+
+	/**
+	 * Stores a document received through the {@link EntityDocumentProcessor}
+	 * interface. Checked exceptions are turned into runtime exceptions since
+	 * the interface does not allow them.
+	 *
+	 * @param document
+	 *            the document to store
+	 */
+	void storeProcessedDocument(EntityDocument document) {
+		long revisionId = this.pendingRevisionId > 0 ? this.pendingRevisionId
+				: document.getRevisionId();
+		try {
+			putEntityDocument(document, revisionId);
+		} catch (IOException e) {
+			throw new RuntimeException(e.toString(), e);
+		}
+	}
+
+	/**
+	 * Checks if the given revision is more recent than the one currently
+	 * stored for the entity.
+	 */
+	private boolean isNewer(String entityId, long revisionId) {
+		IndexEntry entry = this.index.get(entityId);
+		return entry == null || entry.revisionId < revisionId;
+	}
+
+	/**
+	 * Appends a record to the log and updates the index.
+	 *
+	 * @param json
+	 *            the serialized document, or null for redirects
+	 */
+	private void appendRecord(String entityId, long revisionId, byte[] json)
+			throws IOException {
+		if (this.logOutputStream == null) {
+			this.logOutputStream = new BufferedOutputStream(
+					Files.newOutputStream(this.logFile,
+							StandardOpenOption.APPEND), 1 << 16);
+		}
+
+		byte[] header = getRecordHeader(entityId, revisionId);
+		this.logOutputStream.write(header);
+		if (json != null) {
+			this.logOutputStream.write(json);
+		}
+		this.logOutputStream.write('\n');
+
+		if (json == null) {
+			this.index.put(entityId, new IndexEntry(revisionId, -1, 0));
+		} else {
+			this.index.put(entityId, new IndexEntry(revisionId, this.logLength
+					+ header.length, json.length));
+		}
+		this.logLength += header.length + (json == null ? 0 : json.length)
+				+ 1;
+		this.maxRevisionId = Math.max(this.maxRevisionId, revisionId);
+	}
+
+	private byte[] getRecordHeader(String entityId, long revisionId) {
+		return (entityId + "\t" + revisionId + "\t")
+				.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private EntityDocument readDocument(IndexEntry entry) throws IOException {
+		if (this.logOutputStream != null) {
+			this.logOutputStream.flush();
+		}
+		if (this.logReader == null) {
+			this.logReader = new RandomAccessFile(this.logFile.toFile(), "r");
+		}
+		byte[] json = new byte[entry.length];
+		this.logReader.seek(entry.offset);
+		this.logReader.readFully(json);
+		return this.documentReader.readValue(json);
+	}
+
+	private void closeStreams() throws IOException {
+		if (this.logOutputStream != null) {
+			this.logOutputStream.close();
+			this.logOutputStream = null;
+		}
+		if (this.logReader != null) {
+			this.logReader.close();
+			this.logReader = null;
+		}
+	}
+
+	/**
+	 * Loads the index from disk.
+	 *
+	 * @return false if there was no index or if it did not match the log
+	 */
+	private boolean readIndex() throws IOException {
+		if (!Files.exists(this.indexFile)) {
+			return false;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				Files.newInputStream(this.indexFile)))) {
+			if (in.readInt() != INDEX_FORMAT_VERSION
+					|| in.readLong() != this.logLength) {
+				return false;
+			}
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String entityId = in.readUTF();
+				IndexEntry entry = new IndexEntry(in.readLong(), in.readLong(),
+						in.readInt());
+				this.index.put(entityId, entry);
+				this.maxRevisionId = Math.max(this.maxRevisionId,
+						entry.revisionId);
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Recreates the index by scanning the log. An incomplete record at the end
+	 * of the log, as left behind by an interrupted run, is cut off.
+	 */
+	private void rebuildIndex() throws IOException {
+		logger.info("Rebuilding index of entity store " + this.directory
+				+ " ...");
+		this.index.clear();
+		this.maxRevisionId = 0;
+
+		long position = 0;
+		long recordStart = 0;
+		int field = 0;
+		long jsonStart = 0;
+		ByteArrayOutputStream fieldBuffer = new ByteArrayOutputStream();
+		String entityId = null;
+		long revisionId = 0;
+
+		try (InputStream in = new BufferedInputStream(
+				Files.newInputStream(this.logFile), 1 << 16)) {
+			int b;
+			while ((b = in.read()) != -1) {
+				position++;
+				if (field < 2 && b == '\t') {
+					String value = new String(fieldBuffer.toByteArray(),
+							StandardCharsets.UTF_8);
+					fieldBuffer.reset();
+					if (field == 0) {
+						entityId = value;
+					} else {
+						revisionId = Long.parseLong(value);
+						jsonStart = position;
+					}
+					field++;
+				} else if (b == '\n') {
+					int length = (int) (position - 1 - jsonStart);
+					if (field == 2) {
+						IndexEntry previous = this.index.get(entityId);
+						if (previous == null
+								|| previous.revisionId < revisionId) {
+							this.index.put(entityId, new IndexEntry(revisionId,
+									length == 0 ? -1 : jsonStart, length));
+						}
+						this.maxRevisionId = Math.max(this.maxRevisionId,
+								revisionId);
+					}
+					field = 0;
+					fieldBuffer.reset();
+					recordStart = position;
+				} else if (field < 2) {
+					fieldBuffer.write(b);
+				}
+			}
+		}
+
+		if (recordStart < this.logLength) {
+			logger.warn("Discarding incomplete record at the end of "
+					+ this.logFile);
+			try (RandomAccessFile file = new RandomAccessFile(
+					this.logFile.toFile(), "rw")) {
+				file.setLength(recordStart);
+			}
+			this.logLength = recordStart;
+		}
+
+		writeIndex();
+	}
+
+	private void writeIndex() throws IOException {
+		Path tmpFile = this.directory.resolve(INDEX_FILE_NAME + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+			out.writeInt(INDEX_FORMAT_VERSION);
+			out.writeLong(this.logLength);
+			out.writeInt(this.index.size());
+			for (Map.Entry<String, IndexEntry> entry : this.index.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().revisionId);
+				out.writeLong(entry.getValue().offset);
+				out.writeInt(entry.getValue().length);
+			}
+		}
+		Files.move(tmpFile, this.indexFile,
+				StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private void readMetadata() throws IOException {
+		if (!Files.exists(this.metadataFile)) {
+			return;
+		}
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(this.metadataFile)) {
+			properties.load(in);
+		}
+		this.baseDumpDateStamp = properties.getProperty(PROPERTY_BASE_DUMP);
+		String appliedDumps = properties.getProperty(PROPERTY_APPLIED_DUMPS,
+				"");
+		for (String dateStamp : appliedDumps.split(",")) {
+			if (!dateStamp.isEmpty()) {
+				this.appliedDumpDateStamps.add(dateStamp);
+			}
+		}
+	}
+
+	private void writeMetadata() throws IOException {
+		Properties properties = new Properties();
+		if (this.baseDumpDateStamp != null) {
+			properties.setProperty(PROPERTY_BASE_DUMP, this.baseDumpDateStamp);
+		}
+		properties.setProperty(PROPERTY_APPLIED_DUMPS,
+				String.join(",", this.appliedDumpDateStamps));
+		try (OutputStream out = Files.newOutputStream(this.metadataFile)) {
+			properties.store(out, "Wikidata Toolkit entity store");
+		}
+	}
+
+}
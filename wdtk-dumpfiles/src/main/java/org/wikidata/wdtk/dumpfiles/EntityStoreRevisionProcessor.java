@@ -0,0 +1,79 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+
+/**
+ * Revision processor that writes entity revisions to an {@link EntityStore}.
+ * The entity JSON in revision dumps does not contain the revision id, so this
+ * class makes sure that each document is stored under the id of the revision
+ * it was parsed from.
+ *
+ */
+public class EntityStoreRevisionProcessor implements MwRevisionProcessor {
+
+	final EntityStore entityStore;
+	final WikibaseRevisionProcessor wikibaseRevisionProcessor;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param entityStore
+	 *            the store to write to
+	 * @param entityDocumentProcessor
+	 *            the processor that parsed documents are passed to; this
+	 *            should be the store itself or a filter that wraps it
+	 * @param siteIri
+	 *            the IRI of the site that the data comes from
+	 */
+	public EntityStoreRevisionProcessor(EntityStore entityStore,
+			EntityDocumentProcessor entityDocumentProcessor, String siteIri) {
+		this.entityStore = entityStore;
+		this.wikibaseRevisionProcessor = new WikibaseRevisionProcessor(
+				entityDocumentProcessor, siteIri);
+	}
+
+	@Override
+	public void startRevisionProcessing(String siteName, String baseUrl,
+			Map<Integer, String> namespaces) {
+		this.wikibaseRevisionProcessor.startRevisionProcessing(siteName,
+				baseUrl, namespaces);
+	}
+
+	@Override
+	public void processRevision(MwRevision mwRevision) {
+		this.entityStore.pendingRevisionId = mwRevision.getRevisionId();
+		try {
+			this.wikibaseRevisionProcessor.processRevision(mwRevision);
+		} finally {
+			this.entityStore.pendingRevisionId = 0;
+		}
+	}
+
+	@Override
+	public void finishRevisionProcessing() {
+		this.wikibaseRevisionProcessor.finishRevisionProcessing();
+	}
+
+}
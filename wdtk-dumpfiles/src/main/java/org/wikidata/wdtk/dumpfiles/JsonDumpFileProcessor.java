@@ -31,6 +31,10 @@ import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
 import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
 import org.wikidata.wdtk.datamodel.interfaces.*;
+import org.wikidata.wdtk.util.metrics.Counter;
+import org.wikidata.wdtk.util.metrics.Histogram;
+import org.wikidata.wdtk.util.metrics.Meter;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
 
 import com.fasterxml.jackson.core.JsonParser.Feature;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -48,6 +52,17 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 	static final Logger logger = LoggerFactory
 			.getLogger(JsonDumpFileProcessor.class);
 
+	static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+	/** Documents passed on to the entity document processor. */
+	static final Meter documentMeter = metrics
+			.meter("dumpfiles.json.documents");
+	/** Time for parsing one document, in nanoseconds. */
+	static final Histogram parseTimes = metrics
+			.histogram("dumpfiles.json.parse.time");
+	/** Documents that could not be parsed. */
+	static final Counter errorCounter = metrics
+			.counter("dumpfiles.json.errors");
+
 	private final ObjectReader documentReader;
 
 	private final EntityDocumentProcessor entityDocumentProcessor;
@@ -81,7 +96,9 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 				documentIterator.getParser().disable(Feature.AUTO_CLOSE_SOURCE);
 
 				while (documentIterator.hasNextValue()) {
+					long startTime = metrics.startTime();
 					EntityDocument document = documentIterator.nextValue();
+					parseTimes.recordSince(startTime);
 					handleDocument(document);
 				}
 				documentIterator.close();
@@ -104,6 +121,7 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 	 *            the exception to log
 	 */
 	private void logJsonProcessingException(JsonProcessingException exception) {
+		errorCounter.increment();
 		JsonDumpFileProcessor.logger
 				.error("Error when reading JSON for entity: "
 						+ exception.getMessage());
@@ -118,6 +136,7 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 	 *            the document to process
 	 */
 	private void handleDocument(EntityDocument document) {
+		documentMeter.mark();
 		if (document instanceof ItemDocument) {
 			this.entityDocumentProcessor
 					.processItemDocument((ItemDocument) document);
@@ -168,6 +187,7 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 		line = br.readLine();
 		while (line != null && line.length() > 1) {
 			try {
+				long startTime = metrics.startTime();
 				EntityDocument document;
 				if (line.charAt(line.length() - 1) == ',') {
 					document = documentReader.readValue(line.substring(0,
@@ -175,6 +195,7 @@ public class JsonDumpFileProcessor implements MwDumpFileProcessor {
 				} else {
 					document = documentReader.readValue(line);
 				}
+				parseTimes.recordSince(startTime);
 				handleDocument(document);
 			} catch (JsonProcessingException e) {
 				logJsonProcessingException(e);
@@ -120,4 +120,18 @@ public interface MwDumpFile {
 	 *             if there was a problem preparing the files
 	 */
 	void prepareDumpFile() throws IOException;
+
+	/**
+	 * Returns the size of the dump file as it is stored, i.e., before it is
+	 * decompressed. This is used to estimate how long it will take to process
+	 * the file. The size is usually only known once the file is available
+	 * locally.
+	 *
+	 * @return the size of the file in bytes, or -1 if it is not known
+	 * @throws IOException
+	 *             if the size could not be determined
+	 */
+	default long getDumpFileSize() throws IOException {
+		return -1;
+	}
 }
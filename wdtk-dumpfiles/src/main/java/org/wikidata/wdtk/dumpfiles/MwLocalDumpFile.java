@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.HashMap;
@@ -214,6 +215,11 @@ public class MwLocalDumpFile implements MwDumpFile {
 		// nothing to do
 	}
 
+	@Override
+	public long getDumpFileSize() throws IOException {
+		return Files.size(this.dumpFilePath);
+	}
+
 	@Override
 	public String toString() {
 		return this.dumpFilePath.toString() + " (" + this.projectName + "/"
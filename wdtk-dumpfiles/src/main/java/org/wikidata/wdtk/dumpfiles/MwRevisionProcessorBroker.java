@@ -25,7 +25,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.wikidata.wdtk.storage.datastructures.BitVector;
-import org.wikidata.wdtk.storage.datastructures.BitVectorImpl;
+import org.wikidata.wdtk.storage.datastructures.CompressedBitVector;
 
 /**
  * This MwRevisionPRocessor distributes revisions to subscribers that register
@@ -86,9 +86,10 @@ public class MwRevisionProcessorBroker implements MwRevisionProcessor {
 		this.revisionSubscriptions = new ArrayList<>();
 		this.mostCurrentRevision = null;
 		this.currentPageId = -1;
-		// TODO these initial sizes need to be configurable
-		encounteredPages = new BitVectorImpl(20000000);
-		encounteredRevisions = new BitVectorImpl(200000000);
+		// ids are sparse, especially for revisions in dumps of current
+		// revisions, so only the used parts of the id range take memory
+		encounteredPages = new CompressedBitVector();
+		encounteredRevisions = new CompressedBitVector();
 	}
 
 	/**
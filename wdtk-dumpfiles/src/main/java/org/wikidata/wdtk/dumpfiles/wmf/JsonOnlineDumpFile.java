@@ -20,13 +20,17 @@ package org.wikidata.wdtk.dumpfiles.wmf;
  * #L%
  */
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.util.DirectoryManager;
+import org.wikidata.wdtk.util.FileDownloader;
 import org.wikidata.wdtk.util.WebResourceFetcher;
 
 public class JsonOnlineDumpFile extends WmfDumpFile {
@@ -69,17 +73,42 @@ public class JsonOnlineDumpFile extends WmfDumpFile {
 
 	@Override
 	public InputStream getDumpFileStream() throws IOException {
-		prepareDumpFile();
-
 		String fileName = WmfDumpFile.getDumpFileName(DumpContentType.JSON,
 				this.projectName, this.dateStamp);
 		DirectoryManager dailyDirectoryManager = this.dumpfileDirectoryManager
 				.getSubdirectoryManager(WmfDumpFile.getDumpFileDirectoryName(
 						DumpContentType.JSON, this.dateStamp));
 
+		if (this.streamWhileDownloading && !this.isPrepared) {
+			if (dailyDirectoryManager.hasFile(fileName)) {
+				this.isPrepared = true;
+			} else {
+				String urlString = getBaseUrl() + fileName;
+				logger.info("Streaming JSON dump file " + fileName
+						+ " from " + urlString + " while downloading ...");
+				return getDumpFileStreamWhileDownloading(
+						this.webResourceFetcher, urlString,
+						dailyDirectoryManager, fileName);
+			}
+		}
+		prepareDumpFile();
+
 		return dailyDirectoryManager.getInputStreamForFile(fileName, WmfDumpFile.getDumpFileCompressionType(fileName));
 	}
 
+	@Override
+	public long getDumpFileSize() throws IOException {
+		if (!this.isPrepared) {
+			return -1;
+		}
+		String fileName = WmfDumpFile.getDumpFileName(DumpContentType.JSON,
+				this.projectName, this.dateStamp);
+		return this.dumpfileDirectoryManager
+				.getSubdirectoryManager(
+						WmfDumpFile.getDumpFileDirectoryName(DumpContentType.JSON,
+								this.dateStamp)).getFileSize(fileName);
+	}
+
 	@Override
 	public void prepareDumpFile() throws IOException {
 		if (this.isPrepared) {
@@ -102,11 +131,20 @@ public class JsonOnlineDumpFile extends WmfDumpFile {
 				.getSubdirectoryManager(WmfDumpFile.getDumpFileDirectoryName(
 						DumpContentType.JSON, this.dateStamp));
 
-		try (InputStream inputStream = webResourceFetcher
-				.getInputStreamForUrl(urlString)) {
-			dailyDirectoryManager.createFileAtomic(fileName, inputStream);
+		String checksumAlgorithm = "SHA-1";
+		String checksum = fetchChecksum("sha1sums");
+		if (checksum == null) {
+			checksumAlgorithm = "MD5";
+			checksum = fetchChecksum("md5sums");
+		}
+		if (checksum == null) {
+			logger.warn("No checksum found for JSON dump file " + fileName
+					+ "; the download will not be verified.");
 		}
 
+		new FileDownloader(this.webResourceFetcher).download(urlString,
+				dailyDirectoryManager, fileName, checksumAlgorithm, checksum);
+
 		this.isPrepared = true;
 
 		logger.info("... completed download of JSON dump file " + fileName
@@ -120,6 +158,40 @@ public class JsonOnlineDumpFile extends WmfDumpFile {
 		return true;
 	}
 
+	/**
+	 * Finds the checksum of this dump in a checksum file of the given kind.
+	 * The file that is downloaded from {@link #getBaseUrl()} is the same as
+	 * the "all" JSON dump in the "entities" directory, where the checksum
+	 * files are published.
+	 *
+	 * @param kind
+	 *            the kind of checksum file, "sha1sums" or "md5sums"
+	 * @return the checksum, or null if it could not be found
+	 */
+	String fetchChecksum(String kind) {
+		String prefix = "wikidata-" + this.dateStamp;
+		String urlString = WmfDumpFile.DUMP_SITE_BASE_URL + this.projectName
+				+ "/entities/" + this.dateStamp + "/" + prefix + "-" + kind
+				+ ".txt";
+		String entitiesFileName = prefix + "-all"
+				+ WmfDumpFile.getDumpFilePostfix(DumpContentType.JSON);
+		try (InputStream in = this.webResourceFetcher
+				.getInputStreamForUrl(urlString)) {
+			BufferedReader bufferedReader = new BufferedReader(
+					new InputStreamReader(in, StandardCharsets.UTF_8));
+			String inputLine;
+			while ((inputLine = bufferedReader.readLine()) != null) {
+				String[] parts = inputLine.trim().split("\\s+");
+				if (parts.length == 2 && parts[1].equals(entitiesFileName)) {
+					return parts[0];
+				}
+			}
+		} catch (IOException e) {
+			// file not found or not readable; no checksum then
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the base URL under which the files for this dump are found.
 	 *
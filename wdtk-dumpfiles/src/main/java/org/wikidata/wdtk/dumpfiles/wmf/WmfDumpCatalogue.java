@@ -0,0 +1,239 @@
+package org.wikidata.wdtk.dumpfiles.wmf;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.wikidata.wdtk.dumpfiles.DumpContentType;
+import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.DirectoryManager;
+
+/**
+ * Record of the dumps that {@link WmfDumpFileManager} found online, stored in
+ * the download directory of a project so that it can be reused in later
+ * runs. For each type of dump, the catalogue stores the date stamps that were
+ * listed online, when they were listed, and when the listing was last
+ * modified according to the server. For each dump that was found to be
+ * complete, it stores the MD5 checksum of the dump file if it is known.
+ * Dumps that are not complete are not recorded, since they might be
+ * completed later.
+ * <p>
+ * The catalogue is a text file with one tab-separated record per line.
+ *
+ */
+class WmfDumpCatalogue {
+
+	/**
+	 * The name of the file in which the catalogue is stored.
+	 */
+	static final String FILE_NAME = "dump-catalogue.tsv";
+
+	/**
+	 * Date stamps of the dumps of one type that were listed online.
+	 */
+	static class Listing {
+
+		/**
+		 * Time when the dumps were listed, in milliseconds since the epoch.
+		 */
+		final long checked;
+
+		/**
+		 * Time of the last modification of the listing according to the
+		 * server, or -1 if it is not known.
+		 */
+		final long lastModified;
+
+		final List<String> dateStamps;
+
+		Listing(long checked, long lastModified, List<String> dateStamps) {
+			this.checked = checked;
+			this.lastModified = lastModified;
+			this.dateStamps = Collections.unmodifiableList(new ArrayList<>(
+					dateStamps));
+		}
+	}
+
+	final DirectoryManager directoryManager;
+
+	final Map<DumpContentType, Listing> listings = new EnumMap<>(
+			DumpContentType.class);
+
+	/**
+	 * MD5 checksums of the complete dumps, by directory name of the dump (as
+	 * returned by
+	 * {@link WmfDumpFile#getDumpFileDirectoryName(DumpContentType, String)}).
+	 * The checksum is the empty string if it is not known.
+	 */
+	final Map<String, String> completeDumps = new TreeMap<>();
+
+	/**
+	 * Creates a catalogue that is stored in the given directory, and loads
+	 * the records that are stored there already.
+	 *
+	 * @param directoryManager
+	 *            the download directory of the project
+	 * @throws IOException
+	 *             if the stored catalogue could not be read
+	 */
+	WmfDumpCatalogue(DirectoryManager directoryManager) throws IOException {
+		this.directoryManager = directoryManager;
+		if (directoryManager.hasFile(FILE_NAME)) {
+			load();
+		}
+	}
+
+	/**
+	 * Returns the stored listing of dumps of the given type.
+	 *
+	 * @param dumpContentType
+	 *            the type of dump
+	 * @return the listing, or null if there is none
+	 */
+	synchronized Listing getListing(DumpContentType dumpContentType) {
+		return this.listings.get(dumpContentType);
+	}
+
+	synchronized void setListing(DumpContentType dumpContentType,
+			Listing listing) {
+		this.listings.put(dumpContentType, listing);
+	}
+
+	/**
+	 * Returns true if the given dump was found to be complete.
+	 *
+	 * @param dumpContentType
+	 *            the type of dump
+	 * @param dateStamp
+	 *            the date of the dump in format YYYYMMDD
+	 * @return true if the dump is complete
+	 */
+	synchronized boolean isComplete(DumpContentType dumpContentType,
+			String dateStamp) {
+		return this.completeDumps.containsKey(WmfDumpFile
+				.getDumpFileDirectoryName(dumpContentType, dateStamp));
+	}
+
+	/**
+	 * Returns the MD5 checksum of the file of a complete dump.
+	 *
+	 * @param dumpContentType
+	 *            the type of dump
+	 * @param dateStamp
+	 *            the date of the dump in format YYYYMMDD
+	 * @return the checksum, or null if it is not known
+	 */
+	synchronized String getMd5Checksum(DumpContentType dumpContentType,
+			String dateStamp) {
+		String checksum = this.completeDumps.get(WmfDumpFile
+				.getDumpFileDirectoryName(dumpContentType, dateStamp));
+		return checksum == null || checksum.isEmpty() ? null : checksum;
+	}
+
+	/**
+	 * Records that the given dump is complete.
+	 *
+	 * @param dumpContentType
+	 *            the type of dump
+	 * @param dateStamp
+	 *            the date of the dump in format YYYYMMDD
+	 * @param md5Checksum
+	 *            the MD5 checksum of the dump file, or null if it is not
+	 *            known
+	 */
+	synchronized void setComplete(DumpContentType dumpContentType,
+			String dateStamp, String md5Checksum) {
+		this.completeDumps.put(WmfDumpFile.getDumpFileDirectoryName(
+				dumpContentType, dateStamp), md5Checksum == null ? ""
+				: md5Checksum);
+	}
+
+	/**
+	 * Writes the catalogue to its file.
+	 *
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	synchronized void save() throws IOException {
+		StringBuilder contents = new StringBuilder();
+		for (Map.Entry<DumpContentType, Listing> entry : this.listings
+				.entrySet()) {
+			Listing listing = entry.getValue();
+			contents.append("listing\t")
+					.append(entry.getKey().toString().toLowerCase(Locale.ROOT))
+					.append('\t').append(listing.checked).append('\t')
+					.append(listing.lastModified).append('\t')
+					.append(String.join(",", listing.dateStamps)).append('\n');
+		}
+		for (Map.Entry<String, String> entry : this.completeDumps.entrySet()) {
+			contents.append("complete\t").append(entry.getKey()).append('\t')
+					.append(entry.getValue()).append('\n');
+		}
+		this.directoryManager.createFileAtomic(FILE_NAME,
+				new ByteArrayInputStream(contents.toString().getBytes(
+						StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Reads the catalogue from its file. Records that cannot be parsed, such
+	 * as records of dump types that no longer exist, are ignored.
+	 *
+	 * @throws IOException
+	 *             if the file could not be read
+	 */
+	void load() throws IOException {
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				this.directoryManager.getInputStreamForFile(FILE_NAME,
+						CompressionType.NONE), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", -1);
+				try {
+					if ("listing".equals(fields[0]) && fields.length == 5) {
+						this.listings.put(DumpContentType.valueOf(fields[1]
+								.toUpperCase(Locale.ROOT)), new Listing(Long
+								.parseLong(fields[2]), Long.parseLong(fields[3]),
+								fields[4].isEmpty() ? Collections.emptyList()
+										: Arrays.asList(fields[4].split(","))));
+					} else if ("complete".equals(fields[0]) && fields.length == 3) {
+						this.completeDumps.put(fields[1], fields[2]);
+					}
+				} catch (IllegalArgumentException e) {
+					WmfDumpFileManager.logger.warn("Ignoring invalid record in dump catalogue: "
+							+ line);
+				}
+			}
+		}
+	}
+
+}
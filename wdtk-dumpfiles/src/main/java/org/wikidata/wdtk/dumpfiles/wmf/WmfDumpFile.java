@@ -2,6 +2,7 @@ package org.wikidata.wdtk.dumpfiles.wmf;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -10,6 +11,9 @@ import java.util.Map;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.dumpfiles.MwDumpFile;
 import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.util.DirectoryManager;
+import org.wikidata.wdtk.util.FileDownloader;
+import org.wikidata.wdtk.util.WebResourceFetcher;
 
 /*
  * #%L
@@ -87,13 +91,72 @@ public abstract class WmfDumpFile implements MwDumpFile {
 
 	protected final String dateStamp;
 	protected final String projectName;
-	Boolean isDone;
+
+	/**
+	 * Whether the dump is done, or null if this is not known yet. Volatile,
+	 * since availability may be checked in another thread; see
+	 * {@link WmfDumpFileManager#findMostRecentDump(DumpContentType)}.
+	 */
+	volatile Boolean isDone;
+
+	/**
+	 * If true, online dumps are processed while they are being downloaded
+	 * rather than afterwards.
+	 */
+	boolean streamWhileDownloading = false;
 
 	public WmfDumpFile(String dateStamp, String projectName) {
 		this.dateStamp = dateStamp;
 		this.projectName = projectName;
 	}
 
+	/**
+	 * Sets whether the data of a dump that still needs to be downloaded should
+	 * be returned by {@link #getDumpFileStream()} while it is being
+	 * downloaded. The file is still stored locally for later reuse. This way,
+	 * the time needed for downloading and processing a dump overlaps instead
+	 * of adding up. By default, the file is downloaded completely before it is
+	 * processed. This setting has no effect on local dump files.
+	 *
+	 * @param streamWhileDownloading
+	 *            true if dumps should be processed while being downloaded
+	 */
+	public void setStreamWhileDownloading(boolean streamWhileDownloading) {
+		this.streamWhileDownloading = streamWhileDownloading;
+	}
+
+	/**
+	 * Opens a stream to the contents of the dump file at the given URL that
+	 * returns the data while the file is being downloaded into the given
+	 * directory.
+	 *
+	 * @param webResourceFetcher
+	 *            object to use for accessing the web
+	 * @param urlString
+	 *            the URL of the dump file
+	 * @param directoryManager
+	 *            the directory to store the file in
+	 * @param fileName
+	 *            the name of the dump file
+	 * @return an input stream to read the (uncompressed) dump file contents
+	 * @throws IOException
+	 *             if the dump is not available or the download could not be
+	 *             started
+	 */
+	protected InputStream getDumpFileStreamWhileDownloading(
+			WebResourceFetcher webResourceFetcher, String urlString,
+			DirectoryManager directoryManager, String fileName)
+			throws IOException {
+		if (!isAvailable()) {
+			throw new IOException(
+					"Dump file not available (yet). Aborting dump retrieval.");
+		}
+
+		return new FileDownloader(webResourceFetcher).openStream(urlString,
+				directoryManager, fileName,
+				WmfDumpFile.getDumpFileCompressionType(fileName));
+	}
+
 	@Override
 	public String getProjectName() {
 		return this.projectName;
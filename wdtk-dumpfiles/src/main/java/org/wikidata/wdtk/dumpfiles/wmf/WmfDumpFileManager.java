@@ -29,6 +29,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +59,12 @@ import org.wikidata.wdtk.util.WebResourceFetcherImpl;
  * extraction methods used to get the data are highly specific to the format of
  * files on this site. Other sites (if any) would most likely need different
  * methods.
+ * <p>
+ * The dumps that were found online are recorded in a catalogue in the
+ * download directory, so that later runs do not need to list and check them
+ * again. Listings of dumps are reused for a configurable time, and are
+ * refreshed only if the server reports that they have changed. Dumps that
+ * were found to be complete are not checked again.
  *
  * @author Markus Kroetzsch
  *
@@ -78,6 +88,28 @@ public class WmfDumpFileManager {
 	final DirectoryManager dumpfileDirectoryManager;
 	final WebResourceFetcher webResourceFetcher;
 
+	/**
+	 * Record of the dumps found online, or null if it could not be read.
+	 */
+	final WmfDumpCatalogue catalogue;
+
+	/**
+	 * Number of dumps whose availability is checked at the same time.
+	 */
+	int availabilityCheckThreads = 4;
+
+	/**
+	 * Time in milliseconds for which listings of online dumps in the
+	 * catalogue are used without asking the server whether they changed.
+	 */
+	long listingMaxAge = 60 * 60 * 1000;
+
+	/**
+	 * If true, online dumps returned by this object are processed while being
+	 * downloaded.
+	 */
+	boolean streamWhileDownloading = false;
+
 	/**
 	 * Constructor.
 	 *
@@ -107,6 +139,57 @@ public class WmfDumpFileManager {
 
 		WmfDumpFileManager.logger.info("Using download directory "
 				+ this.dumpfileDirectoryManager.toString());
+
+		WmfDumpCatalogue catalogue = null;
+		if (webResourceFetcher != null) {
+			try {
+				catalogue = new WmfDumpCatalogue(this.dumpfileDirectoryManager);
+			} catch (IOException e) {
+				logger.warn("Could not read dump catalogue: " + e.toString());
+			}
+		}
+		this.catalogue = catalogue;
+	}
+
+	/**
+	 * Sets whether online dump files that are returned by this object should
+	 * be processed while they are being downloaded.
+	 *
+	 * @see WmfDumpFile#setStreamWhileDownloading(boolean)
+	 * @param streamWhileDownloading
+	 *            true if dumps should be processed while being downloaded
+	 */
+	public void setStreamWhileDownloading(boolean streamWhileDownloading) {
+		this.streamWhileDownloading = streamWhileDownloading;
+	}
+
+	/**
+	 * Sets the number of dumps whose availability is checked at the same
+	 * time when looking for the most recent available dump. Checking if an
+	 * online dump is available needs a Web request, and the most recent dumps
+	 * are often not complete yet. The default is 4.
+	 *
+	 * @param threads
+	 *            the number of concurrent checks, at least 1
+	 */
+	public void setAvailabilityCheckThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException(
+					"At least one thread is needed to check dumps.");
+		}
+		this.availabilityCheckThreads = threads;
+	}
+
+	/**
+	 * Sets for how long the dumps that were listed online are reused without
+	 * asking the server whether the list changed. The default is one hour.
+	 * Use 0 to always check the list online.
+	 *
+	 * @param milliseconds
+	 *            the maximal age of listings in milliseconds
+	 */
+	public void setListingMaxAge(long milliseconds) {
+		this.listingMaxAge = milliseconds;
 	}
 
 	/**
@@ -176,13 +259,74 @@ public class WmfDumpFileManager {
 	 */
 	public MwDumpFile findMostRecentDump(DumpContentType dumpContentType) {
 		List<MwDumpFile> dumps = findAllDumps(dumpContentType);
+		if (dumps.isEmpty()) {
+			return null;
+		}
 
-		for (MwDumpFile dump : dumps) {
-			if (dump.isAvailable()) {
-				return dump;
+		// Dumps are checked in order, but several at a time, so that the
+		// Web requests for online dumps that are not complete yet overlap.
+		ExecutorService executor = Executors.newFixedThreadPool(
+				Math.min(this.availabilityCheckThreads, dumps.size()),
+				runnable -> {
+					Thread thread = new Thread(runnable,
+							"Dump availability check");
+					thread.setDaemon(true);
+					return thread;
+				});
+		MwDumpFile result = null;
+		try {
+			List<Future<Boolean>> checks = new ArrayList<>(dumps.size());
+			for (MwDumpFile dump : dumps) {
+				checks.add(executor.submit(dump::isAvailable));
 			}
+			for (int i = 0; i < dumps.size() && result == null; i++) {
+				if (checks.get(i).get()) {
+					result = dumps.get(i);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			logger.error("Failed to check availability of dumps: "
+					+ e.getCause().toString());
+		} finally {
+			executor.shutdownNow();
+		}
+
+		if (result != null) {
+			recordCompleteDump(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Records an available online dump in the catalogue, so that it does not
+	 * need to be checked again.
+	 *
+	 * @param dumpFile
+	 *            the dump file that is available
+	 */
+	void recordCompleteDump(MwDumpFile dumpFile) {
+		if (this.catalogue == null || dumpFile instanceof WmfLocalDumpFile
+				|| this.catalogue.isComplete(dumpFile.getDumpContentType(),
+						dumpFile.getDateStamp())) {
+			return;
+		}
+		String md5Checksum = null;
+		if (dumpFile instanceof WmfOnlineStandardDumpFile) {
+			md5Checksum = ((WmfOnlineStandardDumpFile) dumpFile).md5Checksum;
+		}
+		this.catalogue.setComplete(dumpFile.getDumpContentType(),
+				dumpFile.getDateStamp(), md5Checksum);
+		saveCatalogue();
+	}
+
+	void saveCatalogue() {
+		try {
+			this.catalogue.save();
+		} catch (IOException e) {
+			logger.warn("Could not save dump catalogue: " + e.toString());
 		}
-		return null;
 	}
 
 	/**
@@ -295,18 +439,29 @@ public class WmfDumpFileManager {
 		List<MwDumpFile> result = new ArrayList<>();
 
 		for (String dateStamp : dumpFileDates) {
+			WmfDumpFile dumpFile;
 			if (dumpContentType == DumpContentType.DAILY) {
-				result.add(new WmfOnlineDailyDumpFile(dateStamp,
+				dumpFile = new WmfOnlineDailyDumpFile(dateStamp,
 						this.projectName, this.webResourceFetcher,
-						this.dumpfileDirectoryManager));
+						this.dumpfileDirectoryManager);
 			} else if (dumpContentType == DumpContentType.JSON) {
-				result.add(new JsonOnlineDumpFile(dateStamp, this.projectName,
-						this.webResourceFetcher, this.dumpfileDirectoryManager));
+				dumpFile = new JsonOnlineDumpFile(dateStamp, this.projectName,
+						this.webResourceFetcher, this.dumpfileDirectoryManager);
 			} else {
-				result.add(new WmfOnlineStandardDumpFile(dateStamp,
+				dumpFile = new WmfOnlineStandardDumpFile(dateStamp,
 						this.projectName, this.webResourceFetcher,
-						this.dumpfileDirectoryManager, dumpContentType));
+						this.dumpfileDirectoryManager, dumpContentType);
 			}
+			dumpFile.setStreamWhileDownloading(this.streamWhileDownloading);
+			if (this.catalogue != null
+					&& this.catalogue.isComplete(dumpContentType, dateStamp)) {
+				dumpFile.isDone = true;
+				if (dumpFile instanceof WmfOnlineStandardDumpFile) {
+					((WmfOnlineStandardDumpFile) dumpFile).md5Checksum = this.catalogue
+							.getMd5Checksum(dumpContentType, dateStamp);
+				}
+			}
+			result.add(dumpFile);
 		}
 
 		logger.info("Found " + result.size() + " online dumps of type "
@@ -322,15 +477,71 @@ public class WmfDumpFileManager {
 	 * target location, without considering whether or not each dump is actually
 	 * available.
 	 * <p>
+	 * The list is taken from the catalogue if it was listed recently, or if
+	 * the server reports that it has not been modified since it was listed.
+	 * If the list cannot be fetched, the list from the catalogue is used even
+	 * if it is old.
+	 *
+	 * @param dumpContentType
+	 *            the type of dump to consider
+	 * @return list of date stamps
+	 */
+	List<String> findDumpDatesOnline(DumpContentType dumpContentType) {
+		if (this.catalogue == null) {
+			List<String> result = fetchDumpDatesOnline(dumpContentType);
+			return result == null ? new ArrayList<>() : result;
+		}
+
+		WmfDumpCatalogue.Listing listing = this.catalogue
+				.getListing(dumpContentType);
+		long now = System.currentTimeMillis();
+		if (listing != null && now - listing.checked < this.listingMaxAge) {
+			return new ArrayList<>(listing.dateStamps);
+		}
+
+		String url = WmfDumpFile.getDumpFileWebDirectory(dumpContentType,
+				this.projectName);
+		long lastModified = -1;
+		try {
+			lastModified = this.webResourceFetcher.getLastModified(url);
+		} catch (IOException e) {
+			// the listing will be fetched, which will fail in the same way
+		}
+		List<String> result;
+		if (listing != null && lastModified != -1
+				&& lastModified == listing.lastModified) {
+			result = new ArrayList<>(listing.dateStamps);
+		} else {
+			result = fetchDumpDatesOnline(dumpContentType);
+			if (result == null) {
+				if (listing == null) {
+					return new ArrayList<>();
+				}
+				logger.warn("Using list of " + dumpContentType
+						+ " dumps from the dump catalogue.");
+				return new ArrayList<>(listing.dateStamps);
+			}
+		}
+		this.catalogue.setListing(dumpContentType, new WmfDumpCatalogue.Listing(
+				now, lastModified, result));
+		saveCatalogue();
+		return result;
+	}
+
+	/**
+	 * Fetches the list of date stamps of dumps available for download in a
+	 * given directory, as described for
+	 * {@link #findDumpDatesOnline(DumpContentType)}.
+	 * <p>
 	 * The implementation is rather uniform since all cases supported thus far
 	 * use directory/file names that start with a date stamp. If the date would
 	 * occur elsewhere or in another form, then more work would be needed.
 	 *
 	 * @param dumpContentType
 	 *            the type of dump to consider
-	 * @return list of date stamps
+	 * @return list of date stamps, or null if the list could not be fetched
 	 */
-	List<String> findDumpDatesOnline(DumpContentType dumpContentType) {
+	List<String> fetchDumpDatesOnline(DumpContentType dumpContentType) {
 		List<String> result = new ArrayList<>();
 		try (InputStream in = this.webResourceFetcher
 				.getInputStreamForUrl(WmfDumpFile.getDumpFileWebDirectory(
@@ -355,6 +566,7 @@ public class WmfDumpFileManager {
 			bufferedReader.close();
 		} catch (IOException e) {
 			logger.error("Failed to fetch available dump dates online.");
+			return null;
 		}
 
 		result.sort(Collections.reverseOrder());
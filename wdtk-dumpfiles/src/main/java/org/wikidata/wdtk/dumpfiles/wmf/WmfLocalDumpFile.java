@@ -107,6 +107,13 @@ public class WmfLocalDumpFile extends WmfDumpFile {
 		// nothing to do
 	}
 
+	@Override
+	public long getDumpFileSize() throws IOException {
+		return this.localDumpfileDirectoryManager.getFileSize(WmfDumpFile
+				.getDumpFileName(this.dumpContentType, this.projectName,
+						this.dateStamp));
+	}
+
 	@Override
 	protected boolean fetchIsDone() {
 		return this.localDumpfileDirectoryManager.hasFile(WmfDumpFile
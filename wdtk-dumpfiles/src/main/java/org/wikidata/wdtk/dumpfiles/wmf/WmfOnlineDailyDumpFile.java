@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.util.DirectoryManager;
+import org.wikidata.wdtk.util.FileDownloader;
 import org.wikidata.wdtk.util.WebResourceFetcher;
 
 /**
@@ -81,18 +82,43 @@ class WmfOnlineDailyDumpFile extends WmfDumpFile {
 
 	@Override
 	public InputStream getDumpFileStream() throws IOException {
-		prepareDumpFile();
-
 		String fileName = WmfDumpFile.getDumpFileName(DumpContentType.DAILY,
 				this.projectName, this.dateStamp);
 		DirectoryManager dailyDirectoryManager = this.dumpfileDirectoryManager
 				.getSubdirectoryManager(WmfDumpFile.getDumpFileDirectoryName(
 						DumpContentType.DAILY, this.dateStamp));
 
+		if (this.streamWhileDownloading && !this.isPrepared) {
+			if (dailyDirectoryManager.hasFile(fileName)) {
+				this.isPrepared = true;
+			} else {
+				String urlString = getBaseUrl() + fileName;
+				logger.info("Streaming daily dump file " + fileName
+						+ " from " + urlString + " while downloading ...");
+				return getDumpFileStreamWhileDownloading(
+						this.webResourceFetcher, urlString,
+						dailyDirectoryManager, fileName);
+			}
+		}
+		prepareDumpFile();
+
 		return dailyDirectoryManager.getInputStreamForFile(fileName,
 				WmfDumpFile.getDumpFileCompressionType(fileName));
 	}
 
+	@Override
+	public long getDumpFileSize() throws IOException {
+		if (!this.isPrepared) {
+			return -1;
+		}
+		String fileName = WmfDumpFile.getDumpFileName(DumpContentType.DAILY,
+				this.projectName, this.dateStamp);
+		return this.dumpfileDirectoryManager
+				.getSubdirectoryManager(
+						WmfDumpFile.getDumpFileDirectoryName(DumpContentType.DAILY,
+								this.dateStamp)).getFileSize(fileName);
+	}
+
 	@Override
 	public void prepareDumpFile() throws IOException {
 		if (this.isPrepared) {
@@ -115,12 +141,9 @@ class WmfOnlineDailyDumpFile extends WmfDumpFile {
 				.getSubdirectoryManager(WmfDumpFile.getDumpFileDirectoryName(
 						DumpContentType.DAILY, this.dateStamp));
 
-		long size;
-		try (InputStream inputStream = webResourceFetcher
-				.getInputStreamForUrl(urlString)) {
-			size = dailyDirectoryManager
-					.createFileAtomic(fileName, inputStream);
-		}
+		long size = new FileDownloader(this.webResourceFetcher).download(
+				urlString, dailyDirectoryManager, fileName, "MD5",
+				fetchMd5Checksum(fileName));
 
 		this.isPrepared = true;
 
@@ -144,6 +167,32 @@ class WmfOnlineDailyDumpFile extends WmfDumpFile {
 		return result;
 	}
 
+	/**
+	 * Finds the MD5 checksum of the given file in the md5sums file of this
+	 * dump.
+	 *
+	 * @param fileName
+	 *            the name of the dump file
+	 * @return the checksum, or null if it could not be found
+	 */
+	String fetchMd5Checksum(String fileName) {
+		try (InputStream in = this.webResourceFetcher
+				.getInputStreamForUrl(getBaseUrl() + "md5sums.txt")) {
+			BufferedReader bufferedReader = new BufferedReader(
+					new InputStreamReader(in, StandardCharsets.UTF_8));
+			String inputLine;
+			while ((inputLine = bufferedReader.readLine()) != null) {
+				String[] parts = inputLine.trim().split("\\s+");
+				if (parts.length == 2 && parts[1].equals(fileName)) {
+					return parts[0];
+				}
+			}
+		} catch (IOException e) {
+			// file not found or not readable; no checksum then
+		}
+		return null;
+	}
+
 	/**
 	 * Returns the base URL under which the files for this dump are found.
 	 *
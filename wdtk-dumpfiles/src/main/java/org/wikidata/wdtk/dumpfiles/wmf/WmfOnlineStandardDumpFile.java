@@ -30,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.util.DirectoryManager;
+import org.wikidata.wdtk.util.FileDownloader;
 import org.wikidata.wdtk.util.WebResourceFetcher;
 
 /**
@@ -56,6 +57,12 @@ public class WmfOnlineStandardDumpFile extends WmfDumpFile {
 	 */
 	boolean isPrepared = false;
 
+	/**
+	 * MD5 checksum of the dump file as published in the md5sums file, or null
+	 * if it is not known (yet).
+	 */
+	String md5Checksum = null;
+
 	/**
 	 * Constructor.
 	 *
@@ -89,18 +96,45 @@ public class WmfOnlineStandardDumpFile extends WmfDumpFile {
 
 	@Override
 	public InputStream getDumpFileStream() throws IOException {
-		prepareDumpFile();
-
 		String fileName = WmfDumpFile.getDumpFileName(this.dumpContentType,
 				this.projectName, this.dateStamp);
 		DirectoryManager thisDumpDirectoryManager = this.dumpfileDirectoryManager
 				.getSubdirectoryManager(WmfDumpFile.getDumpFileDirectoryName(
 						this.dumpContentType, this.dateStamp));
 
+		if (this.streamWhileDownloading && !this.isPrepared) {
+			if (thisDumpDirectoryManager.hasFile(fileName)) {
+				this.isPrepared = true;
+			} else {
+				String urlString = getBaseUrl() + fileName;
+				logger.info("Streaming "
+						+ this.dumpContentType.toString().toLowerCase()
+						+ " dump file " + fileName + " from " + urlString
+						+ " while downloading ...");
+				return getDumpFileStreamWhileDownloading(
+						this.webResourceFetcher, urlString,
+						thisDumpDirectoryManager, fileName);
+			}
+		}
+		prepareDumpFile();
+
 		return thisDumpDirectoryManager.getInputStreamForFile(fileName,
 				WmfDumpFile.getDumpFileCompressionType(fileName));
 	}
 
+	@Override
+	public long getDumpFileSize() throws IOException {
+		if (!this.isPrepared) {
+			return -1;
+		}
+		String fileName = WmfDumpFile.getDumpFileName(this.dumpContentType,
+				this.projectName, this.dateStamp);
+		return this.dumpfileDirectoryManager
+				.getSubdirectoryManager(
+						WmfDumpFile.getDumpFileDirectoryName(this.dumpContentType,
+								this.dateStamp)).getFileSize(fileName);
+	}
+
 	@Override
 	public void prepareDumpFile() throws IOException {
 		if (this.isPrepared) {
@@ -124,12 +158,9 @@ public class WmfOnlineStandardDumpFile extends WmfDumpFile {
 				.getSubdirectoryManager(WmfDumpFile.getDumpFileDirectoryName(
 						this.dumpContentType, this.dateStamp));
 
-		long size;
-		try (InputStream inputStream = webResourceFetcher
-				.getInputStreamForUrl(urlString)) {
-			size = thisDumpDirectoryManager.createFileAtomic(fileName,
-					inputStream);
-		}
+		long size = new FileDownloader(this.webResourceFetcher).download(
+				urlString, thisDumpDirectoryManager, fileName, "MD5",
+				this.md5Checksum);
 
 		this.isPrepared = true;
 
@@ -153,6 +184,10 @@ public class WmfOnlineStandardDumpFile extends WmfDumpFile {
 			while (!found && (inputLine = bufferedReader.readLine()) != null) {
 				if (inputLine.endsWith(filePostfix)) {
 					found = true;
+					String[] parts = inputLine.trim().split("\\s+");
+					if (parts.length == 2) {
+						this.md5Checksum = parts[0];
+					}
 				}
 			}
 			bufferedReader.close();
@@ -0,0 +1,226 @@
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wikidata.wdtk.dumpfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+
+public class DumpProcessingMonitorTest {
+
+	/**
+	 * Dump file that only provides a size.
+	 */
+	static class SizedDumpFile extends MwLocalDumpFile {
+		final long size;
+
+		SizedDumpFile(long size) {
+			super("wikidatawiki-20150223-all.json.gz");
+			this.size = size;
+		}
+
+		@Override
+		public long getDumpFileSize() {
+			return this.size;
+		}
+	}
+
+	static class BusyProcessor implements EntityDocumentProcessor {
+		final EntityDocumentProcessor next;
+
+		BusyProcessor(EntityDocumentProcessor next) {
+			this.next = next;
+		}
+
+		@Override
+		public void processItemDocument(ItemDocument itemDocument) {
+			busyWait(2000000);
+			if (this.next != null) {
+				this.next.processItemDocument(itemDocument);
+			}
+		}
+	}
+
+	static void busyWait(long nanos) {
+		long end = System.nanoTime() + nanos;
+		while (System.nanoTime() < end) {
+			// wait
+		}
+	}
+
+	static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GzipCompressorOutputStream gzip = new GzipCompressorOutputStream(
+				out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testCountBytes() throws IOException {
+		byte[] data = new byte[100000];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) ('a' + i % 7);
+		}
+		byte[] compressed = gzip(data);
+
+		DumpProcessingMonitor monitor = new DumpProcessingMonitor();
+		monitor.setReportInterval(0);
+		monitor.start(new SizedDumpFile(compressed.length));
+		try (InputStream in = monitor
+				.monitorInputStream(new GzipCompressorInputStream(
+						new ByteArrayInputStream(compressed)))) {
+			assertEquals('a', in.read());
+			assertEquals(1, monitor.getDecompressedBytes());
+			assertTrue(monitor.getProgress() > 0);
+			assertTrue(monitor.isRunning());
+			byte[] buffer = new byte[4096];
+			while (in.read(buffer) >= 0) {
+				// read everything
+			}
+		}
+		monitor.finish();
+
+		assertFalse(monitor.isRunning());
+		assertEquals(data.length, monitor.getDecompressedBytes());
+		assertEquals(compressed.length, monitor.getCompressedBytes());
+		assertEquals(compressed.length, monitor.getTotalBytes());
+		assertEquals(1.0, monitor.getProgress(), 0.0);
+		assertTrue(monitor.getStatusReport().contains(
+				"97.7 KB decompressed"));
+	}
+
+	@Test
+	public void testUncompressedInput() throws IOException {
+		byte[] data = "[\n]\n".getBytes(StandardCharsets.UTF_8);
+		DumpProcessingMonitor monitor = new DumpProcessingMonitor();
+		monitor.start(new SizedDumpFile(-1));
+		try (InputStream in = monitor
+				.monitorInputStream(new ByteArrayInputStream(data))) {
+			assertEquals(2, in.skip(2));
+			assertEquals(-1, monitor.getProgress(), 0.0);
+			assertEquals(-1, monitor.getEstimatedRemainingTime());
+			assertEquals(2, in.read(new byte[10]));
+		}
+		monitor.finish();
+
+		assertEquals(4, monitor.getDecompressedBytes());
+		assertEquals(4, monitor.getCompressedBytes());
+		assertFalse(monitor.getStatusReport().contains("decompressed"));
+	}
+
+	@Test
+	public void testNestedTimes() {
+		DumpProcessingMonitor monitor = new DumpProcessingMonitor();
+		BusyProcessor inner = new BusyProcessor(null);
+		BusyProcessor outer = new BusyProcessor(monitor.monitorProcessor(inner));
+		EntityDocumentProcessor processor = monitor.countDocuments(monitor
+				.monitorFilter(monitor.monitorProcessor(outer)));
+
+		monitor.start(new SizedDumpFile(1000));
+		for (int i = 0; i < 5; i++) {
+			processor.processItemDocument(null);
+		}
+		monitor.finish();
+
+		assertEquals(5, monitor.getCount());
+		Map<String, Long> processorTimes = monitor.getProcessorTimes();
+		long innerTime = processorTimes.get("BusyProcessor");
+		long outerTime = processorTimes.get("BusyProcessor #2");
+		assertTrue(innerTime >= 10000000);
+		assertTrue(outerTime >= 10000000);
+		// the outer time does not include the time of the inner processor
+		assertTrue(outerTime < innerTime * 2);
+
+		long total = innerTime + outerTime;
+		for (long time : monitor.getStageTimes().values()) {
+			total += time;
+		}
+		assertEquals(monitor.getElapsedTime(), total, 1000000.0);
+		assertTrue(monitor.getStageTimes().get(
+				DumpProcessingMonitor.STAGE_FILTER) < innerTime);
+	}
+
+	@Test
+	public void testProcessorNames() {
+		DumpProcessingMonitor monitor = new DumpProcessingMonitor();
+		EntityTimerProcessor first = new EntityTimerProcessor(0);
+		EntityTimerProcessor second = new EntityTimerProcessor(0);
+		monitor.monitorProcessor(first);
+		monitor.monitorProcessor(second);
+		monitor.monitorProcessor(first);
+
+		assertEquals("EntityTimerProcessor",
+				monitor.getProcessorComponent(first).name);
+		assertEquals("EntityTimerProcessor #2",
+				monitor.getProcessorComponent(second).name);
+		assertEquals(2, monitor.getProcessorTimes().size());
+	}
+
+	@Test
+	public void testDisabled() throws IOException {
+		DumpProcessingMonitor monitor = new DumpProcessingMonitor();
+		monitor.setEnabled(false);
+		assertFalse(monitor.isEnabled());
+
+		EntityTimerProcessor processor = new EntityTimerProcessor(0);
+		assertSame(processor, monitor.monitorProcessor(processor));
+		assertSame(processor, monitor.monitorFilter(processor));
+		assertSame(processor, monitor.countDocuments(processor));
+		assertTrue(monitor.getProcessorTimes().isEmpty());
+
+		monitor.start(new SizedDumpFile(1000));
+		assertFalse(monitor.isRunning());
+		InputStream in = new ByteArrayInputStream(new byte[10]);
+		assertSame(in, monitor.monitorInputStream(in));
+		assertEquals(10, in.read(new byte[10]));
+		monitor.finish();
+
+		assertEquals(0, monitor.getCount());
+		assertEquals(0, monitor.getDecompressedBytes());
+	}
+
+	@Test
+	public void testFormatBytes() {
+		assertEquals("0 B", DumpProcessingMonitor.formatBytes(0));
+		assertEquals("1023 B", DumpProcessingMonitor.formatBytes(1023));
+		assertEquals("1.0 KB", DumpProcessingMonitor.formatBytes(1024));
+		assertEquals("1.5 MB",
+				DumpProcessingMonitor.formatBytes(3 * 512 * 1024));
+		assertEquals("40.0 GB",
+				DumpProcessingMonitor.formatBytes(40L * 1024 * 1024 * 1024));
+	}
+
+}
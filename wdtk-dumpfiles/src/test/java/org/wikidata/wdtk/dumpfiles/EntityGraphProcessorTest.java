@@ -0,0 +1,93 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.storage.datastructures.EntityGraph;
+
+public class EntityGraphProcessorTest {
+
+	ItemDocument makeItem(String id, String propertyId, String... values) {
+		ItemIdValue itemId = Datamodel.makeWikidataItemIdValue(id);
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(itemId);
+		for (String value : values) {
+			builder.withStatement(StatementBuilder
+					.forSubjectAndProperty(itemId,
+							Datamodel.makeWikidataPropertyIdValue(propertyId))
+					.withValue(Datamodel.makeWikidataItemIdValue(value))
+					.build());
+		}
+		return builder.build();
+	}
+
+	@Test
+	public void testProcessItems() {
+		EntityGraphProcessor processor = new EntityGraphProcessor();
+		processor.processItemDocument(makeItem("Q42", "P31", "Q5"));
+		processor.processItemDocument(makeItem("Q5", "P279", "Q215627"));
+		processor.processItemDocument(makeItem("Q10", "P17", "Q183"));
+
+		EntityGraph graph = processor.getEntityGraph();
+		assertEquals(4, graph.getNodeCount());
+		assertArrayEquals(new int[] { 31, 279 }, graph.getPropertyIds());
+		assertArrayEquals(new int[] { graph.getNode("Q5") },
+				graph.getSuccessors(31, graph.getNode("Q42")));
+		assertEquals(2, graph.getAncestors(graph.getNode("Q42"), 31, 279)
+				.cardinality());
+		assertEquals(-1, graph.getNode("Q183"));
+	}
+
+	@Test
+	public void testDeprecatedStatementsAreIgnored() {
+		ItemIdValue itemId = Datamodel.makeWikidataItemIdValue("Q1");
+		ItemDocument document = ItemDocumentBuilder.forItemId(itemId)
+				.withStatement(StatementBuilder.forSubjectAndProperty(itemId,
+						Datamodel.makeWikidataPropertyIdValue("P279"))
+						.withValue(Datamodel.makeWikidataItemIdValue("Q2"))
+						.withRank(StatementRank.DEPRECATED).build())
+				.build();
+		EntityGraphProcessor processor = new EntityGraphProcessor("P279");
+		processor.processItemDocument(document);
+
+		EntityGraph graph = processor.getEntityGraph();
+		assertEquals(1, graph.getNodeCount());
+		assertEquals(0, graph.getEdgeCount(279));
+		assertThrows(IllegalStateException.class,
+				() -> processor.processItemDocument(document));
+	}
+
+	@Test
+	public void testInvalidPropertyId() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new EntityGraphProcessor("Q31"));
+	}
+
+}
@@ -0,0 +1,243 @@
+package org.wikidata.wdtk.dumpfiles;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
+import org.wikidata.wdtk.testing.MockDirectoryManager;
+import org.wikidata.wdtk.testing.MockStringContentFactory;
+
+public class EntityStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	private ItemDocument makeItem(String id, String label, long revisionId) {
+		ItemIdValue itemId = Datamodel.makeWikidataItemIdValue(id);
+		return ItemDocumentBuilder.forItemId(itemId).withLabel(label, "en")
+				.withRevisionId(revisionId).build();
+	}
+
+	@Test
+	public void testStoreAndRetrieve() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		ItemDocument q1 = makeItem("Q1", "universe", 10);
+
+		assertTrue(store.putEntityDocument(q1));
+		assertEquals(q1, store.getEntityDocument("Q1"));
+		assertEquals(10, store.getRevisionId("Q1"));
+		assertEquals(-1, store.getRevisionId("Q2"));
+		assertNull(store.getEntityDocument("Q2"));
+		assertEquals(1, store.size());
+		store.close();
+	}
+
+	@Test
+	public void testOlderRevisionsAreIgnored() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		ItemDocument newer = makeItem("Q1", "universe", 20);
+
+		assertTrue(store.putEntityDocument(newer));
+		assertFalse(store.putEntityDocument(makeItem("Q1", "old", 10)));
+		assertFalse(store.putEntityDocument(makeItem("Q1", "same", 20)));
+		assertEquals(newer, store.getEntityDocument("Q1"));
+		store.close();
+	}
+
+	@Test
+	public void testExplicitRevisionId() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+
+		assertTrue(store.putEntityDocument(makeItem("Q1", "universe", 0), 42));
+		assertEquals(42, store.getEntityDocument("Q1").getRevisionId());
+		store.close();
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		ItemDocument q1 = makeItem("Q1", "universe", 10);
+		ItemDocument q2 = makeItem("Q2", "earth", 11);
+		store.putEntityDocument(q1);
+		store.putEntityDocument(q2);
+		store.setBaseDumpDateStamp("20150223");
+		store.markDumpApplied("20150224");
+		store.close();
+
+		EntityStore reopened = new EntityStore(tempDir,
+				Datamodel.SITE_WIKIDATA);
+		assertEquals(q1, reopened.getEntityDocument("Q1"));
+		assertEquals(q2, reopened.getEntityDocument("Q2"));
+		assertEquals(11, reopened.getMaxRevisionId());
+		assertEquals("20150223", reopened.getBaseDumpDateStamp());
+		assertEquals(Collections.singleton("20150224"),
+				reopened.getAppliedDumpDateStamps());
+		reopened.close();
+	}
+
+	@Test
+	public void testRebuildIndex() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		ItemDocument q1 = makeItem("Q1", "universe", 10);
+		store.putEntityDocument(makeItem("Q1", "old", 5));
+		store.putEntityDocument(q1);
+		store.close();
+
+		// Simulate an interrupted run: stale index and partial last record
+		Files.write(tempDir.resolve(EntityStore.LOG_FILE_NAME),
+				"Q2\t12\t{\"type\":".getBytes(), StandardOpenOption.APPEND);
+		Files.delete(tempDir.resolve(EntityStore.INDEX_FILE_NAME));
+
+		EntityStore reopened = new EntityStore(tempDir,
+				Datamodel.SITE_WIKIDATA);
+		assertEquals(q1, reopened.getEntityDocument("Q1"));
+		assertEquals(1, reopened.size());
+		assertEquals(10, reopened.getMaxRevisionId());
+		reopened.close();
+	}
+
+	@Test
+	public void testChangedSince() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		store.putEntityDocument(makeItem("Q1", "a", 10));
+		store.putEntityDocument(makeItem("Q2", "b", 30));
+		store.putEntityDocument(makeItem("Q3", "c", 20));
+
+		assertEquals(Arrays.asList("Q3", "Q2"),
+				store.getEntityIdsChangedSince(10));
+
+		List<String> processed = new ArrayList<>();
+		store.processEntityDocumentsChangedSince(20,
+				new EntityDocumentProcessor() {
+					@Override
+					public void processItemDocument(ItemDocument itemDocument) {
+						processed.add(itemDocument.getEntityId().getId());
+					}
+				});
+		assertEquals(Collections.singletonList("Q2"), processed);
+		store.close();
+	}
+
+	@Test
+	public void testRedirect() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		store.putEntityDocument(makeItem("Q1", "a", 10));
+
+		assertTrue(store.putEntityRedirect(
+				Datamodel.makeWikidataItemIdValue("Q1"), 11));
+		assertNull(store.getEntityDocument("Q1"));
+		assertEquals(11, store.getRevisionId("Q1"));
+		assertFalse(store.putEntityDocument(makeItem("Q1", "a", 10)));
+		store.close();
+
+		EntityStore reopened = new EntityStore(tempDir,
+				Datamodel.SITE_WIKIDATA);
+		assertNull(reopened.getEntityDocument("Q1"));
+		assertEquals(11, reopened.getRevisionId("Q1"));
+		reopened.close();
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		ItemDocument q1 = makeItem("Q1", "universe", 10);
+		ItemDocument q2 = makeItem("Q2", "earth", 12);
+		store.putEntityDocument(makeItem("Q1", "old", 5));
+		store.putEntityDocument(q1);
+		store.putEntityDocument(q2);
+		store.putEntityRedirect(Datamodel.makeWikidataItemIdValue("Q3"), 7);
+		store.flush();
+		long sizeBefore = Files.size(tempDir.resolve(EntityStore.LOG_FILE_NAME));
+
+		store.compact();
+
+		assertTrue(Files.size(tempDir.resolve(EntityStore.LOG_FILE_NAME)) < sizeBefore);
+		assertEquals(q1, store.getEntityDocument("Q1"));
+		assertEquals(q2, store.getEntityDocument("Q2"));
+		assertEquals(7, store.getRevisionId("Q3"));
+		store.putEntityDocument(makeItem("Q4", "moon", 13));
+		store.close();
+
+		Files.delete(tempDir.resolve(EntityStore.INDEX_FILE_NAME));
+		EntityStore reopened = new EntityStore(tempDir,
+				Datamodel.SITE_WIKIDATA);
+		assertEquals(q2, reopened.getEntityDocument("Q2"));
+		assertNotNull(reopened.getEntityDocument("Q4"));
+		assertEquals(4, reopened.size());
+		reopened.close();
+	}
+
+	@Test
+	public void testSeedFromJsonDump() throws IOException {
+		Path dmPath = Paths.get(System.getProperty("user.dir"));
+		MockDirectoryManager dm = new MockDirectoryManager(dmPath, true, true);
+		URL resourceUrl = EntityStoreTest.class
+				.getResource("/mock-dump-for-testing.json");
+		Path filePath = dmPath.resolve("dumpfiles").resolve("wikidatawiki")
+				.resolve("json-20150223").resolve("20150223.json.gz");
+		dm.setFileContents(filePath,
+				MockStringContentFactory.getStringFromUrl(resourceUrl),
+				WmfDumpFile.getDumpFileCompressionType(filePath.toString()));
+
+		DumpProcessingController dpc = new DumpProcessingController(
+				"wikidatawiki");
+		dpc.downloadDirectoryManager = dm;
+		dpc.setOfflineMode(true);
+
+		EntityStore store = new EntityStore(tempDir, Datamodel.SITE_WIKIDATA);
+		dpc.updateEntityStore(store);
+
+		assertEquals("20150223", store.getBaseDumpDateStamp());
+		assertNotNull(store.getEntityDocument("Q1"));
+		assertNotNull(store.getEntityDocument("Q8"));
+		assertNotNull(store.getEntityDocument("P16"));
+
+		// Running again must not change anything
+		int size = store.size();
+		dpc.updateEntityStore(store);
+		assertEquals(size, store.size());
+		store.close();
+	}
+
+}
@@ -21,21 +21,32 @@
 package org.wikidata.wdtk.dumpfiles;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
+import org.wikidata.wdtk.datamodel.interfaces.MediaInfoDocument;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
 import org.wikidata.wdtk.testing.MockDirectoryManager;
 import org.wikidata.wdtk.testing.MockStringContentFactory;
+import org.wikidata.wdtk.testing.SyntheticDumpGenerator;
 import org.wikidata.wdtk.util.Timer;
 
 public class JsonDumpFileProcessingTest {
@@ -69,6 +80,38 @@ public class JsonDumpFileProcessingTest {
 
 	}
 
+	/**
+	 * Test class that counts the documents of each type.
+	 */
+	private static class CountingDocumentProcessor implements EntityDocumentProcessor {
+
+		int itemCount = 0;
+		int propertyCount = 0;
+		int lexemeCount = 0;
+		int mediaInfoCount = 0;
+
+		@Override
+		public void processItemDocument(ItemDocument itemDocument) {
+			itemCount++;
+		}
+
+		@Override
+		public void processPropertyDocument(PropertyDocument propertyDocument) {
+			propertyCount++;
+		}
+
+		@Override
+		public void processLexemeDocument(LexemeDocument lexemeDocument) {
+			lexemeCount++;
+		}
+
+		@Override
+		public void processMediaInfoDocument(MediaInfoDocument mediaInfoDocument) {
+			mediaInfoCount++;
+		}
+
+	}
+
 	@Test
 	public void testRegularJsonProcessing() throws IOException {
 		Path dmPath = Paths.get(System.getProperty("user.dir"));
@@ -90,6 +133,84 @@ public class JsonDumpFileProcessingTest {
 		assertEquals(3, timer.entityCount);
 	}
 
+	@Test
+	public void testProgressMonitoring() throws IOException {
+		Path dmPath = Paths.get(System.getProperty("user.dir"));
+		MockDirectoryManager dm = new MockDirectoryManager(dmPath, true, true);
+		setLocalJsonDumpFile("mock-dump-for-testing.json", "20150223", dm);
+
+		DumpProcessingController dpc = new DumpProcessingController(
+				"wikidatawiki");
+		dpc.downloadDirectoryManager = dm;
+		dpc.setOfflineMode(true);
+		dpc.setLanguageFilter(Collections.singleton("de"));
+
+		dpc.registerEntityDocumentProcessor(new EntityTimerProcessor(0), null,
+				true);
+		dpc.registerEntityDocumentProcessor(new SlowDocumentProcessor(), null,
+				true);
+		dpc.processMostRecentJsonDump();
+
+		DumpProcessingMonitor monitor = dpc.getMonitor();
+		assertFalse(monitor.isRunning());
+		assertEquals(4, monitor.getCount());
+		assertTrue(monitor.getTotalBytes() > 0);
+		assertEquals(monitor.getTotalBytes(), monitor.getCompressedBytes());
+		assertTrue(monitor.getDecompressedBytes() > monitor
+				.getCompressedBytes());
+		assertEquals(1.0, monitor.getProgress(), 0.0);
+		assertEquals(0, monitor.getEstimatedRemainingTime());
+
+		assertEquals(Arrays.asList(DumpProcessingMonitor.STAGE_INPUT,
+				DumpProcessingMonitor.STAGE_PARSING,
+				DumpProcessingMonitor.STAGE_FILTER), new ArrayList<>(monitor
+				.getStageTimes().keySet()));
+		Map<String, Long> processorTimes = monitor.getProcessorTimes();
+		assertEquals(2, processorTimes.size());
+		// the slow processor waits for one second on the first item
+		assertTrue(processorTimes.get("SlowDocumentProcessor") >= 1000000000);
+		long total = processorTimes.get("SlowDocumentProcessor")
+				+ processorTimes.get("EntityTimerProcessor");
+		for (long time : monitor.getStageTimes().values()) {
+			total += time;
+		}
+		assertTrue(total <= monitor.getElapsedTime());
+		assertTrue(monitor.getStatusReport().startsWith(
+				"Processed 4 documents of "));
+	}
+
+	@Test
+	public void testSyntheticJsonProcessing() throws IOException {
+		SyntheticDumpGenerator generator = new SyntheticDumpGenerator(1);
+		generator.setItemCount(200);
+		generator.setPropertyCount(30);
+		generator.setLexemeCount(20);
+		generator.setMediaInfoCount(10);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.writeJsonDump(out);
+
+		Path dmPath = Paths.get(System.getProperty("user.dir"));
+		MockDirectoryManager dm = new MockDirectoryManager(dmPath, true, true);
+		setLocalJsonDumpFileContents(
+				new String(out.toByteArray(), StandardCharsets.UTF_8),
+				"20200101", dm);
+
+		DumpProcessingController dpc = new DumpProcessingController(
+				"wikidatawiki");
+		dpc.downloadDirectoryManager = dm;
+		dpc.setOfflineMode(true);
+
+		CountingDocumentProcessor counter = new CountingDocumentProcessor();
+		dpc.registerEntityDocumentProcessor(counter, null, true);
+		dpc.processMostRecentJsonDump();
+
+		assertEquals(200, counter.itemCount);
+		assertEquals(30, counter.propertyCount);
+		assertEquals(20, counter.lexemeCount);
+		assertEquals(10, counter.mediaInfoCount);
+		assertEquals(generator.getEntityCount(), dpc.getMonitor().getCount());
+	}
+
 	@Test
 	public void testBuggyJsonProcessing() throws IOException {
 		Path dmPath = Paths.get(System.getProperty("user.dir"));
@@ -162,16 +283,23 @@ public class JsonDumpFileProcessingTest {
 
 	private void setLocalJsonDumpFile(String fileName, String dateStamp,
 			MockDirectoryManager dm) throws IOException {
-
-		DumpContentType dumpContentType = DumpContentType.JSON;
 		URL resourceUrl = MwDumpFileProcessingTest.class.getResource("/"
 				+ fileName);
+		setLocalJsonDumpFileContents(
+				MockStringContentFactory.getStringFromUrl(resourceUrl),
+				dateStamp, dm);
+	}
+
+	private void setLocalJsonDumpFileContents(String contents,
+			String dateStamp, MockDirectoryManager dm) throws IOException {
+
+		DumpContentType dumpContentType = DumpContentType.JSON;
 		Path dmPath = Paths.get(System.getProperty("user.dir"));
 		Path dumpFilePath = dmPath.resolve("dumpfiles").resolve("wikidatawiki");
 		Path thisDumpPath = dumpFilePath.resolve(dumpContentType.toString()
 				.toLowerCase() + "-" + dateStamp);
 		Path filePath = thisDumpPath.resolve(dateStamp + WmfDumpFile.getDumpFilePostfix(dumpContentType));
-		dm.setFileContents(filePath, MockStringContentFactory.getStringFromUrl(resourceUrl),
+		dm.setFileContents(filePath, contents,
 				WmfDumpFile.getDumpFileCompressionType(filePath.toString()));
 	}
 
@@ -22,8 +22,10 @@ package org.wikidata.wdtk.dumpfiles;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -35,11 +37,13 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.LexemeDocument;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 import org.wikidata.wdtk.dumpfiles.wmf.WmfDumpFile;
 import org.wikidata.wdtk.dumpfiles.wmf.WmfLocalDumpFile;
 import org.wikidata.wdtk.testing.MockDirectoryManager;
 import org.wikidata.wdtk.testing.MockStringContentFactory;
+import org.wikidata.wdtk.testing.SyntheticDumpGenerator;
 import org.wikidata.wdtk.util.DirectoryManagerFactory;
 
 public class MwDumpFileProcessingTest {
@@ -86,6 +90,7 @@ public class MwDumpFileProcessingTest {
 
 		int itemCount = 0;
 		int propCount = 0;
+		int lexemeCount = 0;
 
 		@Override
 		public void processItemDocument(ItemDocument itemDocument) {
@@ -97,6 +102,11 @@ public class MwDumpFileProcessingTest {
 			this.propCount++;
 		}
 
+		@Override
+		public void processLexemeDocument(LexemeDocument lexemeDocument) {
+			this.lexemeCount++;
+		}
+
 	}
 
 	@BeforeEach
@@ -527,4 +537,42 @@ public class MwDumpFileProcessingTest {
 		assertEquals(9, mwrpStats.getCurrentRevisionCount());
 	}
 
+	@Test
+	public void testSyntheticDumpFileProcessing() throws IOException {
+		SyntheticDumpGenerator generator = new SyntheticDumpGenerator(1);
+		generator.setItemCount(100);
+		generator.setPropertyCount(20);
+		generator.setLexemeCount(10);
+		generator.setRevisionsPerPage(3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.writeXmlDump(out);
+
+		Path dmPath = Paths.get(System.getProperty("user.dir"));
+		MockDirectoryManager dm = new MockDirectoryManager(dmPath, true, true);
+		Path filePath = dmPath.resolve("dumpfiles").resolve("wikidatawiki")
+				.resolve("full-20200101").resolve("wikidatawiki-20200101"
+						+ WmfDumpFile.getDumpFilePostfix(DumpContentType.FULL));
+		dm.setFileContents(filePath,
+				new String(out.toByteArray(), StandardCharsets.UTF_8),
+				WmfDumpFile.getDumpFileCompressionType(filePath.toString()));
+
+		DumpProcessingController dpc = new DumpProcessingController(
+				"wikidatawiki");
+		dpc.downloadDirectoryManager = dm;
+		dpc.setOfflineMode(true);
+
+		StatisticsMwRevisionProcessor mwrpStats = new StatisticsMwRevisionProcessor(
+				"stats", 2);
+		dpc.registerMwRevisionProcessor(mwrpStats, null, false);
+		TestEntityDocumentProcessor edpCounter = new TestEntityDocumentProcessor();
+		dpc.registerEntityDocumentProcessor(edpCounter, null, true);
+
+		dpc.processMostRecentMainDump();
+
+		assertEquals(390, mwrpStats.getTotalRevisionCount());
+		assertEquals(100, edpCounter.itemCount);
+		assertEquals(20, edpCounter.propCount);
+		assertEquals(10, edpCounter.lexemeCount);
+	}
+
 }
@@ -0,0 +1,77 @@
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.dumpfiles.wmf;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.testing.MockDirectoryManager;
+import org.wikidata.wdtk.testing.MockWebResourceFetcher;
+import org.wikidata.wdtk.util.CompressionType;
+
+public class JsonOnlineDumpFileTest {
+
+	static final String ENTITIES_URL = "https://dumps.wikimedia.org/wikidatawiki/entities/20150112/";
+
+	MockWebResourceFetcher wrf;
+	MockDirectoryManager dm;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		dm = new MockDirectoryManager(
+				Paths.get(System.getProperty("user.dir")), true, false);
+		wrf = new MockWebResourceFetcher();
+	}
+
+	@Test
+	public void fetchChecksum() throws IOException {
+		wrf.setWebResourceContents(ENTITIES_URL
+				+ "wikidata-20150112-sha1sums.txt",
+				"0123456789abcdef0123456789abcdef01234567  wikidata-20150112-all.json.bz2\n"
+						+ "89abcdef0123456789abcdef0123456789abcdef  wikidata-20150112-all.json.gz\n");
+		JsonOnlineDumpFile dump = new JsonOnlineDumpFile("20150112",
+				"wikidatawiki", wrf, dm);
+
+		assertEquals("89abcdef0123456789abcdef0123456789abcdef",
+				dump.fetchChecksum("sha1sums"));
+		assertNull(dump.fetchChecksum("md5sums"));
+	}
+
+	@Test
+	public void downloadWithoutChecksum() throws IOException {
+		wrf.setWebResourceContents(
+				"https://dumps.wikimedia.org/other/wikidata/20150112.json.gz",
+				"Line1", CompressionType.GZIP);
+		JsonOnlineDumpFile dump = new JsonOnlineDumpFile("20150112",
+				"wikidatawiki", wrf, dm);
+
+		BufferedReader br = dump.getDumpFileReader();
+		assertEquals("Line1", br.readLine());
+		assertNull(br.readLine());
+	}
+
+}
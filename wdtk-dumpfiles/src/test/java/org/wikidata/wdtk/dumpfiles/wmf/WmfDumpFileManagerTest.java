@@ -26,18 +26,22 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.wikidata.wdtk.dumpfiles.DumpContentType;
 import org.wikidata.wdtk.dumpfiles.MwDumpFile;
 import org.wikidata.wdtk.dumpfiles.MwDumpFileProcessor;
 import org.wikidata.wdtk.testing.MockDirectoryManager;
 import org.wikidata.wdtk.testing.MockStringContentFactory;
 import org.wikidata.wdtk.testing.MockWebResourceFetcher;
+import org.wikidata.wdtk.util.DirectoryManagerImpl;
 
 public class WmfDumpFileManagerTest {
 
@@ -45,6 +49,9 @@ public class WmfDumpFileManagerTest {
 	MockDirectoryManager dm;
 	Path dmPath;
 
+	@TempDir
+	Path tempDir;
+
 	/**
 	 * Helper class to test dump file processing capabilities.
 	 *
@@ -406,4 +413,103 @@ public class WmfDumpFileManagerTest {
 				"Contents of daily 20140221\nContents of daily 20140220\nContents of current 20140219\n");
 	}
 
+	@Test
+	public void findMostRecentDumpChecksInParallel() throws IOException {
+		wrf.setWebResourceContentsFromResource(
+				"https://dumps.wikimedia.org/other/incr/wikidatawiki/",
+				"/other-incr-wikidatawiki-index.html", this.getClass());
+		wrf.setWebResourceContents(
+				"https://dumps.wikimedia.org/other/incr/wikidatawiki/20140218/status.txt",
+				"in progress");
+		wrf.setWebResourceContents(
+				"https://dumps.wikimedia.org/other/incr/wikidatawiki/20140216/status.txt",
+				"done");
+		wrf.setWebResourceContents(
+				"https://dumps.wikimedia.org/other/incr/wikidatawiki/20140212/status.txt",
+				"done");
+
+		WmfDumpFileManager dumpFileManager = new WmfDumpFileManager(
+				"wikidatawiki", dm, wrf);
+		dumpFileManager.setAvailabilityCheckThreads(3);
+
+		MwDumpFile dumpFile = dumpFileManager
+				.findMostRecentDump(DumpContentType.DAILY);
+		assertEquals("20140216", dumpFile.getDateStamp());
+		assertTrue(dumpFile instanceof WmfOnlineDailyDumpFile);
+	}
+
+	@Test
+	public void findMostRecentDumpFromCatalogue() throws IOException {
+		wrf.setWebResourceContentsFromResource(
+				"https://dumps.wikimedia.org/wikidatawiki/",
+				"/wikidatawiki-index-old.html", this.getClass());
+		wrf.setWebResourceContentsFromResource(
+				"https://dumps.wikimedia.org/wikidatawiki/20140210/wikidatawiki-20140210-md5sums.txt",
+				"/wikidatawiki-20140210-md5sums.txt", this.getClass());
+
+		WmfDumpFileManager dumpFileManager = new WmfDumpFileManager(
+				"wikidatawiki", dm, wrf);
+		assertEquals("20140210", dumpFileManager.findMostRecentDump(
+				DumpContentType.CURRENT).getDateStamp());
+
+		// later runs find the dump without accessing the Web
+		wrf.webResources.clear();
+		dumpFileManager = new WmfDumpFileManager("wikidatawiki", dm, wrf);
+		MwDumpFile dumpFile = dumpFileManager
+				.findMostRecentDump(DumpContentType.CURRENT);
+		assertEquals("20140210", dumpFile.getDateStamp());
+		assertEquals("09f0c38c6409ac4765c19b7c771710ca",
+				((WmfOnlineStandardDumpFile) dumpFile).md5Checksum);
+	}
+
+	@Test
+	public void refreshListingIfModified() throws IOException {
+		String url = "https://dumps.wikimedia.org/other/wikidata/";
+		wrf.setWebResourceContentsFromResource(url,
+				"/other-wikidata-index.html", this.getClass());
+		wrf.setLastModified(url, 1000);
+
+		WmfDumpFileManager dumpFileManager = new WmfDumpFileManager(
+				"wikidatawiki", dm, wrf);
+		dumpFileManager.setListingMaxAge(0);
+		List<MwDumpFile> dumpFiles = dumpFileManager
+				.findAllDumps(DumpContentType.JSON);
+		assertEquals("20150112", dumpFiles.get(0).getDateStamp());
+		int dumpCount = dumpFiles.size();
+
+		// not modified according to the server, so the listing is reused
+		wrf.setWebResourceContents(url, "");
+		assertEquals(dumpCount,
+				dumpFileManager.findAllDumps(DumpContentType.JSON).size());
+
+		// the listing is also reused if the server cannot be reached
+		wrf.webResources.remove(url);
+		assertEquals(dumpCount,
+				dumpFileManager.findAllDumps(DumpContentType.JSON).size());
+
+		wrf.setWebResourceContents(url, "");
+		wrf.setLastModified(url, 2000);
+		assertTrue(dumpFileManager.findAllDumps(DumpContentType.JSON)
+				.isEmpty());
+	}
+
+	@Test
+	public void saveCatalogueTwice() throws IOException {
+		DirectoryManagerImpl directoryManager = new DirectoryManagerImpl(
+				tempDir, false);
+		WmfDumpCatalogue catalogue = new WmfDumpCatalogue(directoryManager);
+		catalogue.setListing(DumpContentType.JSON, new WmfDumpCatalogue.Listing(
+				1000, 2000, Arrays.asList("20150112", "20150105")));
+		catalogue.save();
+		catalogue.setComplete(DumpContentType.JSON, "20150112", null);
+		catalogue.save();
+
+		assertFalse(Files.exists(tempDir.resolve(WmfDumpCatalogue.FILE_NAME
+				+ ".part")));
+		catalogue = new WmfDumpCatalogue(directoryManager);
+		assertTrue(catalogue.isComplete(DumpContentType.JSON, "20150112"));
+		assertEquals(Arrays.asList("20150112", "20150105"), catalogue
+				.getListing(DumpContentType.JSON).dateStamps);
+	}
+
 }
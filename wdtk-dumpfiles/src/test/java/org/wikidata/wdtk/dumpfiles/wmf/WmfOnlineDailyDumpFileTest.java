@@ -76,6 +76,35 @@ public class WmfOnlineDailyDumpFileTest {
 		assertEquals(DumpContentType.DAILY, dump.getDumpContentType());
 	}
 
+	@Test
+	public void streamWhileDownloading() throws IOException {
+		String dateStamp = "20140220";
+		wrf.setWebResourceContents(
+				"https://dumps.wikimedia.org/other/incr/wikidatawiki/"
+						+ dateStamp + "/status.txt", "done");
+		wrf.setWebResourceContents(
+				"https://dumps.wikimedia.org/other/incr/wikidatawiki/"
+						+ dateStamp + "/wikidatawiki-" + dateStamp
+						+ "-pages-meta-hist-incr.xml.bz2", "Line1\nLine2",
+				CompressionType.BZ2);
+		WmfOnlineDailyDumpFile dump = new WmfOnlineDailyDumpFile(dateStamp,
+				"wikidatawiki", wrf, dm);
+		dump.setStreamWhileDownloading(true);
+
+		try (BufferedReader br = dump.getDumpFileReader()) {
+			assertEquals("Line1", br.readLine());
+			assertEquals("Line2", br.readLine());
+			assertNull(br.readLine());
+		}
+
+		assertTrue(dm.getSubdirectoryManager("daily-" + dateStamp).hasFile(
+				"wikidatawiki-" + dateStamp + "-pages-meta-hist-incr.xml.bz2"));
+
+		// The stored file is used from now on
+		BufferedReader br = dump.getDumpFileReader();
+		assertEquals("Line1", br.readLine());
+	}
+
 	@Test
 	public void missingDumpProperties() {
 		String dateStamp = "20140220";
@@ -47,6 +47,8 @@ import org.wikidata.wdtk.datamodel.interfaces.StringValue;
 import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
 import org.wikidata.wdtk.datamodel.interfaces.Value;
 import org.wikidata.wdtk.datamodel.interfaces.ValueSnak;
+import org.wikidata.wdtk.storage.datastructures.CooccurrenceMatrix;
+import org.wikidata.wdtk.storage.datastructures.IntToIntMap;
 
 /**
  * This advanced example analyses the use of properties and classes in a dump
@@ -123,11 +125,15 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 		 */
 		public int itemCount = 0;
 		/**
-		 * Map that records how many times certain properties are used on items
-		 * that use this entity (where "use" has the meaning explained for
-		 * {@link UsageRecord#itemCount}).
+		 * Row of the matrix that records how many times certain properties
+		 * are used on items that use this entity (where "use" has the meaning
+		 * explained for {@link UsageRecord#itemCount}). For properties, this
+		 * is the number of properties seen before, and the row is in
+		 * {@link ClassPropertyUsageAnalyzer#propertyCoCounts}. For class
+		 * items, this is the number of classes seen before, and the row is in
+		 * {@link ClassPropertyUsageAnalyzer#classPropertyCoCounts}.
 		 */
-		public HashMap<PropertyIdValue, Integer> propertyCoCounts = new HashMap<>();
+		public int coCountRow = 0;
 	}
 
 	/**
@@ -241,6 +247,24 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	 * Collection of all property records.
 	 */
 	final HashMap<PropertyIdValue, PropertyRecord> propertyRecords = new HashMap<>();
+	/**
+	 * Matrix that records how many times properties (columns) are used
+	 * together with other properties (rows) on the same item. Properties are
+	 * identified by {@link UsageRecord#coCountRow}.
+	 */
+	final CooccurrenceMatrix propertyCoCounts = new CooccurrenceMatrix();
+	/**
+	 * Matrix that records how many times properties (columns) are used on
+	 * instances of classes (rows). Rows are given by
+	 * {@link UsageRecord#coCountRow}.
+	 */
+	final CooccurrenceMatrix classPropertyCoCounts = new CooccurrenceMatrix();
+	/**
+	 * List of all properties, indexed by {@link UsageRecord#coCountRow}, used
+	 * to interpret the columns of {@link #propertyCoCounts} and
+	 * {@link #classPropertyCoCounts}.
+	 */
+	final List<PropertyIdValue> propertyIdValues = new ArrayList<>();
 	/**
 	 * Collection of all item records of items used as classes.
 	 */
@@ -275,6 +299,12 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 			this.countPropertyItems++;
 		}
 
+		int[] propertyIds = new int[itemDocument.getStatementGroups().size()];
+		int position = 0;
+		for (StatementGroup sg : itemDocument.getStatementGroups()) {
+			propertyIds[position++] = getPropertyRecord(sg.getProperty()).coCountRow;
+		}
+
 		ClassRecord classRecord = null;
 		if (TOP_LEVEL_CLASSES.contains(itemDocument.getEntityId().getId())
 				|| this.classRecords.containsKey(itemDocument.getEntityId())) {
@@ -316,8 +346,9 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 						ClassRecord otherClassRecord = getClassRecord((EntityIdValue) value);
 						if (isInstanceOf) {
 							otherClassRecord.itemCount++;
-							countCooccurringProperties(itemDocument,
-									otherClassRecord, null);
+							countCooccurringProperties(propertyIds,
+									this.classPropertyCoCounts,
+									otherClassRecord.coCountRow, -1);
 						} else {
 							otherClassRecord.subclassCount++;
 							classRecord.superClasses.add((EntityIdValue) value);
@@ -326,8 +357,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 				}
 			}
 
-			countCooccurringProperties(itemDocument, propertyRecord,
-					sg.getProperty());
+			countCooccurringProperties(propertyIds, this.propertyCoCounts,
+					propertyRecord.coCountRow, propertyRecord.coCountRow);
 		}
 
 		if (classRecord != null) {
@@ -393,6 +424,7 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	private ClassRecord getClassRecord(EntityIdValue entityIdValue) {
 		if (!this.classRecords.containsKey(entityIdValue)) {
 			ClassRecord classRecord = new ClassRecord();
+			classRecord.coCountRow = this.classRecords.size();
 			this.classRecords.put(entityIdValue, classRecord);
 			return classRecord;
 		} else {
@@ -410,24 +442,34 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	private PropertyRecord getPropertyRecord(PropertyIdValue property) {
 		if (!this.propertyRecords.containsKey(property)) {
 			PropertyRecord propertyRecord = new PropertyRecord();
+			propertyRecord.coCountRow = this.propertyIdValues.size();
 			this.propertyRecords.put(property, propertyRecord);
+			this.propertyIdValues.add(property);
 			return propertyRecord;
 		} else {
 			return this.propertyRecords.get(property);
 		}
 	}
 
-	private void countCooccurringProperties(ItemDocument itemDocument,
-			UsageRecord usageRecord, PropertyIdValue thisPropertyIdValue) {
-		for (StatementGroup sg : itemDocument.getStatementGroups()) {
-			if (!sg.getProperty().equals(thisPropertyIdValue)) {
-				if (!usageRecord.propertyCoCounts.containsKey(sg.getProperty())) {
-					usageRecord.propertyCoCounts.put(sg.getProperty(), 1);
-				} else {
-					usageRecord.propertyCoCounts
-							.put(sg.getProperty(), usageRecord.propertyCoCounts
-									.get(sg.getProperty()) + 1);
-				}
+	/**
+	 * Counts the properties used on an item as co-occurring with the entity of
+	 * the given row of a co-occurrence matrix.
+	 *
+	 * @param propertyIds
+	 *            the rows of the properties used on the item
+	 * @param coCounts
+	 *            the matrix to count in
+	 * @param row
+	 *            the row of the entity in the matrix
+	 * @param thisPropertyId
+	 *            the row of a property that should not be counted, or
+	 *            -1 if all properties should be counted
+	 */
+	private void countCooccurringProperties(int[] propertyIds,
+			CooccurrenceMatrix coCounts, int row, int thisPropertyId) {
+		for (int propertyId : propertyIds) {
+			if (propertyId != thisPropertyId) {
+				coCounts.increment(row, propertyId);
 			}
 		}
 	}
@@ -552,7 +594,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 
 		printClassList(out, superClasses);
 
-		printRelatedProperties(out, classRecord);
+		printRelatedProperties(out, classRecord,
+				this.classPropertyCoCounts.getRow(classRecord.coCountRow));
 
 		out.println();
 	}
@@ -734,7 +777,8 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 				+ (propertyRecord.statementCount
 						+ propertyRecord.qualifierCount + propertyRecord.referenceCount));
 
-		printRelatedProperties(out, propertyRecord);
+		printRelatedProperties(out, propertyRecord,
+				this.propertyCoCounts.getRow(propertyRecord.coCountRow));
 
 		out.println();
 	}
@@ -790,28 +834,34 @@ public class ClassPropertyUsageAnalyzer implements EntityDocumentProcessor {
 	 *            the output to write to
 	 * @param usageRecord
 	 *            the data to write
+	 * @param coCounts
+	 *            the counts of properties used together with the entity of
+	 *            the record, or null if there are none
 	 */
-	private void printRelatedProperties(PrintStream out, UsageRecord usageRecord) {
+	private void printRelatedProperties(PrintStream out,
+			UsageRecord usageRecord, IntToIntMap coCounts) {
 
+		if (coCounts == null) {
+			coCounts = new IntToIntMap();
+		}
 		List<ImmutablePair<PropertyIdValue, Double>> list = new ArrayList<>(
-				usageRecord.propertyCoCounts.size());
-		for (Entry<PropertyIdValue, Integer> coCountEntry : usageRecord.propertyCoCounts
-				.entrySet()) {
-			double otherThisItemRate = (double) coCountEntry.getValue()
+				coCounts.size());
+		coCounts.forEach((propertyId, coCount) -> {
+			PropertyIdValue property = this.propertyIdValues.get(propertyId);
+			double otherThisItemRate = (double) coCount
 					/ usageRecord.itemCount;
 			double otherGlobalItemRate = (double) this.propertyRecords
-					.get(coCountEntry.getKey()).itemCount
+					.get(property).itemCount
 					/ this.countPropertyItems;
 			double otherThisItemRateStep = 1 / (1 + Math.exp(6 * (-2
 					* otherThisItemRate + 0.5)));
 			double otherInvGlobalItemRateStep = 1 / (1 + Math.exp(6 * (-2
 					* (1 - otherGlobalItemRate) + 0.5)));
 
-			list.add(new ImmutablePair<>(coCountEntry
-					.getKey(), otherThisItemRateStep
+			list.add(new ImmutablePair<>(property, otherThisItemRateStep
 					* otherInvGlobalItemRateStep * otherThisItemRate
 					/ otherGlobalItemRate));
-		}
+		});
 
 		list.sort((o1, o2) -> o2.getValue().compareTo(o1.getValue()));
 
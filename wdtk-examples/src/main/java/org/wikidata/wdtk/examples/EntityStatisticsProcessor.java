@@ -38,6 +38,7 @@ import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
 import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.TermedDocument;
+import org.wikidata.wdtk.storage.datastructures.LongToLongMap;
 
 /**
  * A simple example class that processes EntityDocuments to compute basic
@@ -74,10 +75,11 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 		long countStatements = 0;
 		long countReferencedStatements = 0;
 
-		// Maps to store property usage data for each property:
-		final HashMap<PropertyIdValue, Integer> propertyCountsMain = new HashMap<>();
-		final HashMap<PropertyIdValue, Integer> propertyCountsQualifier = new HashMap<>();
-		final HashMap<PropertyIdValue, Integer> propertyCountsReferences = new HashMap<>();
+		// Maps to store property usage data for each property, using the
+		// numeric part of the property id as a key:
+		final LongToLongMap propertyCountsMain = new LongToLongMap();
+		final LongToLongMap propertyCountsQualifier = new LongToLongMap();
+		final LongToLongMap propertyCountsReferences = new LongToLongMap();
 		final HashMap<String, Integer> labelCounts = new HashMap<>();
 		final HashMap<String, Integer> descriptionCounts = new HashMap<>();
 		final HashMap<String, Integer> aliasCounts = new HashMap<>();
@@ -268,15 +270,15 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 
 			out.println("Property id,in statements,in qualifiers,in references,total");
 
-			for (Entry<PropertyIdValue, Integer> entry : usageStatistics.propertyCountsMain
-					.entrySet()) {
-				int qCount = usageStatistics.propertyCountsQualifier.get(entry
-						.getKey());
-				int rCount = usageStatistics.propertyCountsReferences.get(entry
-						.getKey());
-				int total = entry.getValue() + qCount + rCount;
-				out.println(entry.getKey().getId() + "," + entry.getValue()
-						+ "," + qCount + "," + rCount + "," + total);
+			for (long property : usageStatistics.propertyCountsMain.keys()) {
+				long mCount = usageStatistics.propertyCountsMain.get(property);
+				long qCount = usageStatistics.propertyCountsQualifier
+						.get(property);
+				long rCount = usageStatistics.propertyCountsReferences
+						.get(property);
+				long total = mCount + qCount + rCount;
+				out.println("P" + property + "," + mCount + "," + qCount + ","
+						+ rCount + "," + total);
 			}
 		} catch (IOException e) {
 			e.printStackTrace();
@@ -367,9 +369,7 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 	 */
 	private void countPropertyMain(UsageStatistics usageStatistics,
 			PropertyIdValue property, int count) {
-		addPropertyCounters(usageStatistics, property);
-		usageStatistics.propertyCountsMain.put(property,
-				usageStatistics.propertyCountsMain.get(property) + count);
+		usageStatistics.propertyCountsMain.addTo(getNumericId(property), count);
 	}
 
 	/**
@@ -385,9 +385,9 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 	 */
 	private void countPropertyQualifier(UsageStatistics usageStatistics,
 			PropertyIdValue property, int count) {
-		addPropertyCounters(usageStatistics, property);
-		usageStatistics.propertyCountsQualifier.put(property,
-				usageStatistics.propertyCountsQualifier.get(property) + count);
+		long numericId = getNumericId(property);
+		addPropertyCounters(usageStatistics, numericId);
+		usageStatistics.propertyCountsQualifier.addTo(numericId, count);
 	}
 
 	/**
@@ -402,26 +402,36 @@ class EntityStatisticsProcessor implements EntityDocumentProcessor {
 	 */
 	private void countPropertyReference(UsageStatistics usageStatistics,
 			PropertyIdValue property, int count) {
-		addPropertyCounters(usageStatistics, property);
-		usageStatistics.propertyCountsReferences.put(property,
-				usageStatistics.propertyCountsReferences.get(property) + count);
+		long numericId = getNumericId(property);
+		addPropertyCounters(usageStatistics, numericId);
+		usageStatistics.propertyCountsReferences.addTo(numericId, count);
 	}
 
 	/**
-	 * Initializes the counters for a property to zero if not done yet.
+	 * Makes sure that a property is included in the results even if it is
+	 * never used as the main property of a statement. The results list all
+	 * properties that have a counter for main uses.
 	 *
 	 * @param usageStatistics
 	 *            statistics object to initialize
-	 * @param property
-	 *            the property to count
+	 * @param numericId
+	 *            the numeric id of the property to count
 	 */
 	private void addPropertyCounters(UsageStatistics usageStatistics,
-			PropertyIdValue property) {
-		if (!usageStatistics.propertyCountsMain.containsKey(property)) {
-			usageStatistics.propertyCountsMain.put(property, 0);
-			usageStatistics.propertyCountsQualifier.put(property, 0);
-			usageStatistics.propertyCountsReferences.put(property, 0);
-		}
+			long numericId) {
+		usageStatistics.propertyCountsMain.addTo(numericId, 0);
+	}
+
+	/**
+	 * Returns the numeric part of the id of a property, e.g., 31 for "P31".
+	 * This is used as a key in the maps of property counters.
+	 *
+	 * @param property
+	 *            the property
+	 * @return the numeric id
+	 */
+	private static long getNumericId(PropertyIdValue property) {
+		return Long.parseLong(property.getId().substring(1));
 	}
 
 	/**
@@ -32,6 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.interfaces.*;
 import org.wikidata.wdtk.rdf.values.AnyValueConverter;
+import org.wikidata.wdtk.wikibaseapi.FastRandomGuidGenerator;
+import org.wikidata.wdtk.wikibaseapi.GuidGenerator;
 
 /**
  * This class provides functions to convert objects of wdtk-datamodel in a rdf
@@ -51,6 +53,7 @@ abstract public class AbstractRdfConverter {
 	final ReferenceRdfConverter referenceRdfConverter;
 	final PropertyRegister propertyRegister;
 	final Sites sites;
+	GuidGenerator guidGenerator = new FastRandomGuidGenerator();
 
 	public enum TermKind {
 		LABEL,
@@ -73,6 +76,19 @@ abstract public class AbstractRdfConverter {
 				this.snakRdfConverter, this.propertyRegister.siteUri);
 	}
 
+	/**
+	 * Sets the generator that is used to create ids for statements that do not
+	 * have an id. By default, random ids are used. A
+	 * {@link org.wikidata.wdtk.wikibaseapi.DeterministicGuidGenerator} makes
+	 * the output reproducible.
+	 *
+	 * @param guidGenerator
+	 *            the generator to use
+	 */
+	public void setGuidGenerator(GuidGenerator guidGenerator) {
+		this.guidGenerator = guidGenerator;
+	}
+
 	/**
 	 * Writes OWL declarations for all basic vocabulary elements used in the
 	 * dump.
@@ -283,7 +299,8 @@ abstract public class AbstractRdfConverter {
 	public void writeFullStatement(Statement statement, boolean best) throws RDFHandlerException {
 		final Resource subject = this.rdfWriter.getUri(statement.getSubject().getIri());
 
-		String statementUri = Vocabulary.getStatementUri(statement);
+		String statementUri = Vocabulary.getStatementUri(statement,
+				this.guidGenerator);
 		Resource statementResource = this.rdfWriter.getUri(statementUri);
 		final IRI propertyIri = this.rdfWriter.getUri(
 				Vocabulary.getPropertyUri(statement.getMainSnak().getPropertyId(), PropertyContext.STATEMENT));
@@ -32,6 +32,10 @@ import org.wikidata.wdtk.datamodel.interfaces.EntityDocumentDumpProcessor;
 import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 import org.wikidata.wdtk.datamodel.interfaces.Sites;
+import org.wikidata.wdtk.util.metrics.Histogram;
+import org.wikidata.wdtk.util.metrics.Meter;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
+import org.wikidata.wdtk.wikibaseapi.GuidGenerator;
 
 /**
  * This class implements {@link EntityDocumentDumpProcessor} to provide a RDF
@@ -44,6 +48,15 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 
 	static final Logger logger = LoggerFactory.getLogger(RdfSerializer.class);
 
+	static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+	/** Documents that have been serialized. */
+	static final Meter documentMeter = metrics.meter("rdf.documents");
+	/** Triples that have been written. */
+	static final Meter tripleMeter = metrics.meter("rdf.triples");
+	/** Time for serializing one document, in nanoseconds. */
+	static final Histogram serializationTimes = metrics
+			.histogram("rdf.serialization.time");
+
 	public static final int TASK_STATEMENTS = 0x00000001;
 	public static final int TASK_SITELINKS = 0x00000002;
 	public static final int TASK_DATATYPES = 0x00000004;
@@ -95,6 +108,18 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 		this.rdfConverter.setTasks(tasks);
 	}
 
+	/**
+	 * Sets the generator that is used to create ids for statements that do not
+	 * have an id.
+	 *
+	 * @see AbstractRdfConverter#setGuidGenerator(GuidGenerator)
+	 * @param guidGenerator
+	 *            the generator to use
+	 */
+	public void setGuidGenerator(GuidGenerator guidGenerator) {
+		this.rdfConverter.setGuidGenerator(guidGenerator);
+	}
+
 	/**
 	 * Returns the tasks that should be performed during export. The value
 	 * should be a combination of flags such as
@@ -128,20 +153,40 @@ public class RdfSerializer implements EntityDocumentDumpProcessor {
 
 	@Override
 	public void processItemDocument(ItemDocument itemDocument) {
+		long startTime = metrics.startTime();
+		long tripleCount = getTripleCount();
 		try {
 			this.rdfConverter.writeItemDocument(itemDocument);
 		} catch (RDFHandlerException e) { // we cannot recover here
 			throw new RuntimeException(e.toString(), e);
 		}
+		recordDocument(startTime, tripleCount);
 	}
 
 	@Override
 	public void processPropertyDocument(PropertyDocument propertyDocument) {
+		long startTime = metrics.startTime();
+		long tripleCount = getTripleCount();
 		try {
 			this.rdfConverter.writePropertyDocument(propertyDocument);
 		} catch (RDFHandlerException e) { // we cannot recover here
 			throw new RuntimeException(e.toString(), e);
 		}
+		recordDocument(startTime, tripleCount);
+	}
+
+	/**
+	 * Records the metrics for a document that has been serialized.
+	 *
+	 * @param startTime
+	 *            the start time of the serialization
+	 * @param previousTripleCount
+	 *            the number of triples before the document was serialized
+	 */
+	void recordDocument(long startTime, long previousTripleCount) {
+		serializationTimes.recordSince(startTime);
+		documentMeter.mark();
+		tripleMeter.mark(getTripleCount() - previousTripleCount);
 	}
 
 	@Override
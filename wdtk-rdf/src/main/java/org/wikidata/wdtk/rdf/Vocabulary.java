@@ -28,7 +28,7 @@ import java.util.*;
 
 import org.wikidata.wdtk.datamodel.interfaces.*;
 import org.wikidata.wdtk.wikibaseapi.GuidGenerator;
-import org.wikidata.wdtk.wikibaseapi.RandomGuidGenerator;
+import org.wikidata.wdtk.wikibaseapi.FastRandomGuidGenerator;
 
 /**
  * This class contains static methods and constants that define the various OWL
@@ -49,7 +49,7 @@ public class Vocabulary {
 		}
 	}
 
-	private final static GuidGenerator GUID_GENERATOR = new RandomGuidGenerator();
+	private final static GuidGenerator GUID_GENERATOR = new FastRandomGuidGenerator();
 
 	// Prefixes
 	public static final String PREFIX_WIKIDATA_STATEMENT = "http://www.wikidata.org/entity/statement/";
@@ -493,9 +493,25 @@ public class Vocabulary {
 	 * @return the URI
 	 */
 	public static String getStatementUri(Statement statement) {
+		return getStatementUri(statement, GUID_GENERATOR);
+	}
+
+	/**
+	 * Get the URI for the given statement, using the given generator to
+	 * create an id if the statement does not have one.
+	 *
+	 * @param statement
+	 *            the statement for which to create a URI
+	 * @param guidGenerator
+	 *            the generator for ids of statements without id
+	 * @return the URI
+	 */
+	public static String getStatementUri(Statement statement,
+			GuidGenerator guidGenerator) {
 		String statementId = statement.getStatementId();
 		if (statementId == null || statementId.isEmpty()) {
-			statementId = GUID_GENERATOR.freshStatementId(statement.getSubject().getId());
+			statementId = guidGenerator.freshStatementId(
+					statement.getSubject().getId(), statement);
 		}
 		return PREFIX_WIKIDATA_STATEMENT + statementId.replaceFirst("\\$", "-");
 	}
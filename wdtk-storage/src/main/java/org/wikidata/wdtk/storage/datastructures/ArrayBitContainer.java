@@ -0,0 +1,243 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link BitContainer} that stores its positions in a sorted array of
+ * <b>char</b>, which takes two bytes per position.
+ */
+class ArrayBitContainer extends BitContainer {
+
+	char[] values;
+	int cardinality;
+
+	/**
+	 * Constructs an empty container.
+	 */
+	ArrayBitContainer() {
+		this(new char[4], 0);
+	}
+
+	/**
+	 * Constructs a container on the given sorted positions.
+	 *
+	 * @param values
+	 *            array whose first <i>cardinality</i> elements are the sorted
+	 *            positions
+	 * @param cardinality
+	 *            number of positions
+	 */
+	ArrayBitContainer(char[] values, int cardinality) {
+		this.values = values;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int getCardinality() {
+		return this.cardinality;
+	}
+
+	@Override
+	boolean contains(int value) {
+		return Arrays.binarySearch(this.values, 0, this.cardinality,
+				(char) value) >= 0;
+	}
+
+	@Override
+	BitContainer add(int value) {
+		int index = Arrays.binarySearch(this.values, 0, this.cardinality,
+				(char) value);
+		if (index >= 0) {
+			return this;
+		}
+		if (this.cardinality == MAX_ARRAY_SIZE) {
+			long[] words = toWords();
+			words[value >>> BitVectorImpl.LG_WORD_SIZE] |= 1L << value;
+			return new BitmapBitContainer(words, this.cardinality + 1);
+		}
+		index = -index - 1;
+		if (this.cardinality == this.values.length) {
+			this.values = Arrays.copyOf(this.values,
+					Math.min(MAX_ARRAY_SIZE, Math.max(4, 2 * this.values.length)));
+		}
+		System.arraycopy(this.values, index, this.values, index + 1,
+				this.cardinality - index);
+		this.values[index] = (char) value;
+		this.cardinality++;
+		return this;
+	}
+
+	@Override
+	BitContainer remove(int value) {
+		int index = Arrays.binarySearch(this.values, 0, this.cardinality,
+				(char) value);
+		if (index >= 0) {
+			System.arraycopy(this.values, index + 1, this.values, index,
+					this.cardinality - index - 1);
+			this.cardinality--;
+		}
+		return this;
+	}
+
+	@Override
+	int nextSetBit(int from) {
+		int index = Arrays.binarySearch(this.values, 0, this.cardinality,
+				(char) from);
+		if (index < 0) {
+			index = -index - 1;
+		}
+		return index < this.cardinality ? this.values[index] : -1;
+	}
+
+	@Override
+	void orInto(long[] words) {
+		for (int i = 0; i < this.cardinality; i++) {
+			char value = this.values[i];
+			words[value >>> BitVectorImpl.LG_WORD_SIZE] |= 1L << value;
+		}
+	}
+
+	@Override
+	int getRunCount() {
+		int runCount = 0;
+		for (int i = 0; i < this.cardinality; i++) {
+			if (i == 0 || this.values[i] != this.values[i - 1] + 1) {
+				runCount++;
+			}
+		}
+		return runCount;
+	}
+
+	@Override
+	BitContainer copy() {
+		return new ArrayBitContainer(Arrays.copyOf(this.values,
+				this.cardinality), this.cardinality);
+	}
+
+	@Override
+	BitContainer and(BitContainer other) {
+		char[] result = new char[this.cardinality];
+		int count = 0;
+		for (int i = 0; i < this.cardinality; i++) {
+			if (other.contains(this.values[i])) {
+				result[count++] = this.values[i];
+			}
+		}
+		return count == 0 ? null : new ArrayBitContainer(result, count);
+	}
+
+	@Override
+	BitContainer or(BitContainer other) {
+		if (!(other instanceof ArrayBitContainer)
+				|| this.cardinality + other.getCardinality() > MAX_ARRAY_SIZE) {
+			return super.or(other);
+		}
+		ArrayBitContainer otherArray = (ArrayBitContainer) other;
+		char[] result = new char[this.cardinality + otherArray.cardinality];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < this.cardinality || j < otherArray.cardinality) {
+			if (j == otherArray.cardinality
+					|| (i < this.cardinality && this.values[i] < otherArray.values[j])) {
+				result[count++] = this.values[i++];
+			} else if (i == this.cardinality
+					|| otherArray.values[j] < this.values[i]) {
+				result[count++] = otherArray.values[j++];
+			} else {
+				result[count++] = this.values[i++];
+				j++;
+			}
+		}
+		return count == 0 ? null : new ArrayBitContainer(result, count);
+	}
+
+	@Override
+	BitContainer andNot(BitContainer other) {
+		char[] result = new char[this.cardinality];
+		int count = 0;
+		for (int i = 0; i < this.cardinality; i++) {
+			if (!other.contains(this.values[i])) {
+				result[count++] = this.values[i];
+			}
+		}
+		return count == 0 ? null : new ArrayBitContainer(result, count);
+	}
+
+	@Override
+	byte getType() {
+		return TYPE_ARRAY;
+	}
+
+	@Override
+	void writeContents(DataOutput output) throws IOException {
+		output.writeShort(this.cardinality - 1);
+		for (int i = 0; i < this.cardinality; i++) {
+			output.writeChar(this.values[i]);
+		}
+	}
+
+	/**
+	 * Reads the contents that were written by
+	 * {@link #writeContents(DataOutput)}.
+	 */
+	static ArrayBitContainer readContents(DataInput input) throws IOException {
+		int cardinality = input.readUnsignedShort() + 1;
+		if (cardinality > MAX_ARRAY_SIZE) {
+			throw new IOException("Invalid array container size "
+					+ cardinality + ".");
+		}
+		char[] values = new char[cardinality];
+		for (int i = 0; i < cardinality; i++) {
+			values[i] = input.readChar();
+		}
+		return new ArrayBitContainer(values, cardinality);
+	}
+
+	/**
+	 * Returns an array container with the positions of the given bitmap.
+	 *
+	 * @param words
+	 *            bitmap of {@link BitContainer#WORD_COUNT} words
+	 * @param cardinality
+	 *            number of bits set in the bitmap
+	 * @return the container
+	 */
+	static ArrayBitContainer fromWords(long[] words, int cardinality) {
+		char[] values = new char[cardinality];
+		int count = 0;
+		for (int i = 0; i < words.length; i++) {
+			long word = words[i];
+			while (word != 0) {
+				values[count++] = (char) ((i << BitVectorImpl.LG_WORD_SIZE) + Long
+						.numberOfTrailingZeros(word));
+				word &= word - 1;
+			}
+		}
+		return new ArrayBitContainer(values, cardinality);
+	}
+
+}
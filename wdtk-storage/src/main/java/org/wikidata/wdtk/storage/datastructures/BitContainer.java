@@ -0,0 +1,307 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Set of the low 16 bits of the positions in one chunk of a
+ * {@link CompressedBitVector}. There are three representations, and each
+ * chunk uses the one that needs the least memory for its contents:
+ * <ul>
+ * <li>{@link ArrayBitContainer}: sorted array of positions, for chunks with at
+ * most {@link #MAX_ARRAY_SIZE} positions,</li>
+ * <li>{@link BitmapBitContainer}: plain bitmap of 2<sup>16</sup> bits, for
+ * chunks with more positions,</li>
+ * <li>{@link RunBitContainer}: list of ranges of consecutive positions, for
+ * chunks with long ranges; this representation is only chosen by
+ * {@link #optimize()}.</li>
+ * </ul>
+ * Operations that change a container return the container that holds the
+ * result, which may be a new one if the representation had to change.
+ * Operations that combine two containers never modify either of them.
+ *
+ * @see CompressedBitVector
+ */
+abstract class BitContainer {
+
+	/**
+	 * Number of positions in each container.
+	 */
+	static final int CONTAINER_SIZE = 0x10000;
+
+	/**
+	 * Number of words in a bitmap for a whole container.
+	 */
+	static final int WORD_COUNT = CONTAINER_SIZE / BitVectorImpl.WORD_SIZE;
+
+	/**
+	 * Maximal number of positions in an array container. Above this number,
+	 * an array takes more memory than a bitmap.
+	 */
+	static final int MAX_ARRAY_SIZE = 0x1000;
+
+	static final byte TYPE_ARRAY = 0;
+	static final byte TYPE_BITMAP = 1;
+	static final byte TYPE_RUN = 2;
+
+	/**
+	 * Returns the number of positions in this container.
+	 *
+	 * @return number of positions
+	 */
+	abstract int getCardinality();
+
+	/**
+	 * Returns true if the given position is in this container.
+	 *
+	 * @param value
+	 *            position between 0 and 0xFFFF
+	 * @return true if the position is in this container
+	 */
+	abstract boolean contains(int value);
+
+	/**
+	 * Adds the given position to this container.
+	 *
+	 * @param value
+	 *            position between 0 and 0xFFFF
+	 * @return the container with the position
+	 */
+	abstract BitContainer add(int value);
+
+	/**
+	 * Removes the given position from this container.
+	 *
+	 * @param value
+	 *            position between 0 and 0xFFFF
+	 * @return the container without the position
+	 */
+	abstract BitContainer remove(int value);
+
+	/**
+	 * Returns the smallest position in this container that is greater than or
+	 * equal to the given one.
+	 *
+	 * @param from
+	 *            position to start from
+	 * @return the next position, or -1 if there is none
+	 */
+	abstract int nextSetBit(int from);
+
+	/**
+	 * Sets the bits of all positions of this container in the given bitmap.
+	 *
+	 * @param words
+	 *            bitmap of {@link #WORD_COUNT} words
+	 */
+	abstract void orInto(long[] words);
+
+	/**
+	 * Returns the number of ranges of consecutive positions in this container.
+	 *
+	 * @return number of runs
+	 */
+	abstract int getRunCount();
+
+	/**
+	 * Returns a copy of this container that can be modified independently.
+	 *
+	 * @return the copy
+	 */
+	abstract BitContainer copy();
+
+	/**
+	 * Writes the contents of this container, without its type.
+	 *
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	abstract void writeContents(DataOutput output) throws IOException;
+
+	/**
+	 * Returns the type that is written before the contents of this container.
+	 *
+	 * @return one of the <code>TYPE_...</code> constants
+	 */
+	abstract byte getType();
+
+	/**
+	 * Returns the intersection of this container and the given one.
+	 *
+	 * @param other
+	 *            the other container
+	 * @return a container with the positions that are in both containers,
+	 *         or null if there are none
+	 */
+	BitContainer and(BitContainer other) {
+		if (other instanceof ArrayBitContainer) {
+			return other.and(this);
+		}
+		long[] words = toWords();
+		long[] otherWords = getWordsForReading(other);
+		for (int i = 0; i < WORD_COUNT; i++) {
+			words[i] &= otherWords[i];
+		}
+		return fromWords(words);
+	}
+
+	/**
+	 * Returns the union of this container and the given one.
+	 *
+	 * @param other
+	 *            the other container
+	 * @return a container with the positions that are in any of the
+	 *         containers, or null if there are none
+	 */
+	BitContainer or(BitContainer other) {
+		long[] words = toWords();
+		other.orInto(words);
+		return fromWords(words);
+	}
+
+	/**
+	 * Returns the difference of this container and the given one.
+	 *
+	 * @param other
+	 *            the other container
+	 * @return a container with the positions of this container that are not
+	 *         in the other container, or null if there are none
+	 */
+	BitContainer andNot(BitContainer other) {
+		long[] words = toWords();
+		long[] otherWords = getWordsForReading(other);
+		for (int i = 0; i < WORD_COUNT; i++) {
+			words[i] &= ~otherWords[i];
+		}
+		return fromWords(words);
+	}
+
+	/**
+	 * Returns the representation of this container that needs the least
+	 * memory.
+	 *
+	 * @return this container or an equal container that is smaller
+	 */
+	BitContainer optimize() {
+		int cardinality = getCardinality();
+		int runCount = getRunCount();
+		long arrayBytes = cardinality <= MAX_ARRAY_SIZE ? 2L * cardinality
+				: Long.MAX_VALUE;
+		long bitmapBytes = 8L * WORD_COUNT;
+		long runBytes = 4L * runCount;
+		if (runBytes < arrayBytes && runBytes < bitmapBytes) {
+			return this instanceof RunBitContainer ? this : RunBitContainer
+					.fromWords(toWords(), runCount);
+		}
+		if (arrayBytes <= bitmapBytes) {
+			return this instanceof ArrayBitContainer ? this
+					: ArrayBitContainer.fromWords(toWords(), cardinality);
+		}
+		return this instanceof BitmapBitContainer ? this
+				: new BitmapBitContainer(toWords(), cardinality);
+	}
+
+	/**
+	 * Returns a new bitmap with the positions of this container.
+	 *
+	 * @return bitmap of {@link #WORD_COUNT} words
+	 */
+	long[] toWords() {
+		long[] words = new long[WORD_COUNT];
+		orInto(words);
+		return words;
+	}
+
+	/**
+	 * Writes this container together with its type.
+	 *
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	void write(DataOutput output) throws IOException {
+		output.writeByte(getType());
+		writeContents(output);
+	}
+
+	/**
+	 * Reads a container that was written by {@link #write(DataOutput)}.
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the container
+	 * @throws IOException
+	 *             if the data could not be read or is invalid
+	 */
+	static BitContainer read(DataInput input) throws IOException {
+		byte type = input.readByte();
+		switch (type) {
+		case TYPE_ARRAY:
+			return ArrayBitContainer.readContents(input);
+		case TYPE_BITMAP:
+			return BitmapBitContainer.readContents(input);
+		case TYPE_RUN:
+			return RunBitContainer.readContents(input);
+		default:
+			throw new IOException("Unknown container type " + type + ".");
+		}
+	}
+
+	/**
+	 * Returns the smallest container for the given bitmap, which must not be
+	 * used by the caller afterwards. Run containers are not considered.
+	 *
+	 * @param words
+	 *            bitmap of {@link #WORD_COUNT} words
+	 * @return an array or bitmap container, or null if the bitmap is empty
+	 */
+	static BitContainer fromWords(long[] words) {
+		int cardinality = 0;
+		for (long word : words) {
+			cardinality += Long.bitCount(word);
+		}
+		if (cardinality == 0) {
+			return null;
+		} else if (cardinality <= MAX_ARRAY_SIZE) {
+			return ArrayBitContainer.fromWords(words, cardinality);
+		} else {
+			return new BitmapBitContainer(words, cardinality);
+		}
+	}
+
+	/**
+	 * Returns a bitmap of the given container that must not be modified. This
+	 * avoids a copy if the container is a bitmap already.
+	 */
+	static long[] getWordsForReading(BitContainer container) {
+		if (container instanceof BitmapBitContainer) {
+			return ((BitmapBitContainer) container).words;
+		}
+		return container.toWords();
+	}
+
+}
@@ -0,0 +1,197 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * {@link BitContainer} that stores its positions in a bitmap of
+ * {@link BitContainer#WORD_COUNT} words, which always takes 8 KiB.
+ */
+class BitmapBitContainer extends BitContainer {
+
+	final long[] words;
+	int cardinality;
+
+	/**
+	 * Constructs a container on the given bitmap.
+	 *
+	 * @param words
+	 *            bitmap of {@link BitContainer#WORD_COUNT} words
+	 * @param cardinality
+	 *            number of bits set in the bitmap
+	 */
+	BitmapBitContainer(long[] words, int cardinality) {
+		this.words = words;
+		this.cardinality = cardinality;
+	}
+
+	@Override
+	int getCardinality() {
+		return this.cardinality;
+	}
+
+	@Override
+	boolean contains(int value) {
+		return (this.words[value >>> BitVectorImpl.LG_WORD_SIZE] & (1L << value)) != 0;
+	}
+
+	@Override
+	BitContainer add(int value) {
+		int index = value >>> BitVectorImpl.LG_WORD_SIZE;
+		long word = this.words[index];
+		this.words[index] = word | (1L << value);
+		if (word != this.words[index]) {
+			this.cardinality++;
+		}
+		return this;
+	}
+
+	@Override
+	BitContainer remove(int value) {
+		int index = value >>> BitVectorImpl.LG_WORD_SIZE;
+		long word = this.words[index];
+		this.words[index] = word & ~(1L << value);
+		if (word != this.words[index]) {
+			this.cardinality--;
+			if (this.cardinality <= MAX_ARRAY_SIZE) {
+				return ArrayBitContainer.fromWords(this.words, this.cardinality);
+			}
+		}
+		return this;
+	}
+
+	@Override
+	int nextSetBit(int from) {
+		return nextSetBit(this.words, from);
+	}
+
+	@Override
+	void orInto(long[] words) {
+		for (int i = 0; i < WORD_COUNT; i++) {
+			words[i] |= this.words[i];
+		}
+	}
+
+	@Override
+	long[] toWords() {
+		return this.words.clone();
+	}
+
+	@Override
+	int getRunCount() {
+		int runCount = 0;
+		long previousWord = 0;
+		for (long word : this.words) {
+			// bits that are set while the bit before them is not
+			runCount += Long.bitCount(word & ~((word << 1) | (previousWord >>> 63)));
+			previousWord = word;
+		}
+		return runCount;
+	}
+
+	@Override
+	BitContainer copy() {
+		return new BitmapBitContainer(this.words.clone(), this.cardinality);
+	}
+
+	@Override
+	byte getType() {
+		return TYPE_BITMAP;
+	}
+
+	@Override
+	void writeContents(DataOutput output) throws IOException {
+		for (long word : this.words) {
+			output.writeLong(word);
+		}
+	}
+
+	/**
+	 * Reads the contents that were written by
+	 * {@link #writeContents(DataOutput)}.
+	 */
+	static BitmapBitContainer readContents(DataInput input) throws IOException {
+		long[] words = new long[WORD_COUNT];
+		int cardinality = 0;
+		for (int i = 0; i < WORD_COUNT; i++) {
+			words[i] = input.readLong();
+			cardinality += Long.bitCount(words[i]);
+		}
+		return new BitmapBitContainer(words, cardinality);
+	}
+
+	/**
+	 * Returns the first set bit at or after the given position of a bitmap.
+	 *
+	 * @param words
+	 *            the bitmap
+	 * @param from
+	 *            position to start from
+	 * @return the position of the bit, or -1 if there is none
+	 */
+	static int nextSetBit(long[] words, int from) {
+		int index = from >>> BitVectorImpl.LG_WORD_SIZE;
+		if (index >= words.length) {
+			return -1;
+		}
+		long word = words[index] & (-1L << from);
+		while (word == 0) {
+			index++;
+			if (index == words.length) {
+				return -1;
+			}
+			word = words[index];
+		}
+		return (index << BitVectorImpl.LG_WORD_SIZE)
+				+ Long.numberOfTrailingZeros(word);
+	}
+
+	/**
+	 * Returns the first unset bit at or after the given position of a bitmap.
+	 *
+	 * @param words
+	 *            the bitmap
+	 * @param from
+	 *            position to start from
+	 * @return the position of the bit, which is the size of the bitmap if all
+	 *         bits from the given position on are set
+	 */
+	static int nextClearBit(long[] words, int from) {
+		int index = from >>> BitVectorImpl.LG_WORD_SIZE;
+		if (index >= words.length) {
+			return words.length << BitVectorImpl.LG_WORD_SIZE;
+		}
+		long word = ~words[index] & (-1L << from);
+		while (word == 0) {
+			index++;
+			if (index == words.length) {
+				return words.length << BitVectorImpl.LG_WORD_SIZE;
+			}
+			word = ~words[index];
+		}
+		return (index << BitVectorImpl.LG_WORD_SIZE)
+				+ Long.numberOfTrailingZeros(word);
+	}
+
+}
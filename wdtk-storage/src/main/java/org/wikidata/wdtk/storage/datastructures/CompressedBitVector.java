@@ -0,0 +1,541 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Implementation of {@link BitVector} for sparse bit vectors, such as sets of
+ * entity or revision ids. The positions are split into chunks of
+ * 2<sup>16</sup> bits, and only chunks that contain set bits take memory. Each
+ * chunk is stored as a {@link BitContainer} in the representation that suits
+ * its contents: a sorted array of positions for sparse chunks, a bitmap for
+ * dense chunks, and, after {@link #optimize()}, a list of ranges for chunks
+ * with long runs of set bits. Like {@link BitVectorImpl}, this bit vector is
+ * <i>flexible</i>: bits can be set at any non-negative position, and positions
+ * outside the bit vector contain <code>false</code>.
+ * <p>
+ * Besides the methods of {@link BitVector}, this class offers the set
+ * operations {@link #and(CompressedBitVector)},
+ * {@link #or(CompressedBitVector)} and {@link #andNot(CompressedBitVector)},
+ * which work on whole chunks, an iterator over the positions of set bits that
+ * does not box them, and methods to write and read bit vectors so that sets of
+ * ids can be stored and shared.
+ * <p>
+ * This class is not thread-safe.
+ *
+ */
+public class CompressedBitVector implements BitVector, Iterable<Boolean> {
+
+	/**
+	 * Marker at the start of serialized bit vectors.
+	 */
+	static final int MAGIC = 0x57424356;
+
+	static final int LG_CONTAINER_SIZE = 16;
+
+	static final int CONTAINER_MASK = BitContainer.CONTAINER_SIZE - 1;
+
+	/**
+	 * Keys of the chunks that have set bits, in ascending order. The key of a
+	 * chunk is the position of its first bit divided by the size of a chunk.
+	 */
+	long[] keys;
+	BitContainer[] containers;
+	int containerCount = 0;
+	long size = 0;
+
+	/**
+	 * Index of the chunk that was used last, as a hint for the next access.
+	 */
+	int lastIndex = 0;
+
+	/**
+	 * Constructor of a bit vector of size 0.
+	 */
+	public CompressedBitVector() {
+		this.keys = new long[4];
+		this.containers = new BitContainer[4];
+	}
+
+	/**
+	 * Constructor of a bit vector of size <i>initialSize</i>. The bit vector
+	 * contains <code>false</code> at all indexes.
+	 *
+	 * @param initialSize
+	 *            initial size of this bit vector
+	 */
+	public CompressedBitVector(long initialSize) {
+		this();
+		if (initialSize < 0) {
+			throw new IllegalArgumentException("Wrong bit vector size '"
+					+ initialSize + "'. Bit vector size must be non-negative.");
+		}
+		this.size = initialSize;
+	}
+
+	/**
+	 * Copy constructor of a bit vector.
+	 *
+	 * @param bitVector
+	 *            bit vector
+	 */
+	public CompressedBitVector(BitVector bitVector) {
+		this();
+		Validate.notNull(bitVector, "Bit vector cannot be null.");
+		if (bitVector instanceof CompressedBitVector) {
+			CompressedBitVector other = (CompressedBitVector) bitVector;
+			this.keys = Arrays.copyOf(other.keys, other.containerCount);
+			this.containers = new BitContainer[other.containerCount];
+			for (int i = 0; i < other.containerCount; i++) {
+				this.containers[i] = other.containers[i].copy();
+			}
+			this.containerCount = other.containerCount;
+		} else if (bitVector instanceof BitVectorImpl) {
+			long[] words = ((BitVectorImpl) bitVector).arrayOfBits;
+			for (int i = 0; i < words.length; i++) {
+				long word = words[i];
+				while (word != 0) {
+					setBit(((long) i << BitVectorImpl.LG_WORD_SIZE)
+							+ Long.numberOfTrailingZeros(word), true);
+					word &= word - 1;
+				}
+			}
+		} else {
+			for (long index = 0; index < bitVector.size(); index++) {
+				if (bitVector.getBit(index)) {
+					setBit(index, true);
+				}
+			}
+		}
+		this.size = bitVector.size();
+	}
+
+	/**
+	 * Reads a bit vector that was written by {@link #write(DataOutput)}.
+	 *
+	 * @param input
+	 *            the input to read from
+	 * @return the bit vector
+	 * @throws IOException
+	 *             if the data could not be read or is not a bit vector
+	 */
+	public static CompressedBitVector read(DataInput input) throws IOException {
+		if (input.readInt() != MAGIC) {
+			throw new IOException("The data is not a compressed bit vector.");
+		}
+		CompressedBitVector result = new CompressedBitVector(input.readLong());
+		int containerCount = input.readInt();
+		if (containerCount < 0) {
+			throw new IOException("Invalid number of containers.");
+		}
+		result.keys = new long[Math.max(4, containerCount)];
+		result.containers = new BitContainer[result.keys.length];
+		for (int i = 0; i < containerCount; i++) {
+			result.keys[i] = input.readLong();
+			if (i > 0 && result.keys[i] <= result.keys[i - 1]) {
+				throw new IOException("Containers are not sorted.");
+			}
+			result.containers[i] = BitContainer.read(input);
+		}
+		result.containerCount = containerCount;
+		return result;
+	}
+
+	/**
+	 * Writes this bit vector in a compact binary format that can be read with
+	 * {@link #read(DataInput)}. Calling {@link #optimize()} before makes the
+	 * output smaller if there are long runs of set bits.
+	 *
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void write(DataOutput output) throws IOException {
+		output.writeInt(MAGIC);
+		output.writeLong(this.size);
+		output.writeInt(this.containerCount);
+		for (int i = 0; i < this.containerCount; i++) {
+			output.writeLong(this.keys[i]);
+			this.containers[i].write(output);
+		}
+	}
+
+	@Override
+	public boolean addBit(boolean bit) {
+		setBit(this.size, bit);
+		return true;
+	}
+
+	@Override
+	public boolean getBit(long position) {
+		assertNonNegativePosition(position);
+		if (position >= this.size) {
+			return false;
+		}
+		int index = findContainer(position >>> LG_CONTAINER_SIZE);
+		return index >= 0
+				&& this.containers[index].contains((int) (position & CONTAINER_MASK));
+	}
+
+	@Override
+	public void setBit(long position, boolean bit) {
+		assertNonNegativePosition(position);
+		if (position >= this.size) {
+			this.size = position + 1;
+		}
+		long key = position >>> LG_CONTAINER_SIZE;
+		int value = (int) (position & CONTAINER_MASK);
+		int index = findContainer(key);
+		if (bit) {
+			if (index < 0) {
+				index = -index - 1;
+				insertContainer(index, key, new ArrayBitContainer());
+			}
+			this.containers[index] = this.containers[index].add(value);
+		} else if (index >= 0) {
+			BitContainer container = this.containers[index].remove(value);
+			if (container.getCardinality() == 0) {
+				removeContainer(index);
+			} else {
+				this.containers[index] = container;
+			}
+		}
+	}
+
+	@Override
+	public long size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns the number of bits that are set.
+	 *
+	 * @return number of <code>true</code> values
+	 */
+	public long getCardinality() {
+		long result = 0;
+		for (int i = 0; i < this.containerCount; i++) {
+			result += this.containers[i].getCardinality();
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the first position at or after the given one where the bit is
+	 * set.
+	 *
+	 * @param from
+	 *            position to start from
+	 * @return the position, or -1 if no bit is set from this position on
+	 */
+	public long nextSetBit(long from) {
+		assertNonNegativePosition(from);
+		int index = findContainer(from >>> LG_CONTAINER_SIZE);
+		if (index >= 0) {
+			int value = this.containers[index]
+					.nextSetBit((int) (from & CONTAINER_MASK));
+			if (value >= 0) {
+				return (this.keys[index] << LG_CONTAINER_SIZE) + value;
+			}
+			index++;
+		} else {
+			index = -index - 1;
+		}
+		if (index < this.containerCount) {
+			return (this.keys[index] << LG_CONTAINER_SIZE)
+					+ this.containers[index].nextSetBit(0);
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns an iterator over the positions of all bits that are set, in
+	 * ascending order. The bit vector must not be modified while the iterator
+	 * is used.
+	 *
+	 * @return iterator of positions
+	 */
+	public PrimitiveIterator.OfLong positionIterator() {
+		return new PrimitiveIterator.OfLong() {
+
+			long next = nextSetBit(0);
+
+			@Override
+			public boolean hasNext() {
+				return this.next >= 0;
+			}
+
+			@Override
+			public long nextLong() {
+				if (this.next < 0) {
+					throw new NoSuchElementException();
+				}
+				long result = this.next;
+				this.next = nextSetBit(result + 1);
+				return result;
+			}
+		};
+	}
+
+	@Override
+	public Iterator<Boolean> iterator() {
+		return new BitVectorIterator(this);
+	}
+
+	/**
+	 * Returns a new bit vector with the bits that are set in this and the
+	 * given bit vector. Its size is the smaller one of the two sizes.
+	 *
+	 * @param other
+	 *            the other bit vector
+	 * @return the intersection of the two bit vectors
+	 */
+	public CompressedBitVector and(CompressedBitVector other) {
+		CompressedBitVector result = new CompressedBitVector(Math.min(
+				this.size, other.size));
+		int i = 0;
+		int j = 0;
+		while (i < this.containerCount && j < other.containerCount) {
+			if (this.keys[i] < other.keys[j]) {
+				i++;
+			} else if (this.keys[i] > other.keys[j]) {
+				j++;
+			} else {
+				result.appendContainer(this.keys[i],
+						this.containers[i].and(other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a new bit vector with the bits that are set in this or the given
+	 * bit vector. Its size is the greater one of the two sizes.
+	 *
+	 * @param other
+	 *            the other bit vector
+	 * @return the union of the two bit vectors
+	 */
+	public CompressedBitVector or(CompressedBitVector other) {
+		CompressedBitVector result = new CompressedBitVector(Math.max(
+				this.size, other.size));
+		int i = 0;
+		int j = 0;
+		while (i < this.containerCount || j < other.containerCount) {
+			if (j == other.containerCount
+					|| (i < this.containerCount && this.keys[i] < other.keys[j])) {
+				result.appendContainer(this.keys[i], this.containers[i].copy());
+				i++;
+			} else if (i == this.containerCount
+					|| other.keys[j] < this.keys[i]) {
+				result.appendContainer(other.keys[j],
+						other.containers[j].copy());
+				j++;
+			} else {
+				result.appendContainer(this.keys[i],
+						this.containers[i].or(other.containers[j]));
+				i++;
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a new bit vector with the bits that are set in this bit vector
+	 * but not in the given one. Its size is the size of this bit vector.
+	 *
+	 * @param other
+	 *            the other bit vector
+	 * @return the difference of the two bit vectors
+	 */
+	public CompressedBitVector andNot(CompressedBitVector other) {
+		CompressedBitVector result = new CompressedBitVector(this.size);
+		int j = 0;
+		for (int i = 0; i < this.containerCount; i++) {
+			while (j < other.containerCount && other.keys[j] < this.keys[i]) {
+				j++;
+			}
+			if (j < other.containerCount && other.keys[j] == this.keys[i]) {
+				result.appendContainer(this.keys[i],
+						this.containers[i].andNot(other.containers[j]));
+			} else {
+				result.appendContainer(this.keys[i], this.containers[i].copy());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Converts every chunk to the representation that needs the least memory,
+	 * which includes lists of ranges for chunks with long runs of set bits.
+	 * This is useful when the bit vector is complete, e.g., before writing it.
+	 */
+	public void optimize() {
+		for (int i = 0; i < this.containerCount; i++) {
+			this.containers[i] = this.containers[i].optimize();
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BitVector)) {
+			return false;
+		}
+		BitVector other = (BitVector) obj;
+		if (this.size != other.size()) {
+			return false;
+		}
+
+		if (other instanceof CompressedBitVector) {
+			PrimitiveIterator.OfLong iterator = positionIterator();
+			PrimitiveIterator.OfLong otherIterator = ((CompressedBitVector) other)
+					.positionIterator();
+			while (iterator.hasNext() && otherIterator.hasNext()) {
+				if (iterator.nextLong() != otherIterator.nextLong()) {
+					return false;
+				}
+			}
+			return !iterator.hasNext() && !otherIterator.hasNext();
+		}
+
+		for (long i = 0; i < this.size; i++) {
+			if (getBit(i) != other.getBit(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the same hash code as a {@link BitVectorImpl} with the same
+	 * bits.
+	 */
+	@Override
+	public int hashCode() {
+		int ret = (int) this.size;
+		for (int i = 0; i < this.containerCount; i++) {
+			for (long word : BitContainer
+					.getWordsForReading(this.containers[i])) {
+				ret += (0x1F * word);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Returns the positions of the set bits, e.g., "{3, 5, 1000000}", rather
+	 * than all bits as in {@link BitVectorImpl#toString()}, since compressed
+	 * bit vectors are usually large and sparse.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("{");
+		PrimitiveIterator.OfLong iterator = positionIterator();
+		while (iterator.hasNext()) {
+			if (sb.length() > 1) {
+				sb.append(", ");
+			}
+			sb.append(iterator.nextLong());
+		}
+		return sb.append('}').toString();
+	}
+
+	/**
+	 * Returns the index of the container with the given key, or
+	 * <code>(-(insertion point) - 1)</code> if there is none, as
+	 * {@link Arrays#binarySearch(long[], int, int, long)}.
+	 */
+	int findContainer(long key) {
+		if (this.lastIndex < this.containerCount
+				&& this.keys[this.lastIndex] == key) {
+			return this.lastIndex;
+		}
+		int index = Arrays.binarySearch(this.keys, 0, this.containerCount, key);
+		if (index >= 0) {
+			this.lastIndex = index;
+		}
+		return index;
+	}
+
+	void insertContainer(int index, long key, BitContainer container) {
+		if (this.containerCount == this.keys.length) {
+			int newLength = Math.max(4, 2 * this.keys.length);
+			this.keys = Arrays.copyOf(this.keys, newLength);
+			this.containers = Arrays.copyOf(this.containers, newLength);
+		}
+		System.arraycopy(this.keys, index, this.keys, index + 1,
+				this.containerCount - index);
+		System.arraycopy(this.containers, index, this.containers, index + 1,
+				this.containerCount - index);
+		this.keys[index] = key;
+		this.containers[index] = container;
+		this.containerCount++;
+		this.lastIndex = index;
+	}
+
+	void removeContainer(int index) {
+		System.arraycopy(this.keys, index + 1, this.keys, index,
+				this.containerCount - index - 1);
+		System.arraycopy(this.containers, index + 1, this.containers, index,
+				this.containerCount - index - 1);
+		this.containerCount--;
+		this.containers[this.containerCount] = null;
+	}
+
+	/**
+	 * Adds a container after all existing containers, unless it is null.
+	 */
+	void appendContainer(long key, BitContainer container) {
+		if (container != null) {
+			insertContainer(this.containerCount, key, container);
+		}
+	}
+
+	/**
+	 * @param position
+	 *            position
+	 * @throws IndexOutOfBoundsException
+	 *             if the position is a negative number
+	 */
+	void assertNonNegativePosition(long position) {
+		if (position < 0) {
+			throw new IndexOutOfBoundsException("Position " + position
+					+ " is out of bounds.");
+		}
+	}
+
+}
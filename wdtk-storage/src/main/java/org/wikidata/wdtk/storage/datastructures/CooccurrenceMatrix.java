@@ -0,0 +1,159 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sparse matrix of <b>int</b> counts with <b>int</b> row and column keys. It
+ * is meant for counting how often two things identified by numbers occur
+ * together, e.g., how often a property is used on instances of a class, where
+ * the row is the numeric id of the class and the column is the numeric id of
+ * the property. Each row that has been used is stored as an
+ * {@link IntToIntMap}, so only non-zero entries take up memory.
+ * <p>
+ * This class is not thread-safe. To count in parallel, use one matrix per
+ * thread and combine the results with {@link #merge(CooccurrenceMatrix)}.
+ *
+ */
+public class CooccurrenceMatrix {
+
+	/**
+	 * Map from row keys to their position in {@link #rows}.
+	 */
+	final IntToIntMap rowPositions = new IntToIntMap();
+	final List<IntToIntMap> rows = new ArrayList<>();
+
+	/**
+	 * Returns the count stored for the given row and column.
+	 *
+	 * @param row
+	 *            the row key
+	 * @param column
+	 *            the column key
+	 * @return the count, or 0 if nothing was counted for this pair
+	 */
+	public int get(int row, int column) {
+		IntToIntMap rowMap = getRow(row);
+		return rowMap == null ? 0 : rowMap.get(column);
+	}
+
+	/**
+	 * Adds the given number to the count of the given row and column.
+	 *
+	 * @param row
+	 *            the row key
+	 * @param column
+	 *            the column key
+	 * @param delta
+	 *            the number to add
+	 * @return the new count
+	 */
+	public int addTo(int row, int column, int delta) {
+		return getOrCreateRow(row).addTo(column, delta);
+	}
+
+	/**
+	 * Adds one to the count of the given row and column.
+	 *
+	 * @param row
+	 *            the row key
+	 * @param column
+	 *            the column key
+	 * @return the new count
+	 */
+	public int increment(int row, int column) {
+		return addTo(row, column, 1);
+	}
+
+	/**
+	 * Returns the map of column keys to counts for the given row. The map is
+	 * backed by this matrix, so changes to either are visible in the other.
+	 *
+	 * @param row
+	 *            the row key
+	 * @return the row, or null if nothing was counted in this row
+	 */
+	public IntToIntMap getRow(int row) {
+		if (!this.rowPositions.containsKey(row)) {
+			return null;
+		}
+		return this.rows.get(this.rowPositions.get(row));
+	}
+
+	/**
+	 * Returns the keys of all rows where something was counted, in ascending
+	 * order.
+	 *
+	 * @return new array of row keys
+	 */
+	public int[] getRowKeys() {
+		return this.rowPositions.keys();
+	}
+
+	/**
+	 * Returns the number of rows where something was counted.
+	 *
+	 * @return number of rows
+	 */
+	public int getRowCount() {
+		return this.rows.size();
+	}
+
+	/**
+	 * Returns the number of row and column pairs that have a count.
+	 *
+	 * @return number of entries
+	 */
+	public long getEntryCount() {
+		long result = 0;
+		for (IntToIntMap row : this.rows) {
+			result += row.size();
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the counts of the given matrix to the counts of this matrix.
+	 *
+	 * @param other
+	 *            the matrix whose counts should be added
+	 */
+	public void merge(CooccurrenceMatrix other) {
+		other.rowPositions.forEach((row, position) -> getOrCreateRow(row)
+				.merge(other.rows.get(position)));
+	}
+
+	/**
+	 * Returns the map for the given row, creating it if needed.
+	 */
+	IntToIntMap getOrCreateRow(int row) {
+		if (this.rowPositions.containsKey(row)) {
+			return this.rows.get(this.rowPositions.get(row));
+		}
+		IntToIntMap rowMap = new IntToIntMap();
+		this.rowPositions.put(row, this.rows.size());
+		this.rows.add(rowMap);
+		return rowMap;
+	}
+
+}
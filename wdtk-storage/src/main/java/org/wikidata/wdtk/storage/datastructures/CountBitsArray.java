@@ -20,28 +20,34 @@ package org.wikidata.wdtk.storage.datastructures;
  * #L%
  */
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-
-import org.apache.commons.lang3.ArrayUtils;
 
 /**
  * This class keeps the count of occurrences of <code>true</code> values in a
- * bit vector. This implementation divides the bit vector in blocks of equal
- * size. It keeps an array with the count of <code>true</code> values present in
- * each block.
+ * bit vector. It works directly on the words of a {@link BitVectorImpl} and
+ * uses a two-level directory: for each superblock of up to 2<sup>16</sup>
+ * bits, it keeps the number of <code>true</code> values before the
+ * superblock, and for each block inside of a superblock, it keeps the number
+ * of <code>true</code> values between the start of the superblock and the
+ * start of the block. Counting bits then needs two lookups and a few calls of
+ * {@link Long#bitCount(long)}, independently of the size of the bit vector.
+ * The directory also allows to find the position of the <i>n</i>-th
+ * occurrence of a value with a binary search, see
+ * {@link #findPosition(boolean, long, long, long)}.
  * <p>
  * For example, given the bit vector: 10010 (0 is <code>false</code>, 1 is
- * <code>true</code>), with a block size of 2, the array contains: [1, 2, 2].
- * The first block contains 1 <code>true</code> value, the second block contains
- * 1 more <code>true</code> value, in total 2. The third block is incomplete,
- * since it has only one bit, and it does not contain more <code>true</code>
- * values.
+ * <code>true</code>), with a block size of 2, the counts at the end of each
+ * block are [1, 2, 2]. The first block contains 1 <code>true</code> value, the
+ * second block contains 1 more <code>true</code> value, in total 2. The third
+ * block is incomplete, since it has only one bit, and it does not contain more
+ * <code>true</code> values. Internally, block sizes are rounded up to whole
+ * words.
  * <p>
- * For efficiency reasons, this class assumes that the bit vector is unmodified.
- * Any modification of the bit vector needs to be notified in
- * {@link FindPositionArray#update()}.
+ * The directory is computed lazily and only as far as it is needed. Any
+ * modification of the bit vector needs to be notified in
+ * {@link CountBitsArray#update(long)}, which discards only the part of the
+ * directory that comes after the modified position. Adding bits at the end of
+ * the bit vector therefore does not discard anything.
  * 
  * @see RankedBitVectorImpl
  * 
@@ -50,26 +56,70 @@ import org.apache.commons.lang3.ArrayUtils;
 class CountBitsArray {
 
 	/**
-	 * The bit vector, which is assumed unmodified.
+	 * Maximal number of bits in a superblock. With this size, the counts
+	 * relative to the start of a superblock fit into a <b>char</b>.
+	 */
+	static final int MAX_SUPERBLOCK_SIZE = 0x10000;
+
+	/**
+	 * Table of the positions of the <i>n</i>-th set bit in each byte. The
+	 * position of the set bit with rank <i>r</i> (starting from 0) in byte
+	 * <i>b</i> is stored at index <i>b</i> + 256 * <i>r</i>.
+	 */
+	static final byte[] SELECT_IN_BYTE = new byte[0x800];
+
+	static final long ONES_STEP_8 = 0x0101010101010101L;
+
+	static final long MSBS_STEP_8 = 0x8080808080808080L;
+
+	static {
+		for (int b = 0; b < 0x100; b++) {
+			int rank = 0;
+			for (int position = 0; position < 8; position++) {
+				if ((b & (1 << position)) != 0) {
+					SELECT_IN_BYTE[b + (rank << 8)] = (byte) position;
+					rank++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * The bit vector.
 	 */
-	final BitVector bitVector;
+	final BitVectorImpl bitVector;
 
 	/**
-	 * The size of each block.
+	 * The size of each block, as given in the constructor.
 	 */
 	final int blockSize;
 
 	/**
-	 * This array contains the number of <code>true</code> values found in each
-	 * block.
+	 * Number of words in each block of the directory.
+	 */
+	final int wordsPerBlock;
+
+	/**
+	 * Number of blocks in each superblock of the directory.
 	 */
-	long[] countArray;
+	final int blocksPerSuperblock;
 
 	/**
-	 * If this value is <code>true</code>, there is a new bit vector and the
-	 * array needs to be updated.
+	 * Number of <code>true</code> values before each superblock.
 	 */
-	boolean hasChanged;
+	long[] superblockCounts = new long[1];
+
+	/**
+	 * Number of <code>true</code> values before each block, counted from the
+	 * start of its superblock.
+	 */
+	char[] blockCounts = new char[1];
+
+	/**
+	 * Number of blocks at the start of the directory whose entries are up to
+	 * date.
+	 */
+	int validBlocks = 0;
 
 	/**
 	 * Creates a count array with a given block size.
@@ -79,34 +129,86 @@ class CountBitsArray {
 	 * @throws IllegalArgumentException
 	 *             if the block size is not a positive number
 	 */
-	public CountBitsArray(BitVector bitVector, int blockSize) {
+	public CountBitsArray(BitVectorImpl bitVector, int blockSize) {
 		if (blockSize < 1) {
 			throw new IllegalArgumentException(
 					"The block size must be a positive number. The received value was: "
 							+ blockSize + ".");
 		}
 		this.bitVector = bitVector;
-		this.hasChanged = true;
 		this.blockSize = blockSize;
+		this.wordsPerBlock = (int) ((blockSize + (long) BitVectorImpl.WORD_MASK) >> BitVectorImpl.LG_WORD_SIZE);
+		this.blocksPerSuperblock = Math.max(1, MAX_SUPERBLOCK_SIZE
+				/ (this.wordsPerBlock * BitVectorImpl.WORD_SIZE));
 	}
 
 	/**
 	 * Returns the number of occurrences of <i>bit</i> up to <i>position</i>.
+	 * Positions after the end of the bit vector contain <code>false</code>.
 	 * 
 	 * @return number of occurrences of <i>bit</i> up to <i>position</i>
 	 */
 	public long countBits(boolean bit, long position) {
-		updateCount();
-		int blockNumber = (int) (position / this.blockSize);
-		long mark = ((long) blockNumber) * this.blockSize;
+		long lastPosition = Math.min(position, this.bitVector.size - 1);
 		long trueValues = 0;
-		if (blockNumber > 0) {
-			trueValues = this.countArray[blockNumber - 1];
+		if (lastPosition >= 0) {
+			int wordIndex = (int) (lastPosition >> BitVectorImpl.LG_WORD_SIZE);
+			int block = wordIndex / this.wordsPerBlock;
+			trueValues = getCountBefore(block);
+			long[] words = this.bitVector.arrayOfBits;
+			for (int i = block * this.wordsPerBlock; i < wordIndex; i++) {
+				trueValues += Long.bitCount(words[i]);
+			}
+			trueValues += Long.bitCount(words[wordIndex]
+					& (-1L >>> (BitVectorImpl.WORD_MASK - (lastPosition & BitVectorImpl.WORD_MASK))));
+		}
+		return bit ? trueValues : Math.max(0, position + 1) - trueValues;
+	}
+
+	/**
+	 * Returns the position of the <i>n</i>-th occurrence of <i>bit</i>, which
+	 * must be known to be between the two given positions. The block that
+	 * contains the occurrence is found with a binary search on the directory,
+	 * and the position within the word with a broadword selection.
+	 * 
+	 * @param bit
+	 *            bit
+	 * @param nOccurrence
+	 *            number of occurrences, which must be positive
+	 * @param fromPosition
+	 *            a position that is not after the occurrence
+	 * @param toPosition
+	 *            a position that is not before the occurrence, and not after
+	 *            the end of the bit vector
+	 * @return the position of the occurrence
+	 */
+	long findPosition(boolean bit, long nOccurrence, long fromPosition,
+			long toPosition) {
+		int low = getBlock(Math.max(0, fromPosition));
+		int high = getBlock(toPosition);
+		ensureDirectory(high);
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (getCountBefore(bit, middle) < nOccurrence) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
 		}
-		for (long index = mark; index <= position; index++) {
-			trueValues += this.bitVector.getBit(index) ? 1 : 0;
+
+		long leftOccurrences = nOccurrence - getCountBefore(bit, low);
+		long[] words = this.bitVector.arrayOfBits;
+		int wordIndex = low * this.wordsPerBlock;
+		while (true) {
+			long word = bit ? words[wordIndex] : ~words[wordIndex];
+			int count = Long.bitCount(word);
+			if (leftOccurrences <= count) {
+				return ((long) wordIndex << BitVectorImpl.LG_WORD_SIZE)
+						+ selectInWord(word, (int) leftOccurrences - 1);
+			}
+			leftOccurrences -= count;
+			wordIndex++;
 		}
-		return bit ? trueValues : ((position + 1) - trueValues);
 	}
 
 	/**
@@ -119,56 +221,139 @@ class CountBitsArray {
 	}
 
 	/**
-	 * Returns a list of Long that contains the indices of positions computed
-	 * according to the given bit vector.
-	 * 
-	 * @return a list of Long that contains the indices of positions computed
-	 *         according to the given bit vector
-	 */
-	List<Long> getCountList() {
-		List<Long> ret = new ArrayList<>();
-		long lastValue = 0;
-		int positionInBlock = 0;
-		for (long index = 0; index < this.bitVector.size(); index++) {
-			if (this.bitVector.getBit(index)) {
-				lastValue++;
+	 * Returns the number of <code>true</code> values before the given block
+	 * of the directory, computing the directory if needed.
+	 */
+	long getCountBefore(int block) {
+		ensureDirectory(block);
+		return this.superblockCounts[block / this.blocksPerSuperblock]
+				+ this.blockCounts[block];
+	}
+
+	/**
+	 * Returns the number of occurrences of <i>bit</i> before the given block
+	 * of the directory, computing the directory if needed.
+	 */
+	long getCountBefore(boolean bit, int block) {
+		long trueValues = getCountBefore(block);
+		return bit ? trueValues
+				: (((long) block * this.wordsPerBlock) << BitVectorImpl.LG_WORD_SIZE)
+						- trueValues;
+	}
+
+	/**
+	 * Returns the block of the directory that contains the given position.
+	 */
+	int getBlock(long position) {
+		return (int) ((position >> BitVectorImpl.LG_WORD_SIZE) / this.wordsPerBlock);
+	}
+
+	/**
+	 * Makes sure that the directory is up to date up to the given block.
+	 */
+	void ensureDirectory(int block) {
+		if (block < this.validBlocks) {
+			return;
+		}
+		if (block >= this.blockCounts.length) {
+			this.blockCounts = Arrays.copyOf(this.blockCounts,
+					Math.max(block + 1, 2 * this.blockCounts.length));
+		}
+		int superblock = block / this.blocksPerSuperblock;
+		if (superblock >= this.superblockCounts.length) {
+			this.superblockCounts = Arrays.copyOf(this.superblockCounts,
+					Math.max(superblock + 1, 2 * this.superblockCounts.length));
+		}
+
+		long[] words = this.bitVector.arrayOfBits;
+		long count = 0;
+		if (this.validBlocks > 0) {
+			count = getCountBefore(this.validBlocks - 1)
+					+ countInBlock(this.validBlocks - 1, words);
+		}
+		for (int i = this.validBlocks; i <= block; i++) {
+			if (i > this.validBlocks) {
+				count += countInBlock(i - 1, words);
 			}
-			positionInBlock++;
-			if (positionInBlock == this.blockSize) {
-				ret.add(lastValue);
-				positionInBlock = 0;
+			int currentSuperblock = i / this.blocksPerSuperblock;
+			if (i % this.blocksPerSuperblock == 0) {
+				this.superblockCounts[currentSuperblock] = count;
 			}
+			this.blockCounts[i] = (char) (count - this.superblockCounts[currentSuperblock]);
 		}
-		if (positionInBlock > 0) {
-			ret.add(lastValue);
+		this.validBlocks = block + 1;
+	}
+
+	/**
+	 * Returns the number of <code>true</code> values in the given block.
+	 */
+	long countInBlock(int block, long[] words) {
+		int end = Math.min(words.length, (block + 1) * this.wordsPerBlock);
+		long count = 0;
+		for (int i = block * this.wordsPerBlock; i < end; i++) {
+			count += Long.bitCount(words[i]);
 		}
-		return ret;
+		return count;
+	}
+
+	/**
+	 * Returns the position of the set bit with the given rank in a word,
+	 * without iterating over the bits. The number of set bits in each byte is
+	 * computed in parallel, and the byte that contains the bit is found by
+	 * comparing all prefix sums with the rank at once.
+	 * 
+	 * @param word
+	 *            the word
+	 * @param rank
+	 *            the number of set bits before the requested one; this must
+	 *            be smaller than the number of set bits in the word
+	 * @return the position of the bit in the word
+	 */
+	static int selectInWord(long word, int rank) {
+		long byteCounts = word - ((word >>> 1) & 0x5555555555555555L);
+		byteCounts = (byteCounts & 0x3333333333333333L)
+				+ ((byteCounts >>> 2) & 0x3333333333333333L);
+		byteCounts = (byteCounts + (byteCounts >>> 4)) & 0x0F0F0F0F0F0F0F0FL;
+		long byteSums = byteCounts * ONES_STEP_8;
+
+		long rankStep8 = rank * ONES_STEP_8;
+		long bytesNotAfter = ((rankStep8 | MSBS_STEP_8) - byteSums)
+				& MSBS_STEP_8;
+		int place = Long.bitCount(bytesNotAfter) << 3;
+		int byteRank = (int) (rank - (((byteSums << 8) >>> place) & 0xFF));
+		return place
+				+ SELECT_IN_BYTE[(int) ((word >>> place) & 0xFF) | (byteRank << 8)];
 	}
 
 	@Override
 	public String toString() {
-		updateCount();
-		return Arrays.toString(this.countArray);
+		long size = this.bitVector.size;
+		long[] counts = new long[(int) ((size + this.blockSize - 1) / this.blockSize)];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = countBits(true,
+					Math.min(size, (i + 1L) * this.blockSize) - 1);
+		}
+		return Arrays.toString(counts);
 	}
 
 	/**
 	 * Notifies this object that the bit vector has changed, and therefore, the
-	 * computed internal array must be updated.
+	 * computed directory must be updated.
 	 */
 	public void update() {
-		this.hasChanged = true;
+		this.validBlocks = 0;
 	}
 
 	/**
-	 * This method updates the internal array only if the bit vector has been
-	 * changed since the last update or creation of this class.
+	 * Notifies this object that the bit at the given position has changed or
+	 * has been added. Only the part of the directory after this position is
+	 * discarded.
+	 * 
+	 * @param position
+	 *            position of the modified bit
 	 */
-	void updateCount() {
-		if (this.hasChanged) {
-			this.countArray = ArrayUtils.toPrimitive(getCountList().toArray(
-					new Long[0]));
-			this.hasChanged = false;
-		}
+	public void update(long position) {
+		this.validBlocks = Math.min(this.validBlocks, getBlock(position) + 1);
 	}
 
 }
@@ -0,0 +1,625 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Directed graph between items, with one kind of edge for each property, such
+ * as <i>instance of</i> (P31) or <i>subclass of</i> (P279). Items are
+ * identified by their ordinal in an {@link EntityIdDictionary}, so they are
+ * numbered from 0 to {@link #getNodeCount()} - 1.
+ * <p>
+ * The edges of each property are stored in compressed sparse row format: one
+ * array holds the targets of all edges, sorted by their source, and a second
+ * array holds the position of the first edge of each source. The same is
+ * stored for the reversed edges. The neighbours of an item are therefore a
+ * range in an <b>int</b> array, and traversals do not create any objects or
+ * compute any hash codes. The graph needs about 8 bytes per edge and 8 bytes
+ * per item and property.
+ * <p>
+ * Graphs are built with a {@link Builder}. Built graphs cannot be modified
+ * and can be used by several threads at once.
+ *
+ */
+public class EntityGraph {
+
+	/**
+	 * Edges of one property in one direction.
+	 */
+	static class Adjacency {
+
+		/**
+		 * Position in {@link #targets} of the first edge of each node. The
+		 * last entry is the number of edges.
+		 */
+		final int[] offsets;
+		final int[] targets;
+
+		Adjacency(int[] offsets, int[] targets) {
+			this.offsets = offsets;
+			this.targets = targets;
+		}
+
+		/**
+		 * Builds the adjacency of the given edges. Duplicate edges are only
+		 * stored once, and the targets of each node are sorted.
+		 *
+		 * @param nodeCount
+		 *            the number of nodes
+		 * @param sources
+		 *            the sources of the edges
+		 * @param targets
+		 *            the targets of the edges
+		 * @param edgeCount
+		 *            the number of edges in the given arrays
+		 * @return the adjacency
+		 */
+		static Adjacency build(int nodeCount, int[] sources, int[] targets,
+				int edgeCount) {
+			int[] offsets = new int[nodeCount + 1];
+			for (int i = 0; i < edgeCount; i++) {
+				offsets[sources[i] + 1]++;
+			}
+			for (int node = 0; node < nodeCount; node++) {
+				offsets[node + 1] += offsets[node];
+			}
+			int[] sortedTargets = new int[edgeCount];
+			int[] positions = Arrays.copyOf(offsets, nodeCount);
+			for (int i = 0; i < edgeCount; i++) {
+				sortedTargets[positions[sources[i]]++] = targets[i];
+			}
+
+			int size = 0;
+			int start = 0;
+			for (int node = 0; node < nodeCount; node++) {
+				int end = offsets[node + 1];
+				Arrays.sort(sortedTargets, start, end);
+				offsets[node] = size;
+				for (int i = start; i < end; i++) {
+					if (i == start || sortedTargets[i] != sortedTargets[i - 1]) {
+						sortedTargets[size++] = sortedTargets[i];
+					}
+				}
+				start = end;
+			}
+			offsets[nodeCount] = size;
+			if (size < edgeCount) {
+				sortedTargets = Arrays.copyOf(sortedTargets, size);
+			}
+			return new Adjacency(offsets, sortedTargets);
+		}
+
+		int getDegree(int node) {
+			return this.offsets[node + 1] - this.offsets[node];
+		}
+	}
+
+	/**
+	 * Collects the edges of an {@link EntityGraph}. Items are referred to by
+	 * the numeric part of their id, e.g., 42 for Q42. A builder can only build
+	 * one graph, and is not thread-safe.
+	 */
+	public static class Builder {
+
+		final EntityIdDictionary dictionary = new EntityIdDictionary();
+
+		/**
+		 * Map from property ids to their position in {@link #edgeLists}.
+		 */
+		IntToIntMap propertyPositions = new IntToIntMap();
+		List<int[][]> edgeLists = new ArrayList<>();
+		IntToIntMap edgeCounts = new IntToIntMap();
+
+		/**
+		 * Adds an item to the graph, even if it has no edges.
+		 *
+		 * @param itemId
+		 *            the numeric part of the item id
+		 * @return this builder
+		 * @throws IllegalArgumentException
+		 *             if the id is negative or too large
+		 * @throws IllegalStateException
+		 *             if the graph has already been built
+		 */
+		public Builder addNode(long itemId) {
+			checkNotBuilt();
+			this.dictionary.add('Q', checkItemId(itemId));
+			return this;
+		}
+
+		/**
+		 * Adds an edge between two items to the graph.
+		 *
+		 * @param propertyId
+		 *            the numeric part of the id of the property, e.g., 279
+		 *            for <i>subclass of</i>
+		 * @param sourceItemId
+		 *            the numeric part of the id of the item that the edge
+		 *            starts from
+		 * @param targetItemId
+		 *            the numeric part of the id of the item that the edge
+		 *            points to
+		 * @return this builder
+		 * @throws IllegalArgumentException
+		 *             if one of the item ids is negative or too large
+		 * @throws IllegalStateException
+		 *             if the graph has already been built
+		 */
+		public Builder addEdge(int propertyId, long sourceItemId,
+				long targetItemId) {
+			addNode(sourceItemId);
+			addNode(targetItemId);
+			if (!this.propertyPositions.containsKey(propertyId)) {
+				this.propertyPositions.put(propertyId, this.edgeLists.size());
+				this.edgeLists.add(new int[][] { new int[16], new int[16] });
+			}
+			int[][] edges = this.edgeLists.get(this.propertyPositions
+					.get(propertyId));
+			int count = this.edgeCounts.get(propertyId);
+			if (count == edges[0].length) {
+				int capacity = count + (count >> 1);
+				if (capacity < 0) {
+					throw new IllegalStateException("Too many edges for property P"
+							+ propertyId + ".");
+				}
+				edges[0] = Arrays.copyOf(edges[0], capacity);
+				edges[1] = Arrays.copyOf(edges[1], capacity);
+			}
+			edges[0][count] = (int) sourceItemId;
+			edges[1][count] = (int) targetItemId;
+			this.edgeCounts.increment(propertyId);
+			return this;
+		}
+
+		/**
+		 * Builds the graph. The memory used for collecting the edges is
+		 * released in the process.
+		 *
+		 * @return the graph
+		 * @throws IllegalStateException
+		 *             if the graph has already been built
+		 */
+		public EntityGraph build() {
+			checkNotBuilt();
+			EntityIdDictionary readOnlyDictionary = this.dictionary
+					.toReadOnly();
+			int nodeCount = (int) readOnlyDictionary.getSize('Q');
+			int[] propertyIds = this.propertyPositions.keys();
+			Adjacency[] forward = new Adjacency[propertyIds.length];
+			Adjacency[] reverse = new Adjacency[propertyIds.length];
+			for (int i = 0; i < propertyIds.length; i++) {
+				int position = this.propertyPositions.get(propertyIds[i]);
+				int[][] edges = this.edgeLists.get(position);
+				this.edgeLists.set(position, null);
+				int count = this.edgeCounts.get(propertyIds[i]);
+				for (int j = 0; j < count; j++) {
+					edges[0][j] = (int) readOnlyDictionary.getOrdinal('Q',
+							edges[0][j]);
+					edges[1][j] = (int) readOnlyDictionary.getOrdinal('Q',
+							edges[1][j]);
+				}
+				forward[i] = Adjacency.build(nodeCount, edges[0], edges[1],
+						count);
+				reverse[i] = Adjacency.build(nodeCount, edges[1], edges[0],
+						count);
+			}
+			this.propertyPositions = null;
+			this.edgeLists = null;
+			this.edgeCounts = null;
+			return new EntityGraph(readOnlyDictionary, nodeCount, propertyIds,
+					forward, reverse);
+		}
+
+		void checkNotBuilt() {
+			if (this.edgeLists == null) {
+				throw new IllegalStateException(
+						"The graph has already been built.");
+			}
+		}
+
+		static long checkItemId(long itemId) {
+			if (itemId < 0 || itemId > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Unsupported item id Q"
+						+ itemId + ".");
+			}
+			return itemId;
+		}
+	}
+
+	final EntityIdDictionary dictionary;
+	final int nodeCount;
+
+	/**
+	 * The ids of the properties that have edges, in ascending order.
+	 */
+	final int[] propertyIds;
+	final Adjacency[] forward;
+	final Adjacency[] reverse;
+
+	EntityGraph(EntityIdDictionary dictionary, int nodeCount,
+			int[] propertyIds, Adjacency[] forward, Adjacency[] reverse) {
+		this.dictionary = dictionary;
+		this.nodeCount = nodeCount;
+		this.propertyIds = propertyIds;
+		this.forward = forward;
+		this.reverse = reverse;
+	}
+
+	/**
+	 * Returns the dictionary that maps item ids to the ordinals that are used
+	 * as nodes of this graph.
+	 *
+	 * @return the read-only dictionary
+	 */
+	public EntityIdDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * Returns the number of items in this graph.
+	 *
+	 * @return the number of nodes
+	 */
+	public int getNodeCount() {
+		return this.nodeCount;
+	}
+
+	/**
+	 * Returns the node of the given item.
+	 *
+	 * @param itemId
+	 *            an item id such as "Q42"
+	 * @return the ordinal of the item, or -1 if it is not in the graph
+	 * @throws IllegalArgumentException
+	 *             if the id is not the id of an item
+	 */
+	public int getNode(String itemId) {
+		if (EntityIdDictionary.getType(itemId) != 'Q') {
+			throw new IllegalArgumentException("\"" + itemId
+					+ "\" is not an item id.");
+		}
+		return (int) this.dictionary.getOrdinal(itemId);
+	}
+
+	/**
+	 * Returns the id of the item of the given node.
+	 *
+	 * @param node
+	 *            the ordinal of the item
+	 * @return the item id, such as "Q42", or null if there is no such node
+	 */
+	public String getItemId(int node) {
+		return this.dictionary.getId('Q', node);
+	}
+
+	/**
+	 * Returns the ids of the properties that have edges in this graph.
+	 *
+	 * @return new array of numeric property ids in ascending order
+	 */
+	public int[] getPropertyIds() {
+		return this.propertyIds.clone();
+	}
+
+	/**
+	 * Returns the number of distinct edges of the given property.
+	 *
+	 * @param propertyId
+	 *            the numeric part of the property id
+	 * @return the number of edges
+	 */
+	public int getEdgeCount(int propertyId) {
+		Adjacency adjacency = getAdjacency(this.forward, propertyId);
+		return adjacency == null ? 0 : adjacency.targets.length;
+	}
+
+	/**
+	 * Returns the nodes that the given node has edges of the given property
+	 * to, e.g., the classes of an item for <i>instance of</i>.
+	 *
+	 * @param propertyId
+	 *            the numeric part of the property id
+	 * @param node
+	 *            the node whose neighbours should be returned
+	 * @return new array of nodes in ascending order
+	 */
+	public int[] getSuccessors(int propertyId, int node) {
+		return getNeighbours(getAdjacency(this.forward, propertyId), node);
+	}
+
+	/**
+	 * Returns the nodes that have edges of the given property to the given
+	 * node, e.g., the instances of a class for <i>instance of</i>.
+	 *
+	 * @param propertyId
+	 *            the numeric part of the property id
+	 * @param node
+	 *            the node whose neighbours should be returned
+	 * @return new array of nodes in ascending order
+	 */
+	public int[] getPredecessors(int propertyId, int node) {
+		return getNeighbours(getAdjacency(this.reverse, propertyId), node);
+	}
+
+	/**
+	 * Returns all nodes that can be reached from the given node by following
+	 * edges of the given properties, e.g., all superclasses of a class for
+	 * <i>subclass of</i>. The node itself is only included if it is on a
+	 * cycle.
+	 *
+	 * @param node
+	 *            the node to start from
+	 * @param propertyIds
+	 *            the numeric parts of the ids of the properties to follow
+	 * @return the set of reachable nodes
+	 */
+	public BitSet getAncestors(int node, int... propertyIds) {
+		return getReachable(singleton(node), false, propertyIds);
+	}
+
+	/**
+	 * Returns all nodes from which the given node can be reached by following
+	 * edges of the given properties, e.g., all subclasses of a class for
+	 * <i>subclass of</i>. The node itself is only included if it is on a
+	 * cycle.
+	 *
+	 * @param node
+	 *            the node to start from
+	 * @param propertyIds
+	 *            the numeric parts of the ids of the properties to follow
+	 * @return the set of nodes
+	 */
+	public BitSet getDescendants(int node, int... propertyIds) {
+		return getReachable(singleton(node), true, propertyIds);
+	}
+
+	/**
+	 * Returns true if the target node can be reached from the source node by
+	 * following edges of the given properties. The search stops as soon as the
+	 * target is found.
+	 *
+	 * @param source
+	 *            the node to start from
+	 * @param target
+	 *            the node to look for
+	 * @param propertyIds
+	 *            the numeric parts of the ids of the properties to follow
+	 * @return true if there is a path from source to target
+	 */
+	public boolean isReachable(int source, int target, int... propertyIds) {
+		checkNode(source);
+		checkNode(target);
+		Adjacency[] adjacencies = getAdjacencies(this.forward, propertyIds);
+		BitSet visited = new BitSet(this.nodeCount);
+		int[] queue = new int[16];
+		queue[0] = source;
+		int head = 0;
+		int tail = 1;
+		while (head < tail) {
+			int node = queue[head++];
+			for (Adjacency adjacency : adjacencies) {
+				for (int i = adjacency.offsets[node]; i < adjacency.offsets[node + 1]; i++) {
+					int next = adjacency.targets[i];
+					if (next == target) {
+						return true;
+					}
+					if (!visited.get(next)) {
+						visited.set(next);
+						if (tail == queue.length) {
+							queue = Arrays.copyOf(queue, tail << 1);
+						}
+						queue[tail++] = next;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the nodes that are connected to any of the given nodes by one
+	 * edge of one of the given properties, e.g., all instances of a set of
+	 * classes.
+	 *
+	 * @param nodes
+	 *            the nodes to start from
+	 * @param reverse
+	 *            if true, edges are followed from their target to their
+	 *            source
+	 * @param propertyIds
+	 *            the numeric parts of the ids of the properties to follow
+	 * @return the set of neighbours
+	 */
+	public BitSet getNeighbours(BitSet nodes, boolean reverse,
+			int... propertyIds) {
+		Adjacency[] adjacencies = getAdjacencies(reverse ? this.reverse
+				: this.forward, propertyIds);
+		BitSet result = new BitSet(this.nodeCount);
+		for (int node = nodes.nextSetBit(0); node >= 0 && node < this.nodeCount; node = nodes
+				.nextSetBit(node + 1)) {
+			for (Adjacency adjacency : adjacencies) {
+				for (int i = adjacency.offsets[node]; i < adjacency.offsets[node + 1]; i++) {
+					result.set(adjacency.targets[i]);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the transitive closure of the given nodes, that is, all nodes
+	 * that can be reached from any of them by following one or more edges of
+	 * the given properties. The search is a breadth-first search in the
+	 * current thread.
+	 *
+	 * @param sources
+	 *            the nodes to start from
+	 * @param reverse
+	 *            if true, edges are followed from their target to their
+	 *            source
+	 * @param propertyIds
+	 *            the numeric parts of the ids of the properties to follow
+	 * @return the set of reachable nodes; a source is only included if it
+	 *         can be reached from a source
+	 */
+	public BitSet getReachable(BitSet sources, boolean reverse,
+			int... propertyIds) {
+		Adjacency[] adjacencies = getAdjacencies(reverse ? this.reverse
+				: this.forward, propertyIds);
+		BitSet visited = new BitSet(this.nodeCount);
+		int[] queue = toNodeArray(sources);
+		int head = 0;
+		int tail = queue.length;
+		while (head < tail) {
+			int node = queue[head++];
+			for (Adjacency adjacency : adjacencies) {
+				for (int i = adjacency.offsets[node]; i < adjacency.offsets[node + 1]; i++) {
+					int next = adjacency.targets[i];
+					if (!visited.get(next)) {
+						visited.set(next);
+						if (tail == queue.length) {
+							queue = Arrays.copyOf(queue, Math.max(16, tail << 1));
+						}
+						queue[tail++] = next;
+					}
+				}
+			}
+		}
+		return visited;
+	}
+
+	/**
+	 * Computes the same set as {@link #getReachable(BitSet, boolean, int...)}
+	 * with a level-synchronous breadth-first search that expands the nodes of
+	 * each level in parallel in the common fork-join pool. This pays off for
+	 * large closures, such as all subclasses of a very general class.
+	 *
+	 * @param sources
+	 *            the nodes to start from
+	 * @param reverse
+	 *            if true, edges are followed from their target to their
+	 *            source
+	 * @param propertyIds
+	 *            the numeric parts of the ids of the properties to follow
+	 * @return the set of reachable nodes; a source is only included if it
+	 *         can be reached from a source
+	 */
+	public BitSet getReachableParallel(BitSet sources, boolean reverse,
+			int... propertyIds) {
+		Adjacency[] adjacencies = getAdjacencies(reverse ? this.reverse
+				: this.forward, propertyIds);
+		AtomicLongArray visited = new AtomicLongArray(
+				(this.nodeCount + BitVectorImpl.WORD_MASK) >>> BitVectorImpl.LG_WORD_SIZE);
+		int[] frontier = toNodeArray(sources);
+		while (frontier.length > 0) {
+			frontier = Arrays
+					.stream(frontier)
+					.parallel()
+					.flatMap(
+							node -> Arrays.stream(adjacencies).flatMapToInt(
+									adjacency -> Arrays.stream(
+											adjacency.targets,
+											adjacency.offsets[node],
+											adjacency.offsets[node + 1])))
+					.filter(next -> markVisited(visited, next)).toArray();
+		}
+		long[] words = new long[visited.length()];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = visited.get(i);
+		}
+		return BitSet.valueOf(words);
+	}
+
+	/**
+	 * Sets the bit of the given node, and returns true if it was not set
+	 * before.
+	 */
+	static boolean markVisited(AtomicLongArray visited, int node) {
+		int index = node >>> BitVectorImpl.LG_WORD_SIZE;
+		long mask = 1L << (node & BitVectorImpl.WORD_MASK);
+		long word;
+		do {
+			word = visited.get(index);
+			if ((word & mask) != 0) {
+				return false;
+			}
+		} while (!visited.compareAndSet(index, word, word | mask));
+		return true;
+	}
+
+	int[] getNeighbours(Adjacency adjacency, int node) {
+		checkNode(node);
+		if (adjacency == null) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(adjacency.targets, adjacency.offsets[node],
+				adjacency.offsets[node + 1]);
+	}
+
+	Adjacency getAdjacency(Adjacency[] adjacencies, int propertyId) {
+		int index = Arrays.binarySearch(this.propertyIds, propertyId);
+		return index < 0 ? null : adjacencies[index];
+	}
+
+	/**
+	 * Returns the adjacencies of the given properties, leaving out properties
+	 * that have no edges.
+	 */
+	Adjacency[] getAdjacencies(Adjacency[] adjacencies, int[] propertyIds) {
+		Adjacency[] result = new Adjacency[propertyIds.length];
+		int count = 0;
+		for (int propertyId : propertyIds) {
+			Adjacency adjacency = getAdjacency(adjacencies, propertyId);
+			if (adjacency != null) {
+				result[count++] = adjacency;
+			}
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	int[] toNodeArray(BitSet nodes) {
+		if (nodes.length() > this.nodeCount) {
+			throw new IndexOutOfBoundsException("Node "
+					+ (nodes.length() - 1) + " is not in the graph.");
+		}
+		return nodes.stream().toArray();
+	}
+
+	BitSet singleton(int node) {
+		checkNode(node);
+		BitSet result = new BitSet(this.nodeCount);
+		result.set(node);
+		return result;
+	}
+
+	void checkNode(int node) {
+		if (node < 0 || node >= this.nodeCount) {
+			throw new IndexOutOfBoundsException("Node " + node
+					+ " is not in the graph.");
+		}
+	}
+
+}
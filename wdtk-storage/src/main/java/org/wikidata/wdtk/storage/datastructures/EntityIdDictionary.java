@@ -0,0 +1,348 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Dictionary that maps the ids of items (Q), properties (P) and lexemes (L) to
+ * dense ordinals and back. The ordinal of an id is the number of ids of the
+ * same type with a smaller numeric part, so the ordinals of each type are the
+ * numbers from 0 to {@link #getSize(char)} - 1. This makes it possible to
+ * store data about entities in arrays that are as large as the number of
+ * entities that exist, rather than as large as the highest id that has been
+ * assigned.
+ * <p>
+ * For each type, the dictionary keeps a {@link RankedBitVector} where the bit
+ * at the position of each numeric id that exists is set. The ordinal of an id
+ * is found with {@link RankedBitVector#countBits(boolean, long)}, and the id of
+ * an ordinal with {@link RankedBitVector#findPosition(boolean, long)}. The
+ * dictionary takes about one bit for each possible numeric id.
+ * <p>
+ * A dictionary is filled with {@link #add(String)} and written with
+ * {@link #save(Path)}. Adding an id changes the ordinals of all greater ids of
+ * the same type, so ordinals should only be used once all ids are added.
+ * Dictionaries opened with {@link #load(Path)} are memory-mapped and read-only;
+ * they are ready to use without reading the file, and can be used by several
+ * threads at once. Dictionaries that are being built are not thread-safe.
+ *
+ */
+public class EntityIdDictionary {
+
+	/**
+	 * The prefixes of the supported entity types, in the order in which they
+	 * are stored.
+	 */
+	static final String TYPES = "QPL";
+
+	/**
+	 * Marker at the start of dictionary files.
+	 */
+	static final long MAGIC = 0x5744544B49444943L;
+
+	static final long VERSION = 2;
+
+	final RankedBitVector[] bitVectors;
+
+	/**
+	 * Constructs an empty dictionary.
+	 */
+	public EntityIdDictionary() {
+		this.bitVectors = new RankedBitVector[TYPES.length()];
+		for (int i = 0; i < this.bitVectors.length; i++) {
+			this.bitVectors[i] = new RankedBitVectorImpl();
+		}
+	}
+
+	EntityIdDictionary(RankedBitVector[] bitVectors) {
+		this.bitVectors = bitVectors;
+	}
+
+	/**
+	 * Opens a dictionary that was written with {@link #save(Path)}. The file
+	 * is mapped into memory, so this method returns without reading it. The
+	 * returned dictionary cannot be modified.
+	 *
+	 * @param file
+	 *            the file to open
+	 * @return the dictionary
+	 * @throws IOException
+	 *             if the file could not be opened or is not a dictionary file
+	 */
+	public static EntityIdDictionary load(Path file) throws IOException {
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Dictionary file " + file
+						+ " is too large to be mapped.");
+			}
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+					channel.size());
+		}
+
+		try {
+			if (buffer.getLong() != MAGIC || buffer.getLong() != VERSION) {
+				throw new IOException("File " + file
+						+ " is not a dictionary file of a supported version.");
+			}
+			RankedBitVector[] bitVectors = new RankedBitVector[TYPES.length()];
+			for (int i = 0; i < bitVectors.length; i++) {
+				if (buffer.getLong() != TYPES.charAt(i)) {
+					throw new IOException("Unexpected entity type in "
+							+ file + ".");
+				}
+				bitVectors[i] = MappedRankedBitVector.read(buffer);
+			}
+			return new EntityIdDictionary(bitVectors);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Dictionary file " + file
+					+ " is truncated or corrupted.", e);
+		}
+	}
+
+	/**
+	 * Returns a read-only copy of this dictionary that is kept in memory. Like
+	 * a dictionary opened with {@link #load(Path)}, the copy can be used by
+	 * several threads at once.
+	 *
+	 * @return the read-only copy
+	 */
+	public EntityIdDictionary toReadOnly() {
+		RankedBitVector[] copies = new RankedBitVector[this.bitVectors.length];
+		for (int i = 0; i < copies.length; i++) {
+			copies[i] = MappedRankedBitVector.copyOf(toBitVectorImpl(this.bitVectors[i]));
+		}
+		return new EntityIdDictionary(copies);
+	}
+
+	/**
+	 * Writes this dictionary to the given file, replacing the file if it
+	 * exists.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public void save(Path file) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(file)))) {
+			output.writeLong(MAGIC);
+			output.writeLong(VERSION);
+			for (int i = 0; i < this.bitVectors.length; i++) {
+				output.writeLong(TYPES.charAt(i));
+				MappedRankedBitVector.write(toBitVectorImpl(this.bitVectors[i]),
+						output);
+			}
+		}
+	}
+
+	/**
+	 * Adds the given id to the dictionary.
+	 *
+	 * @param id
+	 *            an id such as "Q42", "P31" or "L7"
+	 * @throws IllegalArgumentException
+	 *             if the id is not the id of an item, property or lexeme
+	 * @throws UnsupportedOperationException
+	 *             if the dictionary was opened from a file
+	 */
+	public void add(String id) {
+		add(getType(id), getNumericId(id));
+	}
+
+	/**
+	 * Adds the id with the given type and numeric part to the dictionary.
+	 *
+	 * @param type
+	 *            the prefix of the id, 'Q', 'P' or 'L'
+	 * @param numericId
+	 *            the numeric part of the id
+	 * @throws IllegalArgumentException
+	 *             if the type is not supported or the number is negative
+	 * @throws UnsupportedOperationException
+	 *             if the dictionary was opened from a file
+	 */
+	public void add(char type, long numericId) {
+		if (numericId < 0) {
+			throw new IllegalArgumentException(
+					"Numeric ids must not be negative.");
+		}
+		RankedBitVector bitVector = getBitVector(type);
+		if (!bitVector.getBit(numericId)) {
+			bitVector.setBit(numericId, true);
+		}
+	}
+
+	/**
+	 * Returns true if the given id is in the dictionary.
+	 *
+	 * @param id
+	 *            an id such as "Q42", "P31" or "L7"
+	 * @return true if the id has been added
+	 */
+	public boolean contains(String id) {
+		return getOrdinal(id) >= 0;
+	}
+
+	/**
+	 * Returns the ordinal of the given id.
+	 *
+	 * @param id
+	 *            an id such as "Q42", "P31" or "L7"
+	 * @return the ordinal of the id among the ids of its type, or -1 if the id
+	 *         is not in the dictionary
+	 * @throws IllegalArgumentException
+	 *             if the id is not the id of an item, property or lexeme
+	 */
+	public long getOrdinal(String id) {
+		return getOrdinal(getType(id), getNumericId(id));
+	}
+
+	/**
+	 * Returns the ordinal of the id with the given type and numeric part.
+	 *
+	 * @param type
+	 *            the prefix of the id, 'Q', 'P' or 'L'
+	 * @param numericId
+	 *            the numeric part of the id
+	 * @return the ordinal of the id among the ids of its type, or -1 if the id
+	 *         is not in the dictionary
+	 */
+	public long getOrdinal(char type, long numericId) {
+		RankedBitVector bitVector = getBitVector(type);
+		if (numericId < 0 || !bitVector.getBit(numericId)) {
+			return -1;
+		}
+		return bitVector.countBits(true, numericId) - 1;
+	}
+
+	/**
+	 * Returns the numeric part of the id that has the given ordinal.
+	 *
+	 * @param type
+	 *            the prefix of the id, 'Q', 'P' or 'L'
+	 * @param ordinal
+	 *            the ordinal of the id
+	 * @return the numeric part of the id, or -1 if there is no id with this
+	 *         ordinal
+	 */
+	public long getNumericId(char type, long ordinal) {
+		if (ordinal < 0) {
+			return -1;
+		}
+		long position = getBitVector(type).findPosition(true, ordinal + 1);
+		return position == RankedBitVector.NOT_FOUND ? -1 : position;
+	}
+
+	/**
+	 * Returns the id that has the given ordinal.
+	 *
+	 * @param type
+	 *            the prefix of the id, 'Q', 'P' or 'L'
+	 * @param ordinal
+	 *            the ordinal of the id
+	 * @return the id, such as "Q42", or null if there is no id with this
+	 *         ordinal
+	 */
+	public String getId(char type, long ordinal) {
+		long numericId = getNumericId(type, ordinal);
+		return numericId < 0 ? null : type + Long.toString(numericId);
+	}
+
+	/**
+	 * Returns the number of ids of the given type in the dictionary. This is
+	 * the size that an array needs to have to store one value per id.
+	 *
+	 * @param type
+	 *            the prefix of the ids, 'Q', 'P' or 'L'
+	 * @return the number of ids
+	 */
+	public long getSize(char type) {
+		RankedBitVector bitVector = getBitVector(type);
+		if (bitVector.size() == 0) {
+			return 0;
+		}
+		return bitVector.countBits(true, bitVector.size() - 1);
+	}
+
+	/**
+	 * Returns the bit vector for the given type of ids.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the type is not supported
+	 */
+	RankedBitVector getBitVector(char type) {
+		int index = TYPES.indexOf(type);
+		if (index < 0) {
+			throw new IllegalArgumentException("Unsupported entity type '"
+					+ type + "'.");
+		}
+		return this.bitVectors[index];
+	}
+
+	/**
+	 * Returns the type of the given id, without checking if it is supported.
+	 */
+	static char getType(String id) {
+		if (id.length() < 2) {
+			throw new IllegalArgumentException("Invalid entity id \"" + id
+					+ "\".");
+		}
+		return id.charAt(0);
+	}
+
+	/**
+	 * Returns the numeric part of the given id.
+	 */
+	static long getNumericId(String id) {
+		try {
+			long result = Long.parseLong(id.substring(1));
+			if (result >= 0 && Character.isDigit(id.charAt(1))) {
+				return result;
+			}
+		} catch (NumberFormatException e) {
+			// handled below
+		}
+		throw new IllegalArgumentException("Invalid entity id \"" + id + "\".");
+	}
+
+	/**
+	 * Returns a {@link BitVectorImpl} with the bits of the given vector,
+	 * without copying it if possible.
+	 */
+	static BitVectorImpl toBitVectorImpl(RankedBitVector bitVector) {
+		if (bitVector instanceof RankedBitVectorImpl) {
+			return ((RankedBitVectorImpl) bitVector).bitVector;
+		}
+		return new BitVectorImpl(bitVector);
+	}
+
+}
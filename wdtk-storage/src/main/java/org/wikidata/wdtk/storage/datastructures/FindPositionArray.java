@@ -20,18 +20,16 @@ package org.wikidata.wdtk.storage.datastructures;
  * #L%
  */
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-
-import org.apache.commons.lang3.ArrayUtils;
 
 /**
  * This class keeps the positions where the <i>n</i>-th <i>bit</i> value can be
  * found in a bit vector (<i>bit</i> can be <code>true</code> or
- * <code>false</code>). This class uses an array to store these positions. Each
- * cell of the array covers a block in the bit vector, and to find the positions
- * in this block, the method iterates on the bit vector.
+ * <code>false</code>). This class uses an array to store these positions for
+ * every <i>k</i>-th occurrence, where <i>k</i> is the block size. To find the
+ * positions in between, the method uses these positions as hints for a search
+ * in the directory of a {@link CountBitsArray}, which does not need to look at
+ * individual bits.
  * <p>
  * For example, let us suppose we have the following bit vector: 11010001 (0 is
  * <code>false</code> and 1 is <code>true</code>), with a block size of 2. For
@@ -53,9 +51,10 @@ import org.apache.commons.lang3.ArrayUtils;
  * Please observe that the blocks have the same size in number of occurrences,
  * but may cover different number of positions in the bit vector.
  * <p>
- * For efficiency reasons, this class assumes that the bit vector is unmodified.
- * Any modification of the bit vector needs to be notified in
- * {@link FindPositionArray#update()}.
+ * The array is computed lazily and only as far as it is needed. Any
+ * modification of the bit vector needs to be notified in
+ * {@link FindPositionArray#update(long)}, which discards only the positions
+ * that come after the modified position.
  * 
  * @see RankedBitVectorImpl
  * 
@@ -69,9 +68,9 @@ class FindPositionArray {
 	final boolean bit;
 
 	/**
-	 * The bit vector, which is assumed unmodified.
+	 * The bit vector.
 	 */
-	final BitVector bitVector;
+	final BitVectorImpl bitVector;
 
 	/**
 	 * This is the size of each block of occurrences.
@@ -79,15 +78,22 @@ class FindPositionArray {
 	final int blockSize;
 
 	/**
-	 * If this value is <code>true</code>, there is a new bit vector and the
-	 * array needs to be updated.
+	 * The directory that is used to find positions between the ones stored in
+	 * this array.
+	 */
+	final CountBitsArray countBitsArray;
+
+	/**
+	 * This array contains the position. Only the first
+	 * {@link #positionCount} entries are valid.
 	 */
-	boolean hasChanged;
+	long[] positionArray = new long[] { -1 };
 
 	/**
-	 * This array contains the position.
+	 * Number of valid entries in {@link #positionArray}; the first entry is
+	 * always valid.
 	 */
-	long[] positionArray;
+	int positionCount = 1;
 
 	/**
 	 * Constructs a new array using a given block size of occurrences.
@@ -101,7 +107,7 @@ class FindPositionArray {
 	 * @throws IllegalArgumentException
 	 *             if block size is less than 64
 	 */
-	public FindPositionArray(BitVector bitVector, boolean bit,
+	public FindPositionArray(BitVectorImpl bitVector, boolean bit,
 			int blockSizeGTE64) {
 		this(blockSizeGTE64, bitVector, bit);
 		if (blockSizeGTE64 < 0x40) {
@@ -124,14 +130,32 @@ class FindPositionArray {
 	 * @param blockSize
 	 *            block size; this value must be a positive number.
 	 */
-	FindPositionArray(int blockSize, BitVector bitVector, boolean bit) {
+	FindPositionArray(int blockSize, BitVectorImpl bitVector, boolean bit) {
+		this(new CountBitsArray(bitVector,
+				RankedBitVectorImpl.defaultCountBitsBlockSize), bit, blockSize);
+	}
+
+	/**
+	 * Constructs a new array using a given block size of occurrences that
+	 * uses the given count array for its searches. The count array can be
+	 * shared with other objects, but it needs to be notified of changes by the
+	 * owner of the bit vector.
+	 * 
+	 * @param countBitsArray
+	 *            count array of the bit vector
+	 * @param bit
+	 *            bit
+	 * @param blockSize
+	 *            block size; this value must be a positive number.
+	 */
+	FindPositionArray(CountBitsArray countBitsArray, boolean bit, int blockSize) {
 		if (blockSize < 1) {
 			throw new IllegalArgumentException(
 					"The block size must be a positive number. The received value was: "
 							+ blockSize + ".");
 		}
-		this.bitVector = bitVector;
-		this.hasChanged = true;
+		this.countBitsArray = countBitsArray;
+		this.bitVector = countBitsArray.bitVector;
 		this.bit = bit;
 		this.blockSize = blockSize;
 	}
@@ -146,83 +170,86 @@ class FindPositionArray {
 	 *         this value is not found
 	 */
 	public long findPosition(long nOccurrence) {
-		updateCount();
-		if (nOccurrence <= 0) {
+		if (nOccurrence <= 0 || nOccurrence > getTotalCount()) {
 			return RankedBitVector.NOT_FOUND;
 		}
 		int findPos = (int) (nOccurrence / this.blockSize);
-		if (findPos < this.positionArray.length) {
-			long pos0 = this.positionArray[findPos];
-			long leftOccurrences = nOccurrence - (findPos * this.blockSize);
-			if (leftOccurrences == 0) {
-				return pos0;
-			}
-			for (long index = pos0 + 1; index < this.bitVector.size(); index++) {
-				if (this.bitVector.getBit(index) == this.bit) {
-					leftOccurrences--;
-				}
-				if (leftOccurrences == 0) {
-					return index;
-				}
-			}
+		ensurePositions(findPos + 1);
+		long pos0 = this.positionArray[findPos];
+		if (nOccurrence == (long) findPos * this.blockSize) {
+			return pos0;
 		}
-		return RankedBitVector.NOT_FOUND;
+		long pos1 = findPos + 1 < this.positionCount ? this.positionArray[findPos + 1]
+				: this.bitVector.size - 1;
+		return this.countBitsArray.findPosition(this.bit, nOccurrence,
+				pos0 + 1, pos1);
 	}
 
 	/**
-	 * Returns a list of Long that contains the indices of positions computed
-	 * according to the given bit vector.
-	 * 
-	 * @return a list of Long that contains the indices of positions computed
-	 *         according to the given bit vector
+	 * Returns the number of occurrences of the bit in the bit vector.
 	 */
-	List<Long> getPositionList() {
-		List<Long> ret = new ArrayList<>();
-
-		ret.add(-1L);
-		/*
-		 * This -1 is pointing to the previous position of the first valid
-		 * position of the bit vector, which starts at index 0. Since the zeroth
-		 * occurrence of a bit is undefined, the first occurrence can be at
-		 * position 0, or later.
-		 */
-
-		long count = 0;
-		for (long index = 0; index < this.bitVector.size(); index++) {
-			if (this.bitVector.getBit(index) == this.bit) {
-				count++;
+	long getTotalCount() {
+		return this.countBitsArray.countBits(this.bit,
+				this.bitVector.size - 1);
+	}
+
+	/**
+	 * Makes sure that the array contains all positions up to the given index,
+	 * as far as they exist.
+	 */
+	void ensurePositions(int index) {
+		if (index < this.positionCount) {
+			return;
+		}
+		long totalCount = getTotalCount();
+		while (this.positionCount <= index) {
+			long nOccurrence = (long) this.positionCount * this.blockSize;
+			if (nOccurrence > totalCount) {
+				break;
 			}
-			if (count >= this.blockSize) {
-				count = 0;
-				ret.add(index);
+			if (this.positionCount == this.positionArray.length) {
+				this.positionArray = Arrays.copyOf(this.positionArray,
+						2 * this.positionArray.length);
 			}
+			this.positionArray[this.positionCount] = this.countBitsArray
+					.findPosition(this.bit, nOccurrence,
+							this.positionArray[this.positionCount - 1] + 1,
+							this.bitVector.size - 1);
+			this.positionCount++;
 		}
-		return ret;
 	}
 
 	@Override
 	public String toString() {
-		updateCount();
-		return Arrays.toString(this.positionArray);
+		ensurePositions(Integer.MAX_VALUE - 1);
+		return Arrays.toString(Arrays.copyOf(this.positionArray,
+				this.positionCount));
 	}
 
 	/**
 	 * Notifies this object that the bit vector has changed, and therefore, the
-	 * computed internal array must be updated.
+	 * computed internal array must be updated. The count array is notified as
+	 * well.
 	 */
 	public void update() {
-		this.hasChanged = true;
+		this.countBitsArray.update();
+		this.positionCount = 1;
 	}
 
 	/**
-	 * This method updates the internal array only if the bit vector has been
-	 * changed since the last update or creation of this class.
+	 * Notifies this object that the bit at the given position has changed or
+	 * has been added. Only the positions of occurrences at or after this
+	 * position are discarded. The count array is notified as well.
+	 * 
+	 * @param position
+	 *            position of the modified bit
 	 */
-	void updateCount() {
-		if (this.hasChanged) {
-			this.positionArray = ArrayUtils.toPrimitive(getPositionList()
-					.toArray(new Long[0]));
-			this.hasChanged = false;
+	public void update(long position) {
+		this.countBitsArray.update(position);
+		while (this.positionCount > 1
+				&& this.positionArray[this.positionCount - 1] >= position) {
+			this.positionCount--;
 		}
 	}
+
 }
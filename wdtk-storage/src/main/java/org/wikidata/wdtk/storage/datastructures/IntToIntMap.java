@@ -0,0 +1,345 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Arrays;
+
+/**
+ * Map from <b>int</b> keys to <b>int</b> values that does not box keys or
+ * values. It is meant for counting large numbers of things that are identified
+ * by numbers, such as the uses of entities with a given numeric id. Keys that
+ * have not been stored have the value 0.
+ * <p>
+ * The map uses open addressing with linear probing in two parallel arrays,
+ * which requires 8 bytes per slot. The arrays are kept at most three
+ * quarters full. Keys cannot be removed individually.
+ * <p>
+ * This is half the memory of a {@link LongToLongMap}, which matters where
+ * many maps are kept at once, such as the rows of a
+ * {@link CooccurrenceMatrix}. Counts that could exceed the range of
+ * <b>int</b> need a {@link LongToLongMap}.
+ * <p>
+ * This class is not thread-safe. To count in parallel, use one map per thread
+ * and combine the results with {@link #merge(IntToIntMap)}.
+ *
+ */
+public class IntToIntMap {
+
+	/**
+	 * Consumer for the entries of a {@link IntToIntMap}.
+	 */
+	@FunctionalInterface
+	public interface EntryConsumer {
+		/**
+		 * Processes one entry of the map.
+		 *
+		 * @param key
+		 *            the key of the entry
+		 * @param value
+		 *            the value of the entry
+		 */
+		void accept(int key, int value);
+	}
+
+	static final int MINIMUM_CAPACITY = 16;
+
+	/**
+	 * Keys of the slots. Empty slots have key 0; the key 0 itself is stored
+	 * separately.
+	 */
+	int[] keys;
+	int[] values;
+	int mask;
+	int size = 0;
+
+	boolean hasZeroKey = false;
+	int zeroValue = 0;
+
+	/**
+	 * Constructs an empty map.
+	 */
+	public IntToIntMap() {
+		this(MINIMUM_CAPACITY);
+	}
+
+	/**
+	 * Constructs an empty map that can hold the given number of entries
+	 * without growing.
+	 *
+	 * @param expectedSize
+	 *            number of entries that the map should be prepared for
+	 */
+	public IntToIntMap(int expectedSize) {
+		if (expectedSize < 0) {
+			throw new IllegalArgumentException(
+					"The expected size must not be negative.");
+		}
+		allocate(getCapacity(expectedSize));
+	}
+
+	/**
+	 * Returns the value stored for the given key.
+	 *
+	 * @param key
+	 *            the key to look up
+	 * @return the value, or 0 if the key has not been stored
+	 */
+	public int get(int key) {
+		if (key == 0) {
+			return this.zeroValue;
+		}
+		int slot = findSlot(key);
+		return this.keys[slot] == key ? this.values[slot] : 0;
+	}
+
+	/**
+	 * Returns true if a value has been stored for the given key.
+	 *
+	 * @param key
+	 *            the key to look up
+	 * @return true if the key is in the map
+	 */
+	public boolean containsKey(int key) {
+		if (key == 0) {
+			return this.hasZeroKey;
+		}
+		return this.keys[findSlot(key)] == key;
+	}
+
+	/**
+	 * Stores the given value for the given key, replacing any previous value.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the new value
+	 */
+	public void put(int key, int value) {
+		if (key == 0) {
+			addZeroKey();
+			this.zeroValue = value;
+			return;
+		}
+		this.values[insertKey(key)] = value;
+	}
+
+	/**
+	 * Adds the given number to the value stored for the given key. If the key
+	 * has not been stored yet, it is stored with the given number as its value.
+	 *
+	 * @param key
+	 *            the key
+	 * @param delta
+	 *            the number to add
+	 * @return the new value for the key
+	 */
+	public int addTo(int key, int delta) {
+		if (key == 0) {
+			addZeroKey();
+			this.zeroValue += delta;
+			return this.zeroValue;
+		}
+		int slot = insertKey(key);
+		this.values[slot] += delta;
+		return this.values[slot];
+	}
+
+	/**
+	 * Adds one to the value stored for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the new value for the key
+	 */
+	public int increment(int key) {
+		return addTo(key, 1);
+	}
+
+	/**
+	 * Returns the number of keys in this map.
+	 *
+	 * @return number of entries
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Returns true if no key has been stored in this map.
+	 *
+	 * @return true if the map is empty
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Removes all entries from this map.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, 0);
+		Arrays.fill(this.values, 0);
+		this.size = 0;
+		this.hasZeroKey = false;
+		this.zeroValue = 0;
+	}
+
+	/**
+	 * Adds the values of the given map to the values of this map. This can be
+	 * used to combine counts that were gathered separately, e.g., by several
+	 * threads or on several parts of a dump.
+	 *
+	 * @param other
+	 *            the map whose values should be added
+	 */
+	public void merge(IntToIntMap other) {
+		other.forEach(this::addTo);
+	}
+
+	/**
+	 * Passes all entries of this map to the given consumer. The order of the
+	 * entries is not specified. The map must not be modified while this
+	 * method is running.
+	 *
+	 * @param consumer
+	 *            the consumer to call for each entry
+	 */
+	public void forEach(EntryConsumer consumer) {
+		if (this.hasZeroKey) {
+			consumer.accept(0, this.zeroValue);
+		}
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != 0) {
+				consumer.accept(this.keys[i], this.values[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns the keys of this map in ascending order.
+	 *
+	 * @return new array of all keys
+	 */
+	public int[] keys() {
+		int[] result = new int[this.size];
+		int position = 0;
+		if (this.hasZeroKey) {
+			result[position++] = 0;
+		}
+		for (int key : this.keys) {
+			if (key != 0) {
+				result[position++] = key;
+			}
+		}
+		Arrays.sort(result);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		for (int key : keys()) {
+			if (result.length() > 1) {
+				result.append(", ");
+			}
+			result.append(key).append('=').append(get(key));
+		}
+		return result.append('}').toString();
+	}
+
+	/**
+	 * Returns the slot where the given non-zero key is stored, or the empty
+	 * slot where it would have to be stored.
+	 */
+	int findSlot(int key) {
+		int slot = hash(key) & this.mask;
+		while (this.keys[slot] != 0 && this.keys[slot] != key) {
+			slot = (slot + 1) & this.mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Returns the slot of the given non-zero key, adding the key with value 0
+	 * if it is not in the map yet.
+	 */
+	int insertKey(int key) {
+		int slot = findSlot(key);
+		if (this.keys[slot] != key) {
+			if (this.size + 1 > (this.keys.length >> 2) * 3) {
+				grow();
+				slot = findSlot(key);
+			}
+			this.keys[slot] = key;
+			this.size++;
+		}
+		return slot;
+	}
+
+	void addZeroKey() {
+		if (!this.hasZeroKey) {
+			this.hasZeroKey = true;
+			this.size++;
+		}
+	}
+
+	void grow() {
+		int[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		allocate(oldKeys.length << 1);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != 0) {
+				int slot = findSlot(oldKeys[i]);
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	void allocate(int capacity) {
+		this.keys = new int[capacity];
+		this.values = new int[capacity];
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the smallest power of two that keeps a table with the given
+	 * number of entries at most three quarters full.
+	 */
+	static int getCapacity(int expectedSize) {
+		long needed = Math.max(MINIMUM_CAPACITY, (expectedSize * 4L + 2) / 3);
+		if (needed > (1 << 30)) {
+			throw new IllegalArgumentException("Too many entries: "
+					+ expectedSize);
+		}
+		return Integer.highestOneBit((int) needed - 1) << 1;
+	}
+
+	/**
+	 * Spreads the bits of the key so that consecutive ids do not end up in
+	 * long runs of neighbouring slots.
+	 */
+	static int hash(int key) {
+		int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+}
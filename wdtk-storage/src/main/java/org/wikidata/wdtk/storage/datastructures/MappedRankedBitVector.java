@@ -0,0 +1,447 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.Iterator;
+
+/**
+ * Read-only {@link RankedBitVector} that works directly on a buffer, usually a
+ * memory-mapped file. The buffer holds the words of the bit vector, with the
+ * least significant bit first as in {@link BitVectorImpl}, followed by a rank
+ * directory that stores the number of <code>true</code> values before every
+ * block of {@link #WORDS_PER_BLOCK} words, and by two select indexes that
+ * store the block of every {@link #SELECT_SAMPLE_RATE}-th <code>true</code>
+ * and <code>false</code> value. Counting bits therefore needs one lookup in
+ * the directory and a few {@link Long#bitCount(long)} calls. Finding a
+ * position looks up the two samples around the requested occurrence, does a
+ * binary search on the directory between their blocks, and scans the words of
+ * one block. As long as the bits are not very sparse, the samples are only a
+ * few blocks apart, so that this takes constant time; for long runs without
+ * the requested bit, the search takes time logarithmic in the length of the
+ * run.
+ * <p>
+ * Nothing has to be computed when a vector is read, so opening even a large
+ * vector is immediate. Instances are safe to use from several threads.
+ *
+ * @see EntityIdDictionary
+ */
+class MappedRankedBitVector implements RankedBitVector, Iterable<Boolean> {
+
+	/**
+	 * Number of words that are covered by one entry of the rank directory.
+	 */
+	static final int WORDS_PER_BLOCK = 8;
+
+	static final int BITS_PER_BLOCK = WORDS_PER_BLOCK * BitVectorImpl.WORD_SIZE;
+
+	/**
+	 * Number of occurrences of a bit that are covered by one entry of a select
+	 * index.
+	 */
+	static final int SELECT_SAMPLE_RATE = 2048;
+
+	final LongBuffer words;
+
+	/**
+	 * Number of <code>true</code> values before each block of words. The last
+	 * entry is the total number of <code>true</code> values.
+	 */
+	final LongBuffer rankDirectory;
+
+	/**
+	 * Block of each occurrence of <code>true</code> whose number is a multiple
+	 * of {@link #SELECT_SAMPLE_RATE} plus one, starting from the first one.
+	 */
+	final LongBuffer trueSamples;
+
+	/**
+	 * Block of each occurrence of <code>false</code> whose number is a
+	 * multiple of {@link #SELECT_SAMPLE_RATE} plus one, starting from the
+	 * first one.
+	 */
+	final LongBuffer falseSamples;
+
+	final long size;
+
+	/**
+	 * Constructs a bit vector on the given buffers.
+	 *
+	 * @param words
+	 *            the words of the bit vector
+	 * @param rankDirectory
+	 *            the rank directory for these words
+	 * @param trueSamples
+	 *            the select index for <code>true</code> values
+	 * @param falseSamples
+	 *            the select index for <code>false</code> values
+	 * @param size
+	 *            the number of bits in the vector
+	 */
+	MappedRankedBitVector(LongBuffer words, LongBuffer rankDirectory,
+			LongBuffer trueSamples, LongBuffer falseSamples, long size) {
+		this.words = words;
+		this.rankDirectory = rankDirectory;
+		this.trueSamples = trueSamples;
+		this.falseSamples = falseSamples;
+		this.size = size;
+	}
+
+	/**
+	 * Writes the given bit vector in the format that is expected by
+	 * {@link #read(ByteBuffer)}.
+	 *
+	 * @param bitVector
+	 *            the bit vector to write
+	 * @param output
+	 *            the output to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	static void write(BitVectorImpl bitVector, DataOutput output)
+			throws IOException {
+		int wordCount = getWordCount(bitVector.size);
+		output.writeLong(bitVector.size);
+		output.writeLong(wordCount);
+		for (int i = 0; i < wordCount; i++) {
+			output.writeLong(getWord(bitVector, i));
+		}
+
+		long[] rankDirectory = makeRankDirectory(bitVector);
+		for (long count : rankDirectory) {
+			output.writeLong(count);
+		}
+		for (long block : makeSelectIndex(rankDirectory, true, bitVector.size)) {
+			output.writeLong(block);
+		}
+		for (long block : makeSelectIndex(rankDirectory, false, bitVector.size)) {
+			output.writeLong(block);
+		}
+	}
+
+	/**
+	 * Returns a read-only copy of the given bit vector that is kept in memory.
+	 * Unlike {@link RankedBitVectorImpl}, the copy does not update any data
+	 * when it is read, so it can be used by several threads at once.
+	 *
+	 * @param bitVector
+	 *            the bit vector to copy
+	 * @return the copy
+	 */
+	static MappedRankedBitVector copyOf(BitVectorImpl bitVector) {
+		int wordCount = getWordCount(bitVector.size);
+		long[] words = new long[wordCount];
+		for (int i = 0; i < wordCount; i++) {
+			words[i] = getWord(bitVector, i);
+		}
+		long[] rankDirectory = makeRankDirectory(bitVector);
+		return new MappedRankedBitVector(LongBuffer.wrap(words),
+				LongBuffer.wrap(rankDirectory), LongBuffer.wrap(makeSelectIndex(
+						rankDirectory, true, bitVector.size)),
+				LongBuffer.wrap(makeSelectIndex(rankDirectory, false,
+						bitVector.size)), bitVector.size);
+	}
+
+	/**
+	 * Reads a bit vector that was written by
+	 * {@link #write(BitVectorImpl, DataOutput)}. The data is not copied, and
+	 * the position of the buffer is moved to the end of the bit vector.
+	 *
+	 * @param buffer
+	 *            the buffer to read from
+	 * @return the bit vector
+	 */
+	static MappedRankedBitVector read(ByteBuffer buffer) {
+		long size = buffer.getLong();
+		int wordCount = (int) buffer.getLong();
+		LongBuffer words = slice(buffer, wordCount);
+		LongBuffer rankDirectory = slice(buffer, getBlockCount(wordCount) + 1);
+		long trueCount = rankDirectory.get(rankDirectory.limit() - 1);
+		LongBuffer trueSamples = slice(buffer, getSampleCount(trueCount));
+		LongBuffer falseSamples = slice(buffer,
+				getSampleCount(size - trueCount));
+		return new MappedRankedBitVector(words, rankDirectory, trueSamples,
+				falseSamples, size);
+	}
+
+	@Override
+	public long countBits(boolean bit, long position) {
+		if (position < 0) {
+			return 0;
+		}
+		long trueValues;
+		if (position >= this.size) {
+			trueValues = getTotalCount();
+		} else {
+			int wordIndex = (int) (position >> BitVectorImpl.LG_WORD_SIZE);
+			int block = wordIndex / WORDS_PER_BLOCK;
+			trueValues = this.rankDirectory.get(block);
+			for (int i = block * WORDS_PER_BLOCK; i < wordIndex; i++) {
+				trueValues += Long.bitCount(this.words.get(i));
+			}
+			long mask = -1L >>> (BitVectorImpl.WORD_MASK - (position & BitVectorImpl.WORD_MASK));
+			trueValues += Long.bitCount(this.words.get(wordIndex) & mask);
+		}
+		return bit ? trueValues : ((position + 1) - trueValues);
+	}
+
+	@Override
+	public long findPosition(boolean bit, long nOccurrence) {
+		if (nOccurrence <= 0 || nOccurrence > getCount(bit)) {
+			return NOT_FOUND;
+		}
+
+		// last block that starts with fewer occurrences than requested,
+		// which lies between the blocks of the samples around the occurrence
+		LongBuffer samples = bit ? this.trueSamples : this.falseSamples;
+		int sample = (int) ((nOccurrence - 1) / SELECT_SAMPLE_RATE);
+		int low = (int) samples.get(sample);
+		int high = sample + 1 < samples.limit() ? (int) samples
+				.get(sample + 1) : this.rankDirectory.limit() - 2;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (getCountBefore(bit, middle) < nOccurrence) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+
+		long leftOccurrences = nOccurrence - getCountBefore(bit, low);
+		for (int i = low * WORDS_PER_BLOCK; i < this.words.limit(); i++) {
+			long word = bit ? this.words.get(i) : ~this.words.get(i);
+			int count = Long.bitCount(word);
+			if (leftOccurrences <= count) {
+				return ((long) i << BitVectorImpl.LG_WORD_SIZE)
+						+ CountBitsArray.selectInWord(word,
+								(int) leftOccurrences - 1);
+			}
+			leftOccurrences -= count;
+		}
+		return NOT_FOUND;
+	}
+
+	@Override
+	public boolean getBit(long position) {
+		if (position < 0) {
+			throw new IndexOutOfBoundsException("Position " + position
+					+ " is out of bounds.");
+		}
+		if (position >= this.size) {
+			return false;
+		}
+		long word = this.words.get((int) (position >> BitVectorImpl.LG_WORD_SIZE));
+		return ((word >>> (position & BitVectorImpl.WORD_MASK)) & 1) == 1;
+	}
+
+	@Override
+	public long size() {
+		return this.size;
+	}
+
+	@Override
+	public Iterator<Boolean> iterator() {
+		return new BitVectorIterator(this);
+	}
+
+	/**
+	 * This bit vector cannot be modified.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public boolean addBit(boolean bit) {
+		throw new UnsupportedOperationException(
+				"This bit vector cannot be modified.");
+	}
+
+	/**
+	 * This bit vector cannot be modified.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             always
+	 */
+	@Override
+	public void setBit(long position, boolean bit) {
+		throw new UnsupportedOperationException(
+				"This bit vector cannot be modified.");
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof BitVector)) {
+			return false;
+		}
+		BitVector other = (BitVector) obj;
+		if (this.size != other.size()) {
+			return false;
+		}
+		for (long i = 0; i < this.size; i++) {
+			if (getBit(i) != other.getBit(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the same hash code as a {@link BitVectorImpl} with the same
+	 * bits.
+	 */
+	@Override
+	public int hashCode() {
+		int ret = (int) this.size;
+		int fullWords = (int) (this.size >> BitVectorImpl.LG_WORD_SIZE);
+		for (int i = 0; i < fullWords; i++) {
+			ret += (0x1F * this.words.get(i));
+		}
+		if (fullWords < this.words.limit()) {
+			ret += (0x1F * this.words.get(fullWords));
+		}
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (long position = 0; position < this.size; position++) {
+			sb.append(getBit(position) ? "1" : "0");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the number of occurrences of the given bit in the vector.
+	 */
+	long getCount(boolean bit) {
+		return bit ? getTotalCount() : this.size - getTotalCount();
+	}
+
+	long getTotalCount() {
+		return this.rankDirectory.get(this.rankDirectory.limit() - 1);
+	}
+
+	/**
+	 * Returns the number of occurrences of the given bit before the given
+	 * block.
+	 */
+	long getCountBefore(boolean bit, int block) {
+		long trueValues = this.rankDirectory.get(block);
+		return bit ? trueValues : ((long) block * BITS_PER_BLOCK) - trueValues;
+	}
+
+	/**
+	 * Returns the number of <code>true</code> values before every block of the
+	 * given bit vector, followed by the total number of <code>true</code>
+	 * values.
+	 */
+	static long[] makeRankDirectory(BitVectorImpl bitVector) {
+		int wordCount = getWordCount(bitVector.size);
+		long[] rankDirectory = new long[getBlockCount(wordCount) + 1];
+		long count = 0;
+		for (int i = 0; i < wordCount; i++) {
+			if (i % WORDS_PER_BLOCK == 0) {
+				rankDirectory[i / WORDS_PER_BLOCK] = count;
+			}
+			count += Long.bitCount(getWord(bitVector, i));
+		}
+		rankDirectory[rankDirectory.length - 1] = count;
+		return rankDirectory;
+	}
+
+	/**
+	 * Returns the block of every {@link #SELECT_SAMPLE_RATE}-th occurrence of
+	 * the given bit, starting with the first one, based on the given rank
+	 * directory.
+	 */
+	static long[] makeSelectIndex(long[] rankDirectory, boolean bit, long size) {
+		long trueCount = rankDirectory[rankDirectory.length - 1];
+		long[] samples = new long[getSampleCount(bit ? trueCount : size
+				- trueCount)];
+		int sample = 0;
+		for (int block = 0; block < rankDirectory.length - 1; block++) {
+			long countAfter;
+			if (block + 1 < rankDirectory.length - 1) {
+				countAfter = bit ? rankDirectory[block + 1]
+						: ((long) (block + 1) * BITS_PER_BLOCK)
+								- rankDirectory[block + 1];
+			} else {
+				countAfter = bit ? trueCount : size - trueCount;
+			}
+			while (sample < samples.length
+					&& (long) sample * SELECT_SAMPLE_RATE < countAfter) {
+				samples[sample++] = block;
+			}
+		}
+		return samples;
+	}
+
+	/**
+	 * Returns the number of entries of a select index for a bit with the given
+	 * number of occurrences.
+	 */
+	static int getSampleCount(long occurrences) {
+		return (int) ((occurrences + SELECT_SAMPLE_RATE - 1) / SELECT_SAMPLE_RATE);
+	}
+
+	/**
+	 * Returns the number of words needed for the given number of bits.
+	 */
+	static int getWordCount(long sizeInBits) {
+		return (int) ((sizeInBits + BitVectorImpl.WORD_MASK) >> BitVectorImpl.LG_WORD_SIZE);
+	}
+
+	static int getBlockCount(int wordCount) {
+		return (wordCount + WORDS_PER_BLOCK - 1) / WORDS_PER_BLOCK;
+	}
+
+	/**
+	 * Returns the given word of a bit vector, with all bits after the end of
+	 * the vector cleared.
+	 */
+	static long getWord(BitVectorImpl bitVector, int index) {
+		long word = bitVector.arrayOfBits[index];
+		long usedBits = bitVector.size - ((long) index << BitVectorImpl.LG_WORD_SIZE);
+		if (usedBits < BitVectorImpl.WORD_SIZE) {
+			word &= (1L << usedBits) - 1;
+		}
+		return word;
+	}
+
+	/**
+	 * Returns a view on the given number of longs at the position of the
+	 * buffer, and moves the position of the buffer after them.
+	 */
+	static LongBuffer slice(ByteBuffer buffer, int longCount) {
+		ByteBuffer view = buffer.duplicate();
+		view.limit(view.position() + longCount * 8);
+		buffer.position(view.limit());
+		return view.slice().asLongBuffer();
+	}
+
+}
@@ -27,7 +27,9 @@ import java.util.Iterator;
  * auxiliary classes to have efficient performance for the methods of a ranked
  * bit vector. Hence, {@link #countBits(boolean, long)} uses an instance of
  * {@link CountBitsArray} and {@link #findPosition(boolean, long)} uses two
- * instances of {@link FindPositionArray}.
+ * instances of {@link FindPositionArray}, which share the count array. All of
+ * them work on whole words of the bit vector, and are updated incrementally
+ * when bits are added or changed.
  * 
  * @see CountBitsArray
  * 
@@ -37,7 +39,7 @@ import java.util.Iterator;
  */
 public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 
-	static final int defaultCountBitsBlockSize = 0x400;
+	static final int defaultCountBitsBlockSize = 0x200;
 
 	static final int defaultFindPositionBlockSize = 0x2000;
 
@@ -56,10 +58,10 @@ public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 		this.bitVector = new BitVectorImpl();
 		this.countBitsArray = new CountBitsArray(this.bitVector,
 				defaultCountBitsBlockSize);
-		this.findPositionOfFalse = new FindPositionArray(this.bitVector, false,
-				defaultFindPositionBlockSize);
-		this.findPositionOfTrue = new FindPositionArray(this.bitVector, true,
-				defaultFindPositionBlockSize);
+		this.findPositionOfFalse = new FindPositionArray(this.countBitsArray,
+				false, defaultFindPositionBlockSize);
+		this.findPositionOfTrue = new FindPositionArray(this.countBitsArray,
+				true, defaultFindPositionBlockSize);
 	}
 
 	/**
@@ -78,10 +80,10 @@ public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 			this.countBitsArray = new CountBitsArray(this.bitVector,
 					defaultCountBitsBlockSize);
 		}
-		this.findPositionOfFalse = new FindPositionArray(this.bitVector, false,
-				defaultFindPositionBlockSize);
-		this.findPositionOfTrue = new FindPositionArray(this.bitVector, true,
-				defaultFindPositionBlockSize);
+		this.findPositionOfFalse = new FindPositionArray(this.countBitsArray,
+				false, defaultFindPositionBlockSize);
+		this.findPositionOfTrue = new FindPositionArray(this.countBitsArray,
+				true, defaultFindPositionBlockSize);
 
 	}
 
@@ -96,10 +98,10 @@ public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 		this.bitVector = new BitVectorImpl(initialSize);
 		this.countBitsArray = new CountBitsArray(this.bitVector,
 				defaultCountBitsBlockSize);
-		this.findPositionOfFalse = new FindPositionArray(this.bitVector, false,
-				defaultFindPositionBlockSize);
-		this.findPositionOfTrue = new FindPositionArray(this.bitVector, true,
-				defaultFindPositionBlockSize);
+		this.findPositionOfFalse = new FindPositionArray(this.countBitsArray,
+				false, defaultFindPositionBlockSize);
+		this.findPositionOfTrue = new FindPositionArray(this.countBitsArray,
+				true, defaultFindPositionBlockSize);
 	}
 
 	/**
@@ -122,16 +124,22 @@ public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 			int findPositionBlockSize) {
 		this.bitVector = new BitVectorImpl(initialSize);
 		this.countBitsArray = new CountBitsArray(this.bitVector, countBlockSize);
-		this.findPositionOfFalse = new FindPositionArray(this.bitVector, false,
-				findPositionBlockSize);
-		this.findPositionOfTrue = new FindPositionArray(this.bitVector, true,
-				findPositionBlockSize);
+		if (findPositionBlockSize < 0x40) {
+			throw new IllegalArgumentException(
+					"The block size must be greater than or equal to " + 0x40
+							+ ". The received value was "
+							+ findPositionBlockSize + ".");
+		}
+		this.findPositionOfFalse = new FindPositionArray(this.countBitsArray,
+				false, findPositionBlockSize);
+		this.findPositionOfTrue = new FindPositionArray(this.countBitsArray,
+				true, findPositionBlockSize);
 	}
 
 	@Override
 	public boolean addBit(boolean bit) {
 		boolean ret = this.bitVector.addBit(bit);
-		notifyObservers();
+		notifyObservers(this.bitVector.size - 1);
 		return ret;
 	}
 
@@ -175,10 +183,17 @@ public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 		return this.bitVector.iterator();
 	}
 
-	void notifyObservers() {
-		this.countBitsArray.update();
-		this.findPositionOfFalse.update();
-		this.findPositionOfTrue.update();
+	/**
+	 * Notifies the auxiliary objects that the bit at the given position has
+	 * changed or has been added.
+	 *
+	 * @param position
+	 *            position of the modified bit
+	 */
+	void notifyObservers(long position) {
+		this.countBitsArray.update(position);
+		this.findPositionOfFalse.update(position);
+		this.findPositionOfTrue.update(position);
 	}
 
 	@Override
@@ -186,7 +201,7 @@ public class RankedBitVectorImpl implements RankedBitVector, Iterable<Boolean> {
 		boolean oldBit = getBit(position);
 		if (oldBit != bit) {
 			this.bitVector.setBit(position, bit);
-			notifyObservers();
+			notifyObservers(position);
 		}
 	}
 
@@ -0,0 +1,236 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * {@link BitContainer} that stores its positions as ranges of consecutive
+ * positions. Each range takes four bytes, so this is the smallest
+ * representation for chunks that consist of a few long ranges, like the ids
+ * of entities that were created in a batch. Containers of this type are not
+ * modified in place: adding or removing a position converts them to one of
+ * the other representations.
+ */
+class RunBitContainer extends BitContainer {
+
+	/**
+	 * Start of each range, followed by the length of the range minus one.
+	 */
+	final char[] runs;
+	final int runCount;
+	final int cardinality;
+
+	/**
+	 * Constructs a container on the given ranges.
+	 *
+	 * @param runs
+	 *            array that contains the start of each range, followed by the
+	 *            length of the range minus one, with the ranges sorted and not
+	 *            touching each other
+	 * @param runCount
+	 *            number of ranges
+	 */
+	RunBitContainer(char[] runs, int runCount) {
+		this.runs = runs;
+		this.runCount = runCount;
+		int count = 0;
+		for (int i = 0; i < runCount; i++) {
+			count += getLength(i);
+		}
+		this.cardinality = count;
+	}
+
+	@Override
+	int getCardinality() {
+		return this.cardinality;
+	}
+
+	@Override
+	boolean contains(int value) {
+		int run = findRun(value);
+		return run >= 0 && value <= getEnd(run);
+	}
+
+	@Override
+	BitContainer add(int value) {
+		if (contains(value)) {
+			return this;
+		}
+		return toModifiableContainer().add(value);
+	}
+
+	@Override
+	BitContainer remove(int value) {
+		if (!contains(value)) {
+			return this;
+		}
+		return toModifiableContainer().remove(value);
+	}
+
+	@Override
+	int nextSetBit(int from) {
+		int run = findRun(from);
+		if (run >= 0 && from <= getEnd(run)) {
+			return from;
+		}
+		return run + 1 < this.runCount ? getStart(run + 1) : -1;
+	}
+
+	@Override
+	void orInto(long[] words) {
+		for (int i = 0; i < this.runCount; i++) {
+			setRange(words, getStart(i), getEnd(i));
+		}
+	}
+
+	@Override
+	int getRunCount() {
+		return this.runCount;
+	}
+
+	@Override
+	BitContainer copy() {
+		return this;
+	}
+
+	@Override
+	byte getType() {
+		return TYPE_RUN;
+	}
+
+	@Override
+	void writeContents(DataOutput output) throws IOException {
+		output.writeShort(this.runCount - 1);
+		for (int i = 0; i < 2 * this.runCount; i++) {
+			output.writeChar(this.runs[i]);
+		}
+	}
+
+	/**
+	 * Reads the contents that were written by
+	 * {@link #writeContents(DataOutput)}.
+	 */
+	static RunBitContainer readContents(DataInput input) throws IOException {
+		int runCount = input.readUnsignedShort() + 1;
+		char[] runs = new char[2 * runCount];
+		for (int i = 0; i < runs.length; i++) {
+			runs[i] = input.readChar();
+		}
+		for (int i = 0; i < runCount; i++) {
+			if (runs[2 * i] + runs[2 * i + 1] >= CONTAINER_SIZE
+					|| (i > 0 && runs[2 * i] <= runs[2 * i - 2]
+							+ runs[2 * i - 1] + 1)) {
+				throw new IOException("Invalid run container.");
+			}
+		}
+		return new RunBitContainer(runs, runCount);
+	}
+
+	/**
+	 * Returns a run container with the positions of the given bitmap.
+	 *
+	 * @param words
+	 *            bitmap of {@link BitContainer#WORD_COUNT} words
+	 * @param runCount
+	 *            number of ranges in the bitmap
+	 * @return the container
+	 */
+	static RunBitContainer fromWords(long[] words, int runCount) {
+		char[] runs = new char[2 * runCount];
+		int start = BitmapBitContainer.nextSetBit(words, 0);
+		for (int i = 0; start >= 0; i++) {
+			int end = BitmapBitContainer.nextClearBit(words, start);
+			runs[2 * i] = (char) start;
+			runs[2 * i + 1] = (char) (end - start - 1);
+			start = BitmapBitContainer.nextSetBit(words, end);
+		}
+		return new RunBitContainer(runs, runCount);
+	}
+
+	/**
+	 * Sets all bits of a bitmap in the given range.
+	 *
+	 * @param words
+	 *            the bitmap
+	 * @param start
+	 *            first position of the range
+	 * @param end
+	 *            last position of the range
+	 */
+	static void setRange(long[] words, int start, int end) {
+		int firstWord = start >>> BitVectorImpl.LG_WORD_SIZE;
+		int lastWord = end >>> BitVectorImpl.LG_WORD_SIZE;
+		long firstMask = -1L << start;
+		long lastMask = -1L >>> (BitVectorImpl.WORD_MASK - (end & BitVectorImpl.WORD_MASK));
+		if (firstWord == lastWord) {
+			words[firstWord] |= firstMask & lastMask;
+			return;
+		}
+		words[firstWord] |= firstMask;
+		Arrays.fill(words, firstWord + 1, lastWord, -1L);
+		words[lastWord] |= lastMask;
+	}
+
+	/**
+	 * Returns the last range that starts at or before the given position, or
+	 * -1 if there is none.
+	 */
+	int findRun(int value) {
+		int low = 0;
+		int high = this.runCount - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (getStart(middle) <= value) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return high;
+	}
+
+	int getStart(int run) {
+		return this.runs[2 * run];
+	}
+
+	int getEnd(int run) {
+		return this.runs[2 * run] + this.runs[2 * run + 1];
+	}
+
+	int getLength(int run) {
+		return this.runs[2 * run + 1] + 1;
+	}
+
+	/**
+	 * Returns an array or bitmap container with the same positions.
+	 */
+	BitContainer toModifiableContainer() {
+		long[] words = toWords();
+		return this.cardinality <= MAX_ARRAY_SIZE ? ArrayBitContainer
+				.fromWords(words, this.cardinality) : new BitmapBitContainer(
+				words, this.cardinality);
+	}
+
+}
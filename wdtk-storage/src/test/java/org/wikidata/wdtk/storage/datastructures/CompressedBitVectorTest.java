@@ -0,0 +1,212 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+public class CompressedBitVectorTest {
+
+	/**
+	 * Returns a bit vector with sparse, dense and consecutive positions, and
+	 * the set of these positions.
+	 */
+	CompressedBitVector makeBitVector(long seed, TreeSet<Long> positions) {
+		Random random = new Random(seed);
+		CompressedBitVector bv = new CompressedBitVector();
+		for (int i = 0; i < 1000; i++) {
+			positions.add((long) random.nextInt(1 << 24));
+		}
+		for (int i = 0; i < 20000; i++) {
+			positions.add((1L << 20) + random.nextInt(1 << 16));
+		}
+		for (long position = 5000000; position < 5100000; position++) {
+			positions.add(position);
+		}
+		positions.add(1L << 40);
+		for (long position : positions) {
+			bv.setBit(position, true);
+		}
+		return bv;
+	}
+
+	void assertPositions(TreeSet<Long> expected, CompressedBitVector bv) {
+		assertEquals(expected.size(), bv.getCardinality());
+		PrimitiveIterator.OfLong iterator = bv.positionIterator();
+		for (long position : expected) {
+			assertTrue(iterator.hasNext());
+			assertEquals(position, iterator.nextLong());
+		}
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testSetAndGet() {
+		TreeSet<Long> positions = new TreeSet<>();
+		CompressedBitVector bv = makeBitVector(1, positions);
+
+		assertEquals((1L << 40) + 1, bv.size());
+		assertPositions(positions, bv);
+		for (long position = 4999990; position < 5100010; position++) {
+			assertEquals(positions.contains(position), bv.getBit(position));
+		}
+		assertFalse(bv.getBit(1L << 41));
+		assertThrows(IndexOutOfBoundsException.class, () -> bv.getBit(-1));
+	}
+
+	@Test
+	public void testClearBits() {
+		TreeSet<Long> positions = new TreeSet<>();
+		CompressedBitVector bv = makeBitVector(2, positions);
+
+		for (long position = (1L << 20); position < (1L << 20) + (1 << 16); position += 2) {
+			bv.setBit(position, false);
+			positions.remove(position);
+		}
+		bv.setBit(1L << 40, false);
+		positions.remove(1L << 40);
+		bv.setBit(7, false);
+
+		assertPositions(positions, bv);
+		assertEquals((1L << 40) + 1, bv.size());
+	}
+
+	@Test
+	public void testAddBit() {
+		CompressedBitVector bv = new CompressedBitVector();
+		BitVectorImpl expected = new BitVectorImpl();
+		for (int i = 0; i < 0x300; i++) {
+			bv.addBit((i % 3) == 0);
+			expected.addBit((i % 3) == 0);
+		}
+		assertEquals(0x300, bv.size());
+		assertEquals(expected, bv);
+		assertEquals(bv, expected);
+		assertEquals(expected.hashCode(), bv.hashCode());
+		assertEquals(bv, new CompressedBitVector(expected));
+
+		bv.addBit(false);
+		assertNotEquals(expected, bv);
+	}
+
+	@Test
+	public void testSetOperations() {
+		TreeSet<Long> positions1 = new TreeSet<>();
+		CompressedBitVector bv1 = makeBitVector(3, positions1);
+		TreeSet<Long> positions2 = new TreeSet<>();
+		CompressedBitVector bv2 = makeBitVector(4, positions2);
+		bv2.optimize();
+
+		TreeSet<Long> intersection = new TreeSet<>(positions1);
+		intersection.retainAll(positions2);
+		assertPositions(intersection, bv1.and(bv2));
+		assertPositions(intersection, bv2.and(bv1));
+
+		TreeSet<Long> union = new TreeSet<>(positions1);
+		union.addAll(positions2);
+		assertPositions(union, bv1.or(bv2));
+		assertPositions(union, bv2.or(bv1));
+
+		TreeSet<Long> difference = new TreeSet<>(positions1);
+		difference.removeAll(positions2);
+		assertPositions(difference, bv1.andNot(bv2));
+		TreeSet<Long> otherDifference = new TreeSet<>(positions2);
+		otherDifference.removeAll(positions1);
+		assertPositions(otherDifference, bv2.andNot(bv1));
+
+		assertPositions(positions1, bv1);
+		assertPositions(positions2, bv2);
+	}
+
+	@Test
+	public void testOptimize() {
+		TreeSet<Long> positions = new TreeSet<>();
+		CompressedBitVector bv = makeBitVector(5, positions);
+		CompressedBitVector copy = new CompressedBitVector(bv);
+		bv.optimize();
+
+		assertTrue(bv.containers[bv.findContainer(5050000 >>> 16)] instanceof RunBitContainer);
+		assertTrue(bv.containers[bv.findContainer((1L << 20) >>> 16)] instanceof BitmapBitContainer);
+		assertTrue(bv.containers[bv.findContainer((1L << 40) >>> 16)] instanceof ArrayBitContainer);
+		assertEquals(copy, bv);
+		assertEquals(copy.hashCode(), bv.hashCode());
+		assertPositions(positions, bv);
+
+		bv.setBit(5050000, false);
+		bv.setBit(5200000, true);
+		positions.remove(5050000L);
+		positions.add(5200000L);
+		assertPositions(positions, bv);
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		TreeSet<Long> positions = new TreeSet<>();
+		CompressedBitVector bv = makeBitVector(6, positions);
+		bv.optimize();
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		bv.write(new DataOutputStream(bytes));
+		CompressedBitVector read = CompressedBitVector
+				.read(new DataInputStream(new ByteArrayInputStream(bytes
+						.toByteArray())));
+
+		assertEquals(bv, read);
+		assertEquals(bv.size(), read.size());
+		assertPositions(positions, read);
+	}
+
+	@Test
+	public void testReadInvalidData() {
+		assertThrows(IOException.class, () -> CompressedBitVector
+				.read(new DataInputStream(new ByteArrayInputStream(
+						new byte[] { 1, 2, 3, 4, 5 }))));
+	}
+
+	@Test
+	public void testNextSetBitAndToString() {
+		CompressedBitVector bv = new CompressedBitVector(10);
+		assertEquals(-1, bv.nextSetBit(0));
+		assertEquals("{}", bv.toString());
+
+		bv.setBit(3, true);
+		bv.setBit(70000, true);
+		assertEquals(3, bv.nextSetBit(0));
+		assertEquals(70000, bv.nextSetBit(4));
+		assertEquals(-1, bv.nextSetBit(70001));
+		assertEquals("{3, 70000}", bv.toString());
+	}
+
+}
@@ -0,0 +1,69 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+public class CooccurrenceMatrixTest {
+
+	@Test
+	public void testCounting() {
+		CooccurrenceMatrix matrix = new CooccurrenceMatrix();
+		matrix.increment(5, 31);
+		matrix.increment(5, 31);
+		matrix.addTo(5, 279, 3);
+		matrix.increment(1, 31);
+
+		assertEquals(2, matrix.get(5, 31));
+		assertEquals(3, matrix.get(5, 279));
+		assertEquals(1, matrix.get(1, 31));
+		assertEquals(0, matrix.get(1, 279));
+		assertEquals(0, matrix.get(2, 31));
+		assertEquals(2, matrix.getRowCount());
+		assertEquals(3, matrix.getEntryCount());
+		assertArrayEquals(new int[] { 1, 5 }, matrix.getRowKeys());
+		assertArrayEquals(new int[] { 31, 279 }, matrix.getRow(5).keys());
+		assertNull(matrix.getRow(2));
+	}
+
+	@Test
+	public void testMerge() {
+		CooccurrenceMatrix matrix1 = new CooccurrenceMatrix();
+		matrix1.increment(5, 31);
+		matrix1.increment(6, 31);
+		CooccurrenceMatrix matrix2 = new CooccurrenceMatrix();
+		matrix2.addTo(5, 31, 2);
+		matrix2.increment(7, 17);
+
+		matrix1.merge(matrix2);
+
+		assertEquals(3, matrix1.get(5, 31));
+		assertEquals(1, matrix1.get(6, 31));
+		assertEquals(1, matrix1.get(7, 17));
+		assertEquals(3, matrix1.getRowCount());
+		assertEquals(2, matrix2.getRowCount());
+	}
+
+}
@@ -0,0 +1,165 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class EntityGraphTest {
+
+	/**
+	 * Small class hierarchy: Q5 (human) and Q6 are instances of Q1, which is a
+	 * subclass of Q2, which is a subclass of Q3. Q4 is a subclass of Q3 as
+	 * well. Q7 has no edges.
+	 */
+	EntityGraph makeGraph() {
+		return new EntityGraph.Builder().addEdge(31, 5, 1)
+				.addEdge(31, 6, 1).addEdge(279, 1, 2).addEdge(279, 2, 3)
+				.addEdge(279, 4, 3).addEdge(279, 1, 2).addNode(7).build();
+	}
+
+	BitSet nodes(EntityGraph graph, String... itemIds) {
+		BitSet result = new BitSet();
+		for (String itemId : itemIds) {
+			result.set(graph.getNode(itemId));
+		}
+		return result;
+	}
+
+	@Test
+	public void testNodes() {
+		EntityGraph graph = makeGraph();
+		assertEquals(7, graph.getNodeCount());
+		assertEquals(0, graph.getNode("Q1"));
+		assertEquals(6, graph.getNode("Q7"));
+		assertEquals(-1, graph.getNode("Q8"));
+		assertEquals("Q5", graph.getItemId(4));
+		assertArrayEquals(new int[] { 31, 279 }, graph.getPropertyIds());
+		assertThrows(IllegalArgumentException.class,
+				() -> graph.getNode("P31"));
+	}
+
+	@Test
+	public void testNeighbours() {
+		EntityGraph graph = makeGraph();
+		int q1 = graph.getNode("Q1");
+		int q3 = graph.getNode("Q3");
+
+		assertEquals(3, graph.getEdgeCount(279));
+		assertEquals(0, graph.getEdgeCount(361));
+		assertArrayEquals(new int[] { graph.getNode("Q2") },
+				graph.getSuccessors(279, q1));
+		assertArrayEquals(new int[] { graph.getNode("Q5"), graph.getNode("Q6") },
+				graph.getPredecessors(31, q1));
+		assertArrayEquals(new int[] { graph.getNode("Q2"), graph.getNode("Q4") },
+				graph.getPredecessors(279, q3));
+		assertArrayEquals(new int[0], graph.getSuccessors(361, q1));
+		assertThrows(IndexOutOfBoundsException.class,
+				() -> graph.getSuccessors(279, 7));
+	}
+
+	@Test
+	public void testAncestorsAndDescendants() {
+		EntityGraph graph = makeGraph();
+
+		assertEquals(nodes(graph, "Q2", "Q3"),
+				graph.getAncestors(graph.getNode("Q1"), 279));
+		assertEquals(nodes(graph, "Q1", "Q2", "Q3"),
+				graph.getAncestors(graph.getNode("Q5"), 31, 279));
+		assertEquals(nodes(graph, "Q1", "Q2", "Q4"),
+				graph.getDescendants(graph.getNode("Q3"), 279));
+		assertEquals(new BitSet(), graph.getAncestors(graph.getNode("Q7"), 279));
+	}
+
+	@Test
+	public void testInstancesOfSubclasses() {
+		EntityGraph graph = makeGraph();
+		BitSet classes = graph.getDescendants(graph.getNode("Q2"), 279);
+		classes.set(graph.getNode("Q2"));
+		assertEquals(nodes(graph, "Q5", "Q6"),
+				graph.getNeighbours(classes, true, 31));
+	}
+
+	@Test
+	public void testReachable() {
+		EntityGraph graph = makeGraph();
+		assertTrue(graph.isReachable(graph.getNode("Q5"), graph.getNode("Q3"),
+				31, 279));
+		assertFalse(graph.isReachable(graph.getNode("Q5"), graph.getNode("Q3"),
+				279));
+		assertFalse(graph.isReachable(graph.getNode("Q3"), graph.getNode("Q5"),
+				31, 279));
+	}
+
+	@Test
+	public void testCycle() {
+		EntityGraph graph = new EntityGraph.Builder().addEdge(279, 1, 2)
+				.addEdge(279, 2, 1).addEdge(279, 2, 3).build();
+		assertEquals(nodes(graph, "Q1", "Q2", "Q3"),
+				graph.getAncestors(graph.getNode("Q1"), 279));
+		assertEquals(nodes(graph, "Q1", "Q2", "Q3"), graph.getReachableParallel(
+				nodes(graph, "Q1"), false, 279));
+	}
+
+	@Test
+	public void testParallelMatchesSequential() {
+		EntityGraph.Builder builder = new EntityGraph.Builder();
+		Random random = new Random(42);
+		for (int i = 0; i < 20000; i++) {
+			int source = 1 + random.nextInt(5000);
+			builder.addEdge(279, source, 1 + random.nextInt(source));
+			builder.addEdge(31, 5000 + random.nextInt(5000),
+					1 + random.nextInt(5000));
+		}
+		EntityGraph graph = builder.build();
+
+		for (int i = 0; i < 20; i++) {
+			BitSet sources = new BitSet();
+			sources.set(random.nextInt(graph.getNodeCount()));
+			sources.set(random.nextInt(graph.getNodeCount()));
+			assertEquals(graph.getReachable(sources, true, 31, 279),
+					graph.getReachableParallel(sources, true, 31, 279));
+			assertEquals(graph.getReachable(sources, false, 279),
+					graph.getReachableParallel(sources, false, 279));
+		}
+	}
+
+	@Test
+	public void testBuilder() {
+		EntityGraph.Builder builder = new EntityGraph.Builder();
+		assertThrows(IllegalArgumentException.class,
+				() -> builder.addEdge(31, -1, 2));
+		assertThrows(IllegalArgumentException.class,
+				() -> builder.addNode(1L << 32));
+		builder.build();
+		assertThrows(IllegalStateException.class, () -> builder.addNode(1));
+		assertThrows(IllegalStateException.class, builder::build);
+	}
+
+}
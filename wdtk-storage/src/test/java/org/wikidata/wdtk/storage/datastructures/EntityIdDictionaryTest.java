@@ -0,0 +1,212 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EntityIdDictionaryTest {
+
+	@TempDir
+	Path tempDir;
+
+	EntityIdDictionary makeDictionary() {
+		EntityIdDictionary dictionary = new EntityIdDictionary();
+		dictionary.add("Q42");
+		dictionary.add("Q1");
+		dictionary.add("Q5");
+		dictionary.add("Q42");
+		dictionary.add("P31");
+		dictionary.add('L', 7);
+		return dictionary;
+	}
+
+	void assertExampleDictionary(EntityIdDictionary dictionary) {
+		assertEquals(3, dictionary.getSize('Q'));
+		assertEquals(1, dictionary.getSize('P'));
+		assertEquals(1, dictionary.getSize('L'));
+
+		assertEquals(0, dictionary.getOrdinal("Q1"));
+		assertEquals(1, dictionary.getOrdinal("Q5"));
+		assertEquals(2, dictionary.getOrdinal("Q42"));
+		assertEquals(0, dictionary.getOrdinal("P31"));
+		assertEquals(0, dictionary.getOrdinal('L', 7));
+		assertEquals(-1, dictionary.getOrdinal("Q2"));
+		assertEquals(-1, dictionary.getOrdinal("Q1000"));
+		assertEquals(-1, dictionary.getOrdinal("P1"));
+		assertTrue(dictionary.contains("Q42"));
+		assertFalse(dictionary.contains("L8"));
+
+		assertEquals("Q1", dictionary.getId('Q', 0));
+		assertEquals("Q42", dictionary.getId('Q', 2));
+		assertEquals("P31", dictionary.getId('P', 0));
+		assertEquals(7, dictionary.getNumericId('L', 0));
+		assertNull(dictionary.getId('Q', 3));
+		assertNull(dictionary.getId('Q', -1));
+	}
+
+	@Test
+	public void testInMemory() {
+		assertExampleDictionary(makeDictionary());
+	}
+
+	@Test
+	public void testEmpty() {
+		EntityIdDictionary dictionary = new EntityIdDictionary();
+		assertEquals(0, dictionary.getSize('Q'));
+		assertEquals(-1, dictionary.getOrdinal("Q1"));
+		assertNull(dictionary.getId('Q', 0));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		Path file = tempDir.resolve("ids.bin");
+		makeDictionary().save(file);
+
+		EntityIdDictionary loaded = EntityIdDictionary.load(file);
+		assertExampleDictionary(loaded);
+		assertThrows(UnsupportedOperationException.class,
+				() -> loaded.add("Q3"));
+	}
+
+	@Test
+	public void testLoadedMatchesInMemory() throws IOException {
+		EntityIdDictionary dictionary = new EntityIdDictionary();
+		Random random = new Random(42);
+		for (int i = 0; i < 5000; i++) {
+			dictionary.add('Q', random.nextInt(20000));
+		}
+		Path file = tempDir.resolve("ids.bin");
+		dictionary.save(file);
+		EntityIdDictionary loaded = EntityIdDictionary.load(file);
+
+		long size = dictionary.getSize('Q');
+		assertEquals(size, loaded.getSize('Q'));
+		for (long numericId = 0; numericId < 20100; numericId++) {
+			assertEquals(dictionary.getOrdinal('Q', numericId),
+					loaded.getOrdinal('Q', numericId));
+		}
+		for (long ordinal = 0; ordinal <= size; ordinal++) {
+			assertEquals(dictionary.getNumericId('Q', ordinal),
+					loaded.getNumericId('Q', ordinal));
+		}
+	}
+
+	@Test
+	public void testMappedBitVector() throws IOException {
+		RankedBitVectorImpl bitVector = new RankedBitVectorImpl();
+		Random random = new Random(7);
+		for (int i = 0; i < 1500; i++) {
+			bitVector.addBit(random.nextInt(3) == 0);
+		}
+		EntityIdDictionary dictionary = new EntityIdDictionary(
+				new RankedBitVector[] { bitVector, new RankedBitVectorImpl(),
+						new RankedBitVectorImpl() });
+		Path file = tempDir.resolve("bits.bin");
+		dictionary.save(file);
+		RankedBitVector mapped = EntityIdDictionary.load(file).getBitVector(
+				'Q');
+
+		assertEquals(bitVector, mapped);
+		assertEquals(mapped, bitVector);
+		assertEquals(bitVector.hashCode(), mapped.hashCode());
+		for (long position = 0; position < bitVector.size(); position++) {
+			assertEquals(bitVector.countBits(true, position),
+					mapped.countBits(true, position));
+			assertEquals(bitVector.countBits(false, position),
+					mapped.countBits(false, position));
+		}
+		for (long n = 1; n <= bitVector.size(); n++) {
+			assertEquals(bitVector.findPosition(true, n),
+					mapped.findPosition(true, n));
+			assertEquals(bitVector.findPosition(false, n),
+					mapped.findPosition(false, n));
+		}
+	}
+
+	@Test
+	public void testSelectIndex() {
+		RankedBitVectorImpl bitVector = new RankedBitVectorImpl();
+		Random random = new Random(11);
+		// dense and sparse runs, and a long run without any true values
+		for (int i = 0; i < 20000; i++) {
+			bitVector.addBit(random.nextInt(10) != 0);
+		}
+		for (int i = 0; i < 30000; i++) {
+			bitVector.addBit(random.nextInt(500) == 0);
+		}
+		for (int i = 0; i < 10000; i++) {
+			bitVector.addBit(false);
+		}
+		for (int i = 0; i < 5000; i++) {
+			bitVector.addBit(true);
+		}
+		MappedRankedBitVector mapped = MappedRankedBitVector
+				.copyOf(EntityIdDictionary.toBitVectorImpl(bitVector));
+
+		assertTrue(mapped.trueSamples.limit() > 5);
+		assertTrue(mapped.falseSamples.limit() > 5);
+		for (long n = 1; n <= bitVector.size() + 1; n++) {
+			assertEquals(bitVector.findPosition(true, n),
+					mapped.findPosition(true, n));
+			assertEquals(bitVector.findPosition(false, n),
+					mapped.findPosition(false, n));
+		}
+	}
+
+	@Test
+	public void testReadOnly() {
+		EntityIdDictionary readOnly = makeDictionary().toReadOnly();
+		assertExampleDictionary(readOnly);
+		assertThrows(UnsupportedOperationException.class,
+				() -> readOnly.add("Q3"));
+	}
+
+	@Test
+	public void testInvalidIds() {
+		EntityIdDictionary dictionary = new EntityIdDictionary();
+		assertThrows(IllegalArgumentException.class, () -> dictionary.add("M5"));
+		assertThrows(IllegalArgumentException.class, () -> dictionary.add("Q"));
+		assertThrows(IllegalArgumentException.class,
+				() -> dictionary.add("Q-5"));
+		assertThrows(IllegalArgumentException.class,
+				() -> dictionary.add("L1-F2"));
+	}
+
+	@Test
+	public void testLoadInvalidFile() throws IOException {
+		Path file = tempDir.resolve("other.bin");
+		Files.write(file, new byte[] { 1, 2, 3 });
+		assertThrows(IOException.class, () -> EntityIdDictionary.load(file));
+	}
+
+}
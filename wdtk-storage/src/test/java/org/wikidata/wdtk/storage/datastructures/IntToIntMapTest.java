@@ -0,0 +1,119 @@
+package org.wikidata.wdtk.storage.datastructures;
+
+/*
+ * #%L
+ * Wikidata Toolkit Storage
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IntToIntMapTest {
+
+	@Test
+	public void testEmptyMap() {
+		IntToIntMap map = new IntToIntMap();
+		assertEquals(0, map.size());
+		assertTrue(map.isEmpty());
+		assertEquals(0, map.get(42));
+		assertFalse(map.containsKey(42));
+		assertFalse(map.containsKey(0));
+		assertEquals("{}", map.toString());
+	}
+
+	@Test
+	public void testPutAndAdd() {
+		IntToIntMap map = new IntToIntMap();
+		map.put(5, 10);
+		assertEquals(10, map.get(5));
+		assertEquals(13, map.addTo(5, 3));
+		assertEquals(1, map.increment(-7));
+		assertEquals(2, map.increment(-7));
+		map.put(5, 1);
+
+		assertEquals(1, map.get(5));
+		assertEquals(2, map.get(-7));
+		assertEquals(2, map.size());
+		assertEquals("{-7=2, 5=1}", map.toString());
+	}
+
+	@Test
+	public void testZeroKey() {
+		IntToIntMap map = new IntToIntMap();
+		map.addTo(0, 4);
+		map.addTo(0, 4);
+		map.put(1, 1);
+
+		assertTrue(map.containsKey(0));
+		assertEquals(8, map.get(0));
+		assertEquals(2, map.size());
+		assertArrayEquals(new int[] { 0, 1 }, map.keys());
+
+		map.clear();
+		assertFalse(map.containsKey(0));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void testAgainstHashMap() {
+		Random random = new Random(17);
+		IntToIntMap map = new IntToIntMap();
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(20000) * 100003;
+			int delta = random.nextInt(10);
+			map.addTo(key, delta);
+			expected.merge(key, delta, Integer::sum);
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+			assertEquals((int) entry.getValue(), map.get(entry.getKey()));
+		}
+		Map<Integer, Integer> actual = new HashMap<>();
+		map.forEach(actual::put);
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testMerge() {
+		IntToIntMap map1 = new IntToIntMap(2);
+		map1.addTo(1, 1);
+		map1.addTo(2, 2);
+		IntToIntMap map2 = new IntToIntMap();
+		map2.addTo(2, 3);
+		map2.addTo(0, 4);
+
+		map1.merge(map2);
+
+		assertEquals(3, map1.size());
+		assertEquals(1, map1.get(1));
+		assertEquals(5, map1.get(2));
+		assertEquals(4, map1.get(0));
+		assertEquals(2, map2.size());
+	}
+
+}
@@ -362,6 +362,72 @@ public class RankedBitVectorImplTest {
 		assertCorrectFindPosition(bv);
 	}
 
+	@Test
+	public void testLargeBitVector() {
+		RankedBitVectorImpl bv = new RankedBitVectorImpl();
+		PseudorandomBooleanGenerator generator = new PseudorandomBooleanGenerator(
+				0x1234);
+		long trueValues = 0;
+		for (int i = 0; i < 0x30000; i++) {
+			boolean bit = generator.getPseudorandomBoolean();
+			bv.addBit(bit);
+			trueValues += bit ? 1 : 0;
+			if (bit && trueValues % 0x1000 == 0) {
+				assertEquals(i, bv.findPosition(true, trueValues));
+				assertEquals(trueValues, bv.countBits(true, i));
+			}
+		}
+		for (long index = 0; index < bv.size(); index += 0x3FF) {
+			assertCorrectCount(bv, index);
+		}
+		assertCorrectFindPosition(bv, trueValues);
+		assertCorrectFindPosition(bv, bv.size() - trueValues);
+		assertEquals(RankedBitVector.NOT_FOUND,
+				bv.findPosition(true, trueValues + 1));
+	}
+
+	@Test
+	public void testSetBitInTheMiddle() {
+		RankedBitVectorImpl bv = new RankedBitVectorImpl(0x20000);
+		for (long index = 0; index < bv.size(); index += 0x100) {
+			bv.setBit(index, true);
+		}
+		assertEquals(0x100, bv.countBits(true, 0xFFFF));
+		assertEquals(0x10100, bv.findPosition(true, 0x102));
+
+		bv.setBit(0x8001, true);
+		bv.setBit(0x100, false);
+		assertEquals(0x100, bv.countBits(true, 0xFFFF));
+		assertEquals(0x8001, bv.findPosition(true, 0x81));
+		assertEquals(0x10100, bv.findPosition(true, 0x102));
+		assertEquals(0x100, bv.findPosition(false, 0x100));
+		assertEquals(0x20000 - 0x200, bv.countBits(false, 0x1FFFF));
+	}
+
+	@Test
+	public void testSelectInWord() {
+		PseudorandomBooleanGenerator generator = new PseudorandomBooleanGenerator(
+				0x4321);
+		for (int i = 0; i < 0x100; i++) {
+			long word = 0;
+			for (int position = 0; position < 0x40; position++) {
+				if (generator.getPseudorandomBoolean()) {
+					word |= 1L << position;
+				}
+			}
+			int rank = 0;
+			for (int position = 0; position < 0x40; position++) {
+				if ((word & (1L << position)) != 0) {
+					assertEquals(position,
+							CountBitsArray.selectInWord(word, rank));
+					rank++;
+				}
+			}
+		}
+		assertEquals(63, CountBitsArray.selectInWord(-1L, 63));
+		assertEquals(63, CountBitsArray.selectInWord(Long.MIN_VALUE, 0));
+	}
+
 	@Test
 	public void testToString() {
 		RankedBitVectorImpl bv = new RankedBitVectorImpl();
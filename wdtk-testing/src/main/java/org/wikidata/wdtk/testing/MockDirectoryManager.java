@@ -35,9 +35,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.wikidata.wdtk.util.CompressionType;
 import org.wikidata.wdtk.util.DirectoryManager;
 
@@ -295,7 +295,8 @@ public class MockDirectoryManager implements DirectoryManager {
 	public InputStream getInputStreamForFile(String fileName,
 			CompressionType compressionType) throws IOException {
 		if (compressionType == CompressionType.GZIP) {
-			return new GZIPInputStream(getInputStreamForMockFile(fileName));
+			return new GzipCompressorInputStream(
+					getInputStreamForMockFile(fileName), true);
 		} else if (compressionType == CompressionType.BZ2) {
 			return new BZip2CompressorInputStream(
 					getInputStreamForMockFile(fileName));
@@ -304,6 +305,16 @@ public class MockDirectoryManager implements DirectoryManager {
 		}
 	}
 
+	@Override
+	public long getFileSize(String fileName) throws IOException {
+		if (!hasFile(fileName)) {
+			throw new FileNotFoundException("Could not find file \"" + fileName
+					+ "\" in current directory \"" + this.directory.toString()
+					+ "\"");
+		}
+		return files.get(this.directory.resolve(fileName)).length;
+	}
+
 	/**
 	 * Get an input stream for the mocked contents of the given file, or throw
 	 * an exception if the file does not exist.
@@ -37,6 +37,7 @@ import org.wikidata.wdtk.util.WebResourceFetcher;
 public class MockWebResourceFetcher implements WebResourceFetcher {
 
 	public final HashMap<String, byte[]> webResources;
+	final HashMap<String, Long> lastModified = new HashMap<>();
 	boolean returnFailingReaders;
 
 	/**
@@ -138,12 +139,34 @@ public class MockWebResourceFetcher implements WebResourceFetcher {
 		setWebResourceContents(url, contents, compressionType);
 	}
 
+	/**
+	 * Defines the time of the last modification of a web resource, as
+	 * returned by {@link #getLastModified(String)}. By default, the time is
+	 * not known.
+	 *
+	 * @param url
+	 *            the URL string
+	 * @param lastModified
+	 *            the time in milliseconds since the epoch
+	 */
+	public void setLastModified(String url, long lastModified) {
+		this.lastModified.put(url, lastModified);
+	}
+
 	@Override
 	public InputStream getInputStreamForUrl(String urlString)
 			throws IOException {
 		return getInputStreamForMockWebResource(urlString);
 	}
 
+	@Override
+	public long getLastModified(String urlString) throws IOException {
+		if (!this.webResources.containsKey(urlString)) {
+			throw new IOException("Inaccessible URL (not mocked): " + urlString);
+		}
+		return this.lastModified.getOrDefault(urlString, -1L);
+	}
+
 	/**
 	 * Returns an input stream for the content mocked for given URL. It is
 	 * checked that the URL is valid.
@@ -0,0 +1,1191 @@
+package org.wikidata.wdtk.testing;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HTTP server that answers the requests of the Wikibase API that Wikidata
+ * Toolkit sends, using entities that are stored in memory. It runs in the
+ * same process and only accepts connections from the local machine, so that
+ * the API code can be load tested and benchmarked without a real wiki.
+ * <p>
+ * The server implements the actions "wbgetentities", "wbsearchentities",
+ * "wbeditentity", "wbsetlabel", "wbsetdescription", "wbsetaliases",
+ * "wbremoveclaims", "login", "logout", and "query" for tokens and for the
+ * page ids of files. Entities are loaded from JSON dumps, such as the ones
+ * written by {@link SyntheticDumpGenerator}, or added one by one. Edits
+ * change the stored entities and get new revision ids. Errors are reported
+ * with the same codes as MediaWiki. To test how clients cope with a busy
+ * wiki, the server can wait before every response, report a replication lag
+ * that exceeds the "maxlag" parameter of requests, and reject a share of
+ * the edits with edit conflicts.
+ * <p>
+ * The server does not check the content of edits beyond what is needed to
+ * apply them, and it does not normalize titles.
+ *
+ */
+public class MockWikibaseApiServer implements AutoCloseable {
+
+	/**
+	 * The token that is returned for CSRF token requests, and that edits must
+	 * use.
+	 */
+	public static final String CSRF_TOKEN = "0123456789abcdef0123456789abcdef+\\";
+
+	/**
+	 * The token that is returned for login token requests.
+	 */
+	public static final String LOGIN_TOKEN = "fedcba9876543210fedcba9876543210+\\";
+
+	/**
+	 * Path of the API on the server.
+	 */
+	public static final String API_PATH = "/w/api.php";
+
+	/**
+	 * Name of the cookie that identifies logged in sessions.
+	 */
+	static final String SESSION_COOKIE = "mockwikibasesession";
+
+	/**
+	 * Error of an API request, reported to the client in an "error" object.
+	 */
+	static class ApiError extends Exception {
+
+		private static final long serialVersionUID = -3180296924512875127L;
+
+		final String code;
+
+		final Double lag;
+
+		ApiError(String code, String info) {
+			this(code, info, null);
+		}
+
+		ApiError(String code, String info, Double lag) {
+			super(info);
+			this.code = code;
+			this.lag = lag;
+		}
+	}
+
+	final ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Current revisions of the entities by id. Stored entities are never
+	 * modified; edits replace them with modified copies, so that entities
+	 * can be read while they are edited.
+	 */
+	final Map<String, ObjectNode> entities = new ConcurrentHashMap<>();
+
+	/**
+	 * Entity ids by page title.
+	 */
+	final Map<String, String> idsByTitle = new ConcurrentHashMap<>();
+
+	/**
+	 * Entity ids by site key and title of their site links, separated by a
+	 * line break.
+	 */
+	final Map<String, String> idsBySiteLink = new ConcurrentHashMap<>();
+
+	/**
+	 * Largest numeric id of the stored entities, by first letter of the id.
+	 */
+	final Map<Character, Long> maxNumericIds = new ConcurrentHashMap<>();
+
+	final Map<String, String> passwords = new ConcurrentHashMap<>();
+
+	final Set<String> sessions = ConcurrentHashMap.newKeySet();
+
+	final Map<String, AtomicLong> requestCounts = new ConcurrentHashMap<>();
+
+	final AtomicLong lastRevisionId = new AtomicLong();
+
+	final Random random = new Random(42);
+
+	final int threadCount;
+
+	volatile int latency = 0;
+
+	volatile double lag = 0;
+
+	volatile double editConflictProbability = 0;
+
+	HttpServer server;
+
+	ExecutorService executor;
+
+	/**
+	 * Creates a server that answers up to eight requests at the same time.
+	 * The server needs to be started with {@link #start()}.
+	 */
+	public MockWikibaseApiServer() {
+		this(8);
+	}
+
+	/**
+	 * Creates a server that answers up to the given number of requests at
+	 * the same time. The server needs to be started with {@link #start()}.
+	 *
+	 * @param threadCount
+	 *            number of threads that answer requests
+	 */
+	public MockWikibaseApiServer(int threadCount) {
+		if (threadCount < 1) {
+			throw new IllegalArgumentException(
+					"The server needs at least one thread.");
+		}
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Loads the entities of a JSON dump, which is an array of entities. The
+	 * stream is read to the end of the array but not closed.
+	 *
+	 * @param in
+	 *            stream with the uncompressed dump
+	 * @throws IOException
+	 *             if the dump could not be read
+	 */
+	public void loadJsonDump(InputStream in) throws IOException {
+		JsonParser parser = this.mapper.getFactory().createParser(in);
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			throw new IOException("A JSON dump must be an array of entities.");
+		}
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			putEntity((ObjectNode) this.mapper.readTree(parser));
+		}
+	}
+
+	/**
+	 * Adds an entity, or replaces the entity with the same id. The entity
+	 * gets a new revision id unless it has one.
+	 *
+	 * @param json
+	 *            the JSON serialization of the entity, as in JSON dumps
+	 * @throws IOException
+	 *             if the JSON could not be parsed
+	 */
+	public void putEntity(String json) throws IOException {
+		JsonNode entity = this.mapper.readTree(json);
+		if (!entity.isObject()) {
+			throw new IOException("An entity must be a JSON object.");
+		}
+		putEntity((ObjectNode) entity);
+	}
+
+	synchronized void putEntity(ObjectNode entity) {
+		String id = entity.path("id").asText(null);
+		if (id == null || id.length() < 2) {
+			throw new IllegalArgumentException("Entity has no id: " + entity);
+		}
+		if (entity.has("lastrevid")) {
+			this.lastRevisionId.accumulateAndGet(
+					entity.get("lastrevid").asLong(), Math::max);
+		} else {
+			entity.put("lastrevid", this.lastRevisionId.incrementAndGet());
+		}
+		store(entity);
+	}
+
+	/**
+	 * Returns the current JSON serialization of the entity with the given
+	 * id.
+	 *
+	 * @param id
+	 *            the id of the entity
+	 * @return the JSON, or null if there is no such entity
+	 */
+	public String getEntityJson(String id) {
+		ObjectNode entity = this.entities.get(id);
+		return entity == null ? null : entity.toString();
+	}
+
+	/**
+	 * Returns the number of stored entities.
+	 *
+	 * @return number of entities
+	 */
+	public int getEntityCount() {
+		return this.entities.size();
+	}
+
+	/**
+	 * Adds a user who can log in with the given password.
+	 *
+	 * @param username
+	 *            name of the user
+	 * @param password
+	 *            password of the user
+	 */
+	public void addUser(String username, String password) {
+		this.passwords.put(username, password);
+	}
+
+	/**
+	 * Sets the time that the server waits before answering a request.
+	 *
+	 * @param milliseconds
+	 *            the latency in milliseconds
+	 */
+	public void setLatency(int milliseconds) {
+		this.latency = milliseconds;
+	}
+
+	/**
+	 * Sets the replication lag that the server reports. Requests whose
+	 * "maxlag" parameter is smaller than this lag fail with a "maxlag"
+	 * error, as on a wiki whose database replicas are lagging.
+	 *
+	 * @param seconds
+	 *            the lag in seconds
+	 */
+	public void setLag(double seconds) {
+		this.lag = seconds;
+	}
+
+	/**
+	 * Sets the probability that an edit fails with an edit conflict, even if
+	 * its base revision is the current revision. Edits with an older base
+	 * revision always fail.
+	 *
+	 * @param probability
+	 *            a number between 0 and 1
+	 */
+	public void setEditConflictProbability(double probability) {
+		this.editConflictProbability = probability;
+	}
+
+	/**
+	 * Returns the number of requests that the server received for the given
+	 * action.
+	 *
+	 * @param action
+	 *            the value of the "action" parameter, e.g., "wbgetentities"
+	 * @return number of requests
+	 */
+	public long getRequestCount(String action) {
+		AtomicLong count = this.requestCounts.get(action);
+		return count == null ? 0 : count.get();
+	}
+
+	/**
+	 * Starts the server on a free port of the loopback interface.
+	 *
+	 * @throws IOException
+	 *             if the server could not be started
+	 */
+	public synchronized void start() throws IOException {
+		if (this.server != null) {
+			throw new IllegalStateException("The server has been started.");
+		}
+		this.server = HttpServer.create(new InetSocketAddress(
+				InetAddress.getLoopbackAddress(), 0), 0);
+		this.executor = Executors.newFixedThreadPool(this.threadCount,
+				runnable -> {
+					Thread thread = new Thread(runnable, "Mock Wikibase API");
+					thread.setDaemon(true);
+					return thread;
+				});
+		this.server.setExecutor(this.executor);
+		this.server.createContext(API_PATH, this::handle);
+		this.server.start();
+	}
+
+	/**
+	 * Returns the URL of the API, to be used as the base URL of API
+	 * connections.
+	 *
+	 * @return the URL of the API
+	 */
+	public String getApiUrl() {
+		if (this.server == null) {
+			throw new IllegalStateException("The server has not been started.");
+		}
+		return "http://" + this.server.getAddress().getHostString() + ":"
+				+ this.server.getAddress().getPort() + API_PATH;
+	}
+
+	/**
+	 * Stops the server.
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.executor.shutdownNow();
+			this.server = null;
+		}
+	}
+
+	void handle(HttpExchange exchange) throws IOException {
+		try {
+			Map<String, String> parameters = readParameters(exchange);
+			String action = parameters.getOrDefault("action", "");
+			this.requestCounts.computeIfAbsent(action, k -> new AtomicLong())
+					.incrementAndGet();
+			if (this.latency > 0) {
+				Thread.sleep(this.latency);
+			}
+
+			ObjectNode response;
+			try {
+				response = respond(action, parameters, exchange);
+			} catch (ApiError e) {
+				response = this.mapper.createObjectNode();
+				ObjectNode error = response.putObject("error");
+				error.put("code", e.code);
+				error.put("info", e.getMessage());
+				if (e.lag != null) {
+					error.put("lag", e.lag);
+				}
+			}
+
+			byte[] body = this.mapper.writeValueAsBytes(response);
+			exchange.getResponseHeaders().set("Content-Type",
+					"application/json; charset=utf-8");
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			exchange.sendResponseHeaders(503, -1);
+		} catch (RuntimeException e) {
+			exchange.sendResponseHeaders(500, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	ObjectNode respond(String action, Map<String, String> parameters,
+			HttpExchange exchange) throws ApiError {
+		String maxlag = parameters.get("maxlag");
+		if (maxlag != null && this.lag > parseNumber(maxlag, "maxlag")) {
+			throw new ApiError("maxlag", "Waiting for a database server: "
+					+ this.lag + " seconds lagged.", this.lag);
+		}
+		String session = getSession(exchange);
+		if ("user".equals(parameters.get("assert"))
+				&& (session == null || !this.sessions.contains(session))) {
+			throw new ApiError("assertuserfailed",
+					"You are no longer logged in, so the action could not be completed.");
+		}
+
+		switch (action) {
+		case "query":
+			return query(parameters);
+		case "login":
+			return login(parameters, exchange);
+		case "logout":
+			if (session != null) {
+				this.sessions.remove(session);
+			}
+			return this.mapper.createObjectNode();
+		case "wbgetentities":
+			return getEntities(parameters);
+		case "wbsearchentities":
+			return searchEntities(parameters);
+		case "wbeditentity":
+		case "wbsetlabel":
+		case "wbsetdescription":
+		case "wbsetaliases":
+		case "wbremoveclaims":
+			return edit(action, parameters);
+		default:
+			throw new ApiError("badvalue",
+					"Unrecognized value for parameter \"action\": " + action + ".");
+		}
+	}
+
+	ObjectNode query(Map<String, String> parameters) {
+		ObjectNode response = this.mapper.createObjectNode();
+		response.put("batchcomplete", "");
+		ObjectNode query = response.putObject("query");
+		if ("tokens".equals(parameters.get("meta"))) {
+			ObjectNode tokens = query.putObject("tokens");
+			for (String type : parameters.getOrDefault("type", "csrf").split("\\|")) {
+				tokens.put(type + "token", "login".equals(type) ? LOGIN_TOKEN
+						: CSRF_TOKEN);
+			}
+		}
+		if (parameters.containsKey("titles")) {
+			ObjectNode pages = query.putObject("pages");
+			int missingCount = 0;
+			for (String title : parameters.get("titles").split("\\|")) {
+				String id = this.idsByTitle.get(title);
+				ObjectNode page;
+				if (id != null && id.charAt(0) == 'M') {
+					page = pages.putObject(id.substring(1));
+					page.put("pageid", Long.parseLong(id.substring(1)));
+				} else {
+					missingCount++;
+					page = pages.putObject("-" + missingCount);
+					page.put("missing", "");
+				}
+				page.put("ns", 6);
+				page.put("title", title);
+			}
+		}
+		return response;
+	}
+
+	ObjectNode login(Map<String, String> parameters, HttpExchange exchange) {
+		ObjectNode response = this.mapper.createObjectNode();
+		ObjectNode login = response.putObject("login");
+		String username = parameters.get("lgname");
+		String password = username == null ? null : this.passwords.get(username);
+		if (parameters.get("lgtoken") == null) {
+			login.put("result", "NeedToken");
+		} else if (!LOGIN_TOKEN.equals(parameters.get("lgtoken"))) {
+			login.put("result", "WrongToken");
+		} else if (password == null) {
+			login.put("result", "NotExists");
+		} else if (!password.equals(parameters.get("lgpassword"))) {
+			login.put("result", "WrongPass");
+		} else {
+			String session = UUID.randomUUID().toString();
+			this.sessions.add(session);
+			exchange.getResponseHeaders().add("Set-Cookie",
+					SESSION_COOKIE + "=" + session + "; Path=/; HttpOnly");
+			login.put("result", "Success");
+			login.put("lgusername", username);
+		}
+		return response;
+	}
+
+	ObjectNode getEntities(Map<String, String> parameters) throws ApiError {
+		ObjectNode response = this.mapper.createObjectNode();
+		ObjectNode result = response.putObject("entities");
+		if (parameters.containsKey("ids")) {
+			for (String id : parameters.get("ids").split("\\|")) {
+				ObjectNode entity = this.entities.get(id);
+				if (entity == null) {
+					result.putObject(id).put("id", id).put("missing", "");
+				} else {
+					result.set(id, filterEntity(entity, parameters));
+				}
+			}
+		} else if (parameters.containsKey("sites")
+				&& parameters.containsKey("titles")) {
+			String site = parameters.get("sites");
+			int missingCount = 0;
+			for (String title : parameters.get("titles").split("\\|")) {
+				String id = findEntityId(site, title);
+				ObjectNode entity = id == null ? null : this.entities.get(id);
+				if (entity == null) {
+					missingCount++;
+					result.putObject("-" + missingCount).put("site", site)
+							.put("title", title).put("missing", "");
+				} else {
+					result.set(id, filterEntity(entity, parameters));
+				}
+			}
+		} else {
+			throw new ApiError("param-missing",
+					"Either provide the item \"ids\" or pairs of \"sites\" and \"titles\" for corresponding pages.");
+		}
+		response.put("success", 1);
+		return response;
+	}
+
+	/**
+	 * Finds the entity that has a site link to the given page, or the media
+	 * info entity of the given file on Wikimedia Commons.
+	 */
+	String findEntityId(String site, String title) {
+		String id = this.idsBySiteLink.get(site + "\n" + title);
+		if (id == null && "commonswiki".equals(site)) {
+			id = this.idsByTitle.get(title);
+		}
+		return id;
+	}
+
+	/**
+	 * Removes the parts of an entity that were not requested with the
+	 * "props", "languages" and "sitefilter" parameters.
+	 */
+	ObjectNode filterEntity(ObjectNode entity, Map<String, String> parameters) {
+		String props = parameters.get("props");
+		String languages = parameters.get("languages");
+		String sitefilter = parameters.get("sitefilter");
+		if (props == null && languages == null && sitefilter == null) {
+			return entity;
+		}
+		ObjectNode result = entity.deepCopy();
+		if (props != null) {
+			Set<String> requested = new HashSet<>(Arrays.asList(props.split("\\|")));
+			for (String field : Arrays.asList("labels", "descriptions",
+					"aliases", "claims", "sitelinks")) {
+				if (!requested.contains(field)) {
+					result.remove(field);
+					if ("claims".equals(field)) {
+						result.remove("statements");
+					}
+				}
+			}
+		}
+		if (languages != null) {
+			List<String> requested = Arrays.asList(languages.split("\\|"));
+			for (String field : Arrays.asList("labels", "descriptions", "aliases")) {
+				if (result.get(field) instanceof ObjectNode) {
+					((ObjectNode) result.get(field)).retain(requested);
+				}
+			}
+		}
+		if (sitefilter != null && result.get("sitelinks") instanceof ObjectNode) {
+			((ObjectNode) result.get("sitelinks")).retain(Arrays
+					.asList(sitefilter.split("\\|")));
+		}
+		return result;
+	}
+
+	ObjectNode searchEntities(Map<String, String> parameters) throws ApiError {
+		String search = parameters.get("search");
+		String language = parameters.get("language");
+		if (search == null || language == null) {
+			throw new ApiError("missingparam",
+					"The \"search\" and \"language\" parameters must be set.");
+		}
+		String type = parameters.getOrDefault("type", "item");
+		int limit = (int) parseNumber(parameters.getOrDefault("limit", "7"), "limit");
+		int offset = (int) parseNumber(parameters.getOrDefault("continue", "0"), "continue");
+		String prefix = search.toLowerCase(Locale.ROOT);
+
+		List<ObjectNode> matches = new ArrayList<>();
+		Map<String, ObjectNode> matchedTerms = new HashMap<>();
+		for (ObjectNode entity : this.entities.values()) {
+			if (!type.equals(entity.path("type").asText())) {
+				continue;
+			}
+			ObjectNode match = findMatch(entity, language, prefix);
+			if (match != null) {
+				matches.add(entity);
+				matchedTerms.put(entity.get("id").asText(), match);
+			}
+		}
+		matches.sort((e1, e2) -> Long.compare(getNumericId(e1.get("id").asText()),
+				getNumericId(e2.get("id").asText())));
+
+		ObjectNode response = this.mapper.createObjectNode();
+		response.putObject("searchinfo").put("search", search);
+		ArrayNode results = response.putArray("search");
+		for (int i = offset; i < Math.min(offset + limit, matches.size()); i++) {
+			ObjectNode entity = matches.get(i);
+			String id = entity.get("id").asText();
+			String title = entity.path("title").asText(id);
+			ObjectNode match = matchedTerms.get(id);
+			ObjectNode result = results.addObject();
+			result.put("id", id);
+			result.put("title", title);
+			if (entity.has("pageid")) {
+				result.put("pageid", entity.get("pageid").asLong());
+			}
+			result.put("concepturi", SyntheticDumpGenerator.SITE_IRI + id);
+			result.put("url", "//localhost/wiki/" + title);
+			String label = entity.path("labels").path(language).path("value").asText(null);
+			if (label != null) {
+				result.put("label", label);
+			}
+			String description = entity.path("descriptions").path(language)
+					.path("value").asText(null);
+			if (description != null) {
+				result.put("description", description);
+			}
+			result.set("match", match);
+			if ("alias".equals(match.get("type").asText())) {
+				result.putArray("aliases").add(match.get("text").asText());
+			}
+		}
+		if (offset + limit < matches.size()) {
+			response.put("search-continue", offset + limit);
+		}
+		response.put("success", 1);
+		return response;
+	}
+
+	/**
+	 * Returns the label or alias of an entity that starts with the given
+	 * prefix, ignoring case.
+	 */
+	ObjectNode findMatch(ObjectNode entity, String language, String prefix) {
+		String label = entity.path("labels").path(language).path("value").asText("");
+		if (label.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+			return makeMatch("label", language, label);
+		}
+		for (JsonNode alias : entity.path("aliases").path(language)) {
+			String text = alias.path("value").asText("");
+			if (text.toLowerCase(Locale.ROOT).startsWith(prefix)) {
+				return makeMatch("alias", language, text);
+			}
+		}
+		return null;
+	}
+
+	ObjectNode makeMatch(String type, String language, String text) {
+		ObjectNode match = this.mapper.createObjectNode();
+		match.put("type", type);
+		match.put("language", language);
+		match.put("text", text);
+		return match;
+	}
+
+	synchronized ObjectNode edit(String action, Map<String, String> parameters)
+			throws ApiError {
+		String token = parameters.get("token");
+		if (token == null) {
+			throw new ApiError("notoken", "The \"token\" parameter must be set.");
+		}
+		if (!CSRF_TOKEN.equals(token)) {
+			throw new ApiError("badtoken", "Invalid CSRF token.");
+		}
+
+		if ("wbremoveclaims".equals(action)) {
+			return removeStatements(parameters);
+		}
+
+		ObjectNode entity;
+		if ("wbeditentity".equals(action) && parameters.containsKey("new")) {
+			entity = newEntity(parameters.get("new"));
+		} else {
+			ObjectNode current = getEditedEntity(parameters);
+			checkBaseRevision(current, parameters);
+			entity = current.deepCopy();
+		}
+
+		ObjectNode responseEntity;
+		switch (action) {
+		case "wbeditentity":
+			JsonNode data;
+			try {
+				data = this.mapper.readTree(parameters.getOrDefault("data", "{}"));
+			} catch (IOException e) {
+				throw new ApiError("invalid-json", "Invalid JSON: " + e.getMessage());
+			}
+			if (!data.isObject()) {
+				throw new ApiError("not-recognized-array",
+						"The data must be a JSON object.");
+			}
+			if (parameters.containsKey("clear")) {
+				for (String field : Arrays.asList("labels", "descriptions",
+						"aliases", "claims", "statements", "sitelinks")) {
+					if (entity.has(field)) {
+						entity.putObject(field);
+					}
+				}
+			}
+			applyData(entity, (ObjectNode) data);
+			responseEntity = entity;
+			break;
+		case "wbsetlabel":
+		case "wbsetdescription":
+			String field = "wbsetlabel".equals(action) ? "labels" : "descriptions";
+			String language = getRequired(parameters, "language");
+			String value = parameters.getOrDefault("value", "");
+			ObjectNode term = this.mapper.createObjectNode();
+			term.put("language", language);
+			term.put("value", value);
+			if (value.isEmpty()) {
+				term.put("remove", "");
+			}
+			applyTerms(entity, field, this.mapper.createArrayNode().add(term));
+			responseEntity = makeEntityHeader(entity);
+			responseEntity.putObject(field).set(language, value.isEmpty() ? term
+					: entity.get(field).get(language));
+			break;
+		default: // wbsetaliases
+			language = getRequired(parameters, "language");
+			setAliases(entity, language, parameters);
+			responseEntity = makeEntityHeader(entity);
+			responseEntity.putObject("aliases").set(language,
+					getObject(entity, "aliases").path(language));
+		}
+
+		long revisionId = commit(entity);
+		responseEntity.put("lastrevid", revisionId);
+		ObjectNode response = this.mapper.createObjectNode();
+		response.set("entity", responseEntity);
+		response.put("success", 1);
+		return response;
+	}
+
+	ObjectNode removeStatements(Map<String, String> parameters) throws ApiError {
+		List<String> statementIds = Arrays.asList(getRequired(parameters, "claim")
+				.split("\\|"));
+		String entityId = statementIds.get(0).split("\\$")[0].toUpperCase(Locale.ROOT);
+		ObjectNode current = this.entities.get(entityId);
+		if (current == null) {
+			throw new ApiError("no-such-entity", "Could not find an entity with the ID \""
+					+ entityId + "\".");
+		}
+		checkBaseRevision(current, parameters);
+		ObjectNode entity = current.deepCopy();
+		for (String statementId : statementIds) {
+			if (!removeStatement(entity, statementId)) {
+				throw new ApiError("no-such-claim", "Could not find the claim "
+						+ statementId + ".");
+			}
+		}
+
+		long revisionId = commit(entity);
+		ObjectNode response = this.mapper.createObjectNode();
+		response.putObject("pageinfo").put("lastrevid", revisionId);
+		response.put("success", 1);
+		ArrayNode claims = response.putArray("claims");
+		statementIds.forEach(claims::add);
+		return response;
+	}
+
+	ObjectNode getEditedEntity(Map<String, String> parameters) throws ApiError {
+		String id = parameters.get("id");
+		if (id == null && parameters.containsKey("site")
+				&& parameters.containsKey("title")) {
+			id = findEntityId(parameters.get("site"), parameters.get("title"));
+		}
+		if (id == null) {
+			throw new ApiError("param-missing",
+					"Either provide the entity \"id\" or a \"site\" and \"title\".");
+		}
+		ObjectNode entity = this.entities.get(id);
+		if (entity == null) {
+			throw new ApiError("no-such-entity",
+					"Could not find an entity with the ID \"" + id + "\".");
+		}
+		return entity;
+	}
+
+	void checkBaseRevision(ObjectNode entity, Map<String, String> parameters)
+			throws ApiError {
+		String baseRevisionId = parameters.get("baserevid");
+		if ((baseRevisionId != null && parseNumber(baseRevisionId, "baserevid") != entity
+				.path("lastrevid").asLong())
+				|| (this.editConflictProbability > 0 && this.random
+						.nextDouble() < this.editConflictProbability)) {
+			throw new ApiError("editconflict", "Edit conflict: "
+					+ entity.path("id").asText() + " has been changed.");
+		}
+	}
+
+	ObjectNode newEntity(String type) throws ApiError {
+		char letter;
+		switch (type) {
+		case "item":
+			letter = 'Q';
+			break;
+		case "property":
+			letter = 'P';
+			break;
+		default:
+			throw new ApiError("badvalue",
+					"Unrecognized value for parameter \"new\": " + type + ".");
+		}
+		long numericId = this.maxNumericIds.getOrDefault(letter, 0L) + 1;
+		ObjectNode entity = this.mapper.createObjectNode();
+		entity.put("type", type);
+		entity.put("id", letter + Long.toString(numericId));
+		entity.put("title", (letter == 'P' ? "Property:" : "") + letter + numericId);
+		return entity;
+	}
+
+	/**
+	 * Applies the "data" of a wbeditentity request to an entity.
+	 */
+	void applyData(ObjectNode entity, ObjectNode data) {
+		if (data.has("datatype") && !entity.has("datatype")) {
+			entity.set("datatype", data.get("datatype"));
+		}
+		applyTerms(entity, "labels", data.get("labels"));
+		applyTerms(entity, "descriptions", data.get("descriptions"));
+		applyAliases(entity, data.get("aliases"));
+		applySiteLinks(entity, data.get("sitelinks"));
+		applyStatements(entity, data.get("claims"));
+		applyStatements(entity, data.get("statements"));
+	}
+
+	void applyTerms(ObjectNode entity, String field, JsonNode terms) {
+		if (terms == null) {
+			return;
+		}
+		ObjectNode current = getObject(entity, field);
+		for (JsonNode term : terms) {
+			String language = term.path("language").asText();
+			if (term.has("remove") || term.path("value").asText("").isEmpty()) {
+				current.remove(language);
+			} else {
+				current.putObject(language).put("language", language)
+						.put("value", term.get("value").asText());
+			}
+		}
+	}
+
+	void applyAliases(ObjectNode entity, JsonNode aliases) {
+		if (aliases == null) {
+			return;
+		}
+		ObjectNode current = getObject(entity, "aliases");
+		Map<String, ArrayNode> replacements = new LinkedHashMap<>();
+		List<JsonNode> terms = new ArrayList<>();
+		for (JsonNode element : aliases) {
+			if (element.isArray()) {
+				element.forEach(terms::add);
+			} else {
+				terms.add(element);
+			}
+		}
+		for (JsonNode term : terms) {
+			String language = term.path("language").asText();
+			String value = term.path("value").asText();
+			if (term.has("remove")) {
+				removeAlias(current, language, value);
+			} else if (term.has("add")) {
+				addAlias(current, language, value);
+			} else {
+				replacements.computeIfAbsent(language,
+						k -> this.mapper.createArrayNode()).add(makeTerm(language, value));
+			}
+		}
+		for (Map.Entry<String, ArrayNode> replacement : replacements.entrySet()) {
+			current.set(replacement.getKey(), replacement.getValue());
+		}
+		removeEmptyArrays(current);
+	}
+
+	void setAliases(ObjectNode entity, String language,
+			Map<String, String> parameters) {
+		ObjectNode current = getObject(entity, "aliases");
+		if (parameters.containsKey("set")) {
+			current.remove(language);
+			for (String value : parameters.get("set").split("\\|")) {
+				addAlias(current, language, value);
+			}
+		}
+		if (parameters.containsKey("remove")) {
+			for (String value : parameters.get("remove").split("\\|")) {
+				removeAlias(current, language, value);
+			}
+		}
+		if (parameters.containsKey("add")) {
+			for (String value : parameters.get("add").split("\\|")) {
+				addAlias(current, language, value);
+			}
+		}
+		removeEmptyArrays(current);
+	}
+
+	void addAlias(ObjectNode aliases, String language, String value) {
+		JsonNode current = aliases.get(language);
+		ArrayNode values = current instanceof ArrayNode ? (ArrayNode) current
+				: aliases.putArray(language);
+		for (JsonNode alias : values) {
+			if (value.equals(alias.path("value").asText())) {
+				return;
+			}
+		}
+		values.add(makeTerm(language, value));
+	}
+
+	void removeAlias(ObjectNode aliases, String language, String value) {
+		JsonNode current = aliases.get(language);
+		if (current instanceof ArrayNode) {
+			Iterator<JsonNode> iterator = current.iterator();
+			while (iterator.hasNext()) {
+				if (value.equals(iterator.next().path("value").asText())) {
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	void applySiteLinks(ObjectNode entity, JsonNode siteLinks) {
+		if (siteLinks == null) {
+			return;
+		}
+		ObjectNode current = getObject(entity, "sitelinks");
+		for (JsonNode siteLink : siteLinks) {
+			String site = siteLink.path("site").asText();
+			if (siteLink.has("remove")) {
+				current.remove(site);
+			} else {
+				ObjectNode link = current.putObject(site);
+				link.put("site", site);
+				link.put("title", siteLink.path("title").asText());
+				link.set("badges", siteLink.has("badges") ? siteLink.get("badges")
+						: this.mapper.createArrayNode());
+			}
+		}
+	}
+
+	void applyStatements(ObjectNode entity, JsonNode statements) {
+		if (statements == null) {
+			return;
+		}
+		List<JsonNode> list = new ArrayList<>();
+		for (JsonNode element : statements) {
+			if (element.isArray()) {
+				element.forEach(list::add);
+			} else {
+				list.add(element);
+			}
+		}
+
+		ObjectNode current = getObject(entity, getStatementField(entity));
+		for (JsonNode element : list) {
+			ObjectNode statement = ((ObjectNode) element).deepCopy();
+			String id = statement.path("id").asText("");
+			if (statement.has("remove")) {
+				removeStatement(entity, id);
+				continue;
+			}
+			if (!id.isEmpty() && replaceStatement(current, id, statement)) {
+				continue;
+			}
+			if (id.isEmpty()) {
+				statement.put("id", entity.get("id").asText() + "$"
+						+ UUID.randomUUID().toString().toUpperCase(Locale.ROOT));
+			}
+			if (!statement.has("rank")) {
+				statement.put("rank", "normal");
+			}
+			statement.put("type", "statement");
+			String property = statement.path("mainsnak").path("property").asText();
+			JsonNode group = current.get(property);
+			(group instanceof ArrayNode ? (ArrayNode) group : current
+					.putArray(property)).add(statement);
+		}
+		removeEmptyArrays(current);
+	}
+
+	boolean replaceStatement(ObjectNode statements, String id, ObjectNode statement) {
+		for (JsonNode group : statements) {
+			for (int i = 0; i < group.size(); i++) {
+				if (id.equals(group.get(i).path("id").asText())) {
+					if (!statement.has("rank")) {
+						statement.put("rank", "normal");
+					}
+					statement.put("type", "statement");
+					((ArrayNode) group).set(i, statement);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	boolean removeStatement(ObjectNode entity, String id) {
+		ObjectNode statements = getObject(entity, getStatementField(entity));
+		for (JsonNode group : statements) {
+			Iterator<JsonNode> iterator = group.iterator();
+			while (iterator.hasNext()) {
+				if (id.equals(iterator.next().path("id").asText())) {
+					iterator.remove();
+					removeEmptyArrays(statements);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	String getStatementField(ObjectNode entity) {
+		return "mediainfo".equals(entity.path("type").asText()) ? "statements"
+				: "claims";
+	}
+
+	/**
+	 * Stores an edited entity under a new revision id.
+	 */
+	long commit(ObjectNode entity) {
+		long revisionId = this.lastRevisionId.incrementAndGet();
+		entity.put("lastrevid", revisionId);
+		entity.put("modified", Instant.now().truncatedTo(ChronoUnit.SECONDS)
+				.toString());
+		store(entity);
+		return revisionId;
+	}
+
+	/**
+	 * Replaces the stored revision of an entity, and updates the indexes.
+	 */
+	void store(ObjectNode entity) {
+		String id = entity.get("id").asText();
+		ObjectNode previous = this.entities.put(id, entity);
+		if (previous != null) {
+			this.idsByTitle.remove(previous.path("title").asText(""));
+			for (JsonNode siteLink : previous.path("sitelinks")) {
+				this.idsBySiteLink.remove(siteLink.path("site").asText() + "\n"
+						+ siteLink.path("title").asText());
+			}
+		}
+		if (entity.has("title")) {
+			this.idsByTitle.put(entity.get("title").asText(), id);
+		}
+		for (JsonNode siteLink : entity.path("sitelinks")) {
+			this.idsBySiteLink.put(siteLink.path("site").asText() + "\n"
+					+ siteLink.path("title").asText(), id);
+		}
+		this.maxNumericIds.merge(id.charAt(0), getNumericId(id), Math::max);
+	}
+
+	ObjectNode makeEntityHeader(ObjectNode entity) {
+		ObjectNode header = this.mapper.createObjectNode();
+		header.set("id", entity.get("id"));
+		header.set("type", entity.get("type"));
+		return header;
+	}
+
+	ObjectNode makeTerm(String language, String value) {
+		ObjectNode term = this.mapper.createObjectNode();
+		term.put("language", language);
+		term.put("value", value);
+		return term;
+	}
+
+	/**
+	 * Returns the object in the given field of an entity, replacing empty
+	 * arrays, which dumps use for empty maps, by objects.
+	 */
+	ObjectNode getObject(ObjectNode entity, String field) {
+		JsonNode value = entity.get(field);
+		if (value instanceof ObjectNode) {
+			return (ObjectNode) value;
+		}
+		return entity.putObject(field);
+	}
+
+	void removeEmptyArrays(ObjectNode node) {
+		Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+		while (iterator.hasNext()) {
+			JsonNode value = iterator.next().getValue();
+			if (value.isArray() && value.size() == 0) {
+				iterator.remove();
+			}
+		}
+	}
+
+	long getNumericId(String id) {
+		try {
+			return Long.parseLong(id.substring(1));
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	String getRequired(Map<String, String> parameters, String name)
+			throws ApiError {
+		String value = parameters.get(name);
+		if (value == null) {
+			throw new ApiError("missingparam", "The \"" + name
+					+ "\" parameter must be set.");
+		}
+		return value;
+	}
+
+	double parseNumber(String value, String name) throws ApiError {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new ApiError("badinteger", "Invalid value \"" + value
+					+ "\" for parameter \"" + name + "\".");
+		}
+	}
+
+	String getSession(HttpExchange exchange) {
+		for (String header : exchange.getRequestHeaders().getOrDefault(
+				"Cookie", new ArrayList<>())) {
+			for (String cookie : header.split(";")) {
+				String[] parts = cookie.trim().split("=", 2);
+				if (parts.length == 2 && SESSION_COOKIE.equals(parts[0])) {
+					return parts[1];
+				}
+			}
+		}
+		return null;
+	}
+
+	Map<String, String> readParameters(HttpExchange exchange) throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+		parseQuery(exchange.getRequestURI().getRawQuery(), parameters);
+		if ("POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			InputStream in = exchange.getRequestBody();
+			int length;
+			while ((length = in.read(buffer)) != -1) {
+				body.write(buffer, 0, length);
+			}
+			parseQuery(body.toString("UTF-8"), parameters);
+		}
+		return parameters;
+	}
+
+	void parseQuery(String query, Map<String, String> parameters)
+			throws UnsupportedEncodingException {
+		if (query == null || query.isEmpty()) {
+			return;
+		}
+		for (String pair : query.split("&")) {
+			int separator = pair.indexOf('=');
+			if (separator < 0) {
+				parameters.put(URLDecoder.decode(pair, "UTF-8"), "");
+			} else {
+				parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+						URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+			}
+		}
+	}
+
+}
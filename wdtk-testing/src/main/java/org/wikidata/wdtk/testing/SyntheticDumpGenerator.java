@@ -0,0 +1,1127 @@
+package org.wikidata.wdtk.testing;
+
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.wikidata.wdtk.util.CompressionType;
+
+/**
+ * Generator for synthetic dumps of any size in the JSON format and the XML
+ * revision format that Wikimedia uses for Wikidata. The dumps contain items,
+ * properties, lexemes and media info entities with labels, descriptions,
+ * aliases, site links and statements of all common datatypes, including
+ * qualifiers and references. The number of terms, site links and statements
+ * per entity follows a geometric distribution with a configurable mean, so
+ * that most entities are small and a few are large, as on Wikidata.
+ * <p>
+ * The output only depends on the seed and the settings of the generator:
+ * every entity is generated from its own random number generator, which is
+ * seeded with the seed of the generator and the id of the entity. The same
+ * settings thus always yield the same bytes, which makes it possible to
+ * compare the results of load tests and throughput measurements over time.
+ * <p>
+ * The entities are written one by one, so dumps of many gigabytes can be
+ * generated with little memory. Use file names such as
+ * "wikidata-20200101-all.json.gz" or
+ * "wikidatawiki-20200101-pages-meta-current.xml.bz2" so that the type and
+ * compression of the dump can be recognized when it is processed as a local
+ * dump file.
+ * <p>
+ * Media info entities only exist on Wikimedia Commons, where they are stored
+ * in additional slots of file pages. They are therefore only written to JSON
+ * dumps.
+ *
+ */
+public class SyntheticDumpGenerator {
+
+	/**
+	 * The IRI prefix of entities in the generated data.
+	 */
+	public static final String SITE_IRI = "http://www.wikidata.org/entity/";
+
+	/**
+	 * Codes of the languages that terms are generated in, roughly ordered by
+	 * how often they are used on Wikidata. Languages at the start of the list
+	 * are picked more often.
+	 */
+	static final String[] LANGUAGES = { "en", "de", "fr", "es", "it", "nl",
+			"ru", "ja", "zh", "pl", "pt", "sv", "uk", "ar", "ca", "cs", "fa",
+			"fi", "he", "hu", "id", "ko", "nb", "ro", "sr", "tr", "vi", "da",
+			"el", "eo", "et", "eu", "gl", "hi", "hr", "hy", "ka", "la", "lt",
+			"lv", "mk", "ms", "nn", "sk", "sl", "sq", "ta", "th", "bn", "cy" };
+
+	/**
+	 * Datatypes of the generated properties. Property Pn has the datatype at
+	 * position (n - 1) modulo the length of this array.
+	 */
+	static final String[] DATATYPES = { "wikibase-item", "string",
+			"external-id", "time", "quantity", "globe-coordinate",
+			"monolingualtext", "commonsMedia", "url" };
+
+	static final String[] LATIN_SYLLABLES = { "ka", "lo", "ri", "men", "sta",
+			"ber", "ton", "ville", "na", "ger", "an", "sel", "mar", "du", "vi",
+			"el", "ho", "rin", "ta", "gu" };
+	static final String[] CYRILLIC_SYLLABLES = { "ка", "ло", "ри", "мен",
+			"ста", "бер", "тон", "на", "гор", "ск" };
+	static final String[] GREEK_SYLLABLES = { "κα", "λο", "ρι", "με", "στα",
+			"νι", "πο", "ος" };
+	static final String[] ARABIC_SYLLABLES = { "كا", "لو", "ري", "من", "سا",
+			"بر", "تو", "نا" };
+	static final String[] CJK_SYLLABLES = { "山", "川", "東", "京", "大", "学",
+			"国", "人", "日", "本", "中", "文" };
+
+	static final String CALENDAR_MODEL = "http://www.wikidata.org/entity/Q1985727";
+	static final String EARTH = "http://www.wikidata.org/entity/Q2";
+	static final String TIMESTAMP = "2020-01-01T00:00:00Z";
+
+	final long seed;
+
+	int itemCount = 1000;
+	int propertyCount = 100;
+	int lexemeCount = 0;
+	int mediaInfoCount = 0;
+	double meanStatementCount = 8;
+	double meanLabelCount = 6;
+	double meanSiteLinkCount = 3;
+	double qualifierProbability = 0.2;
+	double referenceProbability = 0.6;
+	int revisionsPerPage = 1;
+
+	/**
+	 * Constructs a new generator.
+	 *
+	 * @param seed
+	 *            the seed that the generated data is derived from
+	 */
+	public SyntheticDumpGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Sets the number of items to generate, with ids Q1 to Qn. The default is
+	 * 1000.
+	 *
+	 * @param itemCount
+	 *            the number of items
+	 */
+	public void setItemCount(int itemCount) {
+		this.itemCount = checkCount(itemCount);
+	}
+
+	/**
+	 * Sets the number of properties to generate, with ids P1 to Pn. These are
+	 * also the properties that statements use. The default is 100.
+	 *
+	 * @param propertyCount
+	 *            the number of properties; must be positive
+	 */
+	public void setPropertyCount(int propertyCount) {
+		if (propertyCount <= 0) {
+			throw new IllegalArgumentException(
+					"At least one property is needed.");
+		}
+		this.propertyCount = propertyCount;
+	}
+
+	/**
+	 * Sets the number of lexemes to generate, with ids L1 to Ln. The default
+	 * is 0.
+	 *
+	 * @param lexemeCount
+	 *            the number of lexemes
+	 */
+	public void setLexemeCount(int lexemeCount) {
+		this.lexemeCount = checkCount(lexemeCount);
+	}
+
+	/**
+	 * Sets the number of media info entities to generate. They are only
+	 * written to JSON dumps. The default is 0.
+	 *
+	 * @param mediaInfoCount
+	 *            the number of media info entities
+	 */
+	public void setMediaInfoCount(int mediaInfoCount) {
+		this.mediaInfoCount = checkCount(mediaInfoCount);
+	}
+
+	/**
+	 * Sets the mean number of statements of an item. Other entities have
+	 * fewer statements. The default is 8.
+	 *
+	 * @param meanStatementCount
+	 *            the mean number of statements
+	 */
+	public void setMeanStatementCount(double meanStatementCount) {
+		this.meanStatementCount = checkMean(meanStatementCount);
+	}
+
+	/**
+	 * Sets the mean number of languages in which an entity has a label. Every
+	 * item and property has at least one label. The default is 6.
+	 *
+	 * @param meanLabelCount
+	 *            the mean number of labels, at least 1
+	 */
+	public void setMeanLabelCount(double meanLabelCount) {
+		if (meanLabelCount < 1) {
+			throw new IllegalArgumentException(
+					"The mean number of labels must be at least 1.");
+		}
+		this.meanLabelCount = meanLabelCount;
+	}
+
+	/**
+	 * Sets the mean number of site links of an item. The default is 3.
+	 *
+	 * @param meanSiteLinkCount
+	 *            the mean number of site links
+	 */
+	public void setMeanSiteLinkCount(double meanSiteLinkCount) {
+		this.meanSiteLinkCount = checkMean(meanSiteLinkCount);
+	}
+
+	/**
+	 * Sets the probability that a statement has qualifiers. The default is
+	 * 0.2.
+	 *
+	 * @param qualifierProbability
+	 *            a probability between 0 and 1
+	 */
+	public void setQualifierProbability(double qualifierProbability) {
+		this.qualifierProbability = checkProbability(qualifierProbability);
+	}
+
+	/**
+	 * Sets the probability that a statement has references. The default is
+	 * 0.6.
+	 *
+	 * @param referenceProbability
+	 *            a probability between 0 and 1
+	 */
+	public void setReferenceProbability(double referenceProbability) {
+		this.referenceProbability = checkProbability(referenceProbability);
+	}
+
+	/**
+	 * Sets the number of revisions of each page in XML dumps. The last
+	 * revision is the current content of the entity; earlier revisions have
+	 * fewer statements. The default is 1, as in dumps of current revisions.
+	 *
+	 * @param revisionsPerPage
+	 *            the number of revisions per page; must be positive
+	 */
+	public void setRevisionsPerPage(int revisionsPerPage) {
+		if (revisionsPerPage <= 0) {
+			throw new IllegalArgumentException(
+					"Every page needs at least one revision.");
+		}
+		this.revisionsPerPage = revisionsPerPage;
+	}
+
+	/**
+	 * Returns the number of entities in JSON dumps.
+	 *
+	 * @return the number of entities
+	 */
+	public long getEntityCount() {
+		return (long) this.itemCount + this.propertyCount + this.lexemeCount
+				+ this.mediaInfoCount;
+	}
+
+	/**
+	 * Writes a JSON dump to the given file, replacing the file if it exists.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @param compressionType
+	 *            the compression to use
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public void writeJsonDump(Path file, CompressionType compressionType)
+			throws IOException {
+		try (OutputStream out = getOutputStream(file, compressionType)) {
+			writeJsonDump(out);
+		}
+	}
+
+	/**
+	 * Writes an XML revision dump to the given file, replacing the file if it
+	 * exists.
+	 *
+	 * @param file
+	 *            the file to write
+	 * @param compressionType
+	 *            the compression to use
+	 * @throws IOException
+	 *             if the file could not be written
+	 */
+	public void writeXmlDump(Path file, CompressionType compressionType)
+			throws IOException {
+		try (OutputStream out = getOutputStream(file, compressionType)) {
+			writeXmlDump(out);
+		}
+	}
+
+	/**
+	 * Writes a JSON dump to the given stream: an array with one entity per
+	 * line. The stream is flushed but not closed.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void writeJsonDump(OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8));
+		StringBuilder sb = new StringBuilder();
+		boolean first = true;
+		writer.write("[\n");
+		for (Page page : new PageList(true)) {
+			if (!first) {
+				writer.write(",\n");
+			}
+			first = false;
+			sb.setLength(0);
+			appendEntity(sb, page, this.revisionsPerPage - 1, true);
+			writer.append(sb);
+		}
+		writer.write("\n]\n");
+		writer.flush();
+	}
+
+	/**
+	 * Writes an XML revision dump to the given stream. The stream is flushed
+	 * but not closed.
+	 *
+	 * @param out
+	 *            the stream to write to
+	 * @throws IOException
+	 *             if the data could not be written
+	 */
+	public void writeXmlDump(OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8));
+		writer.write("<mediawiki xmlns=\"http://www.mediawiki.org/xml/export-0.10/\""
+				+ " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\""
+				+ " xsi:schemaLocation=\"http://www.mediawiki.org/xml/export-0.10/ http://www.mediawiki.org/xml/export-0.10.xsd\""
+				+ " version=\"0.10\" xml:lang=\"en\">\n"
+				+ "  <siteinfo>\n"
+				+ "    <sitename>Wikidata</sitename>\n"
+				+ "    <dbname>wikidatawiki</dbname>\n"
+				+ "    <base>https://www.wikidata.org/wiki/Wikidata:Main_Page</base>\n"
+				+ "    <generator>Wikidata Toolkit SyntheticDumpGenerator</generator>\n"
+				+ "    <case>first-letter</case>\n"
+				+ "    <namespaces>\n"
+				+ "      <namespace key=\"0\" case=\"first-letter\" />\n"
+				+ "      <namespace key=\"120\" case=\"first-letter\">Property</namespace>\n"
+				+ "      <namespace key=\"146\" case=\"first-letter\">Lexeme</namespace>\n"
+				+ "    </namespaces>\n"
+				+ "  </siteinfo>\n");
+
+		StringBuilder sb = new StringBuilder();
+		for (Page page : new PageList(false)) {
+			writer.write("  <page>\n    <title>");
+			writer.write(page.title);
+			writer.write("</title>\n    <ns>");
+			writer.write(Integer.toString(page.namespace));
+			writer.write("</ns>\n    <id>");
+			writer.write(Long.toString(page.pageId));
+			writer.write("</id>\n");
+			for (int revision = 0; revision < this.revisionsPerPage; revision++) {
+				long revisionId = page.getRevisionId(revision);
+				writer.write("    <revision>\n      <id>");
+				writer.write(Long.toString(revisionId));
+				writer.write("</id>\n");
+				if (revision > 0) {
+					writer.write("      <parentid>");
+					writer.write(Long.toString(revisionId - 1));
+					writer.write("</parentid>\n");
+				}
+				writer.write("      <timestamp>");
+				writer.write(TIMESTAMP);
+				writer.write("</timestamp>\n      <contributor>\n"
+						+ "        <username>Synthetic bot</username>\n"
+						+ "        <id>1</id>\n      </contributor>\n"
+						+ "      <comment>Revision ");
+				writer.write(Integer.toString(revision + 1));
+				writer.write("</comment>\n      <model>");
+				writer.write(page.model);
+				writer.write("</model>\n      <format>application/json</format>\n"
+						+ "      <text xml:space=\"preserve\">");
+				sb.setLength(0);
+				appendEntity(sb, page, revision, false);
+				appendXmlEscaped(writer, sb);
+				writer.write("</text>\n      <sha1 />\n    </revision>\n");
+			}
+			writer.write("  </page>\n");
+		}
+		writer.write("</mediawiki>\n");
+		writer.flush();
+	}
+
+	/**
+	 * Returns the JSON of the given item as it appears in JSON dumps.
+	 *
+	 * @param numericId
+	 *            the numeric id of the item, between 1 and the number of items
+	 * @return the JSON serialization of the item
+	 */
+	public String getItemJson(int numericId) {
+		if (numericId < 1 || numericId > this.itemCount) {
+			throw new IllegalArgumentException("There is no item Q"
+					+ numericId + ".");
+		}
+		StringBuilder sb = new StringBuilder();
+		appendEntity(sb, new Page('Q', numericId, numericId),
+				this.revisionsPerPage - 1, true);
+		return sb.toString();
+	}
+
+	/**
+	 * A page with an entity, as it is written to a dump.
+	 */
+	class Page {
+		final char type;
+		final int numericId;
+		final long pageId;
+		final String id;
+		final String title;
+		final int namespace;
+		final String model;
+
+		Page(char type, int numericId, long pageId) {
+			this.type = type;
+			this.numericId = numericId;
+			this.pageId = pageId;
+			switch (type) {
+			case 'P':
+				this.id = "P" + numericId;
+				this.title = "Property:" + this.id;
+				this.namespace = 120;
+				this.model = "wikibase-property";
+				break;
+			case 'L':
+				this.id = "L" + numericId;
+				this.title = "Lexeme:" + this.id;
+				this.namespace = 146;
+				this.model = "wikibase-lexeme";
+				break;
+			case 'M':
+				this.id = "M" + pageId;
+				this.title = "File:Synthetic file " + numericId + ".jpg";
+				this.namespace = 6;
+				this.model = "wikibase-mediainfo";
+				break;
+			default:
+				this.id = "Q" + numericId;
+				this.title = this.id;
+				this.namespace = 0;
+				this.model = "wikibase-item";
+			}
+		}
+
+		long getRevisionId(int revision) {
+			return this.pageId * SyntheticDumpGenerator.this.revisionsPerPage
+					+ revision;
+		}
+	}
+
+	/**
+	 * The pages of a dump in the order in which they are written: items,
+	 * properties, lexemes and media info entities. Page ids are assigned in
+	 * this order, starting from 1.
+	 */
+	class PageList implements Iterable<Page> {
+
+		final boolean withMediaInfo;
+
+		PageList(boolean withMediaInfo) {
+			this.withMediaInfo = withMediaInfo;
+		}
+
+		@Override
+		public Iterator<Page> iterator() {
+			return new Iterator<Page>() {
+
+				final char[] types = { 'Q', 'P', 'L', 'M' };
+				final int[] counts = { itemCount, propertyCount, lexemeCount,
+						withMediaInfo ? mediaInfoCount : 0 };
+				int type = 0;
+				int numericId = 0;
+				long pageId = 0;
+
+				@Override
+				public boolean hasNext() {
+					while (this.type < this.types.length
+							&& this.numericId >= this.counts[this.type]) {
+						this.type++;
+						this.numericId = 0;
+					}
+					return this.type < this.types.length;
+				}
+
+				@Override
+				public Page next() {
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					this.numericId++;
+					this.pageId++;
+					return new Page(this.types[this.type], this.numericId,
+							this.pageId);
+				}
+			};
+		}
+	}
+
+	/**
+	 * Appends the JSON of the entity on the given page, as it is in the given
+	 * revision. Revisions before the last one have fewer statements.
+	 */
+	void appendEntity(StringBuilder sb, Page page, int revision,
+			boolean withPageInfo) {
+		Random random = getRandom(page);
+		double statementFraction = (revision + 1.0) / this.revisionsPerPage;
+
+		sb.append('{');
+		if (withPageInfo) {
+			sb.append("\"pageid\":").append(page.pageId).append(",\"ns\":")
+					.append(page.namespace).append(",\"title\":");
+			appendString(sb, page.title);
+			sb.append(",\"lastrevid\":")
+					.append(page.getRevisionId(this.revisionsPerPage - 1))
+					.append(",\"modified\":\"").append(TIMESTAMP)
+					.append("\",");
+		}
+		switch (page.type) {
+		case 'P':
+			sb.append("\"type\":\"property\",\"datatype\":\"")
+					.append(getDatatype(page.numericId)).append("\",");
+			break;
+		case 'L':
+			sb.append("\"type\":\"lexeme\",");
+			break;
+		case 'M':
+			sb.append("\"type\":\"mediainfo\",");
+			break;
+		default:
+			sb.append("\"type\":\"item\",");
+		}
+		sb.append("\"id\":\"").append(page.id).append('"');
+
+		switch (page.type) {
+		case 'L':
+			appendLexemeContent(sb, random, page, statementFraction);
+			break;
+		case 'M':
+			appendTerms(sb, random, true);
+			sb.append(",\"statements\":");
+			appendStatements(sb, random, page.id, statementFraction
+					* this.meanStatementCount / 2);
+			break;
+		case 'P':
+			appendTerms(sb, random, false);
+			sb.append(",\"claims\":");
+			appendStatements(sb, random, page.id, statementFraction
+					* this.meanStatementCount / 4);
+			break;
+		default:
+			appendTerms(sb, random, false);
+			sb.append(",\"claims\":");
+			appendStatements(sb, random, page.id, statementFraction
+					* this.meanStatementCount);
+			appendSiteLinks(sb, random);
+		}
+		sb.append('}');
+	}
+
+	/**
+	 * Appends the labels, descriptions and, unless this is a media info
+	 * entity, the aliases of an entity.
+	 */
+	void appendTerms(StringBuilder sb, Random random, boolean mediaInfo) {
+		List<String> languages = getLanguages(random,
+				1 + getCount(random, this.meanLabelCount - 1));
+		Map<String, String> labels = new LinkedHashMap<>();
+		for (String language : languages) {
+			labels.put(language, getText(random, language, 1 + random.nextInt(3)));
+		}
+		sb.append(",\"labels\":");
+		appendTermMap(sb, labels);
+
+		Map<String, String> descriptions = new LinkedHashMap<>();
+		for (String language : languages) {
+			if (random.nextDouble() < 0.7) {
+				descriptions.put(language,
+						getText(random, language, 2 + random.nextInt(5)));
+			}
+		}
+		sb.append(",\"descriptions\":");
+		appendTermMap(sb, descriptions);
+
+		if (mediaInfo) {
+			return;
+		}
+		sb.append(",\"aliases\":{");
+		boolean first = true;
+		for (String language : languages) {
+			if (random.nextDouble() >= 0.15) {
+				continue;
+			}
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			sb.append('"').append(language).append("\":[");
+			int aliasCount = 1 + random.nextInt(3);
+			for (int i = 0; i < aliasCount; i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				appendTerm(sb, language,
+						getText(random, language, 1 + random.nextInt(3)));
+			}
+			sb.append(']');
+		}
+		sb.append('}');
+	}
+
+	void appendLexemeContent(StringBuilder sb, Random random, Page page,
+			double statementFraction) {
+		String language = LANGUAGES[random.nextInt(10)];
+		String lemma = getText(random, language, 1);
+		sb.append(",\"lemmas\":{\"").append(language).append("\":");
+		appendTerm(sb, language, lemma);
+		sb.append("},\"lexicalCategory\":\"Q").append(1 + random.nextInt(this.itemCount + 1))
+				.append("\",\"language\":\"Q").append(1 + random.nextInt(this.itemCount + 1))
+				.append("\",\"claims\":");
+		appendStatements(sb, random, page.id, statementFraction);
+
+		sb.append(",\"forms\":[");
+		int formCount = 1 + random.nextInt(4);
+		for (int i = 1; i <= formCount; i++) {
+			if (i > 1) {
+				sb.append(',');
+			}
+			sb.append("{\"id\":\"").append(page.id).append("-F").append(i)
+					.append("\",\"representations\":{\"").append(language)
+					.append("\":");
+			appendTerm(sb, language, lemma + LATIN_SYLLABLES[random
+					.nextInt(LATIN_SYLLABLES.length)]);
+			sb.append("},\"grammaticalFeatures\":[\"Q")
+					.append(1 + random.nextInt(this.itemCount + 1))
+					.append("\"],\"claims\":");
+			appendStatements(sb, random, page.id + "-F" + i,
+					statementFraction / 2);
+			sb.append('}');
+		}
+
+		sb.append("],\"senses\":[");
+		int senseCount = random.nextInt(3);
+		for (int i = 1; i <= senseCount; i++) {
+			if (i > 1) {
+				sb.append(',');
+			}
+			sb.append("{\"id\":\"").append(page.id).append("-S").append(i)
+					.append("\",\"glosses\":{\"").append(language).append("\":");
+			appendTerm(sb, language, getText(random, language, 4));
+			sb.append("},\"claims\":");
+			appendStatements(sb, random, page.id + "-S" + i, statementFraction);
+			sb.append('}');
+		}
+		sb.append(']');
+	}
+
+	void appendSiteLinks(StringBuilder sb, Random random) {
+		sb.append(",\"sitelinks\":{");
+		List<String> languages = getLanguages(random,
+				getCount(random, this.meanSiteLinkCount));
+		boolean first = true;
+		for (String language : languages) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			String site = language.replace('-', '_') + "wiki";
+			sb.append('"').append(site).append("\":{\"site\":\"").append(site)
+					.append("\",\"title\":");
+			appendString(sb, getText(random, language, 1 + random.nextInt(3)));
+			sb.append(",\"badges\":[");
+			if (random.nextInt(50) == 0) {
+				sb.append("\"Q17437796\"");
+			}
+			sb.append("]}");
+		}
+		sb.append('}');
+	}
+
+	/**
+	 * Appends a map from properties to statement groups, with the given mean
+	 * number of statements.
+	 */
+	void appendStatements(StringBuilder sb, Random random, String subjectId,
+			double meanCount) {
+		Map<Integer, Integer> groups = new LinkedHashMap<>();
+		int count = getCount(random, meanCount);
+		for (int i = 0; i < count; i++) {
+			groups.merge(getPropertyId(random), 1, Integer::sum);
+		}
+
+		sb.append('{');
+		boolean first = true;
+		for (Map.Entry<Integer, Integer> group : groups.entrySet()) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			sb.append("\"P").append(group.getKey()).append("\":[");
+			for (int i = 0; i < group.getValue(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				appendStatement(sb, random, subjectId, group.getKey());
+			}
+			sb.append(']');
+		}
+		sb.append('}');
+	}
+
+	void appendStatement(StringBuilder sb, Random random, String subjectId,
+			int propertyId) {
+		sb.append("{\"mainsnak\":");
+		appendSnak(sb, random, propertyId);
+		sb.append(",\"type\":\"statement\"");
+		if (random.nextDouble() < this.qualifierProbability) {
+			sb.append(',');
+			appendSnakGroups(sb, random, "qualifiers", 1 + random.nextInt(3));
+		}
+		sb.append(",\"id\":\"").append(subjectId).append('$');
+		appendUuid(sb, random);
+		int rank = random.nextInt(100);
+		sb.append("\",\"rank\":\"")
+				.append(rank < 90 ? "normal" : rank < 97 ? "preferred"
+						: "deprecated").append('"');
+		if (random.nextDouble() < this.referenceProbability) {
+			sb.append(",\"references\":[");
+			int referenceCount = 1 + random.nextInt(2);
+			for (int i = 0; i < referenceCount; i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				sb.append("{\"hash\":\"");
+				appendHash(sb, random);
+				sb.append("\",");
+				appendSnakGroups(sb, random, "snaks", 1 + random.nextInt(3));
+				sb.append('}');
+			}
+			sb.append(']');
+		}
+		sb.append('}');
+	}
+
+	/**
+	 * Appends a map of snak groups with the given key, followed by the order
+	 * of its properties.
+	 */
+	void appendSnakGroups(StringBuilder sb, Random random, String key,
+			int snakCount) {
+		Map<Integer, Integer> groups = new LinkedHashMap<>();
+		for (int i = 0; i < snakCount; i++) {
+			groups.merge(getPropertyId(random), 1, Integer::sum);
+		}
+		sb.append('"').append(key).append("\":{");
+		boolean first = true;
+		for (Map.Entry<Integer, Integer> group : groups.entrySet()) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			sb.append("\"P").append(group.getKey()).append("\":[");
+			for (int i = 0; i < group.getValue(); i++) {
+				if (i > 0) {
+					sb.append(',');
+				}
+				appendSnak(sb, random, group.getKey());
+			}
+			sb.append(']');
+		}
+		sb.append("},\"").append(key).append("-order\":[");
+		first = true;
+		for (Integer propertyId : groups.keySet()) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			sb.append("\"P").append(propertyId).append('"');
+		}
+		sb.append(']');
+	}
+
+	void appendSnak(StringBuilder sb, Random random, int propertyId) {
+		int kind = random.nextInt(100);
+		String snakType = kind < 97 ? "value" : kind < 99 ? "somevalue"
+				: "novalue";
+		String datatype = getDatatype(propertyId);
+		sb.append("{\"snaktype\":\"").append(snakType)
+				.append("\",\"property\":\"P").append(propertyId)
+				.append("\",\"hash\":\"");
+		appendHash(sb, random);
+		sb.append('"');
+		if ("value".equals(snakType)) {
+			sb.append(",\"datavalue\":");
+			appendValue(sb, random, datatype);
+		}
+		sb.append(",\"datatype\":\"").append(datatype).append("\"}");
+	}
+
+	void appendValue(StringBuilder sb, Random random, String datatype) {
+		switch (datatype) {
+		case "wikibase-item":
+			int numericId = 1 + random.nextInt(this.itemCount + 1);
+			sb.append("{\"value\":{\"entity-type\":\"item\",\"numeric-id\":")
+					.append(numericId).append(",\"id\":\"Q").append(numericId)
+					.append("\"},\"type\":\"wikibase-entityid\"}");
+			break;
+		case "time":
+			int precision = 9 + random.nextInt(3);
+			sb.append("{\"value\":{\"time\":\"+")
+					.append(1500 + random.nextInt(520)).append('-');
+			appendTwoDigits(sb, precision > 9 ? 1 + random.nextInt(12) : 0);
+			sb.append('-');
+			appendTwoDigits(sb, precision > 10 ? 1 + random.nextInt(28) : 0);
+			sb.append("T00:00:00Z\",\"timezone\":0,\"before\":0,\"after\":0,\"precision\":")
+					.append(precision).append(",\"calendarmodel\":\"")
+					.append(CALENDAR_MODEL).append("\"},\"type\":\"time\"}");
+			break;
+		case "quantity":
+			int amount = random.nextInt(100000);
+			int fraction = random.nextInt(100);
+			boolean withUnit = random.nextBoolean();
+			sb.append("{\"value\":{\"amount\":\"+").append(amount).append('.');
+			appendTwoDigits(sb, fraction);
+			sb.append("\",\"unit\":\"");
+			if (withUnit) {
+				sb.append(SITE_IRI).append('Q').append(1 + random.nextInt(this.itemCount + 1));
+			} else {
+				sb.append('1');
+			}
+			sb.append('"');
+			if (random.nextBoolean()) {
+				sb.append(",\"upperBound\":\"+").append(amount + 1).append('.');
+				appendTwoDigits(sb, fraction);
+				sb.append("\",\"lowerBound\":\"+").append(amount).append('.');
+				appendTwoDigits(sb, fraction);
+				sb.append('"');
+			}
+			sb.append("},\"type\":\"quantity\"}");
+			break;
+		case "globe-coordinate":
+			sb.append("{\"value\":{\"latitude\":")
+					.append((random.nextInt(1800000) - 900000) / 10000.0)
+					.append(",\"longitude\":")
+					.append((random.nextInt(3600000) - 1800000) / 10000.0)
+					.append(",\"altitude\":null,\"precision\":0.0001,\"globe\":\"")
+					.append(EARTH).append("\"},\"type\":\"globecoordinate\"}");
+			break;
+		case "monolingualtext":
+			String language = LANGUAGES[random.nextInt(LANGUAGES.length)];
+			sb.append("{\"value\":{\"text\":");
+			appendString(sb, getText(random, language, 1 + random.nextInt(4)));
+			sb.append(",\"language\":\"").append(language)
+					.append("\"},\"type\":\"monolingualtext\"}");
+			break;
+		case "external-id":
+			sb.append("{\"value\":\"").append(random.nextInt(10000000))
+					.append("\",\"type\":\"string\"}");
+			break;
+		case "commonsMedia":
+			sb.append("{\"value\":");
+			appendString(sb, getText(random, "en", 1 + random.nextInt(3))
+					+ ".jpg");
+			sb.append(",\"type\":\"string\"}");
+			break;
+		case "url":
+			sb.append("{\"value\":\"https://example.org/record?id=")
+					.append(random.nextInt(10000000))
+					.append("&lang=en\",\"type\":\"string\"}");
+			break;
+		default:
+			sb.append("{\"value\":");
+			appendString(sb, getText(random, "en", 1 + random.nextInt(6)));
+			sb.append(",\"type\":\"string\"}");
+		}
+	}
+
+	void appendTermMap(StringBuilder sb, Map<String, String> terms) {
+		sb.append('{');
+		boolean first = true;
+		for (Map.Entry<String, String> term : terms.entrySet()) {
+			if (!first) {
+				sb.append(',');
+			}
+			first = false;
+			sb.append('"').append(term.getKey()).append("\":");
+			appendTerm(sb, term.getKey(), term.getValue());
+		}
+		sb.append('}');
+	}
+
+	void appendTerm(StringBuilder sb, String language, String text) {
+		sb.append("{\"language\":\"").append(language).append("\",\"value\":");
+		appendString(sb, text);
+		sb.append('}');
+	}
+
+	/**
+	 * Appends a JSON string. Generated texts never contain characters that
+	 * need escaping apart from quotes and backslashes.
+	 */
+	static void appendString(StringBuilder sb, String text) {
+		sb.append('"');
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		sb.append('"');
+	}
+
+	static void appendXmlEscaped(Writer writer, CharSequence text)
+			throws IOException {
+		int start = 0;
+		for (int i = 0; i < text.length(); i++) {
+			String replacement;
+			switch (text.charAt(i)) {
+			case '"':
+				replacement = "&quot;";
+				break;
+			case '&':
+				replacement = "&amp;";
+				break;
+			case '<':
+				replacement = "&lt;";
+				break;
+			case '>':
+				replacement = "&gt;";
+				break;
+			default:
+				continue;
+			}
+			writer.append(text, start, i).write(replacement);
+			start = i + 1;
+		}
+		writer.append(text, start, text.length());
+	}
+
+	static void appendTwoDigits(StringBuilder sb, int number) {
+		if (number < 10) {
+			sb.append('0');
+		}
+		sb.append(number);
+	}
+
+	static void appendHash(StringBuilder sb, Random random) {
+		for (int i = 0; i < 5; i++) {
+			appendHex(sb, random.nextInt(), 8);
+		}
+	}
+
+	static void appendUuid(StringBuilder sb, Random random) {
+		appendHex(sb, random.nextInt(), 8);
+		sb.append('-');
+		appendHex(sb, random.nextInt(), 4);
+		sb.append('-');
+		appendHex(sb, random.nextInt(), 4);
+		sb.append('-');
+		appendHex(sb, random.nextInt(), 4);
+		sb.append('-');
+		appendHex(sb, random.nextInt(), 4);
+		appendHex(sb, random.nextInt(), 8);
+	}
+
+	static void appendHex(StringBuilder sb, int value, int digits) {
+		for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+			sb.append(Character.forDigit((value >>> shift) & 0xF, 16));
+		}
+	}
+
+	/**
+	 * Returns a random text of the given number of words, written in a
+	 * script that fits the given language.
+	 */
+	static String getText(Random random, String language, int wordCount) {
+		String[] syllables;
+		String separator = " ";
+		switch (language) {
+		case "ru":
+		case "uk":
+		case "sr":
+		case "mk":
+			syllables = CYRILLIC_SYLLABLES;
+			break;
+		case "el":
+			syllables = GREEK_SYLLABLES;
+			break;
+		case "ar":
+		case "fa":
+			syllables = ARABIC_SYLLABLES;
+			break;
+		case "ja":
+		case "zh":
+			syllables = CJK_SYLLABLES;
+			separator = "";
+			break;
+		default:
+			syllables = LATIN_SYLLABLES;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < wordCount; i++) {
+			if (i > 0) {
+				sb.append(separator);
+			}
+			int syllableCount = 1 + random.nextInt(3);
+			for (int j = 0; j < syllableCount; j++) {
+				String syllable = syllables[random.nextInt(syllables.length)];
+				if (i == 0 && j == 0 && syllables == LATIN_SYLLABLES) {
+					syllable = Character.toUpperCase(syllable.charAt(0))
+							+ syllable.substring(1);
+				}
+				sb.append(syllable);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the given number of distinct languages. Languages at the start
+	 * of {@link #LANGUAGES} are picked more often.
+	 */
+	static List<String> getLanguages(Random random, int count) {
+		Set<String> result = new LinkedHashSet<>();
+		count = Math.min(count, LANGUAGES.length);
+		while (result.size() < count) {
+			double position = random.nextDouble();
+			result.add(LANGUAGES[(int) (position * position * LANGUAGES.length)]);
+		}
+		return new ArrayList<>(result);
+	}
+
+	/**
+	 * Returns the numeric id of a random property. Properties with small ids
+	 * are used more often.
+	 */
+	int getPropertyId(Random random) {
+		double position = random.nextDouble();
+		return 1 + (int) (position * position * this.propertyCount);
+	}
+
+	static String getDatatype(int propertyId) {
+		return DATATYPES[(propertyId - 1) % DATATYPES.length];
+	}
+
+	/**
+	 * Returns a number from a geometric distribution with the given mean.
+	 */
+	static int getCount(Random random, double mean) {
+		if (mean <= 0) {
+			return 0;
+		}
+		double p = 1 / (mean + 1);
+		return (int) Math.min(10000,
+				Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p)));
+	}
+
+	/**
+	 * Returns the random number generator for the given page. It only depends
+	 * on the seed and the entity, so that the content of an entity does not
+	 * change when other entities are added.
+	 */
+	Random getRandom(Page page) {
+		long hash = this.seed * 0x9E3779B97F4A7C15L + page.type;
+		hash = hash * 0x9E3779B97F4A7C15L + page.numericId;
+		return new Random(hash ^ (hash >>> 31));
+	}
+
+	static OutputStream getOutputStream(Path file,
+			CompressionType compressionType) throws IOException {
+		OutputStream out = Files.newOutputStream(file);
+		switch (compressionType) {
+		case NONE:
+			return out;
+		case GZIP:
+			return new GzipCompressorOutputStream(out);
+		case BZ2:
+			return new BZip2CompressorOutputStream(out);
+		default:
+			out.close();
+			throw new IllegalArgumentException("Unknown compression type "
+					+ compressionType);
+		}
+	}
+
+	static int checkCount(int count) {
+		if (count < 0) {
+			throw new IllegalArgumentException(
+					"The number of entities must not be negative.");
+		}
+		return count;
+	}
+
+	static double checkMean(double mean) {
+		if (mean < 0) {
+			throw new IllegalArgumentException("The mean must not be negative.");
+		}
+		return mean;
+	}
+
+	static double checkProbability(double probability) {
+		if (probability < 0 || probability > 1) {
+			throw new IllegalArgumentException(
+					"Probabilities must be between 0 and 1.");
+		}
+		return probability;
+	}
+
+}
@@ -0,0 +1,265 @@
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.testing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MockWikibaseApiServerTest {
+
+	final ObjectMapper mapper = new ObjectMapper();
+
+	MockWikibaseApiServer server;
+
+	String cookie;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		SyntheticDumpGenerator generator = new SyntheticDumpGenerator(42);
+		generator.setItemCount(20);
+		generator.setPropertyCount(5);
+		generator.setLexemeCount(0);
+		generator.setMediaInfoCount(3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.writeJsonDump(out);
+
+		server = new MockWikibaseApiServer(2);
+		server.loadJsonDump(new ByteArrayInputStream(out.toByteArray()));
+		server.putEntity("{\"type\":\"item\",\"id\":\"Q1000\",\"lastrevid\":5000,"
+				+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Mock entity\"}},"
+				+ "\"aliases\":{\"en\":[{\"language\":\"en\",\"value\":\"Stand-in\"}]},"
+				+ "\"sitelinks\":{\"enwiki\":{\"site\":\"enwiki\",\"title\":\"Mock\",\"badges\":[]}},"
+				+ "\"claims\":{}}");
+		server.addUser("Bot", "secret");
+		server.start();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.close();
+	}
+
+	JsonNode request(String... parameters) throws IOException {
+		StringBuilder body = new StringBuilder("format=json");
+		for (int i = 0; i < parameters.length; i += 2) {
+			body.append('&').append(parameters[i]).append('=')
+					.append(URLEncoder.encode(parameters[i + 1], "UTF-8"));
+		}
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				server.getApiUrl()).openConnection();
+		connection.setRequestMethod("POST");
+		connection.setDoOutput(true);
+		if (cookie != null) {
+			connection.setRequestProperty("Cookie", cookie);
+		}
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+		}
+		assertEquals(200, connection.getResponseCode());
+		String setCookie = connection.getHeaderField("Set-Cookie");
+		if (setCookie != null) {
+			cookie = setCookie.split(";")[0];
+		}
+		try (InputStream in = connection.getInputStream()) {
+			return mapper.readTree(in);
+		}
+	}
+
+	String getErrorCode(JsonNode response) {
+		return response.path("error").path("code").asText(null);
+	}
+
+	@Test
+	public void testLoadJsonDump() {
+		assertEquals(20 + 5 + 3 + 1, server.getEntityCount());
+		assertTrue(server.getEntityJson("Q1").contains("\"id\":\"Q1\""));
+		assertEquals(null, server.getEntityJson("Q9999"));
+		assertThrows(IOException.class, () -> server.loadJsonDump(
+				new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	public void testGetEntities() throws IOException {
+		JsonNode response = request("action", "wbgetentities", "ids", "Q1|Q1000|Q9999",
+				"props", "labels|sitelinks", "languages", "en");
+		JsonNode entities = response.get("entities");
+		assertEquals(1, response.get("success").asInt());
+		assertEquals("Q1", entities.get("Q1").get("id").asText());
+		assertEquals("Mock entity", entities.get("Q1000").get("labels").get("en")
+				.get("value").asText());
+		assertFalse(entities.get("Q1000").has("aliases"));
+		assertTrue(entities.get("Q9999").has("missing"));
+		assertEquals(1, server.getRequestCount("wbgetentities"));
+
+		response = request("action", "wbgetentities", "sites", "enwiki",
+				"titles", "Mock|Missing");
+		assertTrue(response.get("entities").has("Q1000"));
+		assertTrue(response.get("entities").get("-1").has("missing"));
+	}
+
+	@Test
+	public void testQueryPageIds() throws IOException {
+		JsonNode response = request("action", "query", "prop", "info",
+				"titles", "File:Synthetic file 1.jpg|File:None.jpg|File:Other.jpg");
+		JsonNode pages = response.get("query").get("pages");
+		assertEquals(3, pages.size());
+		assertTrue(pages.has("-1"));
+		assertTrue(pages.has("-2"));
+	}
+
+	@Test
+	public void testSearchEntities() throws IOException {
+		JsonNode response = request("action", "wbsearchentities",
+				"search", "stand", "language", "en");
+		assertEquals(1, response.get("search").size());
+		JsonNode result = response.get("search").get(0);
+		assertEquals("Q1000", result.get("id").asText());
+		assertEquals("alias", result.get("match").get("type").asText());
+		assertFalse(response.has("search-continue"));
+
+		response = request("action", "wbsearchentities", "search", "",
+				"language", "en", "limit", "3", "continue", "3");
+		assertEquals(3, response.get("search").size());
+		assertEquals(6, response.get("search-continue").asInt());
+	}
+
+	@Test
+	public void testLogin() throws IOException {
+		assertEquals("assertuserfailed", getErrorCode(request("action",
+				"wbgetentities", "ids", "Q1", "assert", "user")));
+		assertEquals("WrongPass", request("action", "login", "lgname", "Bot",
+				"lgpassword", "wrong", "lgtoken", MockWikibaseApiServer.LOGIN_TOKEN)
+				.get("login").get("result").asText());
+		assertEquals("WrongToken", request("action", "login", "lgname", "Bot",
+				"lgpassword", "secret", "lgtoken", "other").get("login")
+				.get("result").asText());
+		JsonNode tokens = request("action", "query", "meta", "tokens",
+				"type", "login").get("query").get("tokens");
+		assertEquals("Success", request("action", "login", "lgname", "Bot",
+				"lgpassword", "secret", "lgtoken",
+				tokens.get("logintoken").asText()).get("login").get("result")
+				.asText());
+		assertEquals(null, getErrorCode(request("action", "wbgetentities",
+				"ids", "Q1", "assert", "user")));
+
+		request("action", "logout");
+		assertEquals("assertuserfailed", getErrorCode(request("action",
+				"wbgetentities", "ids", "Q1", "assert", "user")));
+	}
+
+	@Test
+	public void testEditEntity() throws IOException {
+		String data = "{\"labels\":{\"de\":{\"language\":\"de\",\"value\":\"Attrappe\"}},"
+				+ "\"aliases\":[{\"language\":\"en\",\"value\":\"Dummy\",\"add\":\"\"}],"
+				+ "\"claims\":[{\"mainsnak\":{\"snaktype\":\"somevalue\",\"property\":\"P1\"},"
+				+ "\"type\":\"statement\",\"rank\":\"normal\"}]}";
+		assertEquals("notoken", getErrorCode(request("action", "wbeditentity",
+				"id", "Q1000", "data", data)));
+		assertEquals("badtoken", getErrorCode(request("action", "wbeditentity",
+				"id", "Q1000", "data", data, "token", "+\\")));
+
+		JsonNode response = request("action", "wbeditentity", "id", "Q1000",
+				"data", data, "baserevid", "5000",
+				"token", MockWikibaseApiServer.CSRF_TOKEN);
+		JsonNode entity = response.get("entity");
+		long revisionId = entity.get("lastrevid").asLong();
+		assertTrue(revisionId > 5000);
+		assertEquals("Attrappe", entity.get("labels").get("de").get("value").asText());
+		assertEquals(2, entity.get("aliases").get("en").size());
+		String statementId = entity.get("claims").get("P1").get(0).get("id").asText();
+		assertTrue(statementId.startsWith("Q1000$"));
+		assertEquals(1, server.getRequestCount("wbeditentity") - 2);
+
+		assertEquals("editconflict", getErrorCode(request("action", "wbeditentity",
+				"id", "Q1000", "data", data, "baserevid", "5000",
+				"token", MockWikibaseApiServer.CSRF_TOKEN)));
+
+		response = request("action", "wbremoveclaims", "claim", statementId,
+				"baserevid", Long.toString(revisionId),
+				"token", MockWikibaseApiServer.CSRF_TOKEN);
+		assertEquals(statementId, response.get("claims").get(0).asText());
+		assertFalse(server.getEntityJson("Q1000").contains(statementId));
+	}
+
+	@Test
+	public void testNewEntity() throws IOException {
+		JsonNode response = request("action", "wbeditentity", "new", "item",
+				"data", "{\"labels\":[{\"language\":\"en\",\"value\":\"New\"}]}",
+				"token", MockWikibaseApiServer.CSRF_TOKEN);
+		assertEquals("Q1001", response.get("entity").get("id").asText());
+		assertTrue(server.getEntityJson("Q1001").contains("\"New\""));
+	}
+
+	@Test
+	public void testSetTerms() throws IOException {
+		JsonNode response = request("action", "wbsetlabel", "id", "Q1000",
+				"language", "fr", "value", "Maquette",
+				"token", MockWikibaseApiServer.CSRF_TOKEN);
+		assertEquals("Maquette", response.get("entity").get("labels").get("fr")
+				.get("value").asText());
+		response = request("action", "wbsetaliases", "id", "Q1000",
+				"language", "en", "add", "Fake", "remove", "Stand-in",
+				"token", MockWikibaseApiServer.CSRF_TOKEN);
+		JsonNode aliases = response.get("entity").get("aliases").get("en");
+		assertEquals(1, aliases.size());
+		assertEquals("Fake", aliases.get(0).get("value").asText());
+		assertNotEquals(5000, response.get("entity").get("lastrevid").asLong());
+	}
+
+	@Test
+	public void testInjectedFailures() throws IOException {
+		server.setLag(10);
+		JsonNode response = request("action", "wbgetentities", "ids", "Q1",
+				"maxlag", "5");
+		assertEquals("maxlag", getErrorCode(response));
+		assertEquals(10, response.get("error").get("lag").asInt());
+		assertEquals(null, getErrorCode(request("action", "wbgetentities",
+				"ids", "Q1", "maxlag", "20")));
+
+		server.setLag(0);
+		server.setEditConflictProbability(1);
+		assertEquals("editconflict", getErrorCode(request("action", "wbsetlabel",
+				"id", "Q1", "language", "en", "value", "x",
+				"token", MockWikibaseApiServer.CSRF_TOKEN)));
+		assertEquals("badvalue", getErrorCode(request("action", "unknown")));
+	}
+
+}
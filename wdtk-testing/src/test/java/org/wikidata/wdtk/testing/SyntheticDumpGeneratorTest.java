@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * Wikidata Toolkit Dump File Handling
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.testing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wikidata.wdtk.util.CompressionType;
+
+public class SyntheticDumpGeneratorTest {
+
+	@TempDir
+	Path tempDir;
+
+	SyntheticDumpGenerator makeGenerator(long seed) {
+		SyntheticDumpGenerator generator = new SyntheticDumpGenerator(seed);
+		generator.setItemCount(50);
+		generator.setPropertyCount(20);
+		generator.setLexemeCount(5);
+		generator.setMediaInfoCount(5);
+		return generator;
+	}
+
+	String getJsonDump(SyntheticDumpGenerator generator) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.writeJsonDump(out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	String getXmlDump(SyntheticDumpGenerator generator) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.writeXmlDump(out);
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void testJsonDump() throws IOException {
+		SyntheticDumpGenerator generator = makeGenerator(1);
+		String[] lines = getJsonDump(generator).split("\n");
+
+		assertEquals(80, generator.getEntityCount());
+		assertEquals(82, lines.length);
+		assertEquals("[", lines[0]);
+		assertEquals("]", lines[81]);
+		assertTrue(lines[1].startsWith("{\"pageid\":1,\"ns\":0,\"title\":\"Q1\","));
+		assertTrue(lines[51].contains("\"type\":\"property\",\"datatype\":\"wikibase-item\",\"id\":\"P1\""));
+		assertTrue(lines[71].contains("\"type\":\"lexeme\",\"id\":\"L1\""));
+		assertTrue(lines[76].contains("\"type\":\"mediainfo\",\"id\":\"M76\""));
+		for (int i = 1; i < 80; i++) {
+			assertTrue(lines[i].endsWith("},"));
+		}
+		assertEquals(generator.getItemJson(3) + ",", lines[3]);
+	}
+
+	@Test
+	public void testDeterministic() throws IOException {
+		assertEquals(getJsonDump(makeGenerator(42)),
+				getJsonDump(makeGenerator(42)));
+		assertEquals(getXmlDump(makeGenerator(42)),
+				getXmlDump(makeGenerator(42)));
+		assertFalse(getJsonDump(makeGenerator(42)).equals(
+				getJsonDump(makeGenerator(43))));
+	}
+
+	@Test
+	public void testEntitiesDoNotDependOnCounts() {
+		SyntheticDumpGenerator generator = makeGenerator(7);
+		String item = generator.getItemJson(10);
+		generator.setItemCount(5000);
+		generator.setLexemeCount(0);
+		// the ids of referenced items are drawn from the item count
+		assertTrue(generator.getItemJson(10).startsWith(
+				item.substring(0, item.indexOf("\"claims\""))));
+	}
+
+	@Test
+	public void testXmlDump() throws IOException {
+		SyntheticDumpGenerator generator = makeGenerator(1);
+		generator.setRevisionsPerPage(3);
+		String xml = getXmlDump(generator);
+
+		// no media info in revision dumps
+		assertEquals(75, xml.split("<page>", -1).length - 1);
+		assertEquals(225, xml.split("<revision>", -1).length - 1);
+		assertTrue(xml.contains("<title>Property:P20</title>"));
+		assertTrue(xml.contains("<title>Lexeme:L5</title>"));
+		assertTrue(xml.contains("<model>wikibase-lexeme</model>"));
+		assertTrue(xml.contains("{&quot;type&quot;:&quot;item&quot;,&quot;id&quot;:&quot;Q1&quot;"));
+		assertFalse(xml.contains("\"type\""));
+		assertTrue(xml.trim().endsWith("</mediawiki>"));
+	}
+
+	@Test
+	public void testCompressedFiles() throws IOException {
+		SyntheticDumpGenerator generator = makeGenerator(3);
+		byte[] expected = getJsonDump(generator).getBytes(
+				StandardCharsets.UTF_8);
+
+		Path gzFile = tempDir.resolve("dump.json.gz");
+		generator.writeJsonDump(gzFile, CompressionType.GZIP);
+		try (InputStream in = new GzipCompressorInputStream(
+				Files.newInputStream(gzFile))) {
+			assertArrayEquals(expected, readAll(in));
+		}
+
+		Path bz2File = tempDir.resolve("dump.json.bz2");
+		generator.writeJsonDump(bz2File, CompressionType.BZ2);
+		try (InputStream in = new BZip2CompressorInputStream(
+				Files.newInputStream(bz2File))) {
+			assertArrayEquals(expected, readAll(in));
+		}
+
+		Path xmlFile = tempDir.resolve("dump.xml");
+		generator.writeXmlDump(xmlFile, CompressionType.NONE);
+		assertEquals(getXmlDump(generator),
+				new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testInvalidSettings() {
+		SyntheticDumpGenerator generator = new SyntheticDumpGenerator(0);
+		assertThrows(IllegalArgumentException.class,
+				() -> generator.setItemCount(-1));
+		assertThrows(IllegalArgumentException.class,
+				() -> generator.setPropertyCount(0));
+		assertThrows(IllegalArgumentException.class,
+				() -> generator.setMeanLabelCount(0.5));
+		assertThrows(IllegalArgumentException.class,
+				() -> generator.setReferenceProbability(1.5));
+		assertThrows(IllegalArgumentException.class,
+				() -> generator.setRevisionsPerPage(0));
+		assertThrows(IllegalArgumentException.class,
+				() -> generator.getItemJson(1001));
+	}
+
+	byte[] readAll(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int length;
+		while ((length = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, length);
+		}
+		return out.toByteArray();
+	}
+
+}
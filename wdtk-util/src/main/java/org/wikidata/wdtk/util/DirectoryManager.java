@@ -93,7 +93,8 @@ public interface DirectoryManager {
 	 * partially finished file downloads lying around if the program is
 	 * terminated during download. The temporary file will still be lying
 	 * around, but it will not be mistaken for the completed download by any
-	 * other parts of the program.
+	 * other parts of the program. An existing file of the same name is
+	 * replaced.
 	 * <p>
 	 * If the stream encodes a string, then it should generally be encoded in
 	 * UTF-8, since access methods assume this.
@@ -151,6 +152,21 @@ public interface DirectoryManager {
 	InputStream getInputStreamForFile(String fileName,
 			CompressionType compressionType) throws IOException;
 
+	/**
+	 * Returns the size of the file of the given name within the current
+	 * directory, as it is stored (i.e., before any decompression). This is
+	 * used to estimate how long it will take to process a file. The default
+	 * implementation does not know the size.
+	 * @param fileName
+	 *            the name of the file
+	 * @return the size of the file in bytes, or -1 if it is not known
+	 * @throws IOException
+	 *             if the size could not be determined
+	 */
+	default long getFileSize(String fileName) throws IOException {
+		return -1;
+	}
+
 	/**
 	 * Returns a list of the names of all subdirectories of the base directory.
 	 * The glob pattern can be used to filter the names; "*" should be used if
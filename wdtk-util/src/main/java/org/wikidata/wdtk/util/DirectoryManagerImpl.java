@@ -30,15 +30,17 @@ import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 
 /**
  * Class to read and write files from one directory. It is guaranteed that the
@@ -138,7 +140,14 @@ public class DirectoryManagerImpl implements DirectoryManager {
 			fileSize = fc.transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
 		}
 
-		Files.move(fileTempPath, filePath);
+		try {
+			Files.move(fileTempPath, filePath,
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(fileTempPath, filePath,
+					StandardCopyOption.REPLACE_EXISTING);
+		}
 
 		return fileSize;
 	}
@@ -176,9 +185,16 @@ public class DirectoryManagerImpl implements DirectoryManager {
 		return getCompressorInputStream(fileInputStream, compressionType);
 	}
 
+	@Override
+	public long getFileSize(String fileName) throws IOException {
+		return Files.size(this.directory.resolve(fileName));
+	}
+
 	/**
 	 * Returns an input stream that applies the required decompression to the
-	 * given input stream.
+	 * given input stream. The decompressing streams implement
+	 * {@link org.apache.commons.compress.utils.InputStreamStatistics}, so that
+	 * callers can find out how much of the compressed data has been read.
 	 *
 	 * @param inputStream
 	 *            the input stream with the (possibly compressed) data
@@ -194,7 +210,7 @@ public class DirectoryManagerImpl implements DirectoryManager {
 		case NONE:
 			return inputStream;
 		case GZIP:
-			return new GZIPInputStream(inputStream);
+			return new GzipCompressorInputStream(inputStream, true);
 		case BZ2:
 			return new BZip2CompressorInputStream(new BufferedInputStream(
 					inputStream));
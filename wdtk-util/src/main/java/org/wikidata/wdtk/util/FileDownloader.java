@@ -0,0 +1,555 @@
+package org.wikidata.wdtk.util;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class for downloading (large) files into a {@link DirectoryManager}. If the
+ * {@link WebResourceFetcher} reports the size of the file (which it only does
+ * if byte ranges are supported) and the target directory is on the local file
+ * system, the file is split into segments that are downloaded in parallel.
+ * Progress is recorded in a manifest file next to the partial download, so
+ * that an interrupted download can be resumed by calling
+ * {@link #download(String, DirectoryManager, String, String, String)} again.
+ * Segmented downloads can be verified against a given checksum before the
+ * completed file is moved to its final location.
+ * <p>
+ * In all other cases, the file is fetched as a single stream and stored using
+ * {@link DirectoryManager#createFileAtomic(String, InputStream)}.
+ * Alternatively, {@link #openStream(String, DirectoryManager, String)} can be
+ * used to read the data while it is being stored.
+ *
+ */
+public class FileDownloader {
+
+	static final Logger logger = LoggerFactory.getLogger(FileDownloader.class);
+
+	/**
+	 * Suffix of the file that a segmented download is written to before
+	 * completion. It differs from the suffix of the temporary files of
+	 * {@link DirectoryManager#createFileAtomic(String, InputStream)}, so that
+	 * a download that falls back to a single stream does not overwrite the
+	 * data of an earlier segmented download that could still be resumed.
+	 */
+	public static final String PARTIAL_FILE_SUFFIX = ".segments";
+	/**
+	 * Suffix of the manifest that records the progress of a partial download.
+	 */
+	public static final String MANIFEST_SUFFIX = ".segments.manifest";
+
+	static final String CHECKSUM_MD5 = "MD5";
+	static final String CHECKSUM_SHA1 = "SHA-1";
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Number of bytes that a segment may download before the manifest is
+	 * updated. This is roughly what is lost when a download is interrupted.
+	 */
+	static final long MANIFEST_UPDATE_INTERVAL = 8 * 1024 * 1024;
+
+	/**
+	 * Description of one byte range of the file and the number of bytes of it
+	 * that have been written already.
+	 */
+	static class Segment {
+		final long start;
+		final long end;
+		final AtomicLong done;
+		long doneSinceManifestUpdate = 0;
+
+		Segment(long start, long end, long done) {
+			this.start = start;
+			this.end = end;
+			this.done = new AtomicLong(done);
+		}
+
+		long remaining() {
+			return this.end - this.start - this.done.get();
+		}
+	}
+
+	final WebResourceFetcher webResourceFetcher;
+
+	int segmentCount = 4;
+	long minSegmentSize = 16 * 1024 * 1024;
+	int maxRetries = 3;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param webResourceFetcher
+	 *            the object used to access the Web
+	 */
+	public FileDownloader(WebResourceFetcher webResourceFetcher) {
+		this.webResourceFetcher = webResourceFetcher;
+	}
+
+	/**
+	 * Sets the maximal number of segments that are downloaded in parallel.
+	 * The default is 4.
+	 *
+	 * @param segmentCount
+	 *            number of parallel segments
+	 */
+	public void setSegmentCount(int segmentCount) {
+		if (segmentCount <= 0) {
+			throw new IllegalArgumentException(
+					"The segment count must be positive.");
+		}
+		this.segmentCount = segmentCount;
+	}
+
+	/**
+	 * Sets the minimal size of a segment in bytes. Smaller files are fetched
+	 * with fewer segments. The default is 16 MiB.
+	 *
+	 * @param minSegmentSize
+	 *            minimal number of bytes per segment
+	 */
+	public void setMinSegmentSize(long minSegmentSize) {
+		if (minSegmentSize <= 0) {
+			throw new IllegalArgumentException(
+					"The minimal segment size must be positive.");
+		}
+		this.minSegmentSize = minSegmentSize;
+	}
+
+	/**
+	 * Sets how often the download of a segment is restarted after a failed
+	 * connection before the download is given up. The default is 3.
+	 *
+	 * @param maxRetries
+	 *            number of retries per segment
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * Downloads the document at the given URL into a file of the given name.
+	 * If a checksum is given, segmented downloads are verified against it, and
+	 * the download fails if it does not match. In this case, the partial
+	 * download is deleted so that the next attempt starts afresh.
+	 *
+	 * @param urlString
+	 *            the URL to download
+	 * @param directoryManager
+	 *            the directory to store the file in
+	 * @param fileName
+	 *            the name of the file
+	 * @param checksumAlgorithm
+	 *            "MD5" or "SHA-1", or null if no checksum is known
+	 * @param expectedChecksum
+	 *            the expected checksum as a hexadecimal string, or null if no
+	 *            checksum is known
+	 * @return size of the new file in bytes
+	 * @throws IOException
+	 *             if the download failed or could not be verified
+	 */
+	public long download(String urlString, DirectoryManager directoryManager,
+			String fileName, String checksumAlgorithm, String expectedChecksum)
+			throws IOException {
+		if (directoryManager instanceof DirectoryManagerImpl) {
+			long length = this.webResourceFetcher.getContentLength(urlString);
+			if (length > 0) {
+				return downloadSegmented(urlString,
+						(DirectoryManagerImpl) directoryManager, fileName,
+						length, checksumAlgorithm, expectedChecksum);
+			}
+		}
+
+		try (InputStream inputStream = this.webResourceFetcher
+				.getInputStreamForUrl(urlString)) {
+			return directoryManager.createFileAtomic(fileName, inputStream);
+		}
+	}
+
+	/**
+	 * Opens a stream that returns the document at the given URL while it is
+	 * being downloaded into a file of the given name. This allows the data to
+	 * be processed during the download rather than afterwards. The file is
+	 * fetched as a single stream and stored using
+	 * {@link DirectoryManager#createFileAtomic(String, InputStream)} in a
+	 * background thread; the end of the returned stream is only reached once
+	 * the file has been stored. No checksum verification is performed.
+	 * <p>
+	 * If the returned stream is closed early, the download still completes;
+	 * closing the stream waits for this.
+	 *
+	 * @param urlString
+	 *            the URL to download
+	 * @param directoryManager
+	 *            the directory to store the file in
+	 * @param fileName
+	 *            the name of the file
+	 * @return stream of the (possibly compressed) data as downloaded
+	 * @throws IOException
+	 *             if the download could not be started
+	 */
+	public InputStream openStream(String urlString,
+			DirectoryManager directoryManager, String fileName)
+			throws IOException {
+		InputStream inputStream = this.webResourceFetcher
+				.getInputStreamForUrl(urlString);
+		return new StreamingDownloadInputStream(inputStream, directoryManager,
+				fileName);
+	}
+
+	/**
+	 * Opens a stream that returns the decompressed contents of the document
+	 * at the given URL while it is being downloaded into a file of the given
+	 * name. The file itself is stored in its original, compressed form.
+	 *
+	 * @see #openStream(String, DirectoryManager, String)
+	 * @param urlString
+	 *            the URL to download
+	 * @param directoryManager
+	 *            the directory to store the file in
+	 * @param fileName
+	 *            the name of the file
+	 * @param compressionType
+	 *            the compression used for the document
+	 * @return stream of the decompressed data
+	 * @throws IOException
+	 *             if the download could not be started
+	 */
+	public InputStream openStream(String urlString,
+			DirectoryManager directoryManager, String fileName,
+			CompressionType compressionType) throws IOException {
+		InputStream inputStream = openStream(urlString, directoryManager,
+				fileName);
+		switch (compressionType) {
+		case NONE:
+			return inputStream;
+		case GZIP:
+			return new GzipCompressorInputStream(inputStream, true);
+		case BZ2:
+			return new BZip2CompressorInputStream(new BufferedInputStream(
+					inputStream));
+		default:
+			inputStream.close();
+			throw new IllegalArgumentException("Unsupported compression type: "
+					+ compressionType);
+		}
+	}
+
+	/**
+	 * Downloads the file in parallel segments, resuming an earlier partial
+	 * download if the manifest matches.
+	 */
+	long downloadSegmented(String urlString,
+			DirectoryManagerImpl directoryManager, String fileName,
+			long length, String checksumAlgorithm, String expectedChecksum)
+			throws IOException {
+		Path filePath = directoryManager.directory.resolve(fileName);
+		directoryManager.ensureWritePermission(filePath);
+		Path partialPath = directoryManager.directory.resolve(fileName
+				+ PARTIAL_FILE_SUFFIX);
+		Path manifestPath = directoryManager.directory.resolve(fileName
+				+ MANIFEST_SUFFIX);
+
+		List<Segment> segments = readManifest(manifestPath, partialPath,
+				urlString, length);
+		if (segments == null) {
+			segments = makeSegments(length);
+			try (RandomAccessFile file = new RandomAccessFile(
+					partialPath.toFile(), "rw")) {
+				file.setLength(length);
+			}
+		} else {
+			logger.info("Resuming download of " + urlString + " from "
+					+ getDoneBytes(segments) + " of " + length + " bytes");
+		}
+
+		try (FileChannel channel = FileChannel.open(partialPath,
+				StandardOpenOption.WRITE)) {
+			writeManifest(manifestPath, channel, urlString, length, segments);
+			downloadSegments(urlString, channel, manifestPath, length, segments);
+		}
+
+		if (expectedChecksum != null && checksumAlgorithm != null) {
+			String checksum = computeChecksum(partialPath, checksumAlgorithm);
+			if (!checksum.equalsIgnoreCase(expectedChecksum)) {
+				Files.deleteIfExists(partialPath);
+				Files.deleteIfExists(manifestPath);
+				throw new IOException("Checksum mismatch for " + urlString
+						+ ": expected " + expectedChecksum + " but got "
+						+ checksum);
+			}
+		}
+
+		Files.move(partialPath, filePath, StandardCopyOption.ATOMIC_MOVE);
+		Files.deleteIfExists(manifestPath);
+		return length;
+	}
+
+	/**
+	 * Downloads all unfinished segments in parallel and waits for them to
+	 * complete.
+	 */
+	void downloadSegments(String urlString, FileChannel channel,
+			Path manifestPath, long length, List<Segment> segments)
+			throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(segments
+				.size());
+		try {
+			List<Future<Void>> futures = new ArrayList<>();
+			for (Segment segment : segments) {
+				futures.add(executor.submit(() -> {
+					downloadSegment(urlString, channel, manifestPath, length,
+							segments, segment);
+					return null;
+				}));
+			}
+
+			IOException failure = null;
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof IOException
+								? (IOException) e.getCause()
+								: new IOException(e.getCause());
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while downloading "
+							+ urlString, e);
+				}
+			}
+
+			writeManifest(manifestPath, channel, urlString, length, segments);
+			if (failure != null) {
+				throw failure;
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Downloads the remainder of one segment, reconnecting after failures.
+	 */
+	void downloadSegment(String urlString, FileChannel channel,
+			Path manifestPath, long length, List<Segment> segments,
+			Segment segment) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int attempts = 0;
+		while (segment.remaining() > 0) {
+			try (InputStream inputStream = this.webResourceFetcher
+					.getInputStreamForUrl(urlString, segment.start
+							+ segment.done.get(), segment.remaining())) {
+				long remaining;
+				while ((remaining = segment.remaining()) > 0) {
+					int count = inputStream.read(buffer, 0,
+							(int) Math.min(buffer.length, remaining));
+					if (count < 0) {
+						throw new EOFException("Connection closed before end of segment");
+					}
+					ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, count);
+					long position = segment.start + segment.done.get();
+					while (byteBuffer.hasRemaining()) {
+						position += channel.write(byteBuffer, position);
+					}
+					segment.done.addAndGet(count);
+					segment.doneSinceManifestUpdate += count;
+					if (segment.doneSinceManifestUpdate >= MANIFEST_UPDATE_INTERVAL) {
+						segment.doneSinceManifestUpdate = 0;
+						writeManifest(manifestPath, channel, urlString, length,
+								segments);
+					}
+				}
+			} catch (IOException e) {
+				attempts++;
+				if (attempts > this.maxRetries) {
+					throw e;
+				}
+				logger.warn("Download of bytes " + segment.start + "-"
+						+ (segment.end - 1) + " of " + urlString
+						+ " failed, retrying: " + e.toString());
+			}
+		}
+	}
+
+	/**
+	 * Splits a file of the given length into segments.
+	 */
+	List<Segment> makeSegments(long length) {
+		long count = Math.max(1,
+				Math.min(this.segmentCount, length / this.minSegmentSize));
+		long segmentLength = (length + count - 1) / count;
+		List<Segment> segments = new ArrayList<>();
+		for (long start = 0; start < length; start += segmentLength) {
+			segments.add(new Segment(start, Math.min(length, start
+					+ segmentLength), 0));
+		}
+		return segments;
+	}
+
+	/**
+	 * Records the progress of all segments. Written data is forced to disk
+	 * first, so that the manifest never claims more than was stored.
+	 */
+	synchronized void writeManifest(Path manifestPath, FileChannel channel,
+			String urlString, long length, List<Segment> segments)
+			throws IOException {
+		channel.force(false);
+
+		Properties properties = new Properties();
+		properties.setProperty("url", urlString);
+		properties.setProperty("length", Long.toString(length));
+		properties.setProperty("segments", Integer.toString(segments.size()));
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			properties.setProperty("segment." + i + ".start",
+					Long.toString(segment.start));
+			properties.setProperty("segment." + i + ".end",
+					Long.toString(segment.end));
+			properties.setProperty("segment." + i + ".done",
+					Long.toString(segment.done.get()));
+		}
+
+		Path tmpPath = manifestPath.resolveSibling(manifestPath.getFileName()
+				+ ".tmp");
+		try (OutputStream out = Files.newOutputStream(tmpPath)) {
+			properties.store(out, "Partial download");
+		}
+		Files.move(tmpPath, manifestPath, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads the manifest of an earlier partial download.
+	 *
+	 * @return the recorded segments, or null if there is no usable manifest
+	 *         for this download
+	 */
+	List<Segment> readManifest(Path manifestPath, Path partialPath,
+			String urlString, long length) throws IOException {
+		if (!Files.exists(manifestPath) || !Files.exists(partialPath)
+				|| Files.size(partialPath) != length) {
+			return null;
+		}
+
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(manifestPath)) {
+			properties.load(in);
+		}
+		if (!urlString.equals(properties.getProperty("url"))
+				|| !Long.toString(length).equals(
+						properties.getProperty("length"))) {
+			logger.info("Discarding partial download of another file at "
+					+ partialPath);
+			return null;
+		}
+
+		try {
+			int count = Integer.parseInt(properties.getProperty("segments"));
+			List<Segment> segments = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				segments.add(new Segment(Long.parseLong(properties
+						.getProperty("segment." + i + ".start")), Long
+						.parseLong(properties.getProperty("segment." + i
+								+ ".end")), Long.parseLong(properties
+						.getProperty("segment." + i + ".done"))));
+			}
+			return segments;
+		} catch (NumberFormatException e) {
+			logger.warn("Discarding corrupted download manifest "
+					+ manifestPath);
+			return null;
+		}
+	}
+
+	/**
+	 * Computes the checksum of a file as a lower-case hexadecimal string.
+	 *
+	 * @param filePath
+	 *            the file to read
+	 * @param checksumAlgorithm
+	 *            the name of the digest algorithm, e.g., "MD5"
+	 * @return the checksum
+	 * @throws IOException
+	 *             if the file could not be read or the algorithm is unknown
+	 */
+	static String computeChecksum(Path filePath, String checksumAlgorithm)
+			throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(checksumAlgorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Unsupported checksum algorithm "
+					+ checksumAlgorithm, e);
+		}
+
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream in = Files.newInputStream(filePath)) {
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				digest.update(buffer, 0, count);
+			}
+		}
+
+		StringBuilder result = new StringBuilder();
+		for (byte b : digest.digest()) {
+			result.append(String.format("%02x", b));
+		}
+		return result.toString();
+	}
+
+	private long getDoneBytes(List<Segment> segments) {
+		long result = 0;
+		for (Segment segment : segments) {
+			result += segment.done.get();
+		}
+		return result;
+	}
+
+}
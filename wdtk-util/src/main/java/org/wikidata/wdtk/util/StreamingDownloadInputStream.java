@@ -0,0 +1,214 @@
+package org.wikidata.wdtk.util;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Input stream that returns the data of a download while it is being stored
+ * in a file by a background thread. Downloaded chunks are handed over through
+ * a bounded queue, so the download can run ahead of the reader by a limited
+ * amount only. The end of the stream is reached only after the file has been
+ * stored completely; errors of the download are reported to the reader at
+ * this point.
+ * <p>
+ * Closing the stream early does not abort the download: the file is still
+ * completed so that it can be used later on, and {@link #close()} returns
+ * when this is done.
+ *
+ */
+class StreamingDownloadInputStream extends InputStream {
+
+	/**
+	 * Maximal number of chunks that are buffered for the reader.
+	 */
+	static final int QUEUE_CAPACITY = 256;
+
+	/**
+	 * Marker chunk for the end of the download.
+	 */
+	static final byte[] END = new byte[0];
+
+	final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(
+			QUEUE_CAPACITY);
+	final Thread downloadThread;
+
+	volatile boolean closed = false;
+	volatile IOException failure = null;
+
+	byte[] currentChunk = null;
+	int currentPosition = 0;
+	boolean finished = false;
+
+	/**
+	 * Starts storing the data of the given input stream in a file and
+	 * constructs a stream to read the data.
+	 *
+	 * @param inputStream
+	 *            the stream of the download; it will be closed when done
+	 * @param directoryManager
+	 *            the directory to store the file in
+	 * @param fileName
+	 *            the name of the file
+	 */
+	StreamingDownloadInputStream(InputStream inputStream,
+			DirectoryManager directoryManager, String fileName) {
+		InputStream teeInputStream = new FilterInputStream(inputStream) {
+			@Override
+			public int read() throws IOException {
+				byte[] b = new byte[1];
+				return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int count = super.read(b, off, len);
+				if (count > 0) {
+					offer(Arrays.copyOfRange(b, off, off + count));
+				}
+				return count;
+			}
+		};
+
+		this.downloadThread = new Thread(() -> {
+			try {
+				directoryManager.createFileAtomic(fileName, teeInputStream);
+			} catch (IOException e) {
+				this.failure = e;
+			} finally {
+				try {
+					inputStream.close();
+				} catch (IOException e) {
+					// ignore; the data has been read already
+				}
+				offer(END);
+			}
+		}, "Download of " + fileName);
+		this.downloadThread.setDaemon(true);
+		this.downloadThread.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (!nextChunk()) {
+			return -1;
+		}
+
+		int count = Math.min(len, this.currentChunk.length
+				- this.currentPosition);
+		System.arraycopy(this.currentChunk, this.currentPosition, b, off,
+				count);
+		this.currentPosition += count;
+		return count;
+	}
+
+	@Override
+	public int available() {
+		return this.currentChunk == null ? 0 : this.currentChunk.length
+				- this.currentPosition;
+	}
+
+	/**
+	 * Closes the stream and waits until the file has been stored completely.
+	 * Remaining data is no longer handed over to this stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.closed = true;
+		this.chunks.clear();
+		try {
+			this.downloadThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(
+					"Interrupted while waiting for download");
+		}
+	}
+
+	/**
+	 * Makes sure that there is unread data in the current chunk, waiting for
+	 * the download if necessary.
+	 *
+	 * @return false if the end of the download has been reached
+	 * @throws IOException
+	 *             if the download failed
+	 */
+	boolean nextChunk() throws IOException {
+		while (!this.finished
+				&& (this.currentChunk == null || this.currentPosition >= this.currentChunk.length)) {
+			if (this.closed) {
+				throw new IOException("Stream closed");
+			}
+			try {
+				this.currentChunk = this.chunks.take();
+				this.currentPosition = 0;
+				if (this.currentChunk == END) {
+					this.downloadThread.join();
+					this.finished = true;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException(
+						"Interrupted while waiting for download");
+			}
+		}
+
+		if (this.finished && this.failure != null) {
+			throw this.failure;
+		}
+		return !this.finished;
+	}
+
+	/**
+	 * Hands a chunk over to the reader, waiting while the queue is full. Chunks
+	 * are dropped once the reader has closed the stream.
+	 *
+	 * @param chunk
+	 *            the data to pass on
+	 */
+	void offer(byte[] chunk) {
+		try {
+			while (!this.closed
+					&& !this.chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+				// keep waiting for the reader
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -20,6 +20,7 @@ package org.wikidata.wdtk.util;
  * #L%
  */
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -45,4 +46,85 @@ public interface WebResourceFetcher {
 	 */
 	InputStream getInputStreamForUrl(String urlString) throws IOException;
 
-}
\ No newline at end of file
+	/**
+	 * Returns an InputStream for a part of the document at the given URL,
+	 * starting at the given byte offset. The stream provides at least the
+	 * requested number of bytes (unless the document ends before), but it may
+	 * also continue beyond; callers should only read as much as they asked
+	 * for. The stream should be closed after use.
+	 * <p>
+	 * The default implementation fetches the whole document and skips the
+	 * bytes before the offset. Implementations that can request byte ranges
+	 * from the server should override this.
+	 *
+	 * @param urlString
+	 *            the URL of the document
+	 * @param offset
+	 *            the position of the first byte to read
+	 * @param length
+	 *            the number of bytes that are requested
+	 * @return InputStream for the requested part of the document
+	 * @throws IOException
+	 *             if the document at the URL could not be opened, the URL was
+	 *             invalid, or the document is shorter than the offset
+	 */
+	default InputStream getInputStreamForUrl(String urlString, long offset,
+			long length) throws IOException {
+		InputStream inputStream = getInputStreamForUrl(urlString);
+		long skipped = 0;
+		while (skipped < offset) {
+			long count = inputStream.skip(offset - skipped);
+			if (count <= 0) {
+				if (inputStream.read() < 0) {
+					inputStream.close();
+					throw new EOFException("Document at " + urlString
+							+ " ends before offset " + offset);
+				}
+				count = 1;
+			}
+			skipped += count;
+		}
+		return inputStream;
+	}
+
+	/**
+	 * Returns the size in bytes of the document at the given URL, provided
+	 * that parts of it can be fetched with
+	 * {@link #getInputStreamForUrl(String, long, long)} efficiently. Otherwise,
+	 * or if the size is not known, -1 is returned, and callers should fetch the
+	 * document as a whole.
+	 * <p>
+	 * The default implementation always returns -1.
+	 *
+	 * @param urlString
+	 *            the URL of the document
+	 * @return the size of the document in bytes, or -1
+	 * @throws IOException
+	 *             if the document at the URL could not be accessed or the URL
+	 *             was invalid
+	 */
+	default long getContentLength(String urlString) throws IOException {
+		return -1;
+	}
+
+	/**
+	 * Returns the time when the document at the given URL was last modified,
+	 * as announced by the server, in milliseconds since the epoch. This can
+	 * be used to find out whether a document that was fetched before has
+	 * changed without fetching it again. If the time is not known, -1 is
+	 * returned.
+	 * <p>
+	 * The default implementation always returns -1.
+	 *
+	 * @param urlString
+	 *            the URL of the document
+	 * @return the time of the last modification, or -1
+	 * @throws IOException
+	 *             if the document at the URL could not be accessed or the URL
+	 *             was invalid
+	 */
+	default long getLastModified(String urlString) throws IOException {
+		return -1;
+	}
+
+}
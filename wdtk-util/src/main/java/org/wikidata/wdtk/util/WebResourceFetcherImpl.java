@@ -123,4 +123,79 @@ public class WebResourceFetcherImpl implements WebResourceFetcher {
 		return urlConnection.getInputStream();
 	}
 
+	@Override
+	public InputStream getInputStreamForUrl(String urlString, long offset,
+			long length) throws IOException {
+		URL url = new URL(urlString);
+		URLConnection urlConnection = getUrlConnection(url);
+		if (!(urlConnection instanceof HttpURLConnection)) {
+			return WebResourceFetcher.super.getInputStreamForUrl(urlString,
+					offset, length);
+		}
+
+		HttpURLConnection httpConnection = (HttpURLConnection) urlConnection;
+		httpConnection.setRequestProperty("Range", "bytes=" + offset + "-"
+				+ (offset + length - 1));
+		int responseCode = httpConnection.getResponseCode();
+		if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+			httpConnection.disconnect();
+			throw new IOException("Server did not accept range request for "
+					+ urlString + " (HTTP status " + responseCode + ")");
+		}
+		return httpConnection.getInputStream();
+	}
+
+	/**
+	 * Returns the size of the document at the given URL as announced in a
+	 * HEAD request. The result is -1 if the server does not announce support
+	 * for byte ranges, or if the URL is not an http(s) URL.
+	 */
+	@Override
+	public long getContentLength(String urlString) throws IOException {
+		URL url = new URL(urlString);
+		URLConnection urlConnection = getUrlConnection(url);
+		if (!(urlConnection instanceof HttpURLConnection)) {
+			return -1;
+		}
+
+		HttpURLConnection httpConnection = (HttpURLConnection) urlConnection;
+		httpConnection.setRequestMethod("HEAD");
+		try {
+			if (httpConnection.getResponseCode() != HttpURLConnection.HTTP_OK
+					|| !"bytes".equalsIgnoreCase(httpConnection
+							.getHeaderField("Accept-Ranges"))) {
+				return -1;
+			}
+			return httpConnection.getContentLengthLong();
+		} finally {
+			httpConnection.disconnect();
+		}
+	}
+
+	/**
+	 * Returns the time of the last modification of the document at the given
+	 * URL as announced in a HEAD request. The result is -1 if the server does
+	 * not announce it, or if the URL is not an http(s) URL.
+	 */
+	@Override
+	public long getLastModified(String urlString) throws IOException {
+		URL url = new URL(urlString);
+		URLConnection urlConnection = getUrlConnection(url);
+		if (!(urlConnection instanceof HttpURLConnection)) {
+			return -1;
+		}
+
+		HttpURLConnection httpConnection = (HttpURLConnection) urlConnection;
+		httpConnection.setRequestMethod("HEAD");
+		try {
+			if (httpConnection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+				return -1;
+			}
+			long lastModified = httpConnection.getLastModified();
+			return lastModified == 0 ? -1 : lastModified;
+		} finally {
+			httpConnection.disconnect();
+		}
+	}
+
 }
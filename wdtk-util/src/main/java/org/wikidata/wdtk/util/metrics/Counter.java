@@ -0,0 +1,82 @@
+package org.wikidata.wdtk.util.metrics;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter that can be incremented by many threads at once without contention.
+ * Counts are only recorded while the {@link MetricsRegistry} of the counter is
+ * enabled.
+ *
+ */
+public class Counter {
+
+	final MetricsRegistry registry;
+	final LongAdder count = new LongAdder();
+
+	/**
+	 * Constructs a counter. Counters are usually obtained from
+	 * {@link MetricsRegistry#counter(String)}.
+	 *
+	 * @param registry
+	 *            the registry that decides if counts are recorded
+	 */
+	Counter(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Adds one to the count.
+	 */
+	public void increment() {
+		add(1);
+	}
+
+	/**
+	 * Adds the given number to the count.
+	 *
+	 * @param n
+	 *            the number to add
+	 */
+	public void add(long n) {
+		if (this.registry.enabled) {
+			this.count.add(n);
+		}
+	}
+
+	/**
+	 * Returns the current count.
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Sets the count back to zero.
+	 */
+	public void reset() {
+		this.count.reset();
+	}
+
+}
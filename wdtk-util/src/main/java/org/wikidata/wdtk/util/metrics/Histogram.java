@@ -0,0 +1,198 @@
+package org.wikidata.wdtk.util.metrics;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of non-negative values, usually durations in nanoseconds. As in
+ * HDR histograms, values are counted in buckets whose width grows with the
+ * value: each power of two is split into {@link #SUB_BUCKET_COUNT} buckets of
+ * equal width, so percentiles are reported with a relative error of at most
+ * 1/{@link #SUB_BUCKET_COUNT} for any value, using a fixed amount of memory.
+ * Recording a value is lock-free, and it is skipped entirely while the
+ * {@link MetricsRegistry} of the histogram is disabled.
+ *
+ */
+public class Histogram {
+
+	static final int SUB_BUCKET_BITS = 5;
+
+	/**
+	 * Number of buckets for each power of two.
+	 */
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * Number of buckets that are needed for all non-negative <b>long</b>
+	 * values.
+	 */
+	static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1)
+			* SUB_BUCKET_COUNT;
+
+	final MetricsRegistry registry;
+	final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	final LongAdder count = new LongAdder();
+	final LongAdder sum = new LongAdder();
+	final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Constructs a histogram. Histograms are usually obtained from
+	 * {@link MetricsRegistry#histogram(String)}.
+	 *
+	 * @param registry
+	 *            the registry that decides if values are recorded
+	 */
+	Histogram(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Records the given value. Negative values are recorded as 0.
+	 *
+	 * @param value
+	 *            the value to record
+	 */
+	public void record(long value) {
+		if (!this.registry.enabled) {
+			return;
+		}
+		long v = Math.max(0, value);
+		this.counts.incrementAndGet(getBucket(v));
+		this.count.increment();
+		this.sum.add(v);
+		this.max.accumulate(v);
+	}
+
+	/**
+	 * Records the time that has passed since the given start time, which was
+	 * returned by {@link MetricsRegistry#startTime()}. Nothing is recorded if
+	 * the start time is 0, which is the case if the registry was disabled when
+	 * the measurement started.
+	 *
+	 * @param startTime
+	 *            start time in nanoseconds
+	 */
+	public void recordSince(long startTime) {
+		if (startTime != 0) {
+			record(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return number of values
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the average of the recorded values.
+	 *
+	 * @return average value, or 0 if nothing was recorded
+	 */
+	public double getMean() {
+		long n = getCount();
+		return n == 0 ? 0 : (double) this.sum.sum() / n;
+	}
+
+	/**
+	 * Returns the greatest recorded value.
+	 *
+	 * @return maximal value, or 0 if nothing was recorded
+	 */
+	public long getMax() {
+		return this.max.get();
+	}
+
+	/**
+	 * Returns an estimate of the value below which the given percentage of the
+	 * recorded values lie. The estimate is the upper end of the bucket of the
+	 * value, but not greater than the maximal value.
+	 *
+	 * @param percentile
+	 *            percentage between 0 and 100
+	 * @return the value at the percentile, or 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1,
+				(long) Math.ceil(total * Math.min(100, percentile) / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(getBucketUpperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Removes all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.counts.set(i, 0);
+		}
+		this.count.reset();
+		this.sum.reset();
+		this.max.reset();
+	}
+
+	/**
+	 * Returns the index of the bucket for the given non-negative value.
+	 */
+	static int getBucket(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT
+				+ (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	/**
+	 * Returns the greatest value that falls into the given bucket.
+	 */
+	static long getBucketUpperBound(int bucket) {
+		if (bucket < SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKET_COUNT - 1;
+		long subBucket = SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.wikidata.wdtk.util.metrics;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Meter for the throughput of an operation, such as the number of documents
+ * processed per second. Events are counted without contention between
+ * threads, and only while the {@link MetricsRegistry} of the meter is
+ * enabled.
+ *
+ */
+public class Meter {
+
+	final MetricsRegistry registry;
+	final LongAdder count = new LongAdder();
+	volatile long startTime = System.nanoTime();
+
+	/**
+	 * Constructs a meter. Meters are usually obtained from
+	 * {@link MetricsRegistry#meter(String)}.
+	 *
+	 * @param registry
+	 *            the registry that decides if events are recorded
+	 */
+	Meter(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * Records one event.
+	 */
+	public void mark() {
+		mark(1);
+	}
+
+	/**
+	 * Records the given number of events.
+	 *
+	 * @param n
+	 *            the number of events
+	 */
+	public void mark(long n) {
+		if (this.registry.enabled) {
+			this.count.add(n);
+		}
+	}
+
+	/**
+	 * Returns the number of events recorded so far.
+	 *
+	 * @return the number of events
+	 */
+	public long getCount() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the average number of events per second since the meter was
+	 * created or reset.
+	 *
+	 * @return events per second
+	 */
+	public double getMeanRate() {
+		long elapsed = System.nanoTime() - this.startTime;
+		return elapsed <= 0 ? 0 : getCount() * 1e9 / elapsed;
+	}
+
+	/**
+	 * Sets the count back to zero and restarts the time for the mean rate.
+	 */
+	public void reset() {
+		this.count.reset();
+		this.startTime = System.nanoTime();
+	}
+
+}
@@ -0,0 +1,163 @@
+package org.wikidata.wdtk.util.metrics;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of named {@link Counter}, {@link Meter} and {@link Histogram}
+ * objects. Metrics are looked up once, usually when a class is initialized,
+ * and then used directly, so that recording does not involve the registry.
+ * <p>
+ * A registry is disabled when it is created. While it is disabled, recording
+ * in any of its metrics only costs the check of a flag, so instrumented code
+ * can stay in place in production. The metrics of Wikidata Toolkit itself are
+ * registered in the {@link #getDefault() default registry}; they can be
+ * reported regularly with a {@link MetricsReporter}.
+ *
+ */
+public class MetricsRegistry {
+
+	static final MetricsRegistry defaultRegistry = new MetricsRegistry();
+
+	final Map<String, Counter> counters = new ConcurrentHashMap<>();
+	final Map<String, Meter> meters = new ConcurrentHashMap<>();
+	final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+	volatile boolean enabled = false;
+
+	/**
+	 * Returns the registry that is used by the classes of Wikidata Toolkit.
+	 *
+	 * @return the default registry
+	 */
+	public static MetricsRegistry getDefault() {
+		return defaultRegistry;
+	}
+
+	/**
+	 * Returns true if the metrics of this registry record values.
+	 *
+	 * @return true if enabled
+	 */
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	/**
+	 * Switches the recording of values on or off for all metrics of this
+	 * registry. Values that were recorded before are kept.
+	 *
+	 * @param enabled
+	 *            true if values should be recorded
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the current time in nanoseconds for measuring a duration with
+	 * {@link Histogram#recordSince(long)}, or 0 if this registry is disabled,
+	 * so that no clock is read in this case.
+	 *
+	 * @return start time for a measurement
+	 */
+	public long startTime() {
+		if (!this.enabled) {
+			return 0;
+		}
+		long time = System.nanoTime();
+		return time == 0 ? 1 : time;
+	}
+
+	/**
+	 * Returns the counter of the given name, creating it if needed.
+	 *
+	 * @param name
+	 *            the name of the counter
+	 * @return the counter
+	 */
+	public Counter counter(String name) {
+		return this.counters.computeIfAbsent(name, key -> new Counter(this));
+	}
+
+	/**
+	 * Returns the meter of the given name, creating it if needed.
+	 *
+	 * @param name
+	 *            the name of the meter
+	 * @return the meter
+	 */
+	public Meter meter(String name) {
+		return this.meters.computeIfAbsent(name, key -> new Meter(this));
+	}
+
+	/**
+	 * Returns the histogram of the given name, creating it if needed.
+	 *
+	 * @param name
+	 *            the name of the histogram
+	 * @return the histogram
+	 */
+	public Histogram histogram(String name) {
+		return this.histograms.computeIfAbsent(name,
+				key -> new Histogram(this));
+	}
+
+	/**
+	 * Returns all counters of this registry, sorted by name.
+	 *
+	 * @return map from names to counters
+	 */
+	public Map<String, Counter> getCounters() {
+		return new TreeMap<>(this.counters);
+	}
+
+	/**
+	 * Returns all meters of this registry, sorted by name.
+	 *
+	 * @return map from names to meters
+	 */
+	public Map<String, Meter> getMeters() {
+		return new TreeMap<>(this.meters);
+	}
+
+	/**
+	 * Returns all histograms of this registry, sorted by name.
+	 *
+	 * @return map from names to histograms
+	 */
+	public Map<String, Histogram> getHistograms() {
+		return new TreeMap<>(this.histograms);
+	}
+
+	/**
+	 * Resets all metrics of this registry.
+	 */
+	public void reset() {
+		this.counters.values().forEach(Counter::reset);
+		this.meters.values().forEach(Meter::reset);
+		this.histograms.values().forEach(Histogram::reset);
+	}
+
+}
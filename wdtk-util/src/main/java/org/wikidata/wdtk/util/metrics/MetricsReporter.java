@@ -0,0 +1,271 @@
+package org.wikidata.wdtk.util.metrics;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the values of all metrics of a {@link MetricsRegistry} as a report,
+ * either once or periodically in a background thread. Reports can be plain
+ * text with one line per metric, or a single line of JSON, which is suitable
+ * for appending to a log file that is processed later. Meters are reported
+ * with their mean rate and with their rate since the previous report.
+ * <p>
+ * For example, the following logs a text report every minute:
+ *
+ * <pre>
+ * MetricsRegistry.getDefault().setEnabled(true);
+ * MetricsReporter reporter = new MetricsReporter(MetricsRegistry.getDefault(),
+ * 		MetricsReporter.Format.TEXT, MetricsReporter.toLog());
+ * reporter.start(1, TimeUnit.MINUTES);
+ * </pre>
+ *
+ */
+public class MetricsReporter {
+
+	static final Logger logger = LoggerFactory.getLogger(MetricsReporter.class);
+
+	/**
+	 * Formats of reports.
+	 */
+	public enum Format {
+		/**
+		 * Plain text with one line for each metric.
+		 */
+		TEXT,
+		/**
+		 * One JSON object on a single line.
+		 */
+		JSON
+	}
+
+	final MetricsRegistry registry;
+	final Format format;
+	final Consumer<String> output;
+
+	/**
+	 * Meter counts at the time of the previous report, to compute recent
+	 * rates.
+	 */
+	final Map<String, Long> previousCounts = new HashMap<>();
+	long previousReportTime = System.nanoTime();
+
+	ScheduledExecutorService executor = null;
+
+	/**
+	 * Constructs a reporter.
+	 *
+	 * @param registry
+	 *            the registry whose metrics should be reported
+	 * @param format
+	 *            the format of the reports
+	 * @param output
+	 *            receives each report as a string
+	 */
+	public MetricsReporter(MetricsRegistry registry, Format format,
+			Consumer<String> output) {
+		this.registry = registry;
+		this.format = format;
+		this.output = output;
+	}
+
+	/**
+	 * Returns an output for {@link #MetricsReporter(MetricsRegistry, Format, Consumer)}
+	 * that logs reports at info level.
+	 *
+	 * @return consumer that logs its input
+	 */
+	public static Consumer<String> toLog() {
+		return report -> logger.info(report);
+	}
+
+	/**
+	 * Starts writing reports periodically in a background thread. Nothing
+	 * happens if the reporter was started already.
+	 *
+	 * @param period
+	 *            the time between two reports
+	 * @param unit
+	 *            the unit of the period
+	 */
+	public synchronized void start(long period, TimeUnit unit) {
+		if (this.executor != null) {
+			return;
+		}
+		this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "Metrics reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.executor.scheduleAtFixedRate(() -> {
+			try {
+				report();
+			} catch (RuntimeException e) {
+				logger.error("Could not write metrics report: "
+						+ e.getMessage());
+			}
+		}, period, period, unit);
+	}
+
+	/**
+	 * Stops writing reports periodically and writes a final report. Nothing
+	 * happens if the reporter was not started.
+	 */
+	public synchronized void stop() {
+		if (this.executor == null) {
+			return;
+		}
+		this.executor.shutdownNow();
+		this.executor = null;
+		report();
+	}
+
+	/**
+	 * Writes a report with the current values to the output.
+	 */
+	public void report() {
+		this.output.accept(createReport());
+	}
+
+	/**
+	 * Returns a report with the current values.
+	 *
+	 * @return the report in the format of this reporter
+	 */
+	public synchronized String createReport() {
+		long now = System.nanoTime();
+		double seconds = Math.max(1e-9, (now - this.previousReportTime) / 1e9);
+		this.previousReportTime = now;
+		return this.format == Format.JSON ? createJsonReport(seconds)
+				: createTextReport(seconds);
+	}
+
+	String createTextReport(double seconds) {
+		StringBuilder sb = new StringBuilder("Metrics:");
+		this.registry.getCounters().forEach(
+				(name, counter) -> sb.append("\n  ").append(name)
+						.append(": count=").append(counter.getCount()));
+		this.registry.getMeters().forEach(
+				(name, meter) -> sb
+						.append("\n  ")
+						.append(name)
+						.append(": count=")
+						.append(meter.getCount())
+						.append(", rate=")
+						.append(format(getRecentRate(name, meter, seconds)))
+						.append("/s, mean rate=")
+						.append(format(meter.getMeanRate())).append("/s"));
+		this.registry.getHistograms().forEach(
+				(name, histogram) -> sb.append("\n  ").append(name)
+						.append(": count=").append(histogram.getCount())
+						.append(", mean=").append(format(histogram.getMean()))
+						.append(", p50=")
+						.append(histogram.getValueAtPercentile(50))
+						.append(", p99=")
+						.append(histogram.getValueAtPercentile(99))
+						.append(", max=").append(histogram.getMax()));
+		return sb.toString();
+	}
+
+	String createJsonReport(double seconds) {
+		StringBuilder sb = new StringBuilder("{\"timestamp\":").append(
+				System.currentTimeMillis()).append(",\"counters\":{");
+		String separator = "";
+		for (Map.Entry<String, Counter> entry : this.registry.getCounters()
+				.entrySet()) {
+			sb.append(separator).append(quote(entry.getKey())).append(':')
+					.append(entry.getValue().getCount());
+			separator = ",";
+		}
+		sb.append("},\"meters\":{");
+		separator = "";
+		for (Map.Entry<String, Meter> entry : this.registry.getMeters()
+				.entrySet()) {
+			Meter meter = entry.getValue();
+			sb.append(separator).append(quote(entry.getKey()))
+					.append(":{\"count\":").append(meter.getCount())
+					.append(",\"rate\":")
+					.append(format(getRecentRate(entry.getKey(), meter, seconds)))
+					.append(",\"meanRate\":")
+					.append(format(meter.getMeanRate())).append('}');
+			separator = ",";
+		}
+		sb.append("},\"histograms\":{");
+		separator = "";
+		for (Map.Entry<String, Histogram> entry : this.registry
+				.getHistograms().entrySet()) {
+			Histogram histogram = entry.getValue();
+			sb.append(separator).append(quote(entry.getKey()))
+					.append(":{\"count\":").append(histogram.getCount())
+					.append(",\"mean\":").append(format(histogram.getMean()))
+					.append(",\"p50\":")
+					.append(histogram.getValueAtPercentile(50))
+					.append(",\"p90\":")
+					.append(histogram.getValueAtPercentile(90))
+					.append(",\"p99\":")
+					.append(histogram.getValueAtPercentile(99))
+					.append(",\"max\":").append(histogram.getMax())
+					.append('}');
+			separator = ",";
+		}
+		return sb.append("}}").toString();
+	}
+
+	/**
+	 * Returns the rate of the given meter since the previous report, and
+	 * remembers its current count for the next report.
+	 */
+	double getRecentRate(String name, Meter meter, double seconds) {
+		long count = meter.getCount();
+		Long previous = this.previousCounts.put(name, count);
+		long difference = previous == null || previous > count ? count : count
+				- previous;
+		return difference / seconds;
+	}
+
+	static String format(double value) {
+		return String.format(Locale.ROOT, "%.2f", value);
+	}
+
+	static String quote(String string) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : string.toCharArray()) {
+			if (c == '"' || c == '\\') {
+				sb.append('\\').append(c);
+			} else if (c < 0x20) {
+				sb.append(String.format("\\u%04x", (int) c));
+			} else {
+				sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+}
@@ -0,0 +1,28 @@
+/**
+ * Lightweight metrics for measuring the throughput and latency of long
+ * running operations, such as processing dumps or editing through the API.
+ * Metrics are registered by name in a {@link org.wikidata.wdtk.util.metrics.MetricsRegistry}
+ * and are only recorded while the registry is enabled; otherwise, recording a
+ * value only costs a single check of a flag.
+ */
+package org.wikidata.wdtk.util.metrics;
+
+/*
+ * #%L
+ * Wikidata Toolkit utilities
+ * %%
+ * Copyright (C) 2014 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
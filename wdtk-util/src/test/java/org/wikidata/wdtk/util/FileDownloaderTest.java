@@ -0,0 +1,314 @@
+/*
+ * #%L
+ * Wikidata Toolkit Utilities
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.sun.net.httpserver.HttpServer;
+
+public class FileDownloaderTest {
+
+	static final Pattern RANGE_PATTERN = Pattern
+			.compile("bytes=(\\d+)-(\\d+)");
+
+	@TempDir
+	Path tempDir;
+
+	byte[] contents;
+	HttpServer server;
+	String url;
+
+	/**
+	 * In-memory fetcher that can be told to fail after serving a certain
+	 * number of bytes.
+	 */
+	class InMemoryFetcher implements WebResourceFetcher {
+
+		final AtomicLong servedBytes = new AtomicLong();
+		long failAfter = Long.MAX_VALUE;
+
+		@Override
+		public InputStream getInputStreamForUrl(String urlString) {
+			return new ByteArrayInputStream(contents);
+		}
+
+		@Override
+		public InputStream getInputStreamForUrl(String urlString, long offset,
+				long length) {
+			return new FilterInputStream(new ByteArrayInputStream(contents,
+					(int) offset, (int) length)) {
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					if (servedBytes.get() >= failAfter) {
+						throw new IOException("Connection reset");
+					}
+					int count = super.read(b, off, Math.min(len, 1000));
+					if (count > 0) {
+						servedBytes.addAndGet(count);
+					}
+					return count;
+				}
+			};
+		}
+
+		@Override
+		public long getContentLength(String urlString) {
+			return contents.length;
+		}
+	}
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		WebResourceFetcherImpl.setProxy(null);
+
+		contents = new byte[100000];
+		new Random(42).nextBytes(contents);
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/dump.bz2", exchange -> {
+			exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+			String range = exchange.getRequestHeaders().getFirst("Range");
+			if ("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Content-Length",
+						Integer.toString(contents.length));
+				exchange.sendResponseHeaders(200, -1);
+			} else if (range != null) {
+				Matcher matcher = RANGE_PATTERN.matcher(range);
+				assertTrue(matcher.matches());
+				int start = Integer.parseInt(matcher.group(1));
+				int end = Integer.parseInt(matcher.group(2));
+				exchange.sendResponseHeaders(206, end - start + 1);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(contents, start, end - start + 1);
+				}
+			} else {
+				exchange.sendResponseHeaders(200, contents.length);
+				try (OutputStream out = exchange.getResponseBody()) {
+					out.write(contents);
+				}
+			}
+			exchange.close();
+		});
+		server.start();
+		url = "http://localhost:" + server.getAddress().getPort()
+				+ "/dump.bz2";
+	}
+
+	@AfterEach
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	String md5(byte[] bytes) throws NoSuchAlgorithmException {
+		StringBuilder result = new StringBuilder();
+		for (byte b : MessageDigest.getInstance("MD5").digest(bytes)) {
+			result.append(String.format("%02x", b));
+		}
+		return result.toString();
+	}
+
+	@Test
+	public void testContentLength() throws IOException {
+		assertEquals(contents.length,
+				new WebResourceFetcherImpl().getContentLength(url));
+	}
+
+	@Test
+	public void testSegmentedDownloadOverHttp() throws IOException,
+			NoSuchAlgorithmException {
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		FileDownloader downloader = new FileDownloader(
+				new WebResourceFetcherImpl());
+		downloader.setSegmentCount(3);
+		downloader.setMinSegmentSize(1000);
+
+		long size = downloader.download(url, dm, "dump.bz2", "MD5",
+				md5(contents));
+
+		assertEquals(contents.length, size);
+		assertArrayEquals(contents, Files.readAllBytes(tempDir
+				.resolve("dump.bz2")));
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2"
+				+ FileDownloader.PARTIAL_FILE_SUFFIX)));
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2"
+				+ FileDownloader.MANIFEST_SUFFIX)));
+	}
+
+	@Test
+	public void testMakeSegments() {
+		FileDownloader downloader = new FileDownloader(new InMemoryFetcher());
+		downloader.setSegmentCount(4);
+		downloader.setMinSegmentSize(30000);
+
+		assertEquals(3, downloader.makeSegments(100000).size());
+		assertEquals(100000, downloader.makeSegments(100000).get(2).end);
+		assertEquals(1, downloader.makeSegments(10).size());
+	}
+
+	@Test
+	public void testResumeDownload() throws IOException,
+			NoSuchAlgorithmException {
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		InMemoryFetcher fetcher = new InMemoryFetcher();
+		fetcher.failAfter = 40000;
+		FileDownloader downloader = new FileDownloader(fetcher);
+		downloader.setSegmentCount(2);
+		downloader.setMinSegmentSize(1000);
+		downloader.setMaxRetries(0);
+
+		assertThrows(IOException.class, () -> downloader.download(url, dm,
+				"dump.bz2", "MD5", md5(contents)));
+		assertTrue(Files.exists(tempDir.resolve("dump.bz2"
+				+ FileDownloader.MANIFEST_SUFFIX)));
+		assertTrue(Files.exists(tempDir.resolve("dump.bz2"
+				+ FileDownloader.PARTIAL_FILE_SUFFIX)));
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2")));
+		// the temporary file of createFileAtomic is a different one
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2.part")));
+
+		fetcher.servedBytes.set(0);
+		fetcher.failAfter = Long.MAX_VALUE;
+		downloader.download(url, dm, "dump.bz2", "MD5", md5(contents));
+
+		assertTrue(fetcher.servedBytes.get() < contents.length);
+		assertArrayEquals(contents, Files.readAllBytes(tempDir
+				.resolve("dump.bz2")));
+	}
+
+	@Test
+	public void testChecksumMismatch() throws IOException {
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		FileDownloader downloader = new FileDownloader(new InMemoryFetcher());
+
+		assertThrows(IOException.class, () -> downloader.download(url, dm,
+				"dump.bz2", "MD5", "0123456789abcdef0123456789abcdef"));
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2")));
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2"
+				+ FileDownloader.PARTIAL_FILE_SUFFIX)));
+	}
+
+	@Test
+	public void testFallbackWithoutContentLength() throws IOException {
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		WebResourceFetcher fetcher = urlString -> new ByteArrayInputStream(
+				contents);
+
+		long size = new FileDownloader(fetcher).download(url, dm, "dump.bz2",
+				null, null);
+
+		assertEquals(contents.length, size);
+		assertArrayEquals(contents, Files.readAllBytes(tempDir
+				.resolve("dump.bz2")));
+	}
+
+	@Test
+	public void testOpenStream() throws IOException {
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		FileDownloader downloader = new FileDownloader(new InMemoryFetcher());
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = downloader.openStream(url, dm, "dump.bz2")) {
+			byte[] buffer = new byte[777];
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, count);
+			}
+		}
+
+		assertArrayEquals(contents, out.toByteArray());
+		assertArrayEquals(contents, Files.readAllBytes(tempDir
+				.resolve("dump.bz2")));
+	}
+
+	@Test
+	public void testOpenCompressedStream() throws IOException {
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		try (OutputStream out = new GZIPOutputStream(compressed)) {
+			out.write(contents);
+		}
+		byte[] compressedContents = compressed.toByteArray();
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		WebResourceFetcher fetcher = urlString -> new ByteArrayInputStream(
+				compressedContents);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new FileDownloader(fetcher).openStream(url, dm,
+				"dump.json.gz", CompressionType.GZIP)) {
+			byte[] buffer = new byte[4096];
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, count);
+			}
+		}
+
+		assertArrayEquals(contents, out.toByteArray());
+		assertArrayEquals(compressedContents, Files.readAllBytes(tempDir
+				.resolve("dump.json.gz")));
+	}
+
+	@Test
+	public void testOpenStreamFailure() throws IOException {
+		DirectoryManager dm = new DirectoryManagerImpl(tempDir, false);
+		InMemoryFetcher fetcher = new InMemoryFetcher() {
+			@Override
+			public InputStream getInputStreamForUrl(String urlString) {
+				return getInputStreamForUrl(urlString, 0, contents.length);
+			}
+		};
+		fetcher.failAfter = 5000;
+
+		assertThrows(IOException.class, () -> {
+			try (InputStream in = new FileDownloader(fetcher).openStream(url,
+					dm, "dump.bz2")) {
+				while (in.read() >= 0) {
+					// consume
+				}
+			}
+		});
+		assertFalse(Files.exists(tempDir.resolve("dump.bz2")));
+	}
+}
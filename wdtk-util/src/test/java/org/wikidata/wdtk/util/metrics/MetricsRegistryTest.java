@@ -0,0 +1,146 @@
+/*
+ * #%L
+ * Wikidata Toolkit Utilities
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.util.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class MetricsRegistryTest {
+
+	@Test
+	public void testDisabledRegistryRecordsNothing() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.counter("c").increment();
+		registry.meter("m").mark(5);
+		registry.histogram("h").record(10);
+
+		assertFalse(registry.isEnabled());
+		assertEquals(0, registry.startTime());
+		assertEquals(0, registry.counter("c").getCount());
+		assertEquals(0, registry.meter("m").getCount());
+		assertEquals(0, registry.histogram("h").getCount());
+	}
+
+	@Test
+	public void testSameNameSameMetric() {
+		MetricsRegistry registry = new MetricsRegistry();
+		assertSame(registry.counter("a"), registry.counter("a"));
+		assertSame(registry.meter("a"), registry.meter("a"));
+		assertSame(registry.histogram("a"), registry.histogram("a"));
+	}
+
+	@Test
+	public void testConcurrentCounting() throws InterruptedException {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.setEnabled(true);
+		Counter counter = registry.counter("c");
+		Meter meter = registry.meter("m");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int i = 0; i < 4; i++) {
+			executor.execute(() -> {
+				for (int j = 0; j < 10000; j++) {
+					counter.increment();
+					meter.mark();
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(40000, counter.getCount());
+		assertEquals(40000, meter.getCount());
+		assertTrue(meter.getMeanRate() > 0);
+
+		registry.reset();
+		assertEquals(0, counter.getCount());
+	}
+
+	@Test
+	public void testHistogram() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.setEnabled(true);
+		Histogram histogram = registry.histogram("h");
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record(i * 1000L);
+		}
+
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500500, histogram.getMean(), 0.001);
+		assertEquals(1000000, histogram.getMax());
+		long median = histogram.getValueAtPercentile(50);
+		assertTrue(median >= 500000 && median <= 500000 * 33 / 32, "" + median);
+		assertEquals(1000000, histogram.getValueAtPercentile(100));
+		assertTrue(histogram.getValueAtPercentile(0) >= 1000);
+	}
+
+	@Test
+	public void testHistogramBuckets() {
+		for (long value : new long[] { 0, 1, 31, 32, 33, 1000, 123456789,
+				Long.MAX_VALUE }) {
+			int bucket = Histogram.getBucket(value);
+			assertTrue(bucket < Histogram.BUCKET_COUNT);
+			assertTrue(Histogram.getBucketUpperBound(bucket) >= value);
+			if (bucket > 0) {
+				assertTrue(Histogram.getBucketUpperBound(bucket - 1) < value);
+			}
+		}
+	}
+
+	@Test
+	public void testReports() {
+		MetricsRegistry registry = new MetricsRegistry();
+		registry.setEnabled(true);
+		registry.counter("errors").add(3);
+		registry.meter("documents").mark(10);
+		registry.histogram("time").record(42);
+		List<String> reports = new ArrayList<>();
+
+		new MetricsReporter(registry, MetricsReporter.Format.TEXT,
+				reports::add).report();
+		new MetricsReporter(registry, MetricsReporter.Format.JSON,
+				reports::add).report();
+
+		assertTrue(reports.get(0).contains("errors: count=3"));
+		assertTrue(reports.get(0).contains("documents: count=10"));
+		assertTrue(reports.get(0).contains("time: count=1, mean=42.00"));
+		assertTrue(reports.get(1).startsWith("{\"timestamp\":"));
+		assertTrue(reports.get(1).contains("\"counters\":{\"errors\":3}"));
+		assertTrue(reports.get(1).contains("\"documents\":{\"count\":10,"));
+		assertTrue(reports.get(1).contains("\"p99\":42,\"max\":42}"));
+	}
+
+	@Test
+	public void testQuote() {
+		assertEquals("\"a\\\"b\\\\c\\u000a\"",
+				MetricsReporter.quote("a\"b\\c\n"));
+	}
+
+}
@@ -36,15 +36,22 @@ import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.util.metrics.Counter;
+import org.wikidata.wdtk.util.metrics.Histogram;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
 import org.wikidata.wdtk.wikibaseapi.apierrors.AssertUserFailedException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorHandler;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
@@ -64,6 +71,14 @@ public abstract class ApiConnection {
 
 	static final Logger logger = LoggerFactory.getLogger(ApiConnection.class);
 
+	static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+	/** Time for a JSON request including reading the response, in nanoseconds. */
+	static final Histogram requestTimes = metrics
+			.histogram("wikibaseapi.request.time");
+	/** Requests that failed with an IO error or an API error. */
+	static final Counter errorCounter = metrics
+			.counter("wikibaseapi.request.errors");
+
 	/**
 	 * URL of the API of wikidata.org.
 	 */
@@ -128,6 +143,12 @@ public abstract class ApiConnection {
 	 */
 	protected int readTimeout = -1;
 
+	/**
+	 * Settings for the HTTP connections, possibly shared with other
+	 * connections.
+	 */
+	private HttpTransport transport = HttpTransport.getDefault();
+
 	/**
 	 * Http client used for making requests.
 	 */
@@ -236,6 +257,28 @@ public abstract class ApiConnection {
 		return Collections.unmodifiableMap(tokens);
 	}
 
+	/**
+	 * Returns the settings for the HTTP connections of this object.
+	 *
+	 * @return the transport, by default {@link HttpTransport#getDefault()}
+	 */
+	@JsonIgnore
+	public HttpTransport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Sets the settings for the HTTP connections of this object. Connections
+	 * that use the same transport share their sockets.
+	 *
+	 * @param transport
+	 *            the new transport
+	 */
+	public synchronized void setTransport(HttpTransport transport) {
+		this.transport = Objects.requireNonNull(transport);
+		client = null;
+	}
+
 	/**
 	 * Sets the maximum time to wait for when establishing a connection, in milliseconds.
 	 * For negative values, no timeout is set.
@@ -291,7 +334,8 @@ public abstract class ApiConnection {
 	public abstract void logout() throws IOException, MediaWikiApiErrorException;
 
 	/**
-	 * Return a token of given type.
+	 * Return a token of given type. Tokens are fetched once and then shared
+	 * by all threads that use this connection.
 	 * @param tokenType The kind of token to retrieve like "csrf" or "login"
 	 * @return a token
 	 * @throws MediaWikiApiErrorException
@@ -299,7 +343,7 @@ public abstract class ApiConnection {
 	 * @throws IOException
 	 *     if a network error occurred
 	 */
-	String getOrFetchToken(String tokenType) throws IOException, MediaWikiApiErrorException {
+	synchronized String getOrFetchToken(String tokenType) throws IOException, MediaWikiApiErrorException {
 		if (tokens.containsKey(tokenType)) {
 			return tokens.get(tokenType);
 		}
@@ -314,7 +358,7 @@ public abstract class ApiConnection {
 	/**
 	 * Remove fetched value of given token.
 	 */
-	void clearToken(String tokenType) {
+	synchronized void clearToken(String tokenType) {
 		tokens.remove(tokenType);
 	}
 
@@ -357,15 +401,102 @@ public abstract class ApiConnection {
 	 * @throws MediaWikiApiErrorException if the API returns an error
 	 */
 	public JsonNode sendJsonRequest(String requestMethod, Map<String,String> parameters) throws IOException, MediaWikiApiErrorException {
-		parameters.put(ApiConnection.PARAM_FORMAT, "json");
-		if (loggedIn) {
-			parameters.put(ApiConnection.ASSERT_PARAMETER, "user");
-		}
+		setJsonParameters(parameters);
+		long startTime = metrics.startTime();
 		try (InputStream response = sendRequest(requestMethod, parameters)) {
 			JsonNode root = this.mapper.readTree(response);
 			this.checkErrors(root);
 			this.logWarnings(root);
 			return root;
+		} catch (IOException | MediaWikiApiErrorException e) {
+			errorCounter.increment();
+			throw e;
+		} finally {
+			requestTimes.recordSince(startTime);
+		}
+	}
+
+	/**
+	 * Sends a request to the API like
+	 * {@link #sendJsonRequest(String, Map)}, but reads the result with a
+	 * streaming parser instead of building a tree for the whole response.
+	 * Errors and warnings are checked as they are read. The value of every
+	 * other top-level field is passed to the given handler, so that large
+	 * results can be processed piece by piece.
+	 *
+	 * @param requestMethod
+	 *            either POST or GET
+	 * @param parameters
+	 *            Maps parameter keys to values. Out of this map the function
+	 *            will create a query string for the request.
+	 * @param handler
+	 *            reads the top-level fields of the result
+	 * @throws IOException
+	 * @throws MediaWikiApiErrorException if the API returns an error
+	 */
+	public void sendStreamingJsonRequest(String requestMethod,
+			Map<String, String> parameters, ResponseFieldHandler handler)
+			throws IOException, MediaWikiApiErrorException {
+		setJsonParameters(parameters);
+		long startTime = metrics.startTime();
+		try (InputStream response = sendRequest(requestMethod, parameters);
+				JsonParser parser = this.mapper.getFactory().createParser(response)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new MalformedResponseException(
+						"API response is not a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.getCurrentName();
+				parser.nextToken();
+				if ("error".equals(fieldName) || "warnings".equals(fieldName)) {
+					ObjectNode root = this.mapper.createObjectNode();
+					root.set(fieldName, this.mapper.readTree(parser));
+					this.checkErrors(root);
+					this.logWarnings(root);
+				} else {
+					handler.handleField(fieldName, parser);
+				}
+			}
+		} catch (IOException | MediaWikiApiErrorException e) {
+			errorCounter.increment();
+			throw e;
+		} finally {
+			requestTimes.recordSince(startTime);
+		}
+	}
+
+	/**
+	 * Reads the top-level fields of an API result in
+	 * {@link ApiConnection#sendStreamingJsonRequest(String, Map, ResponseFieldHandler)}.
+	 */
+	@FunctionalInterface
+	public interface ResponseFieldHandler {
+
+		/**
+		 * Reads the value of one top-level field. The parser is at the first
+		 * token of the value, and the handler must read the complete value,
+		 * e.g., with {@link JsonParser#skipChildren()} if it is not needed.
+		 *
+		 * @param fieldName
+		 *            name of the field
+		 * @param parser
+		 *            parser of the result
+		 * @throws IOException
+		 *             if the value cannot be read
+		 * @throws MediaWikiApiErrorException
+		 *             if the value contains an error
+		 */
+		void handleField(String fieldName, JsonParser parser)
+				throws IOException, MediaWikiApiErrorException;
+	}
+
+	/**
+	 * Sets the parameters that all JSON requests share.
+	 */
+	private void setJsonParameters(Map<String, String> parameters) {
+		parameters.put(ApiConnection.PARAM_FORMAT, "json");
+		if (loggedIn) {
+			parameters.put(ApiConnection.ASSERT_PARAMETER, "user");
 		}
 	}
 
@@ -398,15 +529,23 @@ public abstract class ApiConnection {
 			throw new IllegalArgumentException("Expected the requestMethod to be either GET or POST, but got " + requestMethod);
 		}
 
+		Response response = transport.execute(getClient().newCall(request));
+		return Objects.requireNonNull(response.body()).byteStream();
+	}
+
+	/**
+	 * Returns the HTTP client, building it on the first request.
+	 */
+	private synchronized OkHttpClient getClient() {
 		if (client == null) {
 			buildClient();
 		}
-		Response response = client.newCall(request).execute();
-		return Objects.requireNonNull(response.body()).byteStream();
+		return client;
 	}
 
 	private void buildClient() {
 		OkHttpClient.Builder builder = getClientBuilder();
+		transport.configure(builder);
 		if (connectTimeout >= 0) {
 			builder.connectTimeout(connectTimeout, TimeUnit.MILLISECONDS);
 		}
@@ -22,17 +22,21 @@ package org.wikidata.wdtk.wikibaseapi;
 
 import java.io.IOException;
 import java.net.*;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import okhttp3.*;
+import org.wikidata.wdtk.wikibaseapi.apierrors.AssertUserFailedException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * A connection to the MediaWiki API established via
@@ -128,6 +132,32 @@ public class BasicApiConnection extends ApiConnection {
 	 */
 	private final CookieManager cookieManager;
 
+	/**
+	 * Store in which the session is kept across program runs, or null if the
+	 * session is not stored.
+	 */
+	@JsonIgnore
+	SessionStore sessionStore = null;
+
+	/**
+	 * Time in milliseconds after which the credentials of a stored session
+	 * are checked before the session is used again.
+	 */
+	@JsonIgnore
+	long sessionRevalidationInterval = 60 * 60 * 1000;
+
+	/**
+	 * Time when the credentials of the current session were last confirmed
+	 * by the server, in milliseconds since the epoch.
+	 */
+	@JsonIgnore
+	long sessionValidated = 0;
+
+	/**
+	 * Mapper object used for serializing sessions.
+	 */
+	private static final ObjectMapper sessionMapper = new ObjectMapper();
+
 	/**
 	 * Creates an object to manage a connection to the Web API of a Wikibase
 	 * site.
@@ -210,10 +240,52 @@ public class BasicApiConnection extends ApiConnection {
 		return new BasicApiConnection(ApiConnection.URL_WIKIMEDIA_COMMONS_API);
 	}
 
+	/**
+	 * Sets the store in which the session of this connection is kept. When
+	 * a store is set, {@link #login(String, String)} first tries to continue
+	 * the session of the user that was stored by an earlier program run, and
+	 * the session is stored after each login and whenever a new token is
+	 * fetched. Logging out removes the stored session.
+	 *
+	 * @param sessionStore
+	 *            the store to use, or null to not store sessions
+	 */
+	public void setSessionStore(SessionStore sessionStore) {
+		this.sessionStore = sessionStore;
+	}
+
+	/**
+	 * Returns the time after which the credentials of a stored session are
+	 * checked before the session is used again. See
+	 * {@link #setSessionRevalidationInterval(long)} for details.
+	 *
+	 * @return the interval in milliseconds
+	 */
+	@JsonIgnore
+	public long getSessionRevalidationInterval() {
+		return sessionRevalidationInterval;
+	}
+
+	/**
+	 * Sets the time after which the credentials of a stored session are
+	 * checked before the session is used again. Sessions that were confirmed
+	 * more recently are used without contacting the server. If the check
+	 * fails, for instance because the session expired on the server, the user
+	 * is logged in again. Set to 0 to check every restored session.
+	 *
+	 * @param milliseconds
+	 *            the interval in milliseconds
+	 */
+	public void setSessionRevalidationInterval(long milliseconds) {
+		this.sessionRevalidationInterval = milliseconds;
+	}
+
 	/**
 	 * Logs in using the specified user credentials. After successful login, the
 	 * API connection remains in a logged in state, and future actions will be
-	 * run as a logged in user.
+	 * run as a logged in user. If a {@link SessionStore} is set and it holds
+	 * a session of the user, this session is continued without logging in
+	 * again.
 	 *
 	 * @param username
 	 *            the name of the user to log in
@@ -224,6 +296,10 @@ public class BasicApiConnection extends ApiConnection {
 	 */
 	public void login(String username, String password)
 			throws LoginFailedException {
+		if (restoreSession(username)) {
+			this.password = password;
+			return;
+		}
 		try {
 			String token = getOrFetchToken("login");
 			try {
@@ -267,6 +343,8 @@ public class BasicApiConnection extends ApiConnection {
 			this.loggedIn = true;
 			this.username = username;
 			this.password = password;
+			this.sessionValidated = System.currentTimeMillis();
+			saveSession();
 		} else {
 			String message = getLoginErrorMessage(result);
 			logger.warn(message);
@@ -278,6 +356,151 @@ public class BasicApiConnection extends ApiConnection {
 		}
 	}
 
+	@Override
+	String getOrFetchToken(String tokenType)
+			throws IOException, MediaWikiApiErrorException {
+		boolean known;
+		synchronized (this) {
+			known = tokens.containsKey(tokenType);
+		}
+		String token = super.getOrFetchToken(tokenType);
+		if (!known) {
+			saveSession();
+		}
+		return token;
+	}
+
+	/**
+	 * Continues the session of the given user that was kept in the
+	 * {@link SessionStore}, if any. The credentials of the session are
+	 * checked with the server if they were not confirmed during the last
+	 * {@link #getSessionRevalidationInterval()} milliseconds. Sessions that
+	 * cannot be read or fail this check are discarded.
+	 *
+	 * @param username
+	 *            the name of the user
+	 * @return true if the connection is now logged in as the given user
+	 */
+	protected boolean restoreSession(String username) {
+		if (sessionStore == null) {
+			return false;
+		}
+		String key = getSessionKey(username);
+		URI uri = URI.create(apiBaseUrl);
+		CookieStore cookieStore = cookieManager.getCookieStore();
+		List<HttpCookie> restoredCookies = new ArrayList<>();
+		List<HttpCookie> previousCookies = null;
+		Map<String, String> previousTokens = null;
+		try {
+			String session = sessionStore.loadSession(key);
+			if (session == null) {
+				return false;
+			}
+			JsonNode root = sessionMapper.readTree(session);
+			BasicApiConnection stored = sessionMapper.treeToValue(
+					root.path("connection"), BasicApiConnection.class);
+			if (!stored.isLoggedIn()
+					|| !username.equals(stored.getCurrentUser())
+					|| !apiBaseUrl.equals(stored.getApiBaseUrl())) {
+				return false;
+			}
+
+			previousCookies = new ArrayList<>(cookieStore.getCookies());
+			for (HttpCookie cookie : stored.getCookies()) {
+				cookieStore.add(uri, cookie);
+				restoredCookies.add(cookie);
+			}
+			synchronized (this) {
+				previousTokens = new HashMap<>(tokens);
+				tokens.putAll(stored.getTokens());
+			}
+			this.username = username;
+			this.loggedIn = true;
+			this.sessionValidated = root.path("validated").asLong();
+
+			if (System.currentTimeMillis() - sessionValidated >= sessionRevalidationInterval) {
+				checkCredentials();
+				this.sessionValidated = System.currentTimeMillis();
+				saveSession();
+			}
+			return true;
+		} catch (AssertUserFailedException e) {
+			logger.info("The stored session of " + username
+					+ " has expired. Logging in again.");
+		} catch (IOException | MediaWikiApiErrorException e) {
+			logger.warn("Could not restore the stored session of " + username
+					+ ": " + e.getMessage());
+		}
+		this.loggedIn = false;
+		this.username = "";
+		this.sessionValidated = 0;
+		// Only undo what was restored from the session
+		if (previousTokens != null) {
+			synchronized (this) {
+				tokens.clear();
+				tokens.putAll(previousTokens);
+			}
+		}
+		for (HttpCookie cookie : restoredCookies) {
+			cookieStore.remove(uri, cookie);
+		}
+		if (previousCookies != null) {
+			List<HttpCookie> cookies = cookieStore.getCookies();
+			for (HttpCookie cookie : previousCookies) {
+				if (!cookies.contains(cookie)) {
+					cookieStore.add(uri, cookie);
+				}
+			}
+		}
+		removeSession(key);
+		return false;
+	}
+
+	/**
+	 * Writes the current session to the {@link SessionStore}, if one is set
+	 * and the connection is logged in. Errors are logged, since failing to
+	 * store a session does not affect the current program run. The session
+	 * is written without holding the lock of this connection, so that other
+	 * threads can use its tokens meanwhile.
+	 */
+	protected void saveSession() {
+		if (sessionStore == null || !loggedIn) {
+			return;
+		}
+		Map<String, Object> session = new LinkedHashMap<>();
+		session.put("validated", sessionValidated);
+		session.put("connection", this);
+		try {
+			String json;
+			synchronized (this) {
+				json = sessionMapper.writeValueAsString(session);
+			}
+			sessionStore.saveSession(getSessionKey(username), json);
+		} catch (IOException e) {
+			logger.warn("Could not store the session of " + username + ": "
+					+ e.getMessage());
+		}
+	}
+
+	/**
+	 * Removes the session with the given key from the {@link SessionStore}.
+	 */
+	private void removeSession(String key) {
+		try {
+			sessionStore.removeSession(key);
+		} catch (IOException e) {
+			logger.warn("Could not remove the stored session: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns the key that identifies the session of the given user with the
+	 * API of this connection in the {@link SessionStore}.
+	 */
+	String getSessionKey(String username) {
+		return apiBaseUrl + "#" + username;
+	}
+
 	/**
 	 * Returns the map of cookies currently used in this connection.
 	 */
@@ -349,6 +572,9 @@ public class BasicApiConnection extends ApiConnection {
 			params.put("format", "json"); // reduce the output
 			sendJsonRequest("POST", params);
 
+			if (sessionStore != null) {
+				removeSession(getSessionKey(this.username));
+			}
 			this.loggedIn = false;
 			this.username = "";
 			this.password = "";
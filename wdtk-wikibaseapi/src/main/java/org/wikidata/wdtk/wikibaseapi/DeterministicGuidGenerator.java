@@ -0,0 +1,67 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2018 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Locale;
+import java.util.UUID;
+
+import org.wikidata.wdtk.datamodel.helpers.Fingerprint;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+
+/**
+ * Generates hashes for new statements from their content, so that the same
+ * statement always gets the same id. The hash is computed from the
+ * {@link Fingerprint} of the statement, which covers its subject, main snak,
+ * qualifiers and references, together with its rank. This makes RDF exports
+ * of statements without ids reproducible, so that repeated exports of the
+ * same data are identical.
+ * <p>
+ * Statements of the same entity that have the same content and rank get the
+ * same id. Such duplicates are rare, but this generator should therefore
+ * not be used to create ids for statements that are saved to a wiki. If no
+ * statement is given, random ids are generated as by
+ * {@link FastRandomGuidGenerator}.
+ *
+ */
+public class DeterministicGuidGenerator implements GuidGenerator {
+
+	final GuidGenerator fallback = new FastRandomGuidGenerator();
+
+	@Override
+	public String freshStatementId(String entityId) {
+		return fallback.freshStatementId(entityId);
+	}
+
+	@Override
+	public String freshStatementId(String entityId, Statement statement) {
+		Fingerprint fingerprint = Fingerprint.of(statement);
+		long high = Fingerprint.mix(fingerprint.getHigh());
+		long low = Fingerprint.mix(fingerprint.getLow() + 0x9E3779B97F4A7C15L
+				* (statement.getRank().ordinal() + 1));
+		// mark the UUID as version 8 (custom), variant 2
+		long mostSignificantBits = (high & ~0xF000L) | 0x8000L;
+		long leastSignificantBits = (low & 0x3FFFFFFFFFFFFFFFL)
+				| 0x8000000000000000L;
+		return entityId + STATEMENT_GUID_SEPARATOR
+				+ new UUID(mostSignificantBits, leastSignificantBits)
+						.toString().toUpperCase(Locale.ROOT);
+	}
+}
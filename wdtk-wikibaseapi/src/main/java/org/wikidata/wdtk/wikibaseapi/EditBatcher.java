@@ -0,0 +1,462 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wikidata.wdtk.datamodel.helpers.Fingerprint;
+import org.wikidata.wdtk.datamodel.interfaces.MonolingualTextValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.TermedStatementDocument;
+import org.wikidata.wdtk.util.metrics.Counter;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+
+/**
+ * Sends the edits of a {@link WikibaseDataEditor} in the background, with
+ * several requests in flight at once. This is meant for bots that make many
+ * small edits, where most of the time would otherwise be spent waiting for
+ * responses.
+ * <p>
+ * Edits are submitted with the same parameters as the corresponding methods
+ * of {@link WikibaseDataEditor}, and their outcome is reported by the
+ * returned {@link CompletableFuture}. Edits of the same entity are sent one
+ * after the other, in the order in which they were submitted. Edits that are
+ * submitted for the same entity before the previous one was sent are
+ * combined into one edit if they are based on the same revision, have the
+ * same summary and tags, and do not change the same statements or aliases;
+ * all their futures complete with the result of the combined edit. Edits
+ * that change the same statements are not combined, since the result of
+ * sending them one after the other could differ from the combined edit,
+ * e.g., if the second edit deletes a statement that the first one adds. An
+ * edit that waits for another edit of the same entity that
+ * was based on the same revision is applied to the document returned by that
+ * edit, so it does not conflict with it.
+ * <p>
+ * The rate limit, maxlag handling and edit token of the underlying
+ * {@link WbEditingAction} and {@link ApiConnection} are shared by all
+ * requests. Call {@link #flush()} to wait for all submitted edits, and
+ * {@link #close()} when the batcher is no longer needed.
+ *
+ */
+public class EditBatcher implements AutoCloseable {
+
+	static final Logger logger = LoggerFactory.getLogger(EditBatcher.class);
+
+	static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+	/** Edits that were combined with an earlier edit of the same entity. */
+	static final Counter coalescedCounter = metrics
+			.counter("wikibaseapi.batch.coalesced");
+
+	/**
+	 * Edit of one entity that has not been completed yet, possibly combined
+	 * from several submitted edits.
+	 */
+	static class PendingEdit {
+		StatementDocument currentDocument;
+		final String summary;
+		final List<String> tags;
+		final List<Statement> addStatements = new ArrayList<>();
+		final List<Statement> deleteStatements = new ArrayList<>();
+		final List<MonolingualTextValue> addLabels = new ArrayList<>();
+		final List<MonolingualTextValue> addDescriptions = new ArrayList<>();
+		final List<MonolingualTextValue> addAliases = new ArrayList<>();
+		final List<MonolingualTextValue> deleteAliases = new ArrayList<>();
+		/**
+		 * True if terms are edited, so that a {@link TermStatementUpdate} is
+		 * needed.
+		 */
+		boolean editsTerms = false;
+		/**
+		 * True once the edit is being sent; it can then no longer be
+		 * combined with other edits.
+		 */
+		boolean started = false;
+		final List<CompletableFuture<StatementDocument>> futures = new ArrayList<>();
+
+		PendingEdit(StatementDocument currentDocument, String summary,
+				List<String> tags) {
+			this.currentDocument = currentDocument;
+			this.summary = summary;
+			this.tags = tags;
+		}
+
+		/**
+		 * Returns true if the given edit can be combined with this edit.
+		 * This is not the case if both edits change statements with the same
+		 * id or with the same main snak and qualifiers, or if one of them
+		 * adds an alias that the other one deletes.
+		 */
+		boolean canCombine(PendingEdit other) {
+			if (this.started
+					|| this.currentDocument.getRevisionId() != other.currentDocument
+							.getRevisionId()
+					|| !Objects.equals(this.summary, other.summary)
+					|| !Objects.equals(this.tags, other.tags)) {
+				return false;
+			}
+
+			Set<Object> statementKeys = new HashSet<>();
+			addStatementKeys(this.addStatements, statementKeys);
+			addStatementKeys(this.deleteStatements, statementKeys);
+			Set<Object> otherStatementKeys = new HashSet<>();
+			addStatementKeys(other.addStatements, otherStatementKeys);
+			addStatementKeys(other.deleteStatements, otherStatementKeys);
+			for (Object key : otherStatementKeys) {
+				if (statementKeys.contains(key)) {
+					return false;
+				}
+			}
+
+			return Collections.disjoint(this.addAliases, other.deleteAliases)
+					&& Collections.disjoint(this.deleteAliases,
+							other.addAliases);
+		}
+
+		/**
+		 * Adds the changes of the given edit to this edit, and reports the
+		 * result of this edit to its futures as well.
+		 */
+		void combine(PendingEdit other) {
+			this.editsTerms |= other.editsTerms;
+			this.addStatements.addAll(other.addStatements);
+			this.deleteStatements.addAll(other.deleteStatements);
+			this.addLabels.addAll(other.addLabels);
+			this.addDescriptions.addAll(other.addDescriptions);
+			this.addAliases.addAll(other.addAliases);
+			this.deleteAliases.addAll(other.deleteAliases);
+			this.futures.addAll(other.futures);
+		}
+
+		/**
+		 * Adds the non-empty ids and the fingerprints of the main snaks and
+		 * qualifiers of the given statements to the given set.
+		 */
+		static void addStatementKeys(List<Statement> statements,
+				Set<Object> keys) {
+			for (Statement statement : statements) {
+				if (statement.getStatementId() != null
+						&& !statement.getStatementId().isEmpty()) {
+					keys.add(statement.getStatementId());
+				}
+				keys.add(Fingerprint.ofSnaks(statement.getClaim()));
+			}
+		}
+	}
+
+	final WbEditingAction wbEditingAction;
+
+	final GuidGenerator guidGenerator;
+
+	final boolean editAsBot;
+
+	final ExecutorService executor;
+
+	/**
+	 * Edits that have not been completed, by entity id. The first edit of
+	 * each queue is the one that is being sent.
+	 */
+	final Map<String, Deque<PendingEdit>> queues = new HashMap<>();
+
+	boolean closed = false;
+
+	/**
+	 * Creates a batcher that sends the edits of the given editor, using its
+	 * settings for bot edits, GUID generation, maxlag and edit rate.
+	 *
+	 * @param editor
+	 *            the editor whose connection and settings should be used
+	 * @param maxRequestsInFlight
+	 *            the number of edit requests that may be sent at the same time
+	 */
+	public EditBatcher(WikibaseDataEditor editor, int maxRequestsInFlight) {
+		this(editor.wbEditingAction, editor.guidGenerator, editor.editAsBot(),
+				maxRequestsInFlight);
+	}
+
+	EditBatcher(WbEditingAction wbEditingAction, GuidGenerator guidGenerator,
+			boolean editAsBot, int maxRequestsInFlight) {
+		Validate.isTrue(maxRequestsInFlight > 0,
+				"At least one request must be allowed in flight.");
+		this.wbEditingAction = wbEditingAction;
+		this.guidGenerator = guidGenerator;
+		this.editAsBot = editAsBot;
+		this.executor = Executors.newFixedThreadPool(maxRequestsInFlight,
+				runnable -> {
+					Thread thread = new Thread(runnable, "Edit batcher");
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Submits an update of the statements of the given document. See
+	 * {@link WikibaseDataEditor#updateStatements(StatementDocument, List, List, String, List)}
+	 * for the meaning of the parameters.
+	 *
+	 * @param currentDocument
+	 *            the document that is to be updated; needs to have a correct
+	 *            revision id and entity id
+	 * @param addStatements
+	 *            the list of statements to be added or updated
+	 * @param deleteStatements
+	 *            the list of statements to be deleted
+	 * @param summary
+	 *            summary for the edit
+	 * @param tags
+	 *            string identifiers of the tags to apply to the edit, or null
+	 * @return future that is completed with the updated document, or with
+	 *         the exception that made the edit fail
+	 * @throws IllegalStateException
+	 *             if the batcher has been closed
+	 */
+	public <T extends StatementDocument> CompletableFuture<T> updateStatements(
+			T currentDocument, List<Statement> addStatements,
+			List<Statement> deleteStatements, String summary, List<String> tags) {
+		return submit(currentDocument, summary, tags, edit -> {
+			edit.addStatements.addAll(addStatements);
+			edit.deleteStatements.addAll(deleteStatements);
+		});
+	}
+
+	/**
+	 * Submits an update of the terms and statements of the given document.
+	 * See
+	 * {@link WikibaseDataEditor#updateTermsStatements(TermedStatementDocument, List, List, List, List, List, List, String, List)}
+	 * for the meaning of the parameters. When edits are combined, labels and
+	 * descriptions of later edits replace those of earlier edits in the same
+	 * language.
+	 *
+	 * @param currentDocument
+	 *            the document that is to be updated; needs to have a correct
+	 *            revision id and entity id
+	 * @param addLabels
+	 *            labels to be set on the entity
+	 * @param addDescriptions
+	 *            descriptions to be set on the entity
+	 * @param addAliases
+	 *            aliases to be added
+	 * @param deleteAliases
+	 *            aliases to be deleted
+	 * @param addStatements
+	 *            the list of statements to be added or updated
+	 * @param deleteStatements
+	 *            the list of statements to be deleted
+	 * @param summary
+	 *            summary for the edit
+	 * @param tags
+	 *            string identifiers of the tags to apply to the edit, or null
+	 * @return future that is completed with the updated document, or with
+	 *         the exception that made the edit fail
+	 * @throws IllegalStateException
+	 *             if the batcher has been closed
+	 */
+	public <T extends TermedStatementDocument> CompletableFuture<T> updateTermsStatements(
+			T currentDocument, List<MonolingualTextValue> addLabels,
+			List<MonolingualTextValue> addDescriptions,
+			List<MonolingualTextValue> addAliases,
+			List<MonolingualTextValue> deleteAliases,
+			List<Statement> addStatements, List<Statement> deleteStatements,
+			String summary, List<String> tags) {
+		return submit(currentDocument, summary, tags, edit -> {
+			edit.editsTerms = true;
+			edit.addLabels.addAll(addLabels);
+			edit.addDescriptions.addAll(addDescriptions);
+			edit.addAliases.addAll(addAliases);
+			edit.deleteAliases.addAll(deleteAliases);
+			edit.addStatements.addAll(addStatements);
+			edit.deleteStatements.addAll(deleteStatements);
+		});
+	}
+
+	/**
+	 * Waits until all edits that have been submitted are completed.
+	 *
+	 * @throws InterruptedException
+	 *             if the thread was interrupted while waiting
+	 */
+	public synchronized void flush() throws InterruptedException {
+		while (!this.queues.isEmpty()) {
+			wait();
+		}
+	}
+
+	/**
+	 * Returns the number of edits that have not been completed yet. Edits that
+	 * were combined count as one.
+	 *
+	 * @return number of pending edits
+	 */
+	public synchronized int getPendingEditCount() {
+		int result = 0;
+		for (Deque<PendingEdit> queue : this.queues.values()) {
+			result += queue.size();
+		}
+		return result;
+	}
+
+	/**
+	 * Waits for all submitted edits and stops the threads of this batcher. No
+	 * edits can be submitted afterwards.
+	 */
+	@Override
+	public void close() {
+		synchronized (this) {
+			this.closed = true;
+		}
+		try {
+			flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			this.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Adds an edit to the queue of its entity, combining it with the last
+	 * edit in the queue if possible.
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized <T extends StatementDocument> CompletableFuture<T> submit(
+			T currentDocument, String summary, List<String> tags,
+			Consumer<PendingEdit> changes) {
+		if (this.closed) {
+			throw new IllegalStateException("The edit batcher has been closed.");
+		}
+		String entityId = currentDocument.getEntityId().getId();
+		Deque<PendingEdit> queue = this.queues.computeIfAbsent(entityId,
+				k -> new ArrayDeque<>());
+		PendingEdit newEdit = new PendingEdit(currentDocument, summary, tags);
+		changes.accept(newEdit);
+		CompletableFuture<T> future = new CompletableFuture<>();
+		newEdit.futures.add((CompletableFuture<StatementDocument>) future);
+
+		PendingEdit edit = queue.peekLast();
+		if (edit != null && edit.canCombine(newEdit)) {
+			edit.combine(newEdit);
+			coalescedCounter.increment();
+		} else {
+			edit = newEdit;
+			queue.addLast(edit);
+		}
+		if (queue.size() == 1 && !edit.started) {
+			edit.started = true;
+			this.executor.execute(() -> send(entityId, queue.peekFirst()));
+		}
+		return future;
+	}
+
+	/**
+	 * Sends the given edit, reports its outcome, and starts the next edit of
+	 * the same entity. Errors are reported to the futures of the edit as
+	 * well, and are thrown again once the queue has been updated.
+	 */
+	void send(String entityId, PendingEdit edit) {
+		StatementDocument result = null;
+		Throwable failure = null;
+		try {
+			result = perform(edit);
+		} catch (IOException | MediaWikiApiErrorException | RuntimeException e) {
+			logger.warn("Could not edit " + entityId + ": " + e.getMessage());
+			failure = e;
+		} catch (Error e) {
+			logger.error("Could not edit " + entityId + ": " + e);
+			failure = e;
+		}
+		for (CompletableFuture<StatementDocument> future : edit.futures) {
+			if (failure == null) {
+				future.complete(result);
+			} else {
+				future.completeExceptionally(failure);
+			}
+		}
+
+		synchronized (this) {
+			Deque<PendingEdit> queue = this.queues.get(entityId);
+			queue.removeFirst();
+			PendingEdit next = queue.peekFirst();
+			if (next == null) {
+				this.queues.remove(entityId);
+				notifyAll();
+			} else {
+				if (result != null
+						&& next.currentDocument.getRevisionId() == edit.currentDocument
+								.getRevisionId()) {
+					next.currentDocument = result;
+				}
+				next.started = true;
+				this.executor.execute(() -> send(entityId, next));
+			}
+		}
+
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+	}
+
+	/**
+	 * Computes the update for the given edit and sends it.
+	 */
+	StatementDocument perform(PendingEdit edit) throws IOException,
+			MediaWikiApiErrorException {
+		if (edit.editsTerms) {
+			TermStatementUpdate update = new TermStatementUpdate(
+					(TermedStatementDocument) edit.currentDocument,
+					edit.addStatements, edit.deleteStatements, edit.addLabels,
+					edit.addDescriptions, edit.addAliases, edit.deleteAliases);
+			update.setGuidGenerator(this.guidGenerator);
+			return update.performEdit(this.wbEditingAction, this.editAsBot,
+					edit.summary, edit.tags);
+		}
+
+		StatementUpdate update = new StatementUpdate(edit.currentDocument,
+				edit.addStatements, edit.deleteStatements);
+		update.setGuidGenerator(this.guidGenerator);
+		if (update.isEmptyEdit()) {
+			return edit.currentDocument;
+		}
+		return (StatementDocument) this.wbEditingAction.wbEditEntity(
+				edit.currentDocument.getEntityId().getId(), null, null, null,
+				update.getJsonUpdateString(), false, this.editAsBot,
+				edit.currentDocument.getRevisionId(), edit.summary,
+				edit.tags);
+	}
+
+}
@@ -0,0 +1,112 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2021 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * {@link SessionStore} that keeps each session in a file of a local
+ * directory. Files are replaced atomically, so that programs that run at the
+ * same time never read a partially written session. On file systems that
+ * support POSIX permissions, the files can only be read by their owner.
+ */
+public class FileSessionStore implements SessionStore {
+
+	/**
+	 * The directory that is used by {@link #FileSessionStore()}.
+	 */
+	public static final Path DEFAULT_DIRECTORY = Paths.get(
+			System.getProperty("user.home"), ".wdtk", "sessions");
+
+	final Path directory;
+
+	/**
+	 * Creates a store that keeps sessions in {@link #DEFAULT_DIRECTORY}.
+	 */
+	public FileSessionStore() {
+		this(DEFAULT_DIRECTORY);
+	}
+
+	/**
+	 * Creates a store that keeps sessions in the given directory. The
+	 * directory is created when the first session is saved.
+	 *
+	 * @param directory
+	 *            the directory for the session files
+	 */
+	public FileSessionStore(Path directory) {
+		this.directory = directory;
+	}
+
+	@Override
+	public String loadSession(String key) throws IOException {
+		try {
+			return new String(Files.readAllBytes(getSessionFile(key)),
+					StandardCharsets.UTF_8);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+	}
+
+	@Override
+	public void saveSession(String key, String session) throws IOException {
+		Files.createDirectories(directory);
+		Path file = getSessionFile(key);
+		// on POSIX file systems, temporary files are only readable by their
+		// owner, and moving the file keeps its permissions
+		Path tempFile = Files.createTempFile(directory, "session", ".tmp");
+		try {
+			Files.write(tempFile, session.getBytes(StandardCharsets.UTF_8));
+			try {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	@Override
+	public void removeSession(String key) throws IOException {
+		Files.deleteIfExists(getSessionFile(key));
+	}
+
+	/**
+	 * Returns the file that holds the session for the given key.
+	 *
+	 * @param key
+	 *            the key that identifies the session
+	 * @return the session file
+	 */
+	Path getSessionFile(String key) throws IOException {
+		return directory.resolve(URLEncoder.encode(key, "UTF-8") + ".json");
+	}
+}
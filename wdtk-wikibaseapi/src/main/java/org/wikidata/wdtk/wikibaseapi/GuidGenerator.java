@@ -20,6 +20,8 @@ package org.wikidata.wdtk.wikibaseapi;
  * #L%
  */
 
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+
 public interface GuidGenerator {
 	
 	String STATEMENT_GUID_SEPARATOR = "$";
@@ -34,4 +36,20 @@ public interface GuidGenerator {
 	 * @return a fresh UUID in the required format.
 	 */
 	String freshStatementId(String entityId);
+
+	/**
+	 * Generates a fresh id for the given statement, which belongs to the
+	 * given entity. Generators can use the content of the statement to
+	 * compute the id. The default implementation ignores the statement and
+	 * calls {@link #freshStatementId(String)}.
+	 *
+	 * @param entityId
+	 *          the entity the statement belongs to
+	 * @param statement
+	 *          the statement that needs an id
+	 * @return a fresh UUID in the required format.
+	 */
+	default String freshStatementId(String entityId, Statement statement) {
+		return freshStatementId(entityId);
+	}
 }
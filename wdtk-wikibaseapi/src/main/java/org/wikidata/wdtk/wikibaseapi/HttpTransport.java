@@ -0,0 +1,338 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2021 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.Validate;
+import org.wikidata.wdtk.util.metrics.Histogram;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
+
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.brotli.BrotliInterceptor;
+
+/**
+ * Settings for the HTTP connections of {@link ApiConnection} objects. All
+ * connections that use the same transport share its connection pool and
+ * dispatcher, so that several connections to the same wiki can reuse the
+ * same sockets. A limit on the number of concurrent requests per host can
+ * be set with {@link Builder#withMaxRequestsPerHost(int)}; it is then shared
+ * by all these connections. By default, requests are not limited.
+ * <p>
+ * Connections use {@link #getDefault()} unless another transport is set
+ * with {@link ApiConnection#setTransport(HttpTransport)}. Transports are
+ * created with a {@link Builder}:
+ *
+ * <pre>
+ * HttpTransport transport = new HttpTransport.Builder()
+ * 		.withMaxRequestsPerHost(8).withBrotli(true).build();
+ * </pre>
+ */
+public class HttpTransport {
+
+	static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+	/** Time until the response headers of a request arrive, in nanoseconds. */
+	static final Histogram responseTimes = metrics
+			.histogram("wikibaseapi.http.response.time");
+	/**
+	 * Time that requests waited because the limit of requests per host was
+	 * reached, in nanoseconds.
+	 */
+	static final Histogram queueTimes = metrics
+			.histogram("wikibaseapi.http.queue.time");
+
+	private static HttpTransport defaultTransport;
+
+	/**
+	 * Builder for {@link HttpTransport} objects. The defaults are the ones of
+	 * OkHttp, except that the number of concurrent requests per host is not
+	 * limited unless {@link #withMaxRequestsPerHost(int)} is called.
+	 */
+	public static class Builder {
+
+		int maxIdleConnections = 5;
+		long keepAliveMillis = TimeUnit.MINUTES.toMillis(5);
+		int maxRequests = 64;
+		/** 0 if the number of requests per host is not limited. */
+		int maxRequestsPerHost = 0;
+		boolean gzip = true;
+		boolean brotli = false;
+		boolean http2 = true;
+
+		/**
+		 * Sets the number of idle connections that are kept open.
+		 *
+		 * @param maxIdleConnections
+		 *            maximal number of idle connections
+		 * @return the builder
+		 */
+		public Builder withMaxIdleConnections(int maxIdleConnections) {
+			Validate.isTrue(maxIdleConnections >= 0,
+					"Number of idle connections must not be negative.");
+			this.maxIdleConnections = maxIdleConnections;
+			return this;
+		}
+
+		/**
+		 * Sets how long idle connections are kept open.
+		 *
+		 * @param keepAliveMillis
+		 *            time in milliseconds
+		 * @return the builder
+		 */
+		public Builder withKeepAlive(long keepAliveMillis) {
+			Validate.isTrue(keepAliveMillis > 0,
+					"Keep-alive time must be positive.");
+			this.keepAliveMillis = keepAliveMillis;
+			return this;
+		}
+
+		/**
+		 * Sets the number of asynchronous requests that are executed at the
+		 * same time over all hosts.
+		 *
+		 * @param maxRequests
+		 *            maximal number of requests
+		 * @return the builder
+		 */
+		public Builder withMaxRequests(int maxRequests) {
+			Validate.isTrue(maxRequests > 0,
+					"Number of requests must be positive.");
+			this.maxRequests = maxRequests;
+			return this;
+		}
+
+		/**
+		 * Sets the number of requests to one host that can wait for a
+		 * response at the same time. Further requests block until a
+		 * response arrives. Without this setting, the number of requests is
+		 * not limited.
+		 *
+		 * @param maxRequestsPerHost
+		 *            maximal number of requests per host
+		 * @return the builder
+		 */
+		public Builder withMaxRequestsPerHost(int maxRequestsPerHost) {
+			Validate.isTrue(maxRequestsPerHost > 0,
+					"Number of requests must be positive.");
+			this.maxRequestsPerHost = maxRequestsPerHost;
+			return this;
+		}
+
+		/**
+		 * Sets whether gzip compressed responses are requested. This is the
+		 * default. The setting has no effect if brotli is used, since brotli
+		 * always requests gzip as well; see {@link #withBrotli(boolean)}.
+		 *
+		 * @param gzip
+		 *            true if gzip should be used
+		 * @return the builder
+		 */
+		public Builder withGzip(boolean gzip) {
+			this.gzip = gzip;
+			return this;
+		}
+
+		/**
+		 * Sets whether brotli compressed responses are requested. The server
+		 * may then send brotli or gzip compressed responses, even if gzip was
+		 * disabled with {@link #withGzip(boolean)}.
+		 *
+		 * @param brotli
+		 *            true if brotli should be used
+		 * @return the builder
+		 */
+		public Builder withBrotli(boolean brotli) {
+			this.brotli = brotli;
+			return this;
+		}
+
+		/**
+		 * Sets whether HTTP/2 is used for servers that support it. This is
+		 * the default. Over HTTP/2, concurrent requests to one host are sent
+		 * over a single socket.
+		 *
+		 * @param http2
+		 *            true if HTTP/2 should be preferred over HTTP/1.1
+		 * @return the builder
+		 */
+		public Builder withHttp2(boolean http2) {
+			this.http2 = http2;
+			return this;
+		}
+
+		/**
+		 * Creates the transport.
+		 *
+		 * @return a new transport with the settings of this builder
+		 */
+		public HttpTransport build() {
+			return new HttpTransport(this);
+		}
+	}
+
+	final ConnectionPool connectionPool;
+
+	final Dispatcher dispatcher;
+
+	final int maxRequestsPerHost;
+
+	final boolean gzip;
+
+	final boolean brotli;
+
+	final boolean http2;
+
+	/**
+	 * Permits for the requests that wait for a response, by host.
+	 */
+	final ConcurrentMap<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+	HttpTransport(Builder builder) {
+		this.connectionPool = new ConnectionPool(builder.maxIdleConnections,
+				builder.keepAliveMillis, TimeUnit.MILLISECONDS);
+		this.dispatcher = new Dispatcher();
+		this.dispatcher.setMaxRequests(builder.maxRequests);
+		if (builder.maxRequestsPerHost > 0) {
+			this.dispatcher.setMaxRequestsPerHost(builder.maxRequestsPerHost);
+		}
+		this.maxRequestsPerHost = builder.maxRequestsPerHost;
+		this.gzip = builder.gzip;
+		this.brotli = builder.brotli;
+		this.http2 = builder.http2;
+	}
+
+	/**
+	 * Returns the transport that is used by connections for which no other
+	 * transport was set. It has the default settings of {@link Builder}.
+	 *
+	 * @return the default transport
+	 */
+	public static synchronized HttpTransport getDefault() {
+		if (defaultTransport == null) {
+			defaultTransport = new Builder().build();
+		}
+		return defaultTransport;
+	}
+
+	/**
+	 * Returns the number of requests to one host that can wait for a response
+	 * at the same time.
+	 *
+	 * @return maximal number of requests per host, or 0 if the number is not
+	 *         limited
+	 */
+	public int getMaxRequestsPerHost() {
+		return this.maxRequestsPerHost;
+	}
+
+	/**
+	 * Returns the number of connections of this transport that are open.
+	 *
+	 * @return number of connections
+	 */
+	public int getConnectionCount() {
+		return this.connectionPool.connectionCount();
+	}
+
+	/**
+	 * Closes all idle connections of this transport.
+	 */
+	public void evictIdleConnections() {
+		this.connectionPool.evictAll();
+	}
+
+	/**
+	 * Applies the settings of this transport to a client that is being
+	 * built.
+	 *
+	 * @param builder
+	 *            the builder of the client
+	 */
+	void configure(OkHttpClient.Builder builder) {
+		builder.connectionPool(this.connectionPool).dispatcher(this.dispatcher);
+		if (this.http2) {
+			builder.protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+		} else {
+			builder.protocols(Collections.singletonList(Protocol.HTTP_1_1));
+		}
+		if (this.brotli) {
+			// Requests "br,gzip" and decodes either.
+			builder.addInterceptor(BrotliInterceptor.INSTANCE);
+		} else if (!this.gzip) {
+			builder.addInterceptor(chain -> chain.proceed(chain.request()
+					.newBuilder().header("Accept-Encoding", "identity")
+					.build()));
+		}
+	}
+
+	/**
+	 * Executes a call, waiting first if the limit of requests to its host is
+	 * reached. The permit is returned when the response headers arrive. If
+	 * there is no limit, the call is executed right away.
+	 *
+	 * @param call
+	 *            the call to execute
+	 * @return the response
+	 * @throws IOException
+	 *             if the request failed or the thread was interrupted
+	 */
+	Response execute(Call call) throws IOException {
+		if (this.maxRequestsPerHost == 0) {
+			long startTime = metrics.startTime();
+			try {
+				return call.execute();
+			} finally {
+				responseTimes.recordSince(startTime);
+			}
+		}
+		Semaphore permits = this.hostPermits.computeIfAbsent(
+				call.request().url().host(),
+				host -> new Semaphore(this.maxRequestsPerHost, true));
+		long startTime = metrics.startTime();
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a connection", e);
+		}
+		queueTimes.recordSince(startTime);
+		startTime = metrics.startTime();
+		try {
+			return call.execute();
+		} finally {
+			permits.release();
+			responseTimes.recordSince(startTime);
+		}
+	}
+
+}
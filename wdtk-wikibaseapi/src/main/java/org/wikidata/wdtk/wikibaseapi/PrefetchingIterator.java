@@ -0,0 +1,286 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+
+/**
+ * Iterator over API results that are returned in several pages, such as
+ * search results that are continued with a continuation token, or the
+ * results for a long list of titles that is split into several requests.
+ * Pages are requested in the background while earlier pages are read:
+ * the page that continues a page is requested when the iterator starts
+ * returning the results of that page, so that continuations are read one
+ * page ahead, and pages of independent requests are requested in parallel,
+ * up to a given number of requests. Results are returned in the order of
+ * the requests.
+ * <p>
+ * Since {@link Iterator} methods cannot throw checked exceptions, errors of
+ * the requests are thrown as {@link RequestException} by {@link #hasNext()}
+ * and {@link #next()}.
+ *
+ * @param <T>
+ *            the type of the results
+ */
+public class PrefetchingIterator<T> implements Iterator<T> {
+
+	/**
+	 * Threads that send the requests. Threads that are idle for a minute are
+	 * stopped.
+	 */
+	static final ExecutorService executor = Executors
+			.newCachedThreadPool(runnable -> {
+				Thread thread = new Thread(runnable, "Wikibase API prefetch");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	/**
+	 * Request for one page of results.
+	 *
+	 * @param <T>
+	 *            the type of the results
+	 */
+	@FunctionalInterface
+	public interface PageRequest<T> {
+
+		/**
+		 * Sends the request.
+		 *
+		 * @return the page of results
+		 * @throws IOException
+		 *             if the request failed
+		 * @throws MediaWikiApiErrorException
+		 *             if the API returned an error
+		 */
+		Page<T> send() throws IOException, MediaWikiApiErrorException;
+	}
+
+	/**
+	 * One page of results.
+	 *
+	 * @param <T>
+	 *            the type of the results
+	 */
+	public static class Page<T> {
+
+		final List<T> results;
+
+		final PageRequest<T> next;
+
+		/**
+		 * Creates a page.
+		 *
+		 * @param results
+		 *            the results of the page
+		 * @param next
+		 *            request for the page that continues this page, or null
+		 *            if there is none
+		 */
+		public Page(List<T> results, PageRequest<T> next) {
+			this.results = results;
+			this.next = next;
+		}
+
+		/**
+		 * Returns the results of this page.
+		 *
+		 * @return list of results
+		 */
+		public List<T> getResults() {
+			return this.results;
+		}
+	}
+
+	/**
+	 * Exception thrown by the iterator if a request failed. The cause is the
+	 * {@link IOException} or {@link MediaWikiApiErrorException} of the
+	 * request.
+	 */
+	public static class RequestException extends RuntimeException {
+
+		private static final long serialVersionUID = 2838456107485317374L;
+
+		RequestException(Throwable cause) {
+			super(cause.getMessage(), cause);
+		}
+	}
+
+	/**
+	 * Independent requests that have not been sent yet.
+	 */
+	final Iterator<PageRequest<T>> requests;
+
+	/**
+	 * Maximal number of pages that are requested at the same time.
+	 */
+	final int maxPendingPages;
+
+	/**
+	 * Pages that have been requested, in the order of their results.
+	 */
+	final Deque<CompletableFuture<Page<T>>> pendingPages = new ArrayDeque<>();
+
+	Iterator<T> currentResults = Collections.emptyIterator();
+
+	/**
+	 * Creates an iterator that follows the continuations of one request.
+	 *
+	 * @param request
+	 *            the request for the first page
+	 */
+	public PrefetchingIterator(PageRequest<T> request) {
+		this(Collections.singletonList(request).iterator(), 1);
+	}
+
+	/**
+	 * Creates an iterator over the results of several independent requests,
+	 * and of the pages that continue them. Requests are taken from the
+	 * given iterator only when they are sent, so that it can be lazy.
+	 *
+	 * @param requests
+	 *            the requests for the first pages
+	 * @param maxPendingPages
+	 *            the number of pages that can be requested at the same time
+	 */
+	public PrefetchingIterator(Iterator<PageRequest<T>> requests,
+			int maxPendingPages) {
+		Validate.isTrue(maxPendingPages > 0,
+				"At least one page must be requested at a time.");
+		this.requests = requests;
+		this.maxPendingPages = maxPendingPages;
+		requestPages();
+	}
+
+	/**
+	 * Splits the given items into batches and creates a request for each
+	 * batch. Items are only read when the request for their batch is needed.
+	 *
+	 * @param <S>
+	 *            the type of the items
+	 * @param <T>
+	 *            the type of the results
+	 * @param items
+	 *            the items to split
+	 * @param batchSize
+	 *            the maximal number of items per batch
+	 * @param requestFactory
+	 *            creates the request for a batch
+	 * @return iterator over the requests
+	 */
+	public static <S, T> Iterator<PageRequest<T>> inBatches(
+			Iterator<S> items, int batchSize,
+			Function<List<S>, PageRequest<T>> requestFactory) {
+		Validate.isTrue(batchSize > 0, "Batch size must be positive.");
+		return new Iterator<PageRequest<T>>() {
+			@Override
+			public boolean hasNext() {
+				return items.hasNext();
+			}
+
+			@Override
+			public PageRequest<T> next() {
+				List<S> batch = new ArrayList<>(batchSize);
+				while (batch.size() < batchSize && items.hasNext()) {
+					batch.add(items.next());
+				}
+				if (batch.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				return requestFactory.apply(batch);
+			}
+		};
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!this.currentResults.hasNext()) {
+			if (this.pendingPages.isEmpty()) {
+				return false;
+			}
+			Page<T> page = awaitPage(this.pendingPages.removeFirst());
+			if (page.next != null) {
+				this.pendingPages.addFirst(send(page.next));
+			}
+			requestPages();
+			this.currentResults = page.results.iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.currentResults.next();
+	}
+
+	/**
+	 * Sends further independent requests until the limit is reached.
+	 */
+	void requestPages() {
+		while (this.pendingPages.size() < this.maxPendingPages
+				&& this.requests.hasNext()) {
+			this.pendingPages.addLast(send(this.requests.next()));
+		}
+	}
+
+	CompletableFuture<Page<T>> send(PageRequest<T> request) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return request.send();
+			} catch (IOException | MediaWikiApiErrorException e) {
+				throw new RequestException(e);
+			}
+		}, executor);
+	}
+
+	Page<T> awaitPage(CompletableFuture<Page<T>> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RequestException) {
+				throw (RequestException) e.getCause();
+			}
+			throw new RequestException(e.getCause());
+		} catch (CancellationException e) {
+			throw new RequestException(e);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package org.wikidata.wdtk.wikibaseapi;
+
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2021 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.IOException;
+
+/**
+ * Storage for the sessions of {@link BasicApiConnection} objects, so that a
+ * program can continue a session that was started by an earlier run instead
+ * of logging in again. Sessions are identified by a key that is derived from
+ * the API URL and the user name. The stored value is an opaque string that
+ * contains the cookies and tokens of the session, which should be kept as
+ * confidential as the password of the user.
+ *
+ * @see BasicApiConnection#setSessionStore(SessionStore)
+ * @see FileSessionStore
+ */
+public interface SessionStore {
+
+	/**
+	 * Returns the session that was stored for the given key.
+	 *
+	 * @param key
+	 *            the key that identifies the session
+	 * @return the stored session, or null if there is none
+	 * @throws IOException
+	 *             if the session could not be read
+	 */
+	String loadSession(String key) throws IOException;
+
+	/**
+	 * Stores the given session, replacing any session stored for the same
+	 * key.
+	 *
+	 * @param key
+	 *            the key that identifies the session
+	 * @param session
+	 *            the serialized session
+	 * @throws IOException
+	 *             if the session could not be written
+	 */
+	void saveSession(String key, String session) throws IOException;
+
+	/**
+	 * Removes the session that was stored for the given key, if any.
+	 *
+	 * @param key
+	 *            the key that identifies the session
+	 * @throws IOException
+	 *             if the session could not be removed
+	 */
+	void removeSession(String key) throws IOException;
+}
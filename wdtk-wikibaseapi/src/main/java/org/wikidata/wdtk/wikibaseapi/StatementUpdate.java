@@ -27,11 +27,15 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
+import org.wikidata.wdtk.datamodel.helpers.Fingerprint;
 import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
 import org.wikidata.wdtk.datamodel.implementation.StatementImpl;
 import org.wikidata.wdtk.datamodel.interfaces.Claim;
@@ -163,13 +167,93 @@ public class StatementUpdate {
 		
 	}
 
+	/**
+	 * Positions of the statements in one list of {@link #toKeep}, by statement
+	 * id and by the {@link Fingerprint#ofSnaks(Claim) fingerprint} of their
+	 * main snak and qualifiers. The positions for each key are kept in
+	 * ascending order, so the statement that a scan of the list would find
+	 * first comes first.
+	 */
+	static class StatementIndex {
+		final HashMap<String, List<Integer>> positionsById = new HashMap<>();
+		final HashMap<Fingerprint, List<Integer>> positionsByClaim = new HashMap<>();
+
+		/**
+		 * Adds a statement at the given position of the list.
+		 */
+		void add(Statement statement, Fingerprint claimFingerprint,
+				int position) {
+			addPosition(this.positionsByClaim, claimFingerprint, position);
+			addId(statement.getStatementId(), position);
+		}
+
+		/**
+		 * Returns the first position of a statement with the given id, or -1
+		 * if there is none. Empty ids are not indexed.
+		 */
+		int getFirstPosition(String statementId) {
+			List<Integer> positions = this.positionsById.get(statementId);
+			return positions == null ? -1 : positions.get(0);
+		}
+
+		/**
+		 * Returns the positions of the statements whose main snak and
+		 * qualifiers have the given fingerprint, in ascending order.
+		 */
+		List<Integer> getPositions(Fingerprint claimFingerprint) {
+			return this.positionsByClaim.getOrDefault(claimFingerprint,
+					Collections.emptyList());
+		}
+
+		/**
+		 * Records that the statement at the given position now has another
+		 * id. Its claim does not change when statements are merged.
+		 */
+		void replaceId(String oldId, String newId, int position) {
+			if (Objects.equals(oldId, newId)) {
+				return;
+			}
+			List<Integer> positions = this.positionsById.get(oldId);
+			if (positions != null) {
+				positions.remove(Integer.valueOf(position));
+				if (positions.isEmpty()) {
+					this.positionsById.remove(oldId);
+				}
+			}
+			addId(newId, position);
+		}
+
+		void addId(String statementId, int position) {
+			if (statementId != null && !statementId.isEmpty()) {
+				addPosition(this.positionsById, statementId, position);
+			}
+		}
+
+		static <K> void addPosition(HashMap<K, List<Integer>> map, K key,
+				int position) {
+			List<Integer> positions = map.computeIfAbsent(key,
+					k -> new ArrayList<>(1));
+			int insertionPoint = Collections.binarySearch(positions, position);
+			if (insertionPoint < 0) {
+				positions.add(-insertionPoint - 1, position);
+			}
+		}
+	}
+
 	private GuidGenerator guidGenerator = new RandomGuidGenerator();
 	private final ObjectMapper mapper;
 	
 	@JsonIgnore
 	final HashMap<PropertyIdValue, List<StatementWithUpdate>> toKeep;
 	@JsonIgnore
+	final HashMap<PropertyIdValue, StatementIndex> toKeepIndexes;
+	@JsonIgnore
 	final List<String> toDelete;
+	/**
+	 * The ids in {@link #toDelete}, for fast lookups.
+	 */
+	@JsonIgnore
+	final HashSet<String> toDeleteIds;
 	@JsonIgnore
 	StatementDocument currentDocument;
 
@@ -191,7 +275,9 @@ public class StatementUpdate {
 			List<Statement> addStatements, List<Statement> deleteStatements) {
 		this.currentDocument = currentDocument;
 		this.toKeep = new HashMap<>();
+		this.toKeepIndexes = new HashMap<>();
 		this.toDelete = new ArrayList<>();
+		this.toDeleteIds = new HashSet<>();
 		markStatementsForUpdate(currentDocument, addStatements,
 				deleteStatements);
 		this.mapper = new DatamodelMapper(currentDocument.getEntityId().getSiteIri());
@@ -244,7 +330,8 @@ public class StatementUpdate {
 			Statement statement = statements.get(0);
 			
 			if (statement.getStatementId() == null || statement.getStatementId().isEmpty()) {
-				statement = statement.withStatementId(guidGenerator.freshStatementId(currentDocument.getEntityId().getId()));
+				statement = statement.withStatementId(guidGenerator.freshStatementId(
+						currentDocument.getEntityId().getId(), statement));
 
 			}
 			
@@ -335,41 +422,62 @@ public class StatementUpdate {
 	 */
 	protected void markStatementsForDeletion(StatementDocument currentDocument,
 			List<Statement> deleteStatements) {
+		if (deleteStatements.isEmpty()) {
+			return;
+		}
+
+		// Equal statements have equal ids, so only the current statements
+		// with the id of a statement to delete need to be looked at
+		Set<PropertyIdValue> properties = new HashSet<>();
+		Map<String, List<Statement>> statementsById = new HashMap<>();
+		for (StatementGroup sg : currentDocument.getStatementGroups()) {
+			properties.add(sg.getProperty());
+			for (Statement existingStatement : sg) {
+				statementsById.computeIfAbsent(
+						existingStatement.getStatementId(),
+						k -> new ArrayList<>(1)).add(existingStatement);
+			}
+		}
+
 		for (Statement statement : deleteStatements) {
+			PropertyIdValue pid = statement.getMainSnak().getPropertyId();
+			if (!properties.contains(pid)) {
+				continue;
+			}
+
 			boolean found = false;
-			for (StatementGroup sg : currentDocument.getStatementGroups()) {
-				if (!sg.getProperty().equals(statement.getMainSnak().getPropertyId())) {
+			Statement changedStatement = null;
+			for (Statement existingStatement : statementsById.getOrDefault(
+					statement.getStatementId(),
+					Collections.emptyList())) {
+				if (!existingStatement.getMainSnak().getPropertyId()
+						.equals(pid)) {
 					continue;
 				}
-
-				Statement changedStatement = null;
-				for (Statement existingStatement : sg) {
-					if (existingStatement.equals(statement)) {
-						found = true;
-						toDelete.add(statement.getStatementId());
-					} else if (existingStatement.getStatementId().equals(
-							statement.getStatementId())) {
-						// (we assume all existing statement ids to be nonempty
-						// here)
-						changedStatement = existingStatement;
-						break;
-					}
+				if (existingStatement.equals(statement)) {
+					found = true;
+					markForDeletion(statement.getStatementId());
+				} else {
+					// (we assume all existing statement ids to be nonempty
+					// here)
+					changedStatement = existingStatement;
+					break;
 				}
+			}
 
-				if (!found) {
-					StringBuilder warning = new StringBuilder();
-					warning.append("Cannot delete statement (id ")
-							.append(statement.getStatementId())
-							.append(") since it is not present in data. Statement was:\n")
-							.append(statement);
-
-					if (changedStatement != null) {
-						warning.append(
-								"\nThe data contains another statement with the same id: maybe it has been edited? Other statement was:\n")
-								.append(changedStatement);
-					}
-					logger.warn(warning.toString());
+			if (!found) {
+				StringBuilder warning = new StringBuilder();
+				warning.append("Cannot delete statement (id ")
+						.append(statement.getStatementId())
+						.append(") since it is not present in data. Statement was:\n")
+						.append(statement);
+
+				if (changedStatement != null) {
+					warning.append(
+							"\nThe data contains another statement with the same id: maybe it has been edited? Other statement was:\n")
+							.append(changedStatement);
 				}
+				logger.warn(warning.toString());
 			}
 		}
 	}
@@ -396,7 +504,7 @@ public class StatementUpdate {
 		for (StatementGroup sg : currentDocument.getStatementGroups()) {
 			if (this.toKeep.containsKey(sg.getProperty())) {
 				for (Statement statement : sg) {
-					if (!this.toDelete.contains(statement.getStatementId())) {
+					if (!this.toDeleteIds.contains(statement.getStatementId())) {
 						addStatement(statement, false);
 					}
 				}
@@ -419,26 +527,28 @@ public class StatementUpdate {
 	 */
 	protected void addStatement(Statement statement, boolean isNew) {
 		PropertyIdValue pid = statement.getMainSnak().getPropertyId();
+		Fingerprint claimFingerprint = Fingerprint.ofSnaks(statement.getClaim());
 
 		// This code maintains the following properties:
 		// (1) the toKeep structure does not contain two statements with the
 		// same statement id
 		// (2) the toKeep structure does not contain two statements that can
 		// be merged
-		if (this.toKeep.containsKey(pid)) {
-			List<StatementWithUpdate> statements = this.toKeep.get(pid);
-			for (int i = 0; i < statements.size(); i++) {
+		List<StatementWithUpdate> statements = this.toKeep.get(pid);
+		StatementIndex index;
+		if (statements != null) {
+			index = this.toKeepIndexes.get(pid);
+			// Only statements with the same id or an equivalent claim are
+			// relevant. Whichever comes first in the list decides, as if the
+			// list was scanned.
+			int idPosition = index.getFirstPosition(statement.getStatementId());
+			for (int i : index.getPositions(claimFingerprint)) {
+				if (idPosition >= 0 && idPosition <= i) {
+					break;
+				}
 				Statement currentStatement = statements.get(i).statement;
 				boolean currentIsNew = statements.get(i).write;
 
-				if (!"".equals(currentStatement.getStatementId())
-						&& currentStatement.getStatementId().equals(
-								statement.getStatementId())) {
-					// Same, non-empty id: ignore existing statement as if
-					// deleted
-					return;
-				}
-
 				Statement newStatement = mergeStatements(statement,
 						currentStatement);
 				if (newStatement != null) {
@@ -453,6 +563,8 @@ public class StatementUpdate {
 
 					statements.set(i, new StatementWithUpdate(newStatement,
 							writeNewStatement));
+					index.replaceId(currentStatement.getStatementId(),
+							newStatement.getStatementId(), i);
 
 					// Impossible with default merge code:
 					// Kept here for future extensions that may choose to not
@@ -460,23 +572,42 @@ public class StatementUpdate {
 					if (!"".equals(statement.getStatementId())
 							&& !newStatement.getStatementId().equals(
 									statement.getStatementId())) {
-						this.toDelete.add(statement.getStatementId());
+						markForDeletion(statement.getStatementId());
 					}
 					if (!"".equals(currentStatement.getStatementId())
 							&& !newStatement.getStatementId().equals(
 									currentStatement.getStatementId())) {
-						this.toDelete.add(currentStatement.getStatementId());
+						markForDeletion(currentStatement.getStatementId());
 					}
 					return;
 				}
 			}
 
-			statements.add(new StatementWithUpdate(statement, isNew));
+			if (idPosition >= 0) {
+				// Same, non-empty id: ignore existing statement as if
+				// deleted
+				return;
+			}
 		} else {
-			List<StatementWithUpdate> statements = new ArrayList<>();
-			statements.add(new StatementWithUpdate(statement, isNew));
+			statements = new ArrayList<>();
+			index = new StatementIndex();
 			this.toKeep.put(pid, statements);
+			this.toKeepIndexes.put(pid, index);
 		}
+
+		index.add(statement, claimFingerprint, statements.size());
+		statements.add(new StatementWithUpdate(statement, isNew));
+	}
+
+	/**
+	 * Marks the statement with the given id for deletion.
+	 *
+	 * @param statementId
+	 *            the id of the statement to delete
+	 */
+	void markForDeletion(String statementId) {
+		this.toDelete.add(statementId);
+		this.toDeleteIds.add(statementId);
 	}
 
 	/**
@@ -497,7 +628,7 @@ public class StatementUpdate {
 	 *            second statement
 	 * @return merged statement or null if merging is not possible
 	 */
-	private Statement mergeStatements(Statement statement1, Statement statement2) {
+	Statement mergeStatements(Statement statement1, Statement statement2) {
 		if (!equivalentClaims(statement1.getClaim(), statement2.getClaim())) {
 			return null;
 		}
@@ -556,6 +687,9 @@ public class StatementUpdate {
 	/**
 	 * Checks if two claims are equivalent in the sense that they have the same
 	 * main snak and the same qualifiers, but possibly in a different order.
+	 * Only claims whose main snak and qualifiers have the same
+	 * {@link Fingerprint#ofSnaks(Claim) fingerprint} are compared, so
+	 * overriding methods cannot make more claims equivalent.
 	 *
 	 * @param claim1
 	 * @param claim2
@@ -31,6 +31,10 @@ import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
 import org.wikidata.wdtk.datamodel.implementation.EntityDocumentImpl;
 import org.wikidata.wdtk.datamodel.interfaces.EntityDocument;
+import org.wikidata.wdtk.util.metrics.Counter;
+import org.wikidata.wdtk.util.metrics.Histogram;
+import org.wikidata.wdtk.util.metrics.Meter;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.TokenErrorException;
@@ -51,6 +55,22 @@ public class WbEditingAction {
 	static final Logger logger = LoggerFactory
 			.getLogger(WbEditingAction.class);
 
+	static final MetricsRegistry metrics = MetricsRegistry.getDefault();
+	/** Edits that were sent to the API successfully. */
+	static final Meter editMeter = metrics.meter("wikibaseapi.edits");
+	/** Time for an edit including retries and throttling, in nanoseconds. */
+	static final Histogram editTimes = metrics
+			.histogram("wikibaseapi.edit.time");
+	/** Retries because the server was lagging. */
+	static final Counter maxlagRetryCounter = metrics
+			.counter("wikibaseapi.edit.maxlag.retries");
+	/** Retries because the edit token had expired. */
+	static final Counter tokenRetryCounter = metrics
+			.counter("wikibaseapi.edit.token.retries");
+	/** Time spent waiting to keep the edit rate, in milliseconds. */
+	static final Counter throttleCounter = metrics
+			.counter("wikibaseapi.edit.throttle.millis");
+
 	/**
 	 * Connection to an Wikibase API.
 	 */
@@ -728,14 +748,13 @@ public class WbEditingAction {
 		parameters.put("maxlag", Integer.toString(this.maxLag));
 		parameters.put("token", connection.getOrFetchToken("csrf"));
 
-		if (this.remainingEdits > 0) {
-			this.remainingEdits--;
-		} else if (this.remainingEdits == 0) {
+		if (!useRemainingEdit()) {
 			logger.info("Not editing entity (simulation mode). Request parameters were: "
 					+ parameters.toString());
 			return null;
 		}
 
+		long startTime = metrics.startTime();
 		checkEditSpeed();
 		JsonNode result = null;
 		
@@ -748,10 +767,12 @@ public class WbEditingAction {
 				break;
 			} catch (TokenErrorException e) { // try again with a fresh token
 				lastException = e;
+				tokenRetryCounter.increment();
 				connection.clearToken("csrf");
 				parameters.put("token", connection.getOrFetchToken("csrf"));
 			} catch (MaxlagErrorException e) { // wait for 5 seconds
 				lastException = e;
+				maxlagRetryCounter.increment();
 				logger.warn(e.getMessage() + String.format(" -- pausing for %d milliseconds.", maxLagSleepTime));
 				try {
 					Thread.sleep(maxLagSleepTime);
@@ -769,9 +790,25 @@ public class WbEditingAction {
 			throw lastException;
 		}
 
+		editMeter.mark();
+		editTimes.recordSince(startTime);
 		return result;
 	}
 	
+	/**
+	 * Counts one edit against {@link #remainingEdits}.
+	 *
+	 * @return false if no more edits may be performed
+	 */
+	private synchronized boolean useRemainingEdit() {
+		if (this.remainingEdits > 0) {
+			this.remainingEdits--;
+		} else if (this.remainingEdits == 0) {
+			return false;
+		}
+		return true;
+	}
+
 	/**
 	 * TODO: TO BE REFACTORED
 	 * @param root
@@ -820,9 +857,10 @@ public class WbEditingAction {
 	 * {@link WbEditingAction#editTimeWindow} time points when an edit was
 	 * made. If the time since the oldest edit in this window is shorter than
 	 * {@link #averageMsecsPerEdit} milliseconds, then the method will pause the
-	 * thread for the remaining time.
+	 * thread for the remaining time. When several threads edit at once, they
+	 * wait here one after the other, so the rate is kept for all of them.
 	 */
-	private void checkEditSpeed() {
+	private synchronized void checkEditSpeed() {
 		long currentTime = System.nanoTime();
 		int nextIndex = (this.curEditTimeSlot + 1) % editTimeWindow;
 		if (this.recentEditTimes[nextIndex] != 0
@@ -832,6 +870,7 @@ public class WbEditingAction {
 					- (currentTime - this.recentEditTimes[nextIndex]) / 1000000;
 			logger.info("We are editing too fast. Pausing for " + sleepTime
 					+ " milliseconds.");
+			throttleCounter.add(sleepTime);
 			try {
 				Thread.sleep(sleepTime);
 			} catch (InterruptedException ex) {
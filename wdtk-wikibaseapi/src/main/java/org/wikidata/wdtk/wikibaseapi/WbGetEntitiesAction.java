@@ -24,10 +24,9 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.function.BiConsumer;
 
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.helpers.DatamodelMapper;
@@ -41,10 +40,13 @@ import org.wikidata.wdtk.datamodel.interfaces.MediaInfoIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.SiteLink;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 /**
  * Java implementation of the wbgetentities action.
@@ -69,6 +71,11 @@ public class WbGetEntitiesAction {
 	 */
 	final ObjectMapper mapper;
 
+	/**
+	 * Reader for the entities of a response.
+	 */
+	final ObjectReader entityReader;
+
 	/**
 	 * Creates an object to fetch data from the given ApiConnection. The site
 	 * URI is necessary since it is not contained in the data retrieved from the
@@ -85,6 +92,8 @@ public class WbGetEntitiesAction {
 		this.connection = connection;
 		this.siteIri = siteIri;
 		this.mapper = new DatamodelMapper(siteIri);
+		this.entityReader = this.mapper.readerFor(EntityDocumentImpl.class)
+				.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT);
 	}
 
 	/**
@@ -164,9 +173,53 @@ public class WbGetEntitiesAction {
 			String titles, String props, String languages, String sitefilter)
 			throws MediaWikiApiErrorException, IOException {
 
+		Map<String, String> parameters = buildParameters(ids, sites, titles,
+				props, languages, sitefilter);
+
+		Map<String, EntityDocument> result = new HashMap<>();
+		fetchEntities(parameters, sites, titles, result::put);
+		return result;
+	}
+
+	/**
+	 * Retrieves documents via the API like
+	 * {@link #wbGetEntities(WbGetEntitiesActionData)}, but passes each
+	 * document to the given consumer as soon as it has been read, instead of
+	 * collecting them in a map. Documents are read from the response one by
+	 * one, so the response is never held in memory as a whole.
+	 *
+	 * @param properties
+	 *            parameter setting for wbgetentities
+	 * @param consumer
+	 *            receives the document identifier or title (the key of the
+	 *            map returned by {@link #wbGetEntities(WbGetEntitiesActionData)})
+	 *            and the document, for each document retrieved
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returns an error
+	 * @throws IOException
+	 *             if we encounter network errors, or HTTP 500 errors on Wikibase's side
+	 * @throws IllegalArgumentException
+	 *             if the given combination of parameters does not make sense
+	 * @throws MalformedResponseException
+	 *             if one of the returned entities cannot be parsed
+	 */
+	public void wbGetEntities(WbGetEntitiesActionData properties,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException, IOException {
+		Map<String, String> parameters = buildParameters(properties.ids,
+				properties.sites, properties.titles, properties.props,
+				properties.languages, properties.sitefilter);
+		fetchEntities(parameters, properties.sites, properties.titles,
+				consumer);
+	}
+
+	/**
+	 * Builds the parameters of a wbgetentities request.
+	 */
+	Map<String, String> buildParameters(String ids, String sites,
+			String titles, String props, String languages, String sitefilter) {
 		Map<String, String> parameters = new HashMap<>();
 		parameters.put(ApiConnection.PARAM_ACTION, "wbgetentities");
-		List<String> titlesList = titles == null ? Collections.emptyList() : Arrays.asList(titles.split("-"));
 
 		if (ids != null) {
 			parameters.put("ids", ids);
@@ -196,57 +249,101 @@ public class WbGetEntitiesAction {
 		if (sitefilter != null) {
 			parameters.put("sitefilter", sitefilter);
 		}
+		return parameters;
+	}
 
-		Map<String, EntityDocument> result = new HashMap<>();
-
-		JsonNode root = this.connection.sendJsonRequest("POST", parameters);
+	/**
+	 * Sends a wbgetentities request and passes the documents of the
+	 * "entities" field to the consumer while the response is read.
+	 */
+	void fetchEntities(Map<String, String> parameters, String sites,
+			String titles, BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException, IOException {
+		List<String> titlesList = titles == null ? Collections.emptyList() : Arrays.asList(titles.split("-"));
+		this.connection.sendStreamingJsonRequest("POST", parameters,
+				(fieldName, parser) -> {
+					if ("entities".equals(fieldName)
+							&& parser.currentToken() == JsonToken.START_OBJECT) {
+						readEntities(parser, sites, titles, titlesList, consumer);
+					} else {
+						parser.skipChildren();
+					}
+				});
+	}
 
-		JsonNode entities = root.path("entities");
-		Iterator<Entry<String,JsonNode>> entitiesIterator = entities.fields();
+	/**
+	 * Reads the entities of a response one after the other. Each entity is
+	 * buffered as a token sequence, since the fields that mark missing
+	 * entities may come after the other fields.
+	 */
+	void readEntities(JsonParser parser, String sites, String titles,
+			List<String> titlesList, BiConsumer<String, EntityDocument> consumer)
+			throws IOException {
 		int i = 0;
-		while(entitiesIterator.hasNext()) {
-			Entry<String,JsonNode> entry = entitiesIterator.next();
-			JsonNode entityNode = entry.getValue();
-			if(!entityNode.has("missing")) {
-				try {
-					EntityDocument ed = mapper.reader()
-							.with(DeserializationFeature.ACCEPT_EMPTY_ARRAY_AS_NULL_OBJECT)
-							.treeToValue(entityNode, EntityDocumentImpl.class);
-
-					if (titles == null) {
-						// We use the JSON key rather than the id of the value
-						// so that retrieving redirected entities works.
-						result.put(entry.getKey(), ed);
-					} else {
-						if (ed instanceof ItemDocument) {
-							SiteLink siteLink = ((ItemDocument) ed).getSiteLinks().get(sites);
-							if(siteLink != null) {
-								result.put(siteLink.getPageTitle(), ed);
-							}
-						} else if(ed instanceof MediaInfoDocument) {
-							result.put(entityNode.get("title").textValue(), ed);
-						}
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String key = parser.getCurrentName();
+			parser.nextToken();
+			TokenBuffer entity = new TokenBuffer(parser);
+			entity.copyCurrentStructure(parser);
+
+			boolean missing = false;
+			String id = null;
+			String title = null;
+			try (JsonParser fields = entity.asParser()) {
+				fields.nextToken();
+				while (fields.nextToken() == JsonToken.FIELD_NAME) {
+					String fieldName = fields.getCurrentName();
+					fields.nextToken();
+					if ("missing".equals(fieldName)) {
+						missing = true;
+					} else if ("id".equals(fieldName)) {
+						id = fields.getValueAsString();
+					} else if ("title".equals(fieldName)) {
+						title = fields.getValueAsString();
 					}
+					fields.skipChildren();
+				}
+			}
+
+			if (!missing) {
+				EntityDocument ed;
+				// Nested values are read with the codec of the parser, which
+				// needs the site IRI of our mapper.
+				try (JsonParser entityParser = entity.asParser(this.mapper)) {
+					ed = this.entityReader.readValue(entityParser);
 				} catch (JsonProcessingException e) {
 					throw new MalformedResponseException(
-							"Error when reading JSON for entity " + entityNode.path("id").asText("UNKNOWN"), e);
+							"Error when reading JSON for entity " + (id != null ? id : "UNKNOWN"), e);
 				}
-			} else if(entityNode.has("id")) {
+
+				if (titles == null) {
+					// We use the JSON key rather than the id of the value
+					// so that retrieving redirected entities works.
+					consumer.accept(key, ed);
+				} else {
+					if (ed instanceof ItemDocument) {
+						SiteLink siteLink = ((ItemDocument) ed).getSiteLinks().get(sites);
+						if(siteLink != null) {
+							consumer.accept(siteLink.getPageTitle(), ed);
+						}
+					} else if(ed instanceof MediaInfoDocument && title != null) {
+						consumer.accept(title, ed);
+					}
+				}
+			} else if(id != null) {
 				try {
-					EntityIdValue entityIdValue = EntityIdValueImpl.fromId(entityNode.get("id").asText(), siteIri);
+					EntityIdValue entityIdValue = EntityIdValueImpl.fromId(id, siteIri);
 					if(entityIdValue instanceof MediaInfoIdValue) {
 						//TODO: bad hack, it would be much nicer if the API would return the page title
-						result.put(titlesList.get(i), Datamodel.makeMediaInfoDocument((MediaInfoIdValue) entityIdValue));
+						consumer.accept(titlesList.get(i), Datamodel.makeMediaInfoDocument((MediaInfoIdValue) entityIdValue));
 					}
 				} catch (IllegalArgumentException e) {
 					throw new MalformedResponseException(
-							"Invalid entity id returned: " + entityNode.get("id").asText(), e);
+							"Invalid entity id returned: " + id, e);
 				}
 			}
 			i++;
 		}
-
-		return result;
 	}
 
 }
@@ -23,6 +23,7 @@ package org.wikidata.wdtk.wikibaseapi;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -116,6 +117,41 @@ public class WbSearchEntitiesAction {
 			Boolean strictLanguage, String type, Long limit, Long offset)
 					throws MediaWikiApiErrorException, IOException {
 
+		Map<String, String> parameters = buildParameters(search, language,
+				strictLanguage, type, limit, offset);
+		return searchPage(parameters).getResults();
+	}
+
+	/**
+	 * Executes the API action "wbsearchentity" like
+	 * {@link #wbSearchEntities(WbGetEntitiesSearchData)}, but returns all
+	 * results, starting at the given offset. Further pages of results are
+	 * requested while the iterator is read, and each page is requested
+	 * before the previous page has been read completely. The limit, if
+	 * given, is the number of results per page.
+	 * <p>
+	 * Errors are thrown as {@link PrefetchingIterator.RequestException} by
+	 * the iterator.
+	 *
+	 * @param properties
+	 *            parameters of the search
+	 * @return iterator over all matching entities
+	 * @throws IllegalArgumentException
+	 *             if the given combination of parameters does not make sense
+	 */
+	public Iterator<WbSearchEntitiesResult> wbSearchEntitiesIterator(
+			WbGetEntitiesSearchData properties) {
+		Map<String, String> parameters = buildParameters(properties.search,
+				properties.language, properties.strictlanguage,
+				properties.type, properties.limit, properties.offset);
+		return new PrefetchingIterator<>(() -> searchPage(parameters));
+	}
+
+	/**
+	 * Builds the parameters of a wbsearchentities request.
+	 */
+	Map<String, String> buildParameters(String search, String language,
+			Boolean strictLanguage, String type, Long limit, Long offset) {
 		Map<String, String> parameters = new HashMap<>();
 		parameters.put(ApiConnection.PARAM_ACTION, "wbsearchentities");
 
@@ -148,9 +184,23 @@ public class WbSearchEntitiesAction {
 			parameters.put("continue", Long.toString(offset));
 		}
 
+		return parameters;
+	}
+
+	/**
+	 * Sends a wbsearchentities request and reads one page of results. The
+	 * page is continued if the response contains a continuation offset.
+	 *
+	 * @param parameters
+	 *            parameters of the request, which are not modified
+	 */
+	PrefetchingIterator.Page<WbSearchEntitiesResult> searchPage(
+			Map<String, String> parameters)
+			throws MediaWikiApiErrorException, IOException {
 		List<WbSearchEntitiesResult> results = new ArrayList<>();
 
-		JsonNode root = this.connection.sendJsonRequest("POST", parameters);
+		JsonNode root = this.connection.sendJsonRequest("POST",
+				new HashMap<>(parameters));
 		JsonNode entities = root.path("search");
 		for (JsonNode entityNode : entities) {
 			try {
@@ -163,7 +213,14 @@ public class WbSearchEntitiesAction {
 			}
 		}
 
-		return results;
+		PrefetchingIterator.PageRequest<WbSearchEntitiesResult> next = null;
+		JsonNode continuation = root.path("search-continue");
+		if (continuation.canConvertToLong() && !results.isEmpty()) {
+			Map<String, String> nextParameters = new HashMap<>(parameters);
+			nextParameters.put("continue", Long.toString(continuation.asLong()));
+			next = () -> searchPage(nextParameters);
+		}
+		return new PrefetchingIterator.Page<>(results, next);
 	}
 
 }
@@ -20,8 +20,13 @@ package org.wikidata.wdtk.wikibaseapi;
  * #L%
  */
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
 import org.wikidata.wdtk.datamodel.interfaces.*;
+import org.wikidata.wdtk.util.metrics.Counter;
+import org.wikidata.wdtk.util.metrics.MetricsRegistry;
+import org.wikidata.wdtk.wikibaseapi.apierrors.EditConflictErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 
 import java.io.IOException;
@@ -36,6 +41,13 @@ import java.util.List;
  */
 public class WikibaseDataEditor {
 
+	static final Logger logger = LoggerFactory
+			.getLogger(WikibaseDataEditor.class);
+
+	/** Edits that were recomputed and resent after an edit conflict. */
+	static final Counter editConflictRetryCounter = MetricsRegistry
+			.getDefault().counter("wikibaseapi.edit.conflict.retries");
+
 	/**
 	 * API Action to edit data.
 	 */
@@ -64,6 +76,12 @@ public class WikibaseDataEditor {
 	 */
 	boolean editAsBot = false;
 
+	/**
+	 * Number of times an update is recomputed and sent again after it failed
+	 * because of an edit conflict.
+	 */
+	int editConflictMaxRetries = 3;
+
 	/**
 	 * Creates an object to edit data via the Web API of the given
 	 * {@link ApiConnection} object. The site URI is necessary to create data
@@ -203,6 +221,29 @@ public class WikibaseDataEditor {
 		this.wbEditingAction.setMaxLagBackOffFactor(value);
 	}
 
+	/**
+	 * Number of times an update is retried after an edit conflict. Updates
+	 * are sent with the revision id of the document they were computed from.
+	 * If the entity was changed in the meantime and Wikibase cannot merge the
+	 * changes, the current revision of the entity is fetched, the update is
+	 * computed again with respect to it, and the edit is sent again. This
+	 * applies to the methods that update statements and terms, and to null
+	 * edits, but not to methods that replace the whole document, such as
+	 * {@link #editItemDocument(ItemDocument, boolean, String, List)}.
+	 */
+	public int getEditConflictMaxRetries() {
+		return editConflictMaxRetries;
+	}
+
+	/**
+	 * Number of times an update is retried after an edit conflict. See
+	 * {@link #getEditConflictMaxRetries()} for details. Set to 0 to throw
+	 * {@link EditConflictErrorException} on the first conflict.
+	 */
+	public void setEditConflictMaxRetries(int retries) {
+		editConflictMaxRetries = retries;
+	}
+
 	/**
 	 * Returns the average time that a single edit should take, measured in
 	 * milliseconds. See {@link WbEditingAction#getAverageTimePerEdit()} for
@@ -663,18 +704,20 @@ public class WikibaseDataEditor {
 			String summary, List<String> tags)
 					throws MediaWikiApiErrorException, IOException {
 
-		StatementUpdate statementUpdate = new StatementUpdate(currentDocument,
-				addStatements, deleteStatements);
-		statementUpdate.setGuidGenerator(guidGenerator);
-		
-		if (statementUpdate.isEmptyEdit()) {
-			return currentDocument;
-		} else {
-			return (T) this.wbEditingAction.wbEditEntity(currentDocument
-				.getEntityId().getId(), null, null, null, statementUpdate
-				.getJsonUpdateString(), false, this.editAsBot, currentDocument
-				.getRevisionId(), summary, tags);
-		}
+		return retryOnEditConflict(currentDocument, document -> {
+			StatementUpdate statementUpdate = new StatementUpdate(document,
+					addStatements, deleteStatements);
+			statementUpdate.setGuidGenerator(guidGenerator);
+
+			if (statementUpdate.isEmptyEdit()) {
+				return document;
+			} else {
+				return (T) this.wbEditingAction.wbEditEntity(document
+					.getEntityId().getId(), null, null, null, statementUpdate
+					.getJsonUpdateString(), false, this.editAsBot, document
+					.getRevisionId(), summary, tags);
+			}
+		});
 	}
 	
 	/**
@@ -729,13 +772,15 @@ public class WikibaseDataEditor {
 			String summary, List<String> tags)
 					throws MediaWikiApiErrorException, IOException {
 		
-		TermStatementUpdate termStatementUpdate = new TermStatementUpdate(
-				currentDocument,
-				addStatements, deleteStatements,
-				addLabels, addDescriptions, addAliases, deleteAliases);
-		termStatementUpdate.setGuidGenerator(guidGenerator);
-		
-		return  (T) termStatementUpdate.performEdit(wbEditingAction, editAsBot, summary, tags);
+		return retryOnEditConflict(currentDocument, document -> {
+			TermStatementUpdate termStatementUpdate = new TermStatementUpdate(
+					document,
+					addStatements, deleteStatements,
+					addLabels, addDescriptions, addAliases, deleteAliases);
+			termStatementUpdate.setGuidGenerator(guidGenerator);
+
+			return (T) termStatementUpdate.performEdit(wbEditingAction, editAsBot, summary, tags);
+		});
 	}
 	
 	/**
@@ -790,13 +835,90 @@ public class WikibaseDataEditor {
 	@SuppressWarnings("unchecked")
 	public <T extends StatementDocument> T nullEdit(T currentDocument)
 			throws IOException, MediaWikiApiErrorException {
-		StatementUpdate statementUpdate = new StatementUpdate(currentDocument,
-				Collections.emptyList(), Collections.emptyList());
-		statementUpdate.setGuidGenerator(guidGenerator);
-		
-	    return (T) this.wbEditingAction.wbEditEntity(currentDocument
-				.getEntityId().getId(), null, null, null, statementUpdate
-				.getJsonUpdateString(), false, this.editAsBot, currentDocument
-				.getRevisionId(), null, null);
+		return retryOnEditConflict(currentDocument, document -> {
+			StatementUpdate statementUpdate = new StatementUpdate(document,
+					Collections.emptyList(), Collections.emptyList());
+			statementUpdate.setGuidGenerator(guidGenerator);
+
+			return (T) this.wbEditingAction.wbEditEntity(document
+					.getEntityId().getId(), null, null, null, statementUpdate
+					.getJsonUpdateString(), false, this.editAsBot, document
+					.getRevisionId(), null, null);
+		});
+	}
+
+	/**
+	 * An edit that is computed with respect to a given revision of a
+	 * document and sent with the id of that revision.
+	 *
+	 * @param <T>
+	 *            the type of the edited document
+	 */
+	interface DocumentEdit<T extends EntityDocument> {
+
+		/**
+		 * Computes the edit for the given document and sends it.
+		 *
+		 * @param currentDocument
+		 *            the revision of the document the edit is based on
+		 * @return the updated document
+		 */
+		T performEdit(T currentDocument)
+				throws MediaWikiApiErrorException, IOException;
+	}
+
+	/**
+	 * Performs the given edit on the given document. If the edit fails with
+	 * an edit conflict, the current revision of the document is fetched and
+	 * the edit is performed again on it, up to
+	 * {@link #getEditConflictMaxRetries()} times. If the fetched document is
+	 * not a document of the same type for the same entity, e.g., because the
+	 * entity was merged into another one in the meantime, the edit conflict
+	 * is reported rather than editing the other entity.
+	 *
+	 * @param currentDocument
+	 *            the document to edit
+	 * @param edit
+	 *            the edit to perform
+	 * @return the updated document
+	 * @throws EditConflictErrorException
+	 *             if the edit still conflicts after all retries, or if the
+	 *             entity no longer exists or has been redirected to another
+	 *             entity
+	 * @throws MediaWikiApiErrorException
+	 *             if the API returns other errors
+	 * @throws IOException
+	 *             if there are IO problems, such as missing network connection
+	 */
+	@SuppressWarnings("unchecked")
+	<T extends EntityDocument> T retryOnEditConflict(T currentDocument,
+			DocumentEdit<T> edit)
+			throws MediaWikiApiErrorException, IOException {
+		T document = currentDocument;
+		int retries = 0;
+		while (true) {
+			try {
+				return edit.performEdit(document);
+			} catch (EditConflictErrorException e) {
+				if (retries >= editConflictMaxRetries) {
+					throw e;
+				}
+				String entityId = document.getEntityId().getId();
+				EntityDocument currentRevision = this.wikibaseDataFetcher
+						.getEntityDocument(entityId);
+				if (currentRevision == null
+						|| currentRevision.getClass() != document.getClass()
+						|| !currentRevision.getEntityId().equals(
+								document.getEntityId())) {
+					throw e;
+				}
+				document = (T) currentRevision;
+				retries++;
+				editConflictRetryCounter.increment();
+				logger.info("Edit conflict on " + entityId
+						+ ", retrying on revision " + document.getRevisionId()
+						+ ".");
+			}
+		}
 	}
 }
@@ -22,6 +22,7 @@ package org.wikidata.wdtk.wikibaseapi;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.function.BiConsumer;
 
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
 import org.wikidata.wdtk.datamodel.interfaces.DocumentDataFilter;
@@ -172,6 +173,29 @@ public class WikibaseDataFetcher {
 	public Map<String, EntityDocument> getEntityDocuments(List<String> entityIds)
 			throws MediaWikiApiErrorException, IOException {
 		Map<String, EntityDocument> result = new HashMap<>();
+		processEntityDocuments(entityIds, result::put);
+		return result;
+	}
+
+	/**
+	 * Fetches the documents for the entities of the given string IDs and
+	 * passes them to the given consumer one by one, as they are read from
+	 * the API responses. This needs less memory than
+	 * {@link #getEntityDocuments(List)} when many entities are fetched, and
+	 * the first documents can be processed before all of them arrived. IDs
+	 * that could not be found are skipped.
+	 *
+	 * @param entityIds
+	 *            list of string IDs (e.g., "P31", "Q42") of requested entities
+	 * @param consumer
+	 *            receives the requested ID and the document for each ID for
+	 *            which data could be found
+	 * @throws MediaWikiApiErrorException
+	 * @throws IOException
+	 */
+	public void processEntityDocuments(List<String> entityIds,
+			BiConsumer<String, EntityDocument> consumer)
+			throws MediaWikiApiErrorException, IOException {
 		List<String> newEntityIds = new ArrayList<>(entityIds);
 		boolean moreItems = !newEntityIds.isEmpty();
 		while (moreItems) {
@@ -184,10 +208,10 @@ public class WikibaseDataFetcher {
 			}
 			WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
 			properties.ids = ApiConnection.implodeObjects(subListOfEntityIds);
-			result.putAll(getEntityDocumentMap(subListOfEntityIds.size(), properties));
+			configureProperties(properties);
+			this.wbGetEntitiesAction.wbGetEntities(properties, consumer);
 			subListOfEntityIds.clear();
 		}
-		return result;
 	}
 
 	/**
@@ -281,6 +305,41 @@ public class WikibaseDataFetcher {
 		return result;
 	}
 
+	/**
+	 * Fetches the documents for the entities that have pages of the given
+	 * titles on the given site, like
+	 * {@link #getEntityDocumentsByTitle(String, List)}, but returns them one
+	 * by one. The titles are read lazily and split into requests of as many
+	 * titles as the API accepts, and several of these requests are sent at
+	 * the same time. This is meant for very long lists of titles.
+	 * <p>
+	 * Errors are thrown as {@link PrefetchingIterator.RequestException} by
+	 * the returned iterator.
+	 *
+	 * @param siteKey
+	 *            wiki site id, e.g. "enwiki"
+	 * @param titles
+	 *            string titles (e.g. "Douglas Adams") of requested entities
+	 * @param parallelRequests
+	 *            number of requests that can be sent at the same time
+	 * @return iterator over pairs of titles for which data could be found
+	 *         and the documents that were retrieved
+	 */
+	public Iterator<Map.Entry<String, EntityDocument>> getEntityDocumentsByTitleIterator(
+			String siteKey, Iterator<String> titles, int parallelRequests) {
+		return new PrefetchingIterator<>(PrefetchingIterator.inBatches(titles, maxListSize,
+				subListOfTitles -> () -> {
+					WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+					properties.titles = ApiConnection.implodeObjects(subListOfTitles);
+					properties.sites = siteKey;
+					List<Map.Entry<String, EntityDocument>> results = new ArrayList<>();
+					getEntityDocumentMap(subListOfTitles.size(), properties)
+							.forEach((title, document) -> results.add(
+									new AbstractMap.SimpleImmutableEntry<>(title, document)));
+					return new PrefetchingIterator.Page<>(results, null);
+				}), parallelRequests);
+	}
+
 	/**
 	 * Fetches the MediaInfoId of a file with the given name.
 	 *
@@ -380,6 +439,39 @@ public class WikibaseDataFetcher {
 		return result;
 	}
 
+	/**
+	 * Fetches the MediaInfoIds of files with the given names, like
+	 * {@link #getMediaInfoIdsByFileName(List)}, but returns them one by one,
+	 * in the order of the given names. The names are read lazily and split
+	 * into requests of as many names as the API accepts, and several of
+	 * these requests are sent at the same time. This is meant for
+	 * resolving very many file names.
+	 * <p>
+	 * Errors are thrown as {@link PrefetchingIterator.RequestException} by
+	 * the returned iterator.
+	 *
+	 * @param fileNames
+	 *            file names of the requested MediaInfoIds
+	 * @param parallelRequests
+	 *            number of requests that can be sent at the same time
+	 * @return iterator over pairs of file names and MediaInfoIds, where the
+	 *         MediaInfoId is null if the file could not be found
+	 */
+	public Iterator<Map.Entry<String, MediaInfoIdValue>> getMediaInfoIdsByFileNameIterator(
+			Iterator<String> fileNames, int parallelRequests) {
+		return new PrefetchingIterator<>(PrefetchingIterator.inBatches(fileNames, maxListSize,
+				subListOfFileNames -> () -> {
+					Map<String, MediaInfoIdValue> ids = mediaInfoIdQueryAction
+							.getMediaInfoIds(subListOfFileNames);
+					List<Map.Entry<String, MediaInfoIdValue>> results = new ArrayList<>();
+					for (String fileName : subListOfFileNames) {
+						results.add(new AbstractMap.SimpleImmutableEntry<>(
+								fileName, ids.get(fileName)));
+					}
+					return new PrefetchingIterator.Page<>(results, null);
+				}), parallelRequests);
+	}
+
 	/**
 	 * Creates a map of identifiers or page titles to documents retrieved via
 	 * the APIs.
@@ -443,6 +535,21 @@ public class WikibaseDataFetcher {
 		return this.wbSearchEntitiesAction.wbSearchEntities(properties);
 	}
 
+	/**
+	 * Searches for entities like {@link #searchEntities(WbGetEntitiesSearchData)},
+	 * but returns all results instead of one page of results. Further pages
+	 * are requested while the results are read. See
+	 * {@link WbSearchEntitiesAction#wbSearchEntitiesIterator(WbGetEntitiesSearchData)}.
+	 *
+	 * @param properties
+	 *            parameters of the search
+	 * @return iterator over all matching entities
+	 */
+	public Iterator<WbSearchEntitiesResult> searchEntitiesIterator(
+			WbGetEntitiesSearchData properties) {
+		return this.wbSearchEntitiesAction.wbSearchEntitiesIterator(properties);
+	}
+
 	/**
 	 * Configures props, languages and sitefilter properties.
 	 *
@@ -31,6 +31,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
 import java.net.HttpCookie;
 import java.net.URL;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,6 +45,7 @@ import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.wikidata.wdtk.testing.MockStringContentFactory;
 import org.wikidata.wdtk.wikibaseapi.apierrors.AssertUserFailedException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MaxlagErrorException;
@@ -64,6 +66,9 @@ public class BasicApiConnectionTest {
 	private static MockWebServer server;
 	private BasicApiConnection connection;
 
+	@TempDir
+	Path tempDir;
+
 	private String LOGGED_IN_SERIALIZED_CONNECTION = "{\"baseUrl\":\"" + server.url("/w/api.php") + "\",\"cookies\":[{\"name\":\"GeoIP\",\"value\":\"DE:13:Dresden:51.0500:13.7500:v4\",\"comment\":null,\"commentURL\":null,\"domain\":\"domain comparison should be skipped\",\"maxAge\":-1,\"path\":\"/\",\"portlist\":null,\"secure\":false,\"httpOnly\":false,\"version\":0,\"discard\":false},{\"name\":\"testwikidatawikiSession\",\"value\":\"c18ef92637227283bcda73bcf95cfaf5\",\"comment\":null,\"commentURL\":null,\"domain\":\"domain comparison should be skipped\",\"maxAge\":-1,\"path\":\"/\",\"portlist\":null,\"secure\":true,\"httpOnly\":true,\"version\":0,\"discard\":false}],\"username\":\"username\",\"loggedIn\":true,\"tokens\":{\"login\":\"b5780b6e2f27e20b450921d9461010b4\"},\"connectTimeout\":5000,\"readTimeout\":6000}";
 
 	Set<String> split(String str, char ch) {
@@ -204,6 +209,53 @@ public class BasicApiConnectionTest {
 		assertFalse(connection.loggedIn);
 	}
 
+	@Test
+	public void testLoginWithStoredSession() throws LoginFailedException, IOException, MediaWikiApiErrorException {
+		SessionStore store = new FileSessionStore(tempDir);
+		connection.setSessionStore(store);
+		connection.login("username", "password");
+		connection.getOrFetchToken("csrf");
+		assertNotNull(store.loadSession(connection.getSessionKey("username")));
+
+		BasicApiConnection restarted = new BasicApiConnection(server.url("/w/api.php").toString());
+		restarted.setSessionStore(store);
+		int requestCount = server.getRequestCount();
+		restarted.login("username", "password");
+		assertEquals(requestCount, server.getRequestCount());
+		assertTrue(restarted.isLoggedIn());
+		assertEquals("username", restarted.getCurrentUser());
+		assertEquals(connection.getTokens(), restarted.getTokens());
+		assertEquals(connection.getCookies().size(), restarted.getCookies().size());
+	}
+
+	@Test
+	public void testLoginWithExpiredStoredSession() throws LoginFailedException, IOException {
+		SessionStore store = new FileSessionStore(tempDir);
+		connection.setSessionStore(store);
+		connection.login("username", "password");
+
+		BasicApiConnection restarted = new BasicApiConnection(server.url("/w/api.php").toString());
+		restarted.setSessionStore(store);
+		restarted.setSessionRevalidationInterval(0);
+		assertEquals(0, restarted.getSessionRevalidationInterval());
+		int requestCount = server.getRequestCount();
+		// the mock server reports that the credentials are not valid anymore
+		restarted.login("username", "password");
+		// check of the credentials, login token, login
+		assertEquals(requestCount + 3, server.getRequestCount());
+		assertTrue(restarted.isLoggedIn());
+		assertEquals("username", restarted.getCurrentUser());
+	}
+
+	@Test
+	public void testLogoutRemovesStoredSession() throws LoginFailedException, IOException, MediaWikiApiErrorException {
+		SessionStore store = new FileSessionStore(tempDir);
+		connection.setSessionStore(store);
+		connection.login("username", "password");
+		connection.logout();
+		assertNull(store.loadSession(connection.getSessionKey("username")));
+	}
+
 	@Test
 	public void loginUserErrors() throws LoginFailedException {
 		// This will fail because the user is not known
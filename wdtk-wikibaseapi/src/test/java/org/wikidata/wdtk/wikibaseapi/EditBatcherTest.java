@@ -0,0 +1,258 @@
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.wikibaseapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.ItemDocumentBuilder;
+import org.wikidata.wdtk.datamodel.helpers.JsonSerializer;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemDocument;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.util.CompressionType;
+
+public class EditBatcherTest {
+
+	/**
+	 * Connection that answers every wbeditentity request with an empty
+	 * document of the next revision, fails for the item Q666, and throws an
+	 * error for the item Q667.
+	 */
+	static class EditRecordingConnection extends MockBasicApiConnection {
+
+		final List<Map<String, String>> edits = Collections
+				.synchronizedList(new ArrayList<>());
+
+		CountDownLatch release = new CountDownLatch(0);
+
+		@Override
+		public InputStream sendRequest(String requestMethod,
+				Map<String, String> parameters) throws IOException {
+			if (!"wbeditentity".equals(parameters.get("action"))) {
+				return super.sendRequest(requestMethod, parameters);
+			}
+			try {
+				release.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			edits.add(new HashMap<>(parameters));
+			if ("Q666".equals(parameters.get("id"))) {
+				throw new IOException("Edit rejected");
+			}
+			if ("Q667".equals(parameters.get("id"))) {
+				throw new AssertionError("Unexpected edit");
+			}
+			ItemDocument result = ItemDocumentBuilder
+					.forItemId(Datamodel.makeWikidataItemIdValue(parameters
+							.get("id")))
+					.withRevisionId(Long.parseLong(parameters.get("baserevid")) + 1)
+					.build();
+			String response = "{\"entity\":"
+					+ JsonSerializer.getJsonString(result) + ",\"success\":1}";
+			return new ByteArrayInputStream(
+					response.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	EditRecordingConnection con;
+	WikibaseDataEditor wde;
+	PropertyIdValue P31 = Datamodel.makeWikidataPropertyIdValue("P31");
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		this.con = new EditRecordingConnection();
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "query");
+		params.put("meta", "tokens");
+		params.put("type", "csrf");
+		params.put("format", "json");
+		this.con.setWebResourceFromPath(params, this.getClass(),
+				"/query-csrf-token-loggedin-response.json",
+				CompressionType.NONE);
+		this.wde = new WikibaseDataEditor(this.con, Datamodel.SITE_WIKIDATA);
+		this.wde.setAverageTimePerEdit(0);
+	}
+
+	ItemDocument makeItem(String id, long revisionId) {
+		return ItemDocumentBuilder
+				.forItemId(Datamodel.makeWikidataItemIdValue(id))
+				.withRevisionId(revisionId).build();
+	}
+
+	List<Statement> makeStatements(ItemDocument item, String value) {
+		ItemIdValue valueId = Datamodel.makeWikidataItemIdValue(value);
+		return Collections.singletonList(StatementBuilder
+				.forSubjectAndProperty(item.getEntityId(), P31)
+				.withValue(valueId).build());
+	}
+
+	@Test
+	public void testCoalesceQueuedEdits() throws Exception {
+		ItemDocument item = makeItem("Q1", 1000);
+		con.release = new CountDownLatch(1);
+		CompletableFuture<ItemDocument> first, second, third;
+		try (EditBatcher batcher = new EditBatcher(wde, 1)) {
+			first = batcher.updateStatements(item, makeStatements(item, "Q5"),
+					Collections.emptyList(), "Summary", null);
+			second = batcher.updateStatements(item, makeStatements(item, "Q6"),
+					Collections.emptyList(), "Summary", null);
+			third = batcher.updateStatements(item, makeStatements(item, "Q7"),
+					Collections.emptyList(), "Summary", null);
+			assertEquals(2, batcher.getPendingEditCount());
+			con.release.countDown();
+			batcher.flush();
+			assertEquals(0, batcher.getPendingEditCount());
+		}
+
+		assertEquals(2, con.edits.size());
+		assertEquals("1000", con.edits.get(0).get("baserevid"));
+		assertEquals("1001", con.edits.get(1).get("baserevid"));
+		assertTrue(con.edits.get(0).get("data").contains("\"Q5\""));
+		assertTrue(con.edits.get(1).get("data").contains("\"Q6\""));
+		assertTrue(con.edits.get(1).get("data").contains("\"Q7\""));
+
+		assertEquals(1001, first.get().getRevisionId());
+		assertEquals(1002, second.get().getRevisionId());
+		assertSame(second.get(), third.get());
+	}
+
+	@Test
+	public void testSameStatementsNotCoalesced() throws Exception {
+		ItemDocument item = makeItem("Q1", 1000);
+		List<Statement> statements = makeStatements(item, "Q6");
+		con.release = new CountDownLatch(1);
+		try (EditBatcher batcher = new EditBatcher(wde, 1)) {
+			batcher.updateStatements(item, makeStatements(item, "Q5"),
+					Collections.emptyList(), "Summary", null);
+			batcher.updateStatements(item, statements,
+					Collections.emptyList(), "Summary", null);
+			// deleting the statement that the previous edit adds
+			batcher.updateStatements(item, Collections.emptyList(),
+					statements, "Summary", null);
+			assertEquals(3, batcher.getPendingEditCount());
+			con.release.countDown();
+		}
+		assertEquals(2, con.edits.size());
+		assertTrue(con.edits.get(1).get("data").contains("\"Q6\""));
+	}
+
+	@Test
+	public void testErrorCompletesFuture() throws Exception {
+		ItemDocument item = makeItem("Q667", 1000);
+		CompletableFuture<ItemDocument> result;
+		try (EditBatcher batcher = new EditBatcher(wde, 1)) {
+			result = batcher.updateStatements(item,
+					makeStatements(item, "Q5"), Collections.emptyList(),
+					"Summary", null);
+			batcher.flush();
+			assertEquals(0, batcher.getPendingEditCount());
+		}
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+				result::get);
+		assertTrue(e.getCause() instanceof AssertionError);
+	}
+
+	@Test
+	public void testDifferentSummariesNotCoalesced() throws Exception {
+		ItemDocument item = makeItem("Q1", 1000);
+		con.release = new CountDownLatch(1);
+		try (EditBatcher batcher = new EditBatcher(wde, 2)) {
+			batcher.updateStatements(item, makeStatements(item, "Q5"),
+					Collections.emptyList(), "Summary", null);
+			batcher.updateStatements(item, makeStatements(item, "Q6"),
+					Collections.emptyList(), "Summary", null);
+			batcher.updateStatements(item, makeStatements(item, "Q7"),
+					Collections.emptyList(), "Other summary", null);
+			assertEquals(3, batcher.getPendingEditCount());
+			con.release.countDown();
+		}
+		assertEquals(3, con.edits.size());
+	}
+
+	@Test
+	public void testFailureOfOneEntity() throws Exception {
+		ItemDocument good = makeItem("Q1", 1000);
+		ItemDocument bad = makeItem("Q666", 2000);
+		CompletableFuture<ItemDocument> goodResult, badResult;
+		try (EditBatcher batcher = new EditBatcher(wde, 2)) {
+			badResult = batcher.updateStatements(bad,
+					makeStatements(bad, "Q5"), Collections.emptyList(),
+					"Summary", null);
+			goodResult = batcher.updateStatements(good,
+					makeStatements(good, "Q5"), Collections.emptyList(),
+					"Summary", null);
+		}
+
+		assertEquals(1001, goodResult.get().getRevisionId());
+		assertTrue(badResult.isCompletedExceptionally());
+		ExecutionException e = assertThrows(ExecutionException.class,
+				badResult::get);
+		assertTrue(e.getCause() instanceof IOException);
+	}
+
+	@Test
+	public void testNullEditNotSent() throws Exception {
+		ItemDocument item = makeItem("Q1", 1000);
+		try (EditBatcher batcher = new EditBatcher(wde, 1)) {
+			ItemDocument result = batcher.updateStatements(item,
+					Collections.emptyList(), Collections.emptyList(),
+					"Summary", null).get();
+			assertSame(item, result);
+		}
+		assertTrue(con.edits.isEmpty());
+	}
+
+	@Test
+	public void testSubmitAfterClose() {
+		ItemDocument item = makeItem("Q1", 1000);
+		EditBatcher batcher = new EditBatcher(wde, 1);
+		batcher.close();
+		assertThrows(IllegalStateException.class,
+				() -> batcher.updateStatements(item, makeStatements(item, "Q5"),
+						Collections.emptyList(), "Summary", null));
+		assertEquals(0, batcher.getPendingEditCount());
+	}
+
+}
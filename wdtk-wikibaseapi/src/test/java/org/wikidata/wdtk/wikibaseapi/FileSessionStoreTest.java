@@ -0,0 +1,73 @@
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2021 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wikidata.wdtk.wikibaseapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileSessionStoreTest {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testMissingSession() throws IOException {
+		FileSessionStore store = new FileSessionStore(tempDir.resolve("sessions"));
+		assertNull(store.loadSession("https://www.wikidata.org/w/api.php#user"));
+		store.removeSession("https://www.wikidata.org/w/api.php#user");
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		FileSessionStore store = new FileSessionStore(tempDir.resolve("sessions"));
+		String key1 = "https://www.wikidata.org/w/api.php#user";
+		String key2 = "https://www.wikidata.org/w/api.php#other/user";
+		store.saveSession(key1, "{\"session\":1}");
+		store.saveSession(key2, "{\"session\":2}");
+		assertEquals("{\"session\":1}", store.loadSession(key1));
+		assertEquals("{\"session\":2}", store.loadSession(key2));
+
+		store.saveSession(key1, "{\"session\":3}");
+		assertEquals("{\"session\":3}", store.loadSession(key1));
+		try (Stream<Path> files = Files.list(tempDir.resolve("sessions"))) {
+			assertEquals(2, files.count());
+		}
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		FileSessionStore store = new FileSessionStore(tempDir);
+		String key = "https://www.wikidata.org/w/api.php#user";
+		store.saveSession(key, "{}");
+		assertTrue(Files.exists(store.getSessionFile(key)));
+		store.removeSession(key);
+		assertNull(store.loadSession(key));
+	}
+
+}
@@ -0,0 +1,115 @@
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2018 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.wikidata.wdtk.wikibaseapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.datamodel.helpers.Datamodel;
+import org.wikidata.wdtk.datamodel.helpers.StatementBuilder;
+import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
+import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+
+public class GuidGeneratorTest {
+
+	private static final Pattern GUID_PATTERN = Pattern.compile(
+			"Q42\\$[0-9A-F]{8}-[0-9A-F]{4}-[0-9A-F]{4}-[0-9A-F]{4}-[0-9A-F]{12}");
+
+	private final ItemIdValue q42 = Datamodel.makeWikidataItemIdValue("Q42");
+	private final PropertyIdValue p31 = Datamodel.makeWikidataPropertyIdValue("P31");
+
+	private Statement makeStatement(String value, StatementRank rank) {
+		return StatementBuilder.forSubjectAndProperty(q42, p31)
+				.withValue(Datamodel.makeStringValue(value))
+				.withRank(rank).build();
+	}
+
+	private UUID parse(String guid) {
+		assertTrue(GUID_PATTERN.matcher(guid).matches(), guid);
+		return UUID.fromString(guid.substring(guid.indexOf('$') + 1));
+	}
+
+	@Test
+	public void testFastRandomFormat() {
+		GuidGenerator generator = new FastRandomGuidGenerator();
+		Set<String> guids = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			String guid = generator.freshStatementId("Q42");
+			UUID uuid = parse(guid);
+			assertEquals(4, uuid.version());
+			assertEquals(2, uuid.variant());
+			guids.add(guid);
+		}
+		assertEquals(1000, guids.size());
+	}
+
+	@Test
+	public void testDeterministicFormat() {
+		GuidGenerator generator = new DeterministicGuidGenerator();
+		UUID uuid = parse(generator.freshStatementId("Q42",
+				makeStatement("a", StatementRank.NORMAL)));
+		assertEquals(8, uuid.version());
+		assertEquals(2, uuid.variant());
+	}
+
+	@Test
+	public void testDeterministicIsReproducible() {
+		Statement statement = makeStatement("a", StatementRank.NORMAL);
+		assertEquals(
+				new DeterministicGuidGenerator().freshStatementId("Q42", statement),
+				new DeterministicGuidGenerator().freshStatementId("Q42",
+						makeStatement("a", StatementRank.NORMAL)));
+	}
+
+	@Test
+	public void testDeterministicIsStable() {
+		// ids may already be published, so they must never change
+		assertEquals("Q42$3E7546FB-D43A-84F0-9C4E-A15E4CC0A8F0", new DeterministicGuidGenerator()
+				.freshStatementId("Q42", makeStatement("a", StatementRank.NORMAL)));
+	}
+
+	@Test
+	public void testDeterministicDependsOnContentAndRank() {
+		GuidGenerator generator = new DeterministicGuidGenerator();
+		String guid = generator.freshStatementId("Q42",
+				makeStatement("a", StatementRank.NORMAL));
+		assertNotEquals(guid, generator.freshStatementId("Q42",
+				makeStatement("b", StatementRank.NORMAL)));
+		assertNotEquals(guid, generator.freshStatementId("Q42",
+				makeStatement("a", StatementRank.PREFERRED)));
+	}
+
+	@Test
+	public void testDefaultIgnoresStatement() {
+		GuidGenerator generator = new MockGuidGenerator("abc");
+		assertEquals("Q42$abc", generator.freshStatementId("Q42",
+				makeStatement("a", StatementRank.NORMAL)));
+	}
+
+}
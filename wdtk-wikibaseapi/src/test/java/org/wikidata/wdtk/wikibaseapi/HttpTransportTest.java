@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.wikibaseapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+public class HttpTransportTest {
+
+	@Test
+	public void testDefaultTransport() {
+		assertSame(HttpTransport.getDefault(), HttpTransport.getDefault());
+		assertSame(HttpTransport.getDefault(),
+				new BasicApiConnection(ApiConnection.URL_WIKIDATA_API)
+						.getTransport());
+		assertEquals(0, HttpTransport.getDefault().getMaxRequestsPerHost());
+	}
+
+	@Test
+	public void testNoLimitPerHostByDefault() {
+		OkHttpClient.Builder builder = new OkHttpClient.Builder();
+		new HttpTransport.Builder().build().configure(builder);
+		// asynchronous requests keep the limit of OkHttp
+		assertEquals(new Dispatcher().getMaxRequestsPerHost(),
+				builder.build().dispatcher().getMaxRequestsPerHost());
+	}
+
+	@Test
+	public void testClientsShareConnections() {
+		HttpTransport transport = new HttpTransport.Builder()
+				.withMaxIdleConnections(10).withKeepAlive(60000)
+				.withMaxRequests(32).withMaxRequestsPerHost(8).build();
+		OkHttpClient.Builder builder1 = new OkHttpClient.Builder();
+		OkHttpClient.Builder builder2 = new OkHttpClient.Builder();
+		transport.configure(builder1);
+		transport.configure(builder2);
+		OkHttpClient client1 = builder1.build();
+		OkHttpClient client2 = builder2.build();
+
+		assertNotSame(client1, client2);
+		assertSame(client1.connectionPool(), client2.connectionPool());
+		assertSame(client1.dispatcher(), client2.dispatcher());
+		assertEquals(32, client1.dispatcher().getMaxRequests());
+		assertEquals(8, client1.dispatcher().getMaxRequestsPerHost());
+		assertEquals(8, transport.getMaxRequestsPerHost());
+		assertEquals(0, transport.getConnectionCount());
+	}
+
+	@Test
+	public void testProtocols() {
+		OkHttpClient.Builder builder = new OkHttpClient.Builder();
+		new HttpTransport.Builder().build().configure(builder);
+		assertEquals(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1),
+				builder.build().protocols());
+
+		builder = new OkHttpClient.Builder();
+		new HttpTransport.Builder().withHttp2(false).build().configure(builder);
+		assertEquals(Collections.singletonList(Protocol.HTTP_1_1),
+				builder.build().protocols());
+	}
+
+	@Test
+	public void testCompressionInterceptors() {
+		OkHttpClient.Builder builder = new OkHttpClient.Builder();
+		new HttpTransport.Builder().build().configure(builder);
+		assertEquals(0, builder.build().interceptors().size());
+
+		builder = new OkHttpClient.Builder();
+		new HttpTransport.Builder().withGzip(false).build().configure(builder);
+		assertEquals(1, builder.build().interceptors().size());
+
+		builder = new OkHttpClient.Builder();
+		new HttpTransport.Builder().withBrotli(true).build().configure(builder);
+		assertEquals(1, builder.build().interceptors().size());
+	}
+
+	@Test
+	public void testSetTransport() {
+		HttpTransport transport = new HttpTransport.Builder().build();
+		BasicApiConnection connection1 = new BasicApiConnection(
+				ApiConnection.URL_WIKIDATA_API);
+		BasicApiConnection connection2 = new BasicApiConnection(
+				ApiConnection.URL_WIKIDATA_API);
+		connection1.setTransport(transport);
+		connection2.setTransport(transport);
+		assertSame(connection1.getTransport(), connection2.getTransport());
+		assertThrows(NullPointerException.class,
+				() -> connection1.setTransport(null));
+	}
+
+	@Test
+	public void testInvalidSettings() {
+		assertThrows(IllegalArgumentException.class,
+				() -> new HttpTransport.Builder().withMaxRequestsPerHost(0));
+		assertThrows(IllegalArgumentException.class,
+				() -> new HttpTransport.Builder().withMaxRequests(-1));
+		assertThrows(IllegalArgumentException.class,
+				() -> new HttpTransport.Builder().withKeepAlive(0));
+		assertThrows(IllegalArgumentException.class,
+				() -> new HttpTransport.Builder().withMaxIdleConnections(-1));
+	}
+
+}
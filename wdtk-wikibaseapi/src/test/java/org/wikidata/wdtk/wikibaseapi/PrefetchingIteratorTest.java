@@ -0,0 +1,151 @@
+/*
+ * #%L
+ * Wikidata Toolkit Wikibase API
+ * %%
+ * Copyright (C) 2014 - 2015 Wikidata Toolkit Developers
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.wikidata.wdtk.wikibaseapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
+
+public class PrefetchingIteratorTest {
+
+	/**
+	 * Request for a page of numbers that is continued until the given end.
+	 */
+	PrefetchingIterator.PageRequest<Integer> countFrom(int start, int end) {
+		return () -> {
+			List<Integer> results = new ArrayList<>();
+			for (int i = start; i < Math.min(start + 3, end); i++) {
+				results.add(i);
+			}
+			return new PrefetchingIterator.Page<>(results,
+					start + 3 < end ? countFrom(start + 3, end) : null);
+		};
+	}
+
+	List<Integer> readAll(Iterator<Integer> iterator) {
+		List<Integer> results = new ArrayList<>();
+		iterator.forEachRemaining(results::add);
+		return results;
+	}
+
+	@Test
+	public void testContinuation() {
+		PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(
+				countFrom(0, 10));
+		assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()),
+				readAll(iterator));
+		assertFalse(iterator.hasNext());
+		assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	@Test
+	public void testEmptyPages() {
+		PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(
+				() -> new PrefetchingIterator.Page<>(Collections.emptyList(),
+						() -> new PrefetchingIterator.Page<>(
+								Collections.singletonList(1), null)));
+		assertEquals(Collections.singletonList(1), readAll(iterator));
+	}
+
+	@Test
+	public void testParallelRequestsKeepOrder() {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		List<Integer> numbers = IntStream.range(0, 100).boxed()
+				.collect(Collectors.toList());
+		Iterator<PrefetchingIterator.PageRequest<Integer>> requests = PrefetchingIterator
+				.inBatches(numbers.iterator(), 7, batch -> () -> {
+					maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+					try {
+						// later batches are answered faster
+						Thread.sleep(10 - batch.get(0) / 10);
+					} catch (InterruptedException e) {
+						throw new IOException(e);
+					} finally {
+						running.decrementAndGet();
+					}
+					return new PrefetchingIterator.Page<>(batch,
+							countFrom(1000, 1002));
+				});
+
+		List<Integer> results = readAll(new PrefetchingIterator<>(requests, 4));
+
+		List<Integer> expected = new ArrayList<>();
+		for (int start = 0; start < 100; start += 7) {
+			expected.addAll(numbers.subList(start, Math.min(start + 7, 100)));
+			expected.addAll(Arrays.asList(1000, 1001));
+		}
+		assertEquals(expected, results);
+		assertTrue(maxRunning.get() <= 4);
+	}
+
+	@Test
+	public void testBatches() {
+		Iterator<PrefetchingIterator.PageRequest<String>> requests = PrefetchingIterator
+				.inBatches(Arrays.asList("a", "b", "c", "d", "e").iterator(), 2,
+						batch -> () -> new PrefetchingIterator.Page<>(
+								Collections.singletonList(String.join("", batch)),
+								null));
+		List<String> results = new ArrayList<>();
+		new PrefetchingIterator<>(requests, 2).forEachRemaining(results::add);
+		assertEquals(Arrays.asList("ab", "cd", "e"), results);
+	}
+
+	@Test
+	public void testRequestErrors() {
+		MediaWikiApiErrorException apiError = new MediaWikiApiErrorException(
+				"no-such-entity", "Not found");
+		PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(
+				() -> new PrefetchingIterator.Page<>(Arrays.asList(1, 2),
+						() -> {
+							throw apiError;
+						}));
+		assertEquals(Integer.valueOf(1), iterator.next());
+		assertEquals(Integer.valueOf(2), iterator.next());
+		PrefetchingIterator.RequestException e = assertThrows(
+				PrefetchingIterator.RequestException.class, iterator::hasNext);
+		assertSame(apiError, e.getCause());
+
+		PrefetchingIterator<Integer> failing = new PrefetchingIterator<>(() -> {
+			throw new IOException("Connection refused");
+		});
+		e = assertThrows(PrefetchingIterator.RequestException.class,
+				failing::next);
+		assertTrue(e.getCause() instanceof IOException);
+	}
+
+}
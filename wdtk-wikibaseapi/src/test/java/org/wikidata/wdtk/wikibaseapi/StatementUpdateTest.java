@@ -25,9 +25,11 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 import org.wikidata.wdtk.datamodel.helpers.Datamodel;
@@ -40,7 +42,10 @@ import org.wikidata.wdtk.datamodel.interfaces.ItemIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Reference;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
+import org.wikidata.wdtk.datamodel.interfaces.StatementDocument;
+import org.wikidata.wdtk.datamodel.interfaces.StatementGroup;
 import org.wikidata.wdtk.datamodel.interfaces.StatementRank;
+import org.wikidata.wdtk.datamodel.interfaces.Value;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -48,6 +53,81 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class StatementUpdateTest {
 
+	/**
+	 * Statement update that plans edits by comparing each statement with all
+	 * other statements of its property, as done before statements were
+	 * indexed. Used to check that the index does not change any results.
+	 */
+	static class LinearScanStatementUpdate extends StatementUpdate {
+
+		LinearScanStatementUpdate(StatementDocument currentDocument,
+				List<Statement> addStatements, List<Statement> deleteStatements) {
+			super(currentDocument, addStatements, deleteStatements);
+		}
+
+		@Override
+		protected void markStatementsForDeletion(
+				StatementDocument currentDocument,
+				List<Statement> deleteStatements) {
+			for (Statement statement : deleteStatements) {
+				for (StatementGroup sg : currentDocument.getStatementGroups()) {
+					if (!sg.getProperty().equals(
+							statement.getMainSnak().getPropertyId())) {
+						continue;
+					}
+					for (Statement existingStatement : sg) {
+						if (existingStatement.equals(statement)) {
+							markForDeletion(statement.getStatementId());
+						} else if (existingStatement.getStatementId().equals(
+								statement.getStatementId())) {
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		@Override
+		protected void addStatement(Statement statement, boolean isNew) {
+			PropertyIdValue pid = statement.getMainSnak().getPropertyId();
+			List<StatementWithUpdate> statements = this.toKeep
+					.computeIfAbsent(pid, k -> new ArrayList<>());
+			for (int i = 0; i < statements.size(); i++) {
+				Statement currentStatement = statements.get(i).statement;
+				boolean currentIsNew = statements.get(i).write;
+
+				if (!"".equals(currentStatement.getStatementId())
+						&& currentStatement.getStatementId().equals(
+								statement.getStatementId())) {
+					return;
+				}
+
+				Statement newStatement = mergeStatements(statement,
+						currentStatement);
+				if (newStatement != null) {
+					boolean writeNewStatement = (isNew || !newStatement
+							.equals(statement))
+							&& (currentIsNew || !newStatement
+									.equals(currentStatement));
+					statements.set(i, new StatementWithUpdate(newStatement,
+							writeNewStatement));
+					if (!"".equals(statement.getStatementId())
+							&& !newStatement.getStatementId().equals(
+									statement.getStatementId())) {
+						markForDeletion(statement.getStatementId());
+					}
+					if (!"".equals(currentStatement.getStatementId())
+							&& !newStatement.getStatementId().equals(
+									currentStatement.getStatementId())) {
+						markForDeletion(currentStatement.getStatementId());
+					}
+					return;
+				}
+			}
+			statements.add(new StatementWithUpdate(statement, isNew));
+		}
+	}
+
 	final static ItemIdValue Q1 = Datamodel.makeWikidataItemIdValue("Q1");
 	final static ItemIdValue Q2 = Datamodel.makeWikidataItemIdValue("Q2");
 	final static ItemIdValue Q3 = Datamodel.makeWikidataItemIdValue("Q3");
@@ -193,6 +273,83 @@ public class StatementUpdateTest {
 		assertFalse(su.toKeep.get(P1).get(1).write);
 	}
 
+	@Test
+	public void testMergeAfterRankConflict() {
+		// The first statement with the same claim has a conflicting rank, so
+		// the second one is used
+		Reference r1 = ReferenceBuilder.newInstance().withPropertyValue(P2, Q2)
+				.build();
+		Statement s1 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withRank(StatementRank.PREFERRED)
+				.withId("ID-s1").build();
+		Statement s2 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withRank(StatementRank.DEPRECATED)
+				.withId("ID-s2").build();
+		Statement s3 = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withRank(StatementRank.DEPRECATED)
+				.withReference(r1).build();
+
+		ItemDocument currentDocument = ItemDocumentBuilder.forItemId(Q1)
+				.withStatement(s1).withStatement(s2).build();
+
+		StatementUpdate su = new StatementUpdate(currentDocument,
+				Collections.singletonList(s3), Collections.emptyList());
+
+		Statement s2merged = StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Q1).withRank(StatementRank.DEPRECATED)
+				.withReference(r1).withId("ID-s2").build();
+
+		assertEquals(0, su.toDelete.size());
+		assertEquals(2, su.toKeep.get(P1).size());
+		assertEquals(s2merged, su.toKeep.get(P1).get(0).statement);
+		assertTrue(su.toKeep.get(P1).get(0).write);
+		assertEquals(s1, su.toKeep.get(P1).get(1).statement);
+		assertFalse(su.toKeep.get(P1).get(1).write);
+	}
+
+	@Test
+	public void testLargeStatementGroup() {
+		// Many statements for one property, as for external identifiers
+		int size = 5000;
+		Reference r1 = ReferenceBuilder.newInstance().withPropertyValue(P2, Q2)
+				.build();
+		ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(Q1);
+		List<Statement> addStatements = new ArrayList<>();
+		List<Statement> deleteStatements = new ArrayList<>();
+		for (int i = 0; i < size; i++) {
+			Statement statement = StatementBuilder
+					.forSubjectAndProperty(Q1, P1)
+					.withValue(Datamodel.makeStringValue("value" + i))
+					.withId("ID-" + i).build();
+			builder.withStatement(statement);
+			if (i % 10 == 0) {
+				deleteStatements.add(statement);
+			} else if (i % 10 == 1) {
+				addStatements.add(StatementBuilder
+						.forSubjectAndProperty(Q1, P1)
+						.withValue(Datamodel.makeStringValue("value" + i))
+						.withReference(r1).build());
+			}
+		}
+		for (int i = 0; i < 100; i++) {
+			addStatements.add(StatementBuilder.forSubjectAndProperty(Q1, P1)
+					.withValue(Datamodel.makeStringValue("new" + i)).build());
+		}
+
+		StatementUpdate su = new StatementUpdate(builder.build(),
+				addStatements, deleteStatements);
+
+		assertEquals(size / 10, su.toDelete.size());
+		assertEquals("ID-0", su.toDelete.get(0));
+		List<StatementUpdate.StatementWithUpdate> kept = su.toKeep.get(P1);
+		assertEquals(size - size / 10 + 100, kept.size());
+		assertEquals(StatementBuilder.forSubjectAndProperty(Q1, P1)
+				.withValue(Datamodel.makeStringValue("value1"))
+				.withReference(r1).withId("ID-1").build(),
+				kept.get(0).statement);
+		assertEquals(size / 10 * 2 + 100, su.getUpdatedStatements().size());
+	}
+
 	@Test
 	public void testUpdateStatement() {
 
@@ -249,6 +406,88 @@ public class StatementUpdateTest {
 				su.getJsonUpdateString());
 	}
 
+	@Test
+	public void testSameResultAsLinearScan() {
+		Random random = new Random(41);
+		for (int run = 0; run < 20000; run++) {
+			ItemDocumentBuilder builder = ItemDocumentBuilder.forItemId(Q1);
+			List<Statement> currentStatements = new ArrayList<>();
+			int currentCount = random.nextInt(12);
+			for (int i = 0; i < currentCount; i++) {
+				Statement statement = makeRandomStatement(random, "ID-" + i);
+				currentStatements.add(statement);
+				builder.withStatement(statement);
+			}
+
+			List<Statement> addStatements = new ArrayList<>();
+			List<Statement> deleteStatements = new ArrayList<>();
+			int changeCount = random.nextInt(8);
+			for (int i = 0; i < changeCount; i++) {
+				String id = "";
+				if (currentCount > 0 && random.nextBoolean()) {
+					id = "ID-" + random.nextInt(currentCount);
+				}
+				Statement statement;
+				if (!id.isEmpty() && random.nextBoolean()) {
+					statement = currentStatements.get(Integer.parseInt(id
+							.substring(3)));
+				} else {
+					statement = makeRandomStatement(random, id);
+				}
+				if (random.nextInt(3) == 0) {
+					deleteStatements.add(statement);
+				} else {
+					addStatements.add(statement);
+				}
+			}
+
+			ItemDocument currentDocument = builder.build();
+			StatementUpdate expected = new LinearScanStatementUpdate(
+					currentDocument, addStatements, deleteStatements);
+			StatementUpdate actual = new StatementUpdate(currentDocument,
+					addStatements, deleteStatements);
+
+			assertEquals(expected.toDelete, actual.toDelete);
+			assertEquals(expected.toKeep.keySet(), actual.toKeep.keySet());
+			for (PropertyIdValue pid : expected.toKeep.keySet()) {
+				List<StatementUpdate.StatementWithUpdate> expectedStatements = expected.toKeep
+						.get(pid);
+				List<StatementUpdate.StatementWithUpdate> actualStatements = actual.toKeep
+						.get(pid);
+				assertEquals(expectedStatements.size(), actualStatements.size());
+				for (int i = 0; i < expectedStatements.size(); i++) {
+					assertEquals(expectedStatements.get(i).statement,
+							actualStatements.get(i).statement);
+					assertEquals(expectedStatements.get(i).write,
+							actualStatements.get(i).write);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns a statement about {@link #Q1} that is built from a few possible
+	 * values, so that random statements often have equivalent claims.
+	 */
+	private static Statement makeRandomStatement(Random random, String id) {
+		PropertyIdValue[] properties = { P1, P2 };
+		Value[] values = { Q1, Q2, Q3 };
+		StatementBuilder builder = StatementBuilder.forSubjectAndProperty(Q1,
+				properties[random.nextInt(properties.length)]).withValue(
+				values[random.nextInt(values.length)]);
+		if (random.nextInt(3) == 0) {
+			builder.withQualifierValue(P3, values[random.nextInt(values.length)]);
+		}
+		builder.withRank(StatementRank.values()[random.nextInt(StatementRank
+				.values().length)]);
+		if (random.nextBoolean()) {
+			builder.withReference(ReferenceBuilder.newInstance()
+					.withPropertyValue(P3, values[random.nextInt(values.length)])
+					.build());
+		}
+		return builder.withId(id).build();
+	}
+
 	@Test
 	public void testDeleteAndAdd() {
 		// Explicitly deleted statement won't merge
@@ -21,11 +21,14 @@
 package org.wikidata.wdtk.wikibaseapi;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -123,6 +126,36 @@ public class WbGetEntitiesActionTest {
 		assertThrows(IOException.class, () -> action.wbGetEntities(properties));
 	}
 
+	@Test
+	public void testWbGetEntitiesStreaming() throws MediaWikiApiErrorException, IOException {
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q6|Q42|P31";
+		Map<String, EntityDocument> result = new HashMap<>();
+		action.wbGetEntities(properties, (key, document) -> {
+			assertFalse(result.containsKey(key));
+			result.put(key, document);
+		});
+
+		assertTrue(result.containsKey("Q42"));
+		assertEquals(action.wbGetEntities(properties), result);
+	}
+
+	@Test
+	public void testWbGetEntitiesStreamingError() throws IOException {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("ids", "Q0");
+		this.con.setWebResourceFromPath(params, getClass(), "/error.json",
+				CompressionType.NONE);
+		WbGetEntitiesActionData properties = new WbGetEntitiesActionData();
+		properties.ids = "Q0";
+		List<EntityDocument> result = new ArrayList<>();
+		assertThrows(MediaWikiApiErrorException.class,
+				() -> action.wbGetEntities(properties, (key, document) -> result.add(document)));
+		assertTrue(result.isEmpty());
+	}
+
 	@Test
 	public void testIdsAndTitles() throws MediaWikiApiErrorException, IOException {
 		assertThrows(IllegalArgumentException.class, () -> action.wbGetEntities("Q42", null, "Tim Berners Lee", null, null, null));
@@ -27,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -86,6 +87,28 @@ public class WbSearchEntitiesActionTest {
         assertEquals(aliases, firstResult.getAliases());
     }
 
+    @Test
+    public void testWbSearchEntitiesIterator() throws IOException {
+        Map<String, String> params = new HashMap<>();
+        params.put(ApiConnection.PARAM_ACTION, "wbsearchentities");
+        params.put(ApiConnection.PARAM_FORMAT, "json");
+        params.put("search", "abc");
+        params.put("language", "en");
+        params.put("continue", "7");
+        this.con.setWebResourceFromPath(params, getClass(),
+                "/wbsearchentities-empty.json", CompressionType.NONE);
+
+        WbGetEntitiesSearchData properties = new WbGetEntitiesSearchData();
+        properties.search = "abc";
+        properties.language = "en";
+        Iterator<WbSearchEntitiesResult> iterator = action.wbSearchEntitiesIterator(properties);
+        List<WbSearchEntitiesResult> results = new ArrayList<>();
+        iterator.forEachRemaining(results::add);
+
+        assertEquals(7, results.size());
+        assertEquals("Q169889", results.get(0).getEntityId());
+    }
+
     @Test
     public void testWbSearchEntitiesEmpty() throws MediaWikiApiErrorException, IOException {
         List<WbSearchEntitiesResult> results = action.wbSearchEntities(
@@ -49,6 +49,7 @@ import org.wikidata.wdtk.datamodel.interfaces.PropertyDocument;
 import org.wikidata.wdtk.datamodel.interfaces.PropertyIdValue;
 import org.wikidata.wdtk.datamodel.interfaces.Statement;
 import org.wikidata.wdtk.util.CompressionType;
+import org.wikidata.wdtk.wikibaseapi.apierrors.EditConflictErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.MediaWikiApiErrorException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.TagsApplyNotAllowedException;
 import org.wikidata.wdtk.wikibaseapi.apierrors.TokenErrorException;
@@ -832,4 +833,121 @@ public class WikibaseDataEditorTest {
 				Collections.<Statement>emptyList(), "testing tags", Collections.singletonList("tag_which_does_not_exist")));
 	}
 
+	private void setUpEditConflict(String description, long revisionId) {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbsetdescription");
+		params.put("id", "Q1234");
+		params.put("summary", "Adding a description");
+		params.put("token", "42307b93c79b0cb558d2dfb4c3c92e0955e06041+\\");
+		params.put("format", "json");
+		params.put("baserevid", Long.toString(revisionId));
+		params.put("maxlag", "5");
+		params.put("language", "en");
+		params.put("value", description);
+		con.setWebResource(params, "{\"error\":{\"code\":\"editconflict\","
+				+ "\"info\":\"Edit conflict: revision " + revisionId + " is outdated.\"}}");
+	}
+
+	private void setUpCurrentRevision(long revisionId) {
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("props",
+				"info|datatype|labels|aliases|descriptions|claims|sitelinks");
+		params.put("ids", "Q1234");
+		con.setWebResource(params, "{\"entities\":{\"Q1234\":{\"id\":\"Q1234\","
+				+ "\"type\":\"item\",\"lastrevid\":" + revisionId + ","
+				+ "\"labels\":{\"en\":{\"language\":\"en\",\"value\":\"Concurrent label\"}}}},"
+				+ "\"success\":1}");
+	}
+
+	@Test
+	public void testRetryAfterEditConflict() throws MediaWikiApiErrorException, IOException {
+		WikibaseDataEditor wde = new WikibaseDataEditor(this.con,
+				Datamodel.SITE_WIKIDATA);
+		ItemIdValue id = Datamodel.makeWikidataItemIdValue("Q1234");
+		MonolingualTextValue label = Datamodel.makeMonolingualTextValue("Concurrent label", "en");
+		MonolingualTextValue description = Datamodel.makeMonolingualTextValue("My description", "en");
+		ItemDocument itemDocument = ItemDocumentBuilder.forItemId(id)
+				.withRevisionId(1234)
+				.build();
+		ItemDocument expectedDocument = ItemDocumentBuilder.forItemId(id)
+				.withLabel(label)
+				.withDescription(description)
+				.withRevisionId(1241L)
+				.build();
+
+		setUpEditConflict("My description", 1234);
+		setUpCurrentRevision(1240);
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbsetdescription");
+		params.put("id", "Q1234");
+		params.put("summary", "Adding a description");
+		params.put("token", "42307b93c79b0cb558d2dfb4c3c92e0955e06041+\\");
+		params.put("format", "json");
+		params.put("baserevid", "1240");
+		params.put("maxlag", "5");
+		params.put("language", "en");
+		params.put("value", "My description");
+		String expectedResult = "{\"entity\":{\"descriptions\":{\"en\":{\"language\":\"en\",\"value\":\"My description\"}},"+
+				"\"id\":\"Q1234\",\"type\":\"item\",\"lastrevid\":1241},\"success\":1}";
+		con.setWebResource(params, expectedResult);
+
+		ItemDocument editedDocument = wde.updateTermsStatements(itemDocument, Collections.emptyList(),
+				Collections.singletonList(description),	Collections.<MonolingualTextValue>emptyList(),
+				Collections.<MonolingualTextValue>emptyList(), Collections.<Statement>emptyList(),
+				Collections.<Statement>emptyList(), "Adding a description", null);
+
+		assertEquals(expectedDocument, editedDocument);
+	}
+
+	@Test
+	public void testNoRetryAfterRedirect() throws IOException {
+		WikibaseDataEditor wde = new WikibaseDataEditor(this.con,
+				Datamodel.SITE_WIKIDATA);
+		ItemIdValue id = Datamodel.makeWikidataItemIdValue("Q1234");
+		MonolingualTextValue description = Datamodel.makeMonolingualTextValue("My description", "en");
+		ItemDocument itemDocument = ItemDocumentBuilder.forItemId(id)
+				.withRevisionId(1234)
+				.build();
+
+		setUpEditConflict("My description", 1234);
+		// Q1234 has been merged into Q5678 in the meantime
+		Map<String, String> params = new HashMap<>();
+		params.put("action", "wbgetentities");
+		params.put("format", "json");
+		params.put("props",
+				"info|datatype|labels|aliases|descriptions|claims|sitelinks");
+		params.put("ids", "Q1234");
+		con.setWebResource(params, "{\"entities\":{\"Q1234\":{\"id\":\"Q5678\","
+				+ "\"type\":\"item\",\"lastrevid\":1240}},\"success\":1}");
+
+		assertThrows(EditConflictErrorException.class, () -> wde.updateTermsStatements(itemDocument, Collections.emptyList(),
+				Collections.singletonList(description),	Collections.<MonolingualTextValue>emptyList(),
+				Collections.<MonolingualTextValue>emptyList(), Collections.<Statement>emptyList(),
+				Collections.<Statement>emptyList(), "Adding a description", null));
+	}
+
+	@Test
+	public void testEditConflictRetriesExhausted() throws IOException {
+		WikibaseDataEditor wde = new WikibaseDataEditor(this.con,
+				Datamodel.SITE_WIKIDATA);
+		wde.setEditConflictMaxRetries(1);
+		assertEquals(1, wde.getEditConflictMaxRetries());
+		ItemIdValue id = Datamodel.makeWikidataItemIdValue("Q1234");
+		MonolingualTextValue description = Datamodel.makeMonolingualTextValue("My description", "en");
+		ItemDocument itemDocument = ItemDocumentBuilder.forItemId(id)
+				.withRevisionId(1234)
+				.build();
+
+		setUpEditConflict("My description", 1234);
+		setUpCurrentRevision(1240);
+		setUpEditConflict("My description", 1240);
+
+		assertThrows(EditConflictErrorException.class, () -> wde.updateTermsStatements(itemDocument, Collections.emptyList(),
+				Collections.singletonList(description),	Collections.<MonolingualTextValue>emptyList(),
+				Collections.<MonolingualTextValue>emptyList(), Collections.<Statement>emptyList(),
+				Collections.<Statement>emptyList(), "Adding a description", null));
+	}
+
 }
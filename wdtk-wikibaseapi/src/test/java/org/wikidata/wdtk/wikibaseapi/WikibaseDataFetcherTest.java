@@ -32,6 +32,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -380,6 +381,46 @@ public class WikibaseDataFetcherTest {
 		assertEquals("M925243", result.get("File:Albert Einstein Head.jpg").getId());
 	}
 
+	@Test
+	public void testGetMediaInfoIdsIterator() throws IOException {
+		Map<String, String> parameters1 = new HashMap<>();
+		parameters1.put("action", "query");
+		parameters1.put("format", "json");
+		parameters1.put("titles", "File:Cat.jpg");
+		con.setWebResourceFromPath(parameters1, getClass(),
+				"/query-Cat.jpg.json", CompressionType.NONE);
+
+		Map<String, String> parameters2 = new HashMap<>();
+		parameters2.put("action", "query");
+		parameters2.put("format", "json");
+		parameters2.put("titles", "File:Albert Einstein Head.jpg");
+		con.setWebResourceFromPath(parameters2, getClass(),
+				"/query-Albert Einstein Head.jpg.json", CompressionType.NONE);
+
+		wdf.maxListSize = 1;
+		Iterator<Map.Entry<String, MediaInfoIdValue>> iterator = wdf
+				.getMediaInfoIdsByFileNameIterator(Arrays.asList("Cat.jpg",
+						"File:Albert Einstein Head.jpg").iterator(), 2);
+
+		Map.Entry<String, MediaInfoIdValue> first = iterator.next();
+		assertEquals("Cat.jpg", first.getKey());
+		assertEquals("M32455073", first.getValue().getId());
+		Map.Entry<String, MediaInfoIdValue> second = iterator.next();
+		assertEquals("File:Albert Einstein Head.jpg", second.getKey());
+		assertEquals("M925243", second.getValue().getId());
+		assertFalse(iterator.hasNext());
+	}
+
+	@Test
+	public void testGetMediaInfoIdsIteratorError() throws IOException {
+		Iterator<Map.Entry<String, MediaInfoIdValue>> iterator = wdf
+				.getMediaInfoIdsByFileNameIterator(Collections.singletonList(
+						"Not mocked.jpg").iterator(), 1);
+		PrefetchingIterator.RequestException e = assertThrows(
+				PrefetchingIterator.RequestException.class, iterator::hasNext);
+		assertTrue(e.getCause() instanceof IOException);
+	}
+
 	private void setStandardParameters(Map<String, String> parameters) {
 		parameters.put("action", "wbgetentities");
 		parameters.put("format", "json");